@@ -0,0 +1,162 @@
+package BookMyTrainTicket;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * Database work for the Swing screens, run off the Event Dispatch Thread
+ * Tasks run one at a time on a single background thread with its own
+ * connection, so the screens never block on a query and never share a
+ * transaction with each other or with the payment dialog. load runs in the
+ * background; rows passed to publish are handed to the EDT in batches through
+ * process, so long lists fill in as they arrive. When the task ends,
+ * finished runs on the EDT, then succeeded or failed, which may open modal
+ * dialogs. A cancelled task only gets finished, and if it had not started yet
+ * it never touches the database.
+ */
+public abstract class BackgroundTask<T, V> extends SwingWorker<T, V> {
+    private static final ExecutorService DB_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> runWithOwnConnection(runnable), "swing-db");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Latest slot;
+
+    /**
+     * Database work, run on the background thread
+     */
+    protected abstract T load() throws SQLException;
+
+    /**
+     * Called on the EDT with the result of load
+     */
+    protected void succeeded(T result) {
+    }
+
+    /**
+     * Called on the EDT if load threw
+     */
+    protected abstract void failed(Exception e);
+
+    /**
+     * Called on the EDT first when the task ends, even if it was cancelled
+     */
+    protected void finished() {
+    }
+
+    /**
+     * Queue the task behind any already running
+     */
+    public BackgroundTask<T, V> start() {
+        DB_THREAD.execute(this);
+        return this;
+    }
+
+    @Override
+    protected final T doInBackground() throws Exception {
+        return load();
+    }
+
+    @Override
+    protected final void done() {
+        if (slot != null) {
+            slot.finished(this);
+        }
+        finished();
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            succeeded(get());
+        } catch (CancellationException e) {
+            // Cancelled between the check and get
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            failed(cause instanceof Exception ? (Exception) cause : e);
+        }
+    }
+
+    private static void runWithOwnConnection(Runnable runnable) {
+        try (Connection conn = DatabaseManager.openConnection()) {
+            DatabaseManager.bindThreadConnection(conn);
+            runnable.run();
+        } catch (SQLException e) {
+            // Fall back to the shared connection
+            System.err.println("Background connection failed, using the shared one: " + e.getMessage());
+            runnable.run();
+        } finally {
+            DatabaseManager.bindThreadConnection(null);
+        }
+    }
+
+    /**
+     * Inner class for a slot that only keeps the newest task
+     * Submitting a task cancels the one before it, so a burst of searches
+     * coalesces into the last one: earlier tasks still waiting are skipped and
+     * one already running has its result thrown away. The optional indicator,
+     * typically an indeterminate progress bar, is shown while the slot's
+     * current task runs. Use from the EDT only.
+     */
+    public static class Latest {
+        private final JComponent indicator;
+        private BackgroundTask<?, ?> current;
+
+        public Latest() {
+            this(null);
+        }
+
+        public Latest(JComponent indicator) {
+            this.indicator = indicator;
+            if (indicator != null) {
+                indicator.setVisible(false);
+            }
+        }
+
+        public void submit(BackgroundTask<?, ?> task) {
+            assert SwingUtilities.isEventDispatchThread();
+            cancel();
+            current = task;
+            task.slot = this;
+            setBusy(true);
+            task.start();
+        }
+
+        /**
+         * Drop the current task, if any
+         */
+        public void cancel() {
+            if (current != null) {
+                current.cancel(false);
+                current = null;
+                setBusy(false);
+            }
+        }
+
+        public boolean isBusy() {
+            return current != null;
+        }
+
+        private void finished(BackgroundTask<?, ?> task) {
+            if (task == current) {
+                current = null;
+                setBusy(false);
+            }
+        }
+
+        private void setBusy(boolean busy) {
+            if (indicator != null) {
+                indicator.setVisible(busy);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The rows a benchmark run books, cancels and promotes on
+ * Each run creates its own user, train, route and single seat, named after
+ * the start time so repeated runs on one database do not collide; no other
+ * passenger's booking or queue entry is touched. cleanUp refunds the
+ * fixture's payments with reversing ledger entries and deletes nothing, since
+ * the ledger and the outbox are append-only. Shared by BookingBenchmarks and
+ * the JMH harnesses in the benchmarks module.
+ */
+public class BenchmarkFixture {
+    public static final String SOURCE = "Benchmark Junction";
+    public static final String DESTINATION = "Benchmark Terminal";
+
+    private int userId;
+    private int trainId;
+    private int routeId;
+    private int seatId;
+
+    private BenchmarkFixture() {
+    }
+
+    /**
+     * Create a fixture; refuses anything but the embedded profile
+     */
+    public static BenchmarkFixture create() throws SQLException {
+        if (!DatabaseManager.getProfile().isEmbedded()) {
+            throw new SQLException("Benchmarks book and cancel rows; run them with -Ddb.profile=embedded");
+        }
+
+        BenchmarkFixture fixture = new BenchmarkFixture();
+        Connection conn = DatabaseManager.getConnection();
+        String suffix = Long.toString(System.currentTimeMillis() % 100_000_000);
+
+        DatabaseManager.inTransaction(conn, () -> {
+            fixture.userId = insert(conn, "INSERT INTO users (username, password, email, role) VALUES (?, ?, ?, 'Regular')",
+                "bench" + suffix, "benchmark", "bench" + suffix + "@example.com");
+            fixture.trainId = insert(conn, "INSERT INTO trains (train_name, train_number) VALUES (?, ?)",
+                "Benchmark Express", "BENCH-" + suffix);
+            fixture.routeId = insert(conn, """
+                INSERT INTO routes (train_id, source_station, destination_station, departure_time, arrival_time, price)
+                VALUES (?, ?, ?, '06:00:00', '09:00:00', 100.00)
+                """, fixture.trainId, SOURCE, DESTINATION);
+            int classId = insert(conn, "INSERT INTO classes (train_id, class_type) VALUES (?, 'AC 3 Tier')", fixture.trainId);
+            int compartmentId = insert(conn, "INSERT INTO compartments (class_id, compartment_name) VALUES (?, 'BX1')",
+                classId);
+            fixture.seatId = insert(conn, """
+                INSERT INTO seats (compartment_id, berth_type, seat_number, is_available)
+                VALUES (?, 'Lower', 'BX1-1', TRUE)
+                """, compartmentId);
+            return null;
+        });
+        return fixture;
+    }
+
+    public int getUserId() { return userId; }
+    public int getTrainId() { return trainId; }
+    public int getRouteId() { return routeId; }
+    public int getSeatId() { return seatId; }
+
+    /**
+     * Book the fixture's seat and cancel it again, leaving the seat free
+     */
+    public void bookAndCancel(BookingManager bookingManager) throws SQLException {
+        BookingManager.BookingResult result = bookingManager.createBooking(
+            userId, seatId, trainId, routeId, "Benchmark", 30);
+        if (!result.isSuccess() || !"Confirmed".equals(result.getStatus())) {
+            throw new SQLException("Benchmark seat " + seatId + " could not be booked: " + result.getMessage());
+        }
+        bookingManager.cancelBooking(result.getId());
+    }
+
+    private static int insert(Connection conn, String sql, Object... values) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < values.length; i++) {
+                pstmt.setObject(i + 1, values[i]);
+            }
+            pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (!rs.next()) {
+                    throw new SQLException("No key generated for benchmark fixture");
+                }
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * A receipt with every field set, for rendering without the database
+     */
+    public static PaymentManager.PaymentReceipt sampleReceipt() {
+        PaymentManager.PaymentReceipt receipt = new PaymentManager.PaymentReceipt();
+        receipt.setPaymentId(1001);
+        receipt.setBookingId(2002);
+        receipt.setPnrNumber("PNR1234567");
+        receipt.setPassengerName("Benchmark Passenger");
+        receipt.setTrainName("Rajdhani Express");
+        receipt.setTrainNumber("12301");
+        receipt.setSourceStation("New Delhi");
+        receipt.setDestinationStation("Mumbai Central");
+        receipt.setDepartureTime("16:55:00");
+        receipt.setArrivalTime("08:35:00");
+        receipt.setSeatNumber("A1-1");
+        receipt.setBerthType("Lower");
+        receipt.setClassType("AC 2 Tier");
+        receipt.setAmount(1500.00);
+        receipt.setPaymentMethod(PaymentManager.PaymentMethod.UPI);
+        receipt.setTransactionId("TXN0000000001");
+        receipt.setPaymentTime(new Date());
+        receipt.setStatus(PaymentManager.PaymentStatus.SUCCESS);
+        return receipt;
+    }
+
+    /**
+     * Refund the payments of the fixture's bookings
+     * The bookings were cancelled as they were made; each payment is reversed by
+     * a refund entry in the same transaction that marks it refunded.
+     */
+    public void cleanUp() throws SQLException {
+        Connection conn = DatabaseManager.getConnection();
+
+        DatabaseManager.inTransaction(conn, () -> {
+            List<PaymentLedger.Entry> refunds = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("""
+                    SELECT p.payment_id, p.booking_id, p.amount
+                    FROM payments p
+                    JOIN bookings b ON p.booking_id = b.booking_id
+                    WHERE b.train_id = ? AND p.status = 'Success'
+                    """)) {
+                pstmt.setInt(1, trainId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        refunds.add(PaymentLedger.refund(rs.getInt("payment_id"), rs.getInt("booking_id"),
+                            rs.getBigDecimal("amount")));
+                    }
+                }
+            }
+            if (refunds.isEmpty()) {
+                return null;
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement("""
+                    UPDATE payments SET status = 'Refunded'
+                    WHERE status = 'Success' AND booking_id IN (SELECT booking_id FROM bookings WHERE train_id = ?)
+                    """)) {
+                pstmt.setInt(1, trainId);
+                pstmt.executeUpdate();
+            }
+            PaymentLedger.getInstance().record(conn, refunds);
+            return null;
+        });
+    }
+}
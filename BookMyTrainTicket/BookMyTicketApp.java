@@ -6,6 +6,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,8 +19,22 @@ public class BookMyTicketApp {
     private LoginOperations loginOps;
     private TrainManager trainManager;
     private BookingManager bookingManager;
+    private MyBookingsProjection myBookings;
     private SeatAvailabilityManager seatManager;
     
+    private static final int STATION_REFRESH_MILLIS = 60_000;
+    // My Bookings paging cursor
+    private static final int BOOKINGS_PAGE_SIZE = 50;
+    private LocalDateTime lastBookingTime;
+    private int lastBookingId;
+    
+    // Background loads; a new load replaces the one still running
+    private final BackgroundTask.Latest seatMapLoads = new BackgroundTask.Latest();
+    private final BackgroundTask.Latest stationLoads = new BackgroundTask.Latest();
+    private Timer stationRefresh;
+    private BackgroundTask.Latest bookingLoads;
+    private JTextArea bookingsArea;
+    
     // GUI Components
     private JPanel currentPanel;
     private CardLayout cardLayout;
@@ -31,6 +46,7 @@ public class BookMyTicketApp {
             loginOps = new LoginOperations();
             trainManager = new TrainManager();
             bookingManager = new BookingManager();
+            myBookings = MyBookingsProjection.getInstance();
             seatManager = new SeatAvailabilityManager();
             
             // Initialize GUI
@@ -152,19 +168,35 @@ public class BookMyTicketApp {
                 return;
             }
             
-            try {
-                User user = loginOps.authenticateUser(username, password);
-                if (user != null) {
-                    currentUser = user;
-                    showMainDashboard();
-                } else {
-                    JOptionPane.showMessageDialog(mainFrame, "Invalid username or password", 
-                        "Login Failed", JOptionPane.ERROR_MESSAGE);
+            loginButton.setEnabled(false);
+            new BackgroundTask<User, Void>() {
+                @Override
+                protected User load() throws SQLException {
+                    return loginOps.authenticateUser(username, password);
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(mainFrame, "Database error: " + ex.getMessage(), 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+                
+                @Override
+                protected void succeeded(User user) {
+                    if (user != null) {
+                        currentUser = user;
+                        showMainDashboard();
+                    } else {
+                        JOptionPane.showMessageDialog(mainFrame, "Invalid username or password", 
+                            "Login Failed", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                
+                @Override
+                protected void failed(Exception ex) {
+                    JOptionPane.showMessageDialog(mainFrame, "Database error: " + ex.getMessage(), 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+                
+                @Override
+                protected void finished() {
+                    loginButton.setEnabled(true);
+                }
+            }.start();
         });
         
         // Register button action
@@ -243,20 +275,36 @@ public class BookMyTicketApp {
                 return;
             }
             
-            try {
-                boolean success = loginOps.registerUser(username, password, email, role);
-                if (success) {
-                    JOptionPane.showMessageDialog(mainFrame, "Registration successful! Please login.", 
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                    cardLayout.show(mainPanel, "LOGIN");
-                } else {
-                    JOptionPane.showMessageDialog(mainFrame, "Username already exists", 
+            registerButton.setEnabled(false);
+            new BackgroundTask<Boolean, Void>() {
+                @Override
+                protected Boolean load() throws SQLException {
+                    return loginOps.registerUser(username, password, email, role);
+                }
+                
+                @Override
+                protected void succeeded(Boolean success) {
+                    if (success) {
+                        JOptionPane.showMessageDialog(mainFrame, "Registration successful! Please login.", 
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                        cardLayout.show(mainPanel, "LOGIN");
+                    } else {
+                        JOptionPane.showMessageDialog(mainFrame, "Username already exists", 
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+                
+                @Override
+                protected void failed(Exception ex) {
+                    JOptionPane.showMessageDialog(mainFrame, "Database error: " + ex.getMessage(), 
                         "Error", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(mainFrame, "Database error: " + ex.getMessage(), 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+                
+                @Override
+                protected void finished() {
+                    registerButton.setEnabled(true);
+                }
+            }.start();
         });
         
         // Back button action
@@ -337,6 +385,19 @@ public class BookMyTicketApp {
         JButton searchButton = new JButton("Search Trains");
         searchButton.setBackground(new Color(30, 144, 255));
         searchButton.setForeground(Color.BLACK);
+        JProgressBar searchProgress = new JProgressBar();
+        searchProgress.setIndeterminate(true);
+        BackgroundTask.Latest searches = new BackgroundTask.Latest(searchProgress);
+        
+        // Station suggestions from the in-memory index, topped up every minute and periodically rebuilt
+        StationIndex stations = StationIndex.getInstance();
+        StationAutocomplete.attach(sourceField, stations);
+        StationAutocomplete.attach(destField, stations);
+        refreshStations();
+        if (stationRefresh == null) {
+            stationRefresh = new Timer(STATION_REFRESH_MILLIS, e -> refreshStations());
+        }
+        stationRefresh.start();
         
         gbc.insets = new Insets(10, 10, 10, 10);
         gbc.gridx = 0; gbc.gridy = 0;
@@ -349,6 +410,8 @@ public class BookMyTicketApp {
         searchPanel.add(destField, gbc);
         gbc.gridx = 4;
         searchPanel.add(searchButton, gbc);
+        gbc.gridx = 5;
+        searchPanel.add(searchProgress, gbc);
         
         panel.add(searchPanel, BorderLayout.NORTH);
         
@@ -359,8 +422,12 @@ public class BookMyTicketApp {
         JScrollPane scrollPane = new JScrollPane(resultsArea);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        // Search button action
-        searchButton.addActionListener(e -> {
+        // Holds the booking button once a search finds trains
+        JPanel buttonPanel = new JPanel();
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        // Search action; a new search replaces one still running
+        ActionListener search = e -> {
             String source = sourceField.getText().trim();
             String destination = destField.getText().trim();
             
@@ -370,51 +437,88 @@ public class BookMyTicketApp {
                 return;
             }
             
-            try {
-                List<TrainManager.TrainSearchResult> results = trainManager.searchTrains(source, destination);
-                
-                StringBuilder sb = new StringBuilder();
-                sb.append("Search Results for: ").append(source).append(" → ").append(destination).append("\n");
-                sb.append("=".repeat(80)).append("\n\n");
+            stations.recordSearch(source);
+            stations.recordSearch(destination);
+            resultsArea.setText("Searching " + source + " → " + destination + "...\n");
+            buttonPanel.removeAll();
+            buttonPanel.revalidate();
+            buttonPanel.repaint();
+            
+            searches.submit(new BackgroundTask<List<TrainManager.TrainSearchResult>, Void>() {
+                @Override
+                protected List<TrainManager.TrainSearchResult> load() throws SQLException {
+                    return trainManager.searchTrains(source, destination);
+                }
                 
-                if (results.isEmpty()) {
-                    sb.append("No trains found for the specified route.\n");
-                } else {
-                    int index = 1;
-                    for (TrainManager.TrainSearchResult result : results) {
-                        sb.append(index++).append(". ");
-                        sb.append(result.getTrain().getTrainName()).append(" (").append(result.getTrain().getTrainNumber()).append(")\n");
-                        sb.append("   Route: ").append(result.getRoute().getSourceStation()).append(" → ");
-                        sb.append(result.getRoute().getDestinationStation()).append("\n");
-                        sb.append("   Departure: ").append(result.getRoute().getDepartureTime());
-                        sb.append(" | Arrival: ").append(result.getRoute().getArrivalTime()).append("\n");
-                        sb.append("   Price: ₹").append(result.getRoute().getPrice());
-                        sb.append(" | Available Seats: ").append(result.getAvailableSeats()).append("\n");
-                        sb.append("   [Click 'Book Seat' to proceed with booking]\n\n");
-                    }
+                @Override
+                protected void succeeded(List<TrainManager.TrainSearchResult> results) {
+                    StringBuilder sb = new StringBuilder();
+                    sb.append("Search Results for: ").append(source).append(" → ").append(destination).append("\n");
+                    sb.append("=".repeat(80)).append("\n\n");
                     
-                    // Add booking button
-                    JButton bookButton = new JButton("Book Seat for Selected Train");
-                    bookButton.setBackground(new Color(34, 139, 34));
-                    bookButton.setForeground(Color.BLACK);
-                    bookButton.addActionListener(bookEvent -> showSeatSelectionDialog(results));
+                    if (results.isEmpty()) {
+                        sb.append("No trains found for the specified route.\n");
+                    } else {
+                        int index = 1;
+                        for (TrainManager.TrainSearchResult result : results) {
+                            sb.append(index++).append(". ");
+                            sb.append(result.getTrain().getTrainName()).append(" (").append(result.getTrain().getTrainNumber()).append(")\n");
+                            sb.append("   Route: ").append(result.getRoute().getSourceStation()).append(" → ");
+                            sb.append(result.getRoute().getDestinationStation()).append("\n");
+                            sb.append("   Departure: ").append(result.getRoute().getDepartureTime());
+                            sb.append(" | Arrival: ").append(result.getRoute().getArrivalTime()).append("\n");
+                            sb.append("   Price: ₹").append(result.getRoute().getPrice());
+                            sb.append(" | Available Seats: ").append(result.getAvailableSeats()).append("\n");
+                            sb.append("   [Click 'Book Seat' to proceed with booking]\n\n");
+                        }
+                        
+                        // Add booking button
+                        JButton bookButton = new JButton("Book Seat for Selected Train");
+                        bookButton.setBackground(new Color(34, 139, 34));
+                        bookButton.setForeground(Color.BLACK);
+                        bookButton.addActionListener(bookEvent -> showSeatSelectionDialog(results));
+                        
+                        buttonPanel.add(bookButton);
+                        buttonPanel.revalidate();
+                    }
                     
-                    JPanel buttonPanel = new JPanel();
-                    buttonPanel.add(bookButton);
-                    panel.add(buttonPanel, BorderLayout.SOUTH);
+                    resultsArea.setText(sb.toString());
                 }
                 
-                resultsArea.setText(sb.toString());
-                
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(mainFrame, "Error searching trains: " + ex.getMessage(), 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        });
+                @Override
+                protected void failed(Exception ex) {
+                    resultsArea.setText("");
+                    JOptionPane.showMessageDialog(mainFrame, "Error searching trains: " + ex.getMessage(), 
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        };
+        searchButton.addActionListener(search);
+        sourceField.addActionListener(search);
+        destField.addActionListener(search);
         
         return panel;
     }
     
+    private void refreshStations() {
+        // A refresh still running covers this one
+        if (stationLoads.isBusy()) {
+            return;
+        }
+        stationLoads.submit(new BackgroundTask<Integer, Void>() {
+            @Override
+            protected Integer load() throws SQLException {
+                return StationIndex.getInstance().refresh();
+            }
+            
+            @Override
+            protected void failed(Exception e) {
+                // Suggestions stay as they were; searching still works without them
+                System.err.println("Station index refresh failed: " + e.getMessage());
+            }
+        });
+    }
+    
     private void showSeatSelectionDialog(List<TrainManager.TrainSearchResult> searchResults) {
         if (searchResults.isEmpty()) {
             JOptionPane.showMessageDialog(mainFrame, "No trains available", "Error", JOptionPane.ERROR_MESSAGE);
@@ -440,82 +544,110 @@ public class BookMyTicketApp {
     }
     
     private void showSeatMapDialog(TrainManager.TrainSearchResult trainResult) {
-        JDialog seatDialog = new JDialog(mainFrame, "Select Seat - " + trainResult.getTrain().getTrainName(), true);
-        seatDialog.setSize(800, 600);
-        seatDialog.setLocationRelativeTo(mainFrame);
+        int trainId = trainResult.getTrain().getTrainId();
         
-        try {
-            List<SeatAvailabilityManager.SeatWithDetails> seats = seatManager.getAvailableSeats(
-                trainResult.getTrain().getTrainId(), trainResult.getRoute().getRouteId());
-            
-            // Get recommended seats for user type
-            List<SeatAvailabilityManager.SeatWithDetails> recommendedSeats = 
-                seatManager.getRecommendedSeats(trainResult.getTrain().getTrainId(), currentUser.getRole());
+        mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        seatMapLoads.submit(new BackgroundTask<SeatMap, Void>() {
+            private volatile SeatAvailabilityBus.Subscription updates;
             
-            JPanel mainPanel = new JPanel(new BorderLayout());
-            
-            // Info panel
-            JPanel infoPanel = new JPanel();
-            infoPanel.add(new JLabel("Recommended seats for " + currentUser.getRole() + " users are highlighted"));
-            mainPanel.add(infoPanel, BorderLayout.NORTH);
-            
-            // Seat selection area
-            JPanel seatPanel = new JPanel(new GridLayout(0, 6, 5, 5));
-            seatPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
-            
-            ButtonGroup seatGroup = new ButtonGroup();
-            
-            for (SeatAvailabilityManager.SeatWithDetails seat : seats) {
-                JRadioButton seatButton = new JRadioButton(seat.getSeatNumber() + " (" + seat.getBerthType() + ")");
-                seatButton.putClientProperty("seat", seat);
-                
-                // Highlight recommended seats
-                if (recommendedSeats.contains(seat)) {
-                    seatButton.setBackground(new Color(144, 238, 144));
-                    seatButton.setOpaque(true);
+            @Override
+            protected SeatMap load() throws SQLException {
+                // Capture changes from before the snapshot is read so none fall in between
+                updates = SeatAvailabilityBus.getInstance().subscribe(trainId);
+                try {
+                    // Booked seats too; the map greys them out
+                    SeatMap seatMap = seatManager.getSeatMap(trainId);
+                    updates.attach(seatMap);
+                    if (isCancelled()) {
+                        updates.close();
+                    }
+                    return seatMap;
+                } catch (SQLException e) {
+                    updates.close();
+                    throw e;
                 }
-                
-                seatGroup.add(seatButton);
-                seatPanel.add(seatButton);
             }
             
-            JScrollPane seatScrollPane = new JScrollPane(seatPanel);
-            mainPanel.add(seatScrollPane, BorderLayout.CENTER);
+            @Override
+            protected void succeeded(SeatMap seatMap) {
+                showSeatMapDialog(trainResult, seatMap, updates);
+            }
             
-            // Book button
-            JPanel buttonPanel = new JPanel();
-            JButton bookButton = new JButton("Book Selected Seat");
-            bookButton.setBackground(new Color(34, 139, 34));
-            bookButton.setForeground(Color.BLACK);
+            @Override
+            protected void failed(Exception e) {
+                JOptionPane.showMessageDialog(mainFrame, "Error loading seats: " + e.getMessage(), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
             
-            bookButton.addActionListener(e -> {
-                // Find selected seat
-                SeatAvailabilityManager.SeatWithDetails selectedSeat = null;
-                for (AbstractButton button : java.util.Collections.list(seatGroup.getElements())) {
-                    if (button.isSelected()) {
-                        selectedSeat = (SeatAvailabilityManager.SeatWithDetails) button.getClientProperty("seat");
-                        break;
-                    }
+            @Override
+            protected void finished() {
+                mainFrame.setCursor(null);
+                if (isCancelled() && updates != null) {
+                    updates.close();
                 }
-                
-                if (selectedSeat == null) {
-                    JOptionPane.showMessageDialog(seatDialog, "Please select a seat", "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
-                }
-                
-                // Show passenger details dialog
-                showPassengerDetailsDialog(trainResult, selectedSeat, seatDialog);
-            });
-            
-            buttonPanel.add(bookButton);
-            mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+            }
+        });
+    }
+    
+    private void showSeatMapDialog(TrainManager.TrainSearchResult trainResult, SeatMap seatMap,
+                                   SeatAvailabilityBus.Subscription updates) {
+        JDialog seatDialog = new JDialog(mainFrame, "Select Seat - " + trainResult.getTrain().getTrainName(), true);
+        seatDialog.setSize(800, 600);
+        seatDialog.setLocationRelativeTo(mainFrame);
+        
+        JPanel mainPanel = new JPanel(new BorderLayout());
+        
+        // Info panel
+        JPanel infoPanel = new JPanel(new GridLayout(0, 1));
+        infoPanel.add(new JLabel("Recommended seats for " + currentUser.getRole() + " users are highlighted, booked seats are grey", 
+            SwingConstants.CENTER));
+        JLabel liveLabel = new JLabel("Seats update live as they are booked and released", SwingConstants.CENTER);
+        infoPanel.add(liveLabel);
+        mainPanel.add(infoPanel, BorderLayout.NORTH);
+        
+        // Seat selection area, drawn as one component however long the train
+        SeatMapView seatView = new SeatMapView(seatMap, currentUser.getRole());
+        JScrollPane seatScrollPane = new JScrollPane(seatView);
+        seatScrollPane.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        mainPanel.add(seatScrollPane, BorderLayout.CENTER);
+        
+        // Live availability; diffs arrive on the bus thread at most 20 times a second
+        updates.setListener(diff -> SwingUtilities.invokeLater(() -> {
+            int selected = seatView.getSelectedSeat();
+            seatView.applyChanges(diff);
+            if (selected >= 0 && seatView.getSelectedSeat() < 0) {
+                liveLabel.setText("Seat " + seatMap.getSeatNumber(selected) + " was just booked by someone else, please pick another");
+                liveLabel.setForeground(new Color(220, 20, 60));
+            }
+        }));
+        
+        // Book button
+        JPanel buttonPanel = new JPanel();
+        JButton bookButton = new JButton("Book Selected Seat");
+        bookButton.setBackground(new Color(34, 139, 34));
+        bookButton.setForeground(Color.BLACK);
+        
+        bookButton.addActionListener(e -> {
+            int selectedIndex = seatView.getSelectedSeat();
+            if (selectedIndex < 0) {
+                JOptionPane.showMessageDialog(seatDialog, "Please select a seat", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            SeatAvailabilityManager.SeatWithDetails selectedSeat = seatMap.getSeat(selectedIndex);
             
-            seatDialog.add(mainPanel);
+            // Show passenger details dialog
+            showPassengerDetailsDialog(trainResult, selectedSeat, seatDialog);
+        });
+        
+        buttonPanel.add(bookButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        seatDialog.add(mainPanel);
+        try {
             seatDialog.setVisible(true);
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(mainFrame, "Error loading seats: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
+        } finally {
+            // The dialog is modal, so it has been closed by now
+            updates.close();
         }
     }
     
@@ -551,6 +683,7 @@ public class BookMyTicketApp {
         gbc.insets = new Insets(20, 10, 10, 10);
         panel.add(confirmButton, gbc);
         
+        int currentUserId = currentUser.getUserId();
         confirmButton.addActionListener(e -> {
             String name = nameField.getText().trim();
             String ageText = ageField.getText().trim();
@@ -561,63 +694,91 @@ public class BookMyTicketApp {
                 return;
             }
             
+            int age;
             try {
-                int age = Integer.parseInt(ageText);
-                if (age <= 0 || age > 120) {
-                    JOptionPane.showMessageDialog(passengerDialog, "Please enter a valid age", 
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                    return;
+                age = Integer.parseInt(ageText);
+            } catch (NumberFormatException ex) {
+                age = 0;
+            }
+            if (age <= 0 || age > 120) {
+                JOptionPane.showMessageDialog(passengerDialog, "Please enter a valid age", 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            
+            // Hold the seat while the user pays
+            int passengerAge = age;
+            confirmButton.setEnabled(false);
+            passengerDialog.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new BackgroundTask<BookingManager.BookingResult, Void>() {
+                @Override
+                protected BookingManager.BookingResult load() throws SQLException {
+                    return bookingManager.holdBooking(
+                        currentUserId,
+                        seat.getSeatId(),
+                        trainResult.getTrain().getTrainId(),
+                        trainResult.getRoute().getRouteId(),
+                        name,
+                        passengerAge
+                    );
                 }
                 
-                // Create booking
-                BookingManager.BookingResult result = bookingManager.createBooking(
-                    currentUser.getUserId(),
-                    seat.getSeatId(),
-                    trainResult.getTrain().getTrainId(),
-                    trainResult.getRoute().getRouteId(),
-                    name,
-                    age
-                );
-
-                if (result.isSuccess()) {
-                    // Show payment dialog
-                    BigDecimal bookingAmount = trainResult.getRoute().getPrice();
-                    PaymentDialog paymentDialog = new PaymentDialog(mainFrame, result.getId(), bookingAmount);
-                    paymentDialog.setVisible(true);
-                    
-                    passengerDialog.dispose();
-                    parentDialog.dispose();
-                    
-                    // Refresh my bookings tab
-                    refreshMyBookings();
-                     if (paymentDialog.isPaymentSuccessful()) {
-                        JOptionPane.showMessageDialog(passengerDialog, 
-                            "Booking and payment successful!\nBooking ID: " + result.getId(), 
-                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                @Override
+                protected void succeeded(BookingManager.BookingResult result) {
+                    if (result.isSuccess() && !"Held".equals(result.getStatus())) {
+                        // Seat was taken meanwhile; the passenger went to RAC or waitlist
+                        JOptionPane.showMessageDialog(passengerDialog, result.getMessage(), 
+                            "Seat No Longer Available", JOptionPane.INFORMATION_MESSAGE);
+                        passengerDialog.dispose();
+                        parentDialog.dispose();
+                        refreshMyBookings();
+                    } else if (result.isSuccess()) {
+                        // Show payment dialog
+                        BigDecimal bookingAmount = trainResult.getRoute().getPrice();
+                        PaymentDialog paymentDialog = new PaymentDialog(mainFrame, result.getId(), bookingAmount);
+                        paymentDialog.setVisible(true);
                         
                         passengerDialog.dispose();
-                        // parentDialog.dispose();
+                        parentDialog.dispose();
                         
-                        // // Refresh my bookings tab
-                        // refreshMyBookings();
+                        // Refresh my bookings tab
+                        refreshMyBookings();
+                         if (paymentDialog.isPaymentSuccessful()) {
+                            JOptionPane.showMessageDialog(passengerDialog, 
+                                "Booking and payment successful!\nBooking ID: " + result.getId(), 
+                                "Success", JOptionPane.INFORMATION_MESSAGE);
+                            
+                            passengerDialog.dispose();
+                            // parentDialog.dispose();
+                            
+                            // // Refresh my bookings tab
+                            // refreshMyBookings();
+                        } else {
+                            // Return the seat now instead of waiting for the hold to expire
+                            releaseHold(result.getId());
+                            JOptionPane.showMessageDialog(passengerDialog, 
+                                "Payment was not completed. Booking has been cancelled.", 
+                                "Payment Cancelled", JOptionPane.WARNING_MESSAGE);
+                        }
                     } else {
                         JOptionPane.showMessageDialog(passengerDialog, 
-                            "Payment was not completed. Booking has been cancelled.", 
-                            "Payment Cancelled", JOptionPane.WARNING_MESSAGE);
+                            "Booking failed: " + result.getMessage(), 
+                            "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } else {
-                    JOptionPane.showMessageDialog(passengerDialog, 
-                        "Booking failed: " + result.getMessage(), 
+                }
+                
+                @Override
+                protected void failed(Exception ex) {
+                    JOptionPane.showMessageDialog(passengerDialog, "Database error: " + ex.getMessage(), 
                         "Error", JOptionPane.ERROR_MESSAGE);
                 }
                 
-            } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(passengerDialog, "Please enter a valid age", 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            } catch (SQLException ex) {
-                JOptionPane.showMessageDialog(passengerDialog, "Database error: " + ex.getMessage(), 
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            }
+                @Override
+                protected void finished() {
+                    confirmButton.setEnabled(true);
+                    passengerDialog.setCursor(null);
+                }
+            }.start();
         });
         
         passengerDialog.add(panel);
@@ -631,20 +792,25 @@ public class BookMyTicketApp {
         // Refresh button
         JButton refreshButton = new JButton("Refresh");
         refreshButton.addActionListener(e -> refreshMyBookings());
+        JButton loadMoreButton = new JButton("Load More");
+        loadMoreButton.addActionListener(e -> loadMoreBookings());
+        JProgressBar loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
         
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         topPanel.add(refreshButton);
+        topPanel.add(loadMoreButton);
+        topPanel.add(loadingBar);
         panel.add(topPanel, BorderLayout.NORTH);
         
         // Bookings display area
-        JTextArea bookingsArea = new JTextArea(25, 70);
+        bookingsArea = new JTextArea(25, 70);
         bookingsArea.setEditable(false);
         bookingsArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         JScrollPane scrollPane = new JScrollPane(bookingsArea);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        // Store reference for refreshing
-        panel.putClientProperty("bookingsArea", bookingsArea);
+        bookingLoads = new BackgroundTask.Latest(loadingBar);
         
         // Load initial bookings
         refreshMyBookings();
@@ -653,49 +819,117 @@ public class BookMyTicketApp {
     }
     
     private void refreshMyBookings() {
-        try {
-            List<BookingManager.BookingDetails> bookings = bookingManager.getBookingsForUser(currentUser.getUserId());
-            
-            StringBuilder sb = new StringBuilder();
-            sb.append("My Bookings\n");
-            sb.append("=".repeat(100)).append("\n\n");
-            
-            if (bookings.isEmpty()) {
-                sb.append("No bookings found.\n");
-            } else {
+        if (bookingsArea == null) {
+            return;
+        }
+        lastBookingTime = null;
+        lastBookingId = 0;
+        
+        // Drop a page still loading for the old cursor
+        bookingLoads.cancel();
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append("My Bookings\n");
+        sb.append("=".repeat(100)).append("\n\n");
+        bookingsArea.setText(sb.toString());
+        
+        loadMoreBookings();
+    }
+    
+    /**
+     * Append the next page of bookings, continuing from the last one shown
+     * Each booking is appended as soon as it is formatted; clicks while a
+     * page is loading are ignored, since that page continues from the same cursor.
+     */
+    private void loadMoreBookings() {
+        if (bookingsArea == null || bookingLoads.isBusy()) {
+            return;
+        }
+        
+        int userId = currentUser.getUserId();
+        LocalDateTime afterTime = lastBookingTime;
+        int afterId = lastBookingId;
+        
+        bookingLoads.submit(new BackgroundTask<List<BookingManager.BookingDetails>, String>() {
+            @Override
+            protected List<BookingManager.BookingDetails> load() throws SQLException {
+                List<BookingManager.BookingDetails> bookings = myBookings.getBookingsForUser(
+                    userId, afterTime, afterId, BOOKINGS_PAGE_SIZE);
                 for (BookingManager.BookingDetails booking : bookings) {
-                    sb.append("Booking ID: ").append(booking.getBookingId()).append("\n");
-                    sb.append("Train: ").append(booking.getTrainName()).append(" (").append(booking.getTrainNumber()).append(")\n");
-                    sb.append("Route: ").append(booking.getSourceStation()).append(" → ").append(booking.getDestinationStation()).append("\n");
-                    sb.append("Passenger: ").append(booking.getPassengerName()).append(" (Age: ").append(booking.getPassengerAge()).append(")\n");
-                    sb.append("Seat: ").append(booking.getSeatNumber() != null ? booking.getSeatNumber() : "N/A");
-                    if (booking.getBerthType() != null) {
-                        sb.append(" (").append(booking.getBerthType()).append(")");
-                    }
-                    sb.append("\n");
-                    sb.append("Status: ").append(booking.getStatus()).append("\n");
-                    sb.append("Booking Time: ").append(booking.getBookingTime()).append("\n");
-                    sb.append("Price: ₹").append(booking.getPrice()).append("\n");
-                    sb.append("-".repeat(80)).append("\n\n");
+                    publish(formatBooking(booking));
                 }
+                return bookings;
             }
             
-            // Find and update the bookings area
-            Component[] components = mainPanel.getComponents();
-            for (Component comp : components) {
-                if (comp instanceof JPanel) {
-                    JTextArea bookingsArea = (JTextArea) ((JPanel) comp).getClientProperty("bookingsArea");
-                    if (bookingsArea != null) {
-                        bookingsArea.setText(sb.toString());
-                        break;
-                    }
+            @Override
+            protected void process(List<String> chunks) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (String chunk : chunks) {
+                    bookingsArea.append(chunk);
                 }
             }
             
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(mainFrame, "Error loading bookings: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
+            @Override
+            protected void succeeded(List<BookingManager.BookingDetails> bookings) {
+                if (bookings.isEmpty()) {
+                    bookingsArea.append(afterTime == null ? "No bookings found.\n" : "No more bookings.\n");
+                } else {
+                    BookingManager.BookingDetails last = bookings.get(bookings.size() - 1);
+                    lastBookingTime = last.getBookingTime();
+                    lastBookingId = last.getBookingId();
+                }
+            }
+            
+            @Override
+            protected void failed(Exception e) {
+                JOptionPane.showMessageDialog(mainFrame, "Error loading bookings: " + e.getMessage(), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
+    private static String formatBooking(BookingManager.BookingDetails booking) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Booking ID: ").append(booking.getBookingId()).append("\n");
+        sb.append("Train: ").append(booking.getTrainName()).append(" (").append(booking.getTrainNumber()).append(")\n");
+        sb.append("Route: ").append(booking.getSourceStation()).append(" → ").append(booking.getDestinationStation()).append("\n");
+        sb.append("Passenger: ").append(booking.getPassengerName()).append(" (Age: ").append(booking.getPassengerAge()).append(")\n");
+        sb.append("Seat: ").append(booking.getSeatNumber() != null ? booking.getSeatNumber() : "N/A");
+        if (booking.getBerthType() != null) {
+            sb.append(" (").append(booking.getBerthType()).append(")");
         }
+        sb.append("\n");
+        sb.append("Status: ").append(booking.getStatus()).append("\n");
+        sb.append("Booking Time: ").append(booking.getBookingTime()).append("\n");
+        sb.append("Price: ₹").append(booking.getPrice()).append("\n");
+        sb.append("-".repeat(80)).append("\n\n");
+        return sb.toString();
+    }
+    
+    /**
+     * Return a held seat in the background, then refresh My Bookings
+     */
+    private void releaseHold(int bookingId) {
+        new BackgroundTask<Void, Void>() {
+            @Override
+            protected Void load() throws SQLException {
+                bookingManager.releaseHold(bookingId);
+                return null;
+            }
+            
+            @Override
+            protected void succeeded(Void result) {
+                refreshMyBookings();
+            }
+            
+            @Override
+            protected void failed(Exception e) {
+                JOptionPane.showMessageDialog(mainFrame, "Error releasing seat: " + e.getMessage(), 
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }.start();
     }
     
     private JPanel createAdminPanel() {
@@ -706,6 +940,14 @@ public class BookMyTicketApp {
     }
     
     private void logout() {
+        if (bookingLoads != null) {
+            bookingLoads.cancel();
+        }
+        seatMapLoads.cancel();
+        if (stationRefresh != null) {
+            stationRefresh.stop();
+        }
+        bookingsArea = null;
         currentUser = null;
         mainPanel.removeAll();
         mainPanel.add(createLoginPanel(), "LOGIN");
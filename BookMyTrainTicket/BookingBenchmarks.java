@@ -0,0 +1,221 @@
+package BookMyTrainTicket;
+
+import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dependency-free benchmark harness for the booking hot paths
+ * The JMH harnesses in the benchmarks module are the reference; this runs the
+ * same scenarios where only RunApp and the JDK are at hand. Each benchmark runs
+ * warmup iterations, then timed measurement iterations of a fixed length, and
+ * reports operations per second with the spread across iterations and the
+ * per-operation latency distribution. With -Dbench.csv=file every result is
+ * appended as a CSV row tagged with the current git commit so runs can be
+ * compared commit to commit. Benchmarks book, cancel and promote rows, so they
+ * run only against the embedded profile (-Ddb.profile=embedded), on a
+ * BenchmarkFixture created for the run.
+ * Usage: BookingBenchmarks [benchmark ...]
+ * Settings: -Dbench.warmup=3 -Dbench.iterations=5 -Dbench.seconds=1
+ */
+public class BookingBenchmarks {
+    private final Map<String, Operation> benchmarks = new LinkedHashMap<>();
+    private int warmupIterations = Integer.getInteger("bench.warmup", 3);
+    private int measurementIterations = Integer.getInteger("bench.iterations", 5);
+    private long iterationMillis = Integer.getInteger("bench.seconds", 1) * 1000L;
+
+    private final TrainManager trainManager;
+    private final SeatAvailabilityManager seatManager;
+    private final BookingManager bookingManager;
+    private final RACQueue racQueue;
+    private final WaitlistManager waitlistManager;
+    private final BenchmarkFixture fixture;
+
+    public BookingBenchmarks() throws SQLException {
+        trainManager = new TrainManager();
+        seatManager = new SeatAvailabilityManager();
+        bookingManager = new BookingManager();
+        racQueue = new RACQueue();
+        waitlistManager = new WaitlistManager();
+        fixture = BenchmarkFixture.create();
+        int userId = fixture.getUserId();
+        int trainId = fixture.getTrainId();
+        int routeId = fixture.getRouteId();
+
+        benchmarks.put("searchTrains", () -> trainManager.searchTrains(BenchmarkFixture.SOURCE, BenchmarkFixture.DESTINATION));
+        benchmarks.put("getAvailableSeats", () -> seatManager.getAvailableSeats(trainId, routeId));
+        benchmarks.put("createBooking", () -> fixture.bookAndCancel(bookingManager));
+        benchmarks.put("racPromotion", () -> {
+            racQueue.addToRAC(userId, trainId, routeId);
+            racQueue.promoteFromRAC(trainId, routeId);
+        });
+        benchmarks.put("waitlistPromotion", () -> {
+            waitlistManager.addToWaitlist(userId, trainId, routeId);
+            waitlistManager.promoteFromWaitlist(trainId, routeId);
+        });
+
+        PaymentManager.PaymentReceipt receipt = BenchmarkFixture.sampleReceipt();
+        ReceiptRenderer renderer = ReceiptRenderer.getDefault();
+        benchmarks.put("renderReceipt", () -> renderer.renderToString(receipt));
+    }
+
+    public void setWarmupIterations(int warmupIterations) {
+        this.warmupIterations = warmupIterations;
+    }
+
+    public void setMeasurementIterations(int measurementIterations) {
+        this.measurementIterations = measurementIterations;
+    }
+
+    public void setIterationMillis(long iterationMillis) {
+        this.iterationMillis = iterationMillis;
+    }
+
+    public List<String> getBenchmarkNames() {
+        return new ArrayList<>(benchmarks.keySet());
+    }
+
+    /**
+     * Run one benchmark by name
+     */
+    public Result run(String name) throws Exception {
+        Operation operation = benchmarks.get(name);
+        if (operation == null) {
+            throw new IllegalArgumentException("Unknown benchmark: " + name);
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(operation, null);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        double[] opsPerSecond = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            opsPerSecond[i] = iterate(operation, latency);
+        }
+        return new Result(name, opsPerSecond, latency);
+    }
+
+    /**
+     * Call the operation back to back for one iteration; returns operations per second
+     */
+    private double iterate(Operation operation, LatencyHistogram latency) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + iterationMillis * 1_000_000;
+        long operations = 0;
+        long now = start;
+
+        while (now < deadline) {
+            long opStart = now;
+            operation.run();
+            now = System.nanoTime();
+            if (latency != null) {
+                latency.recordNanos(now - opStart);
+            }
+            operations++;
+        }
+        return operations * 1_000_000_000.0 / (now - start);
+    }
+
+    /**
+     * One benchmarked operation
+     */
+    interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * Inner class for the result of one benchmark
+     */
+    public static class Result {
+        private final String name;
+        private final double[] opsPerSecond;
+        private final LatencyHistogram latency;
+
+        Result(String name, double[] opsPerSecond, LatencyHistogram latency) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.latency = latency;
+        }
+
+        public String getName() { return name; }
+        public LatencyHistogram getLatency() { return latency; }
+
+        public double getMeanOpsPerSecond() {
+            double sum = 0;
+            for (double ops : opsPerSecond) {
+                sum += ops;
+            }
+            return opsPerSecond.length == 0 ? 0 : sum / opsPerSecond.length;
+        }
+
+        public double getStdDevOpsPerSecond() {
+            double mean = getMeanOpsPerSecond();
+            double sum = 0;
+            for (double ops : opsPerSecond) {
+                sum += (ops - mean) * (ops - mean);
+            }
+            return opsPerSecond.length < 2 ? 0 : Math.sqrt(sum / (opsPerSecond.length - 1));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %12.1f %10.1f %10.3f %10.3f %10.3f", name, getMeanOpsPerSecond(),
+                getStdDevOpsPerSecond(), latency.getPercentileMillis(50), latency.getPercentileMillis(99),
+                latency.getMaxMillis());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!DatabaseManager.getProfile().isEmbedded()) {
+            System.err.println("BookingBenchmarks books and cancels rows; run it with -Ddb.profile=embedded");
+            return;
+        }
+        BookingBenchmarks suite = new BookingBenchmarks();
+        List<String> names = args.length > 0 ? List.of(args) : suite.getBenchmarkNames();
+        String csvPath = System.getProperty("bench.csv");
+        String commit = currentCommit();
+
+        System.out.printf("%-20s %12s %10s %10s %10s %10s%n", "Benchmark", "Ops/sec", "+/-", "p50 ms", "p99 ms", "Max ms");
+        try {
+            for (String name : names) {
+                Result result = suite.run(name);
+                System.out.println(result);
+
+                if (csvPath != null) {
+                    try (PrintWriter out = new PrintWriter(new FileWriter(csvPath, true))) {
+                        out.printf("%s,%s,%s,%.1f,%.1f,%.3f,%.3f%n", LocalDate.now(), commit, name,
+                            result.getMeanOpsPerSecond(), result.getStdDevOpsPerSecond(),
+                            result.getLatency().getPercentileMillis(50), result.getLatency().getPercentileMillis(99));
+                    }
+                }
+            }
+        } finally {
+            suite.fixture.cleanUp();
+        }
+        System.exit(0);
+    }
+
+    private static String currentCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line = reader.readLine();
+                return process.waitFor() == 0 && line != null ? line.trim() : "unknown";
+            }
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Load benchmark for BookingLanes
+ * Books every free seat of every train through the lane engine for each lane
+ * count and prints bookings per second. A lane count of 0 books the same seats
+ * one at a time through BookingManager, as the baseline the lanes have to beat,
+ * and a final run submits them all to BookingWriteBehind for comparison.
+ * Between runs the benchmark bookings are cancelled, their payments refunded
+ * with reversing ledger entries, and the seats freed. Because it books every
+ * seat, it only runs against the embedded profile (-Ddb.profile=embedded).
+ * Usage: BookingLaneBenchmark [laneCount ...]
+ */
+public class BookingLaneBenchmark {
+    private static final int[] DEFAULT_LANE_COUNTS = { 0, 1, 2, 4, 8 };
+    private static final int BENCHMARK_USER_ID = 1;
+
+    public static void main(String[] args) {
+        int[] laneCounts = DEFAULT_LANE_COUNTS;
+        if (args.length > 0) {
+            laneCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                laneCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        try {
+            if (!DatabaseManager.getProfile().isEmbedded()) {
+                System.err.println("BookingLaneBenchmark books every free seat; run it with -Ddb.profile=embedded");
+                return;
+            }
+            DatabaseManager.getInstance();
+            List<int[]> seats = loadFreeSeats();
+            if (seats.isEmpty()) {
+                System.out.println("No free seats to book");
+                return;
+            }
+
+            System.out.printf("%d free seats across all trains%n", seats.size());
+            System.out.printf("%-14s %12s %14s%n", "Engine", "Millis", "Bookings/sec");
+
+            for (int laneCount : laneCounts) {
+                print(laneCount == 0 ? "direct" : laneCount + " lanes", run(laneCount, seats));
+            }
+            print("write-behind", runWriteBehind(seats));
+        } catch (SQLException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Book every seat once and return elapsed millis and confirmed bookings
+     */
+    private static long[] run(int laneCount, List<int[]> seats) throws SQLException {
+        if (laneCount == 0) {
+            return runDirect(seats);
+        }
+        BookingLanes engine = new BookingLanes(laneCount);
+        List<CompletableFuture<BookingManager.BookingResult>> futures = new ArrayList<>(seats.size());
+        List<Integer> bookingIds = new ArrayList<>();
+
+        try {
+            long start = System.nanoTime();
+            for (int[] seat : seats) {
+                futures.add(engine.submitBooking(BENCHMARK_USER_ID, seat[0], seat[1], seat[2], "Benchmark", 30));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            for (CompletableFuture<BookingManager.BookingResult> future : futures) {
+                BookingManager.BookingResult result = future.join();
+                if (result.isSuccess() && "Confirmed".equals(result.getStatus())) {
+                    bookingIds.add(result.getId());
+                }
+            }
+            return new long[] { elapsedMillis, bookingIds.size() };
+
+        } finally {
+            engine.shutdown();
+            cleanUp(bookingIds, seats);
+        }
+    }
+
+    private static void print(String engine, long[] result) {
+        System.out.printf("%-14s %12d %14.1f%n", engine, result[0], result[1] * 1000.0 / Math.max(1, result[0]));
+    }
+
+    /**
+     * Submit every seat to the write-behind queue at once
+     */
+    private static long[] runWriteBehind(List<int[]> seats) throws SQLException {
+        BookingWriteBehind writeBehind = BookingWriteBehind.getInstance();
+        List<CompletableFuture<BookingManager.BookingResult>> futures = new ArrayList<>(seats.size());
+        List<Integer> bookingIds = new ArrayList<>();
+
+        try {
+            long start = System.nanoTime();
+            for (int[] seat : seats) {
+                futures.add(writeBehind.submit(BENCHMARK_USER_ID, seat[0], seat[1], seat[2], "Benchmark", 30));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            for (CompletableFuture<BookingManager.BookingResult> future : futures) {
+                BookingManager.BookingResult result = future.join();
+                if (result.isSuccess() && "Confirmed".equals(result.getStatus())) {
+                    bookingIds.add(result.getId());
+                }
+            }
+            return new long[] { elapsedMillis, bookingIds.size() };
+
+        } finally {
+            cleanUp(bookingIds, seats);
+        }
+    }
+
+    /**
+     * Book every seat one at a time through BookingManager
+     */
+    private static long[] runDirect(List<int[]> seats) throws SQLException {
+        BookingManager manager = new BookingManager();
+        List<Integer> bookingIds = new ArrayList<>();
+
+        try {
+            long start = System.nanoTime();
+            for (int[] seat : seats) {
+                BookingManager.BookingResult result =
+                    manager.createBooking(BENCHMARK_USER_ID, seat[0], seat[1], seat[2], "Benchmark", 30);
+                if (result.isSuccess() && "Confirmed".equals(result.getStatus())) {
+                    bookingIds.add(result.getId());
+                }
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            return new long[] { elapsedMillis, bookingIds.size() };
+
+        } finally {
+            cleanUp(bookingIds, seats);
+        }
+    }
+
+    private static List<int[]> loadFreeSeats() throws SQLException {
+        String query = """
+            SELECT s.seat_id, cl.train_id, MIN(r.route_id) AS route_id
+            FROM seats s
+            JOIN compartments c ON s.compartment_id = c.compartment_id
+            JOIN classes cl ON c.class_id = cl.class_id
+            JOIN routes r ON r.train_id = cl.train_id
+            WHERE s.is_available = TRUE
+            GROUP BY s.seat_id, cl.train_id
+            """;
+
+        List<int[]> seats = new ArrayList<>();
+        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                seats.add(new int[] { rs.getInt("seat_id"), rs.getInt("train_id"), rs.getInt("route_id") });
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Cancel the benchmark bookings, refund their payments and free the seats
+     * The ledger is append-only, so each payment is reversed by a refund entry
+     * rather than deleted.
+     */
+    private static void cleanUp(List<Integer> bookingIds, List<int[]> seats) throws SQLException {
+        Connection conn = DatabaseManager.getConnection();
+
+        DatabaseManager.inTransaction(conn, () -> {
+            if (!bookingIds.isEmpty()) {
+                String placeholders = String.join(", ", Collections.nCopies(bookingIds.size(), "?"));
+                List<PaymentLedger.Entry> refunds = new ArrayList<>();
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT payment_id, booking_id, amount FROM payments WHERE status = 'Success' AND booking_id IN ("
+                            + placeholders + ")")) {
+                    setIds(pstmt, bookingIds);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            BigDecimal amount = rs.getBigDecimal("amount");
+                            refunds.add(PaymentLedger.refund(rs.getInt("payment_id"), rs.getInt("booking_id"), amount));
+                        }
+                    }
+                }
+                PaymentLedger.getInstance().record(conn, refunds);
+
+                for (String update : new String[] {
+                        "UPDATE payments SET status = 'Refunded' WHERE status = 'Success' AND booking_id IN (",
+                        "UPDATE bookings SET status = 'Cancelled' WHERE booking_id IN (" }) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(update + placeholders + ")")) {
+                        setIds(pstmt, bookingIds);
+                        pstmt.executeUpdate();
+                    }
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE seats SET is_available = TRUE WHERE seat_id = ?")) {
+                for (int[] seat : seats) {
+                    pstmt.setInt(1, seat[0]);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static void setIds(PreparedStatement pstmt, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            pstmt.setInt(i + 1, ids.get(i));
+        }
+    }
+}
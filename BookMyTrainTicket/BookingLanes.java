@@ -0,0 +1,478 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-writer booking engine sharded by train
+ * Every train is owned by exactly one lane, a thread with its own connection and
+ * an in-memory copy of that train's seat inventory. Commands for a train are
+ * applied one after another on its lane, so seat allocation needs no locks, and
+ * each lane commits whatever commands queued up meanwhile in one transaction.
+ * The in-memory inventory is only a hint: other writers change seats too, so a
+ * seat it shows as taken is re-read from the database before the request is
+ * sent to RAC or the waitlist. BookingManager routes its bookings here when the
+ * profile sets bookingLanes.
+ */
+public class BookingLanes {
+    private static final int MAX_GROUP_SIZE = 64;
+    private static final long AWAIT_SECONDS = 30;
+
+    private final Lane[] lanes;
+
+    public BookingLanes(int laneCount) throws SQLException {
+        DatabaseManager.getInstance();
+        lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i);
+        }
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    /**
+     * Queue a booking on the lane that owns the train
+     */
+    public CompletableFuture<BookingManager.BookingResult> submitBooking(int userId, int seatId, int trainId, int routeId,
+                                                                          String passengerName, int passengerAge) {
+        BookCommand command = new BookCommand(userId, seatId, trainId, routeId, passengerName, passengerAge);
+        laneFor(trainId).queue.add(command);
+        return command.future;
+    }
+
+    /**
+     * Queue a cancellation on the lane that owns the train
+     */
+    public CompletableFuture<Boolean> submitCancellation(int bookingId, int trainId) {
+        CancelCommand command = new CancelCommand(bookingId, trainId);
+        laneFor(trainId).queue.add(command);
+        return command.future;
+    }
+
+    /**
+     * Blocking equivalent of BookingManager.createBooking
+     */
+    public BookingManager.BookingResult createBooking(int userId, int seatId, int trainId, int routeId,
+                                                      String passengerName, int passengerAge) throws SQLException {
+        return await(submitBooking(userId, seatId, trainId, routeId, passengerName, passengerAge));
+    }
+
+    /**
+     * Blocking equivalent of BookingManager.cancelBooking
+     */
+    public boolean cancelBooking(int bookingId, int trainId) throws SQLException {
+        return await(submitCancellation(bookingId, trainId));
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stop all lanes after the commands already queued have been applied
+     */
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.queue.add(Lane.POISON);
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Lane laneFor(int trainId) {
+        return lanes[Math.floorMod(trainId, lanes.length)];
+    }
+
+    private static <R> R await(CompletableFuture<R> future) throws SQLException {
+        try {
+            return future.get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // The command may still be applied later; its outcome is unknown to the caller
+            throw new SQLException("Booking lane did not answer within " + AWAIT_SECONDS + " seconds", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for booking lane", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Booking lane failed", e.getCause());
+        }
+    }
+
+    /**
+     * One single-threaded lane and the state it owns
+     */
+    private static class Lane {
+        private static final Command<?> POISON = new CancelCommand(-1, -1);
+
+        private final BlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+        private final Map<Integer, TrainInventory> inventories = new HashMap<>();
+        private final Map<Integer, BigDecimal> routePrices = new HashMap<>();
+        private final Thread thread;
+        private Connection connection;
+        private RACQueue racQueue;
+        private WaitlistManager waitlistManager;
+
+        Lane(int index) {
+            thread = new Thread(this::run, "booking-lane-" + index);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            try {
+                connect();
+            } catch (SQLException e) {
+                failAll(e);
+                return;
+            }
+
+            List<Command<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+
+            try {
+                while (true) {
+                    group.clear();
+                    group.add(queue.take());
+                    queue.drainTo(group, MAX_GROUP_SIZE - 1);
+
+                    boolean stop = group.remove(POISON);
+                    if (!group.isEmpty()) {
+                        applyGroup(group);
+                    }
+                    if (stop) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // closing on shutdown
+                }
+            }
+        }
+
+        private void connect() throws SQLException {
+            connection = DatabaseManager.openConnection();
+            racQueue = new RACQueue(connection);
+            waitlistManager = new WaitlistManager(connection);
+        }
+
+        /**
+         * Apply a group of commands and commit them together
+         * If the group fails, each command is retried in its own transaction
+         * so one bad command cannot fail its neighbours. Runtime failures are
+         * handled the same way, so they fail their command and not the lane.
+         */
+        private void applyGroup(List<Command<?>> group) {
+            List<Object> results = new ArrayList<>(group.size());
+
+            try {
+                if (connection.isClosed()) {
+                    connect();
+                }
+                connection.setAutoCommit(false);
+                for (Command<?> command : group) {
+                    results.add(command.apply(this));
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly();
+                if (group.size() == 1) {
+                    group.get(0).future.completeExceptionally(e);
+                } else {
+                    for (Command<?> command : group) {
+                        applyGroup(List.of(command));
+                    }
+                }
+                return;
+            } finally {
+                setAutoCommitQuietly();
+            }
+
+            for (int i = 0; i < group.size(); i++) {
+                group.get(i).complete(results.get(i));
+            }
+        }
+
+        private void rollbackQuietly() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                // The connection is broken; close it so the next group opens a new one
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // already unusable
+                }
+            }
+            // In-memory changes from the failed group are no longer trustworthy
+            inventories.clear();
+        }
+
+        private void setAutoCommitQuietly() {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // connection is already broken
+            }
+        }
+
+        private void failAll(SQLException e) {
+            Command<?> command;
+            while ((command = queue.poll()) != null) {
+                command.future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Re-read one seat the inventory shows as taken, in case another writer freed it
+         */
+        boolean recheck(TrainInventory inventory, int seatId) throws SQLException {
+            try (PreparedStatement pstmt = Queries.SEAT_AVAILABILITY.prepare(connection)) {
+                pstmt.setInt(1, seatId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    boolean available = rs.next() && rs.getBoolean("is_available");
+                    inventory.setAvailable(seatId, available);
+                    return available;
+                }
+            }
+        }
+
+        TrainInventory inventory(int trainId) throws SQLException {
+            TrainInventory inventory = inventories.get(trainId);
+            if (inventory == null) {
+                inventory = TrainInventory.load(connection, trainId);
+                inventories.put(trainId, inventory);
+            }
+            return inventory;
+        }
+
+        BigDecimal routePrice(int routeId) throws SQLException {
+            BigDecimal price = routePrices.get(routeId);
+            if (price == null) {
+                try (PreparedStatement pstmt = Queries.ROUTE_PRICE.prepare(connection)) {
+                    pstmt.setInt(1, routeId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        price = rs.next() ? rs.getBigDecimal("price") : BigDecimal.ZERO;
+                    }
+                }
+                routePrices.put(routeId, price);
+            }
+            return price;
+        }
+    }
+
+    /**
+     * Seat availability of one train, owned by a single lane
+     */
+    private static class TrainInventory {
+        private final Map<Integer, Integer> indexBySeatId = new HashMap<>();
+        private final BitSet available = new BitSet();
+
+        static TrainInventory load(Connection conn, int trainId) throws SQLException {
+            TrainInventory inventory = new TrainInventory();
+            try (PreparedStatement pstmt = Queries.SEAT_AVAILABILITY_FOR_TRAIN.prepare(conn)) {
+                pstmt.setInt(1, trainId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    int index = 0;
+                    while (rs.next()) {
+                        inventory.indexBySeatId.put(rs.getInt("seat_id"), index);
+                        inventory.available.set(index, rs.getBoolean("is_available"));
+                        index++;
+                    }
+                }
+            }
+            return inventory;
+        }
+
+        boolean isAvailable(int seatId) {
+            Integer index = indexBySeatId.get(seatId);
+            return index != null && available.get(index);
+        }
+
+        void setAvailable(int seatId, boolean isAvailable) {
+            Integer index = indexBySeatId.get(seatId);
+            if (index != null) {
+                available.set(index, isAvailable);
+            }
+        }
+    }
+
+    /**
+     * Base class for lane commands
+     */
+    private abstract static class Command<R> {
+        protected final CompletableFuture<R> future = new CompletableFuture<>();
+
+        abstract R apply(Lane lane) throws SQLException;
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((R) result);
+        }
+    }
+
+    private static class BookCommand extends Command<BookingManager.BookingResult> {
+        private final int userId;
+        private final int seatId;
+        private final int trainId;
+        private final int routeId;
+        private final String passengerName;
+        private final int passengerAge;
+
+        BookCommand(int userId, int seatId, int trainId, int routeId, String passengerName, int passengerAge) {
+            this.userId = userId;
+            this.seatId = seatId;
+            this.trainId = trainId;
+            this.routeId = routeId;
+            this.passengerName = passengerName;
+            this.passengerAge = passengerAge;
+        }
+
+        @Override
+        BookingManager.BookingResult apply(Lane lane) throws SQLException {
+            TrainInventory inventory = lane.inventory(trainId);
+            boolean free = inventory.isAvailable(seatId) || lane.recheck(inventory, seatId);
+            if (!free || !claimSeat(lane.connection)) {
+                // Writers outside the lanes may have taken the seat; trust the database
+                inventory.setAvailable(seatId, false);
+                return queueForSeat(lane);
+            }
+            inventory.setAvailable(seatId, false);
+
+            int bookingId;
+            try (PreparedStatement pstmt = Queries.INSERT_CONFIRMED_BOOKING.prepare(lane.connection, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, userId);
+                pstmt.setInt(2, seatId);
+                pstmt.setInt(3, trainId);
+                pstmt.setInt(4, routeId);
+                pstmt.setString(5, passengerName);
+                pstmt.setInt(6, passengerAge);
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Failed to get booking ID");
+                    }
+                    bookingId = rs.getInt(1);
+                }
+            }
+
+            BigDecimal amount = lane.routePrice(routeId);
+            int paymentId;
+            try (PreparedStatement pstmt = Queries.INSERT_SUCCESSFUL_PAYMENT.prepare(lane.connection, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, bookingId);
+                pstmt.setBigDecimal(2, amount);
+                pstmt.executeUpdate();
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Failed to get payment ID");
+                    }
+                    paymentId = rs.getInt(1);
+                }
+            }
+
+            Outbox.append(lane.connection, OutboxEvent.booking(OutboxEvent.BOOKING_CONFIRMED, bookingId,
+                userId, trainId, routeId, "Confirmed"));
+
+            PaymentLedger.getInstance().recordPayment(lane.connection, paymentId, bookingId, amount);
+
+            return new BookingManager.BookingResult(true, "Booking confirmed successfully", bookingId, "Confirmed");
+        }
+
+        private boolean claimSeat(Connection conn) throws SQLException {
+            try (PreparedStatement pstmt = Queries.CLAIM_SEAT.prepare(conn)) {
+                pstmt.setInt(1, seatId);
+                if (pstmt.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            SeatAvailabilityBus.getInstance().seatChanged(conn, seatId, false);
+            return true;
+        }
+
+        private BookingManager.BookingResult queueForSeat(Lane lane) throws SQLException {
+            int racCount = lane.racQueue.getRACCount(trainId, routeId);
+            if (racCount < BookingManager.MAX_RAC_POSITIONS) {
+                int racId = lane.racQueue.addToRAC(userId, trainId, routeId);
+                return new BookingManager.BookingResult(true, "Added to RAC. Position: " + (racCount + 1), racId, "RAC");
+            }
+            int waitlistId = lane.waitlistManager.addToWaitlist(userId, trainId, routeId);
+            int position = lane.waitlistManager.getWaitlistPosition(waitlistId);
+            return new BookingManager.BookingResult(true, "Added to waitlist. Position: " + position, waitlistId, "Waiting");
+        }
+    }
+
+    private static class CancelCommand extends Command<Boolean> {
+        private final int bookingId;
+        private final int trainId;
+
+        CancelCommand(int bookingId, int trainId) {
+            this.bookingId = bookingId;
+            this.trainId = trainId;
+        }
+
+        @Override
+        Boolean apply(Lane lane) throws SQLException {
+            int seatId;
+            int routeId;
+            int userId;
+            try (PreparedStatement pstmt = Queries.ACTIVE_BOOKING_ON_TRAIN.prepare(lane.connection)) {
+                pstmt.setInt(1, bookingId);
+                pstmt.setInt(2, trainId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    seatId = rs.getInt("seat_id");
+                    routeId = rs.getInt("route_id");
+                    userId = rs.getInt("user_id");
+                }
+            }
+
+            try (PreparedStatement pstmt = Queries.CANCEL_BOOKING.prepare(lane.connection)) {
+                pstmt.setInt(1, bookingId);
+                pstmt.executeUpdate();
+            }
+            Outbox.append(lane.connection, OutboxEvent.booking(OutboxEvent.BOOKING_CANCELLED, bookingId,
+                userId, trainId, routeId, "Cancelled"));
+
+            if (seatId > 0) {
+                try (PreparedStatement pstmt = Queries.UPDATE_SEAT_AVAILABILITY.prepare(lane.connection)) {
+                    pstmt.setBoolean(1, true);
+                    pstmt.setInt(2, seatId);
+                    pstmt.executeUpdate();
+                }
+                SeatAvailabilityBus.getInstance().seatChanged(lane.connection, seatId, true);
+                lane.inventory(trainId).setAvailable(seatId, true);
+
+                // Promote from RAC or waitlist on the same lane and transaction
+                if (!lane.racQueue.promoteFromRAC(trainId, routeId)) {
+                    lane.waitlistManager.promoteFromWaitlist(trainId, routeId);
+                }
+            }
+
+            return true;
+        }
+    }
+}
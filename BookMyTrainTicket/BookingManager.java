@@ -1,24 +1,35 @@
 package BookMyTrainTicket;
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.math.BigDecimal;
 
 /**
  * Manages booking operations
  */
 public class BookingManager {
+    static final int MAX_RAC_POSITIONS = 10;
+    
+    // Shared by every manager once started; null while the profile books directly
+    private static BookingLanes lanes;
+    
     private DatabaseManager dbManager;
     private SeatAvailabilityManager seatManager;
     private WaitlistManager waitlistManager;
     private RACQueue racQueue;
+    private PaymentLedger ledger;
     
     public BookingManager() throws SQLException {
         this.dbManager = DatabaseManager.getInstance();
         this.seatManager = new SeatAvailabilityManager();
         this.waitlistManager = new WaitlistManager();
         this.racQueue = new RACQueue();
+        this.ledger = PaymentLedger.getInstance();
     }
     
     /**
@@ -26,6 +37,41 @@ public class BookingManager {
      */
     public BookingResult createBooking(int userId, int seatId, int trainId, int routeId, 
                                      String passengerName, int passengerAge) throws SQLException {
+        FlightEvents.BookingAttempt event = FlightEvents.BookingAttempt.start();
+        BookingLanes engine = lanes();
+        boolean writeBehind = engine == null && DatabaseManager.getProfile().isBookingWriteBehind();
+        BookingResult result = null;
+        try {
+            if (engine != null) {
+                result = engine.createBooking(userId, seatId, trainId, routeId, passengerName, passengerAge);
+            } else if (writeBehind) {
+                result = BookingWriteBehind.getInstance()
+                    .createBooking(userId, seatId, trainId, routeId, passengerName, passengerAge);
+            } else {
+                result = bookSeat(userId, seatId, trainId, routeId, passengerName, passengerAge);
+            }
+            return result;
+        } finally {
+            String mode = engine != null ? "Lane" : writeBehind ? "WriteBehind" : "Direct";
+            event.finish(mode, userId, seatId, trainId, routeId, result);
+        }
+    }
+    
+    /**
+     * The booking lanes, started on first use when the profile sets bookingLanes
+     */
+    private static synchronized BookingLanes lanes() throws SQLException {
+        if (lanes == null) {
+            int laneCount = DatabaseManager.getProfile().getBookingLanes();
+            if (laneCount > 0) {
+                lanes = new BookingLanes(laneCount);
+            }
+        }
+        return lanes;
+    }
+    
+    private BookingResult bookSeat(int userId, int seatId, int trainId, int routeId, 
+                                   String passengerName, int passengerAge) throws SQLException {
         // Check if seat is available
         SeatAvailabilityManager.SeatWithDetails seat = seatManager.getSeatById(seatId);
         if (seat == null || !seat.isAvailable()) {
@@ -38,13 +84,8 @@ public class BookingManager {
         
         try {
             // Create booking
-            String bookingQuery = """
-                INSERT INTO bookings (user_id, seat_id, train_id, route_id, passenger_name, passenger_age, status)
-                VALUES (?, ?, ?, ?, ?, ?, 'Confirmed')
-                """;
-            
             int bookingId;
-            try (PreparedStatement pstmt = conn.prepareStatement(bookingQuery, Statement.RETURN_GENERATED_KEYS)) {
+            try (PreparedStatement pstmt = Queries.INSERT_CONFIRMED_BOOKING.prepare(conn, Statement.RETURN_GENERATED_KEYS)) {
                 pstmt.setInt(1, userId);
                 pstmt.setInt(2, seatId);
                 pstmt.setInt(3, trainId);
@@ -68,7 +109,11 @@ public class BookingManager {
             
             // Create payment record
             BigDecimal amount = getRoutePrice(routeId);
-            createPayment(bookingId, amount);
+            int paymentId = createPayment(bookingId, amount);
+            Outbox.append(conn, OutboxEvent.booking(OutboxEvent.BOOKING_CONFIRMED, bookingId,
+                                                    userId, trainId, routeId, "Confirmed"));
+            
+            ledger.recordPayment(conn, paymentId, bookingId, amount);
             
             conn.commit();
             
@@ -82,14 +127,45 @@ public class BookingManager {
         }
     }
     
+    /**
+     * Hold a seat for checkout; the booking is confirmed once payment succeeds
+     * Falls back to RAC or waitlist when the seat has already gone.
+     */
+    public BookingResult holdBooking(int userId, int seatId, int trainId, int routeId, 
+                                     String passengerName, int passengerAge) throws SQLException {
+        FlightEvents.BookingAttempt event = FlightEvents.BookingAttempt.start();
+        BookingResult result = null;
+        try {
+            SeatHoldManager holdManager = SeatHoldManager.getInstance();
+            int bookingId = holdManager.holdSeat(userId, seatId, trainId, routeId, passengerName, passengerAge);
+            
+            if (bookingId < 0) {
+                result = handleFullBooking(userId, trainId, routeId, passengerName, passengerAge);
+            } else {
+                result = new BookingResult(true, "Seat held for " + (holdManager.getHoldSeconds() / 60) + 
+                                           " minutes pending payment", bookingId, "Held");
+            }
+            return result;
+        } finally {
+            event.finish("Hold", userId, seatId, trainId, routeId, result);
+        }
+    }
+    
+    /**
+     * Release a held seat when checkout is abandoned
+     */
+    public void releaseHold(int bookingId) throws SQLException {
+        SeatHoldManager.getInstance().releaseHold(bookingId);
+    }
+    
     /**
      * Handle booking when train is full (add to RAC or waitlist)
      */
     private BookingResult handleFullBooking(int userId, int trainId, int routeId, 
                                           String passengerName, int passengerAge) throws SQLException {
-        // Check RAC availability (assuming max 10 RAC positions)
+        // Check RAC availability
         int racCount = racQueue.getRACCount(trainId, routeId);
-        if (racCount < 10) {
+        if (racCount < MAX_RAC_POSITIONS) {
             int racId = racQueue.addToRAC(userId, trainId, routeId);
             return new BookingResult(true, "Added to RAC. Position: " + (racCount + 1), racId, "RAC");
         } else {
@@ -104,6 +180,13 @@ public class BookingManager {
      * Cancel a booking
      */
     public boolean cancelBooking(int bookingId) throws SQLException {
+        BookingLanes engine = lanes();
+        if (engine != null) {
+            // The train's lane must see the seat come back, so it cancels there
+            BookingDetails booking = getBookingById(bookingId);
+            return booking != null && engine.cancelBooking(bookingId, booking.getTrainId());
+        }
+        
         Connection conn = dbManager.getConnection();
         conn.setAutoCommit(false);
         
@@ -115,11 +198,12 @@ public class BookingManager {
             }
             
             // Update booking status
-            String updateQuery = "UPDATE bookings SET status = 'Cancelled' WHERE booking_id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(updateQuery)) {
+            try (PreparedStatement pstmt = Queries.CANCEL_BOOKING.prepare(conn)) {
                 pstmt.setInt(1, bookingId);
                 pstmt.executeUpdate();
             }
+            Outbox.append(conn, OutboxEvent.booking(OutboxEvent.BOOKING_CANCELLED, bookingId, booking.getUserId(),
+                                                    booking.getTrainId(), booking.getRouteId(), "Cancelled"));
             
             // Make seat available again
             if (booking.getSeatId() > 0) {
@@ -157,122 +241,115 @@ public class BookingManager {
      * Get bookings for a user
      */
     public List<BookingDetails> getBookingsForUser(int userId) throws SQLException {
-        List<BookingDetails> bookings = new ArrayList<>();
-        
-        String query = """
-            SELECT b.booking_id, b.user_id, b.seat_id, b.train_id, b.route_id,
-                   b.passenger_name, b.passenger_age, b.booking_time, b.status,
-                   t.train_name, t.train_number,
-                   r.source_station, r.destination_station, r.departure_time, r.arrival_time, r.price,
-                   s.seat_number, s.berth_type,
-                   c.compartment_name, cl.class_type,
-                   p.amount as payment_amount, p.status as payment_status
-            FROM bookings b
-            JOIN trains t ON b.train_id = t.train_id
-            JOIN routes r ON b.route_id = r.route_id
-            LEFT JOIN seats s ON b.seat_id = s.seat_id
-            LEFT JOIN compartments c ON s.compartment_id = c.compartment_id
-            LEFT JOIN classes cl ON c.class_id = cl.class_id
-            LEFT JOIN payments p ON b.booking_id = p.booking_id
-            WHERE b.user_id = ?
-            ORDER BY b.booking_time DESC
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.BOOKING_HISTORY.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, userId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    BookingDetails booking = new BookingDetails();
-                    booking.setBookingId(rs.getInt("booking_id"));
-                    booking.setUserId(rs.getInt("user_id"));
-                    booking.setSeatId(rs.getInt("seat_id"));
-                    booking.setTrainId(rs.getInt("train_id"));
-                    booking.setRouteId(rs.getInt("route_id"));
-                    booking.setPassengerName(rs.getString("passenger_name"));
-                    booking.setPassengerAge(rs.getInt("passenger_age"));
-                    booking.setBookingTime(rs.getTimestamp("booking_time").toLocalDateTime());
-                    booking.setStatus(rs.getString("status"));
-                    booking.setTrainName(rs.getString("train_name"));
-                    booking.setTrainNumber(rs.getString("train_number"));
-                    booking.setSourceStation(rs.getString("source_station"));
-                    booking.setDestinationStation(rs.getString("destination_station"));
-                    booking.setDepartureTime(rs.getTime("departure_time") != null ? 
-                                           rs.getTime("departure_time").toLocalTime() : null);
-                    booking.setArrivalTime(rs.getTime("arrival_time") != null ? 
-                                         rs.getTime("arrival_time").toLocalTime() : null);
-                    booking.setPrice(rs.getBigDecimal("price"));
-                    booking.setSeatNumber(rs.getString("seat_number"));
-                    booking.setBerthType(rs.getString("berth_type"));
-                    booking.setCompartmentName(rs.getString("compartment_name"));
-                    booking.setClassType(rs.getString("class_type"));
-                    booking.setPaymentAmount(rs.getBigDecimal("payment_amount"));
-                    booking.setPaymentStatus(rs.getString("payment_status"));
-                    
-                    bookings.add(booking);
-                }
+                return RowMappers.list(rs, RowMappers.BOOKING_DETAILS);
             }
         }
-        
-        return bookings;
+    }
+    
+    /**
+     * Get one page of a user's bookings, newest first
+     * Pass a null afterBookingTime for the first page, then the booking time and ID
+     * of the last booking returned. Seeks on the (user_id, booking_time, booking_id)
+     * index, so every page costs the same however deep it is.
+     */
+    public List<BookingDetails> getBookingsForUser(int userId, LocalDateTime afterBookingTime, 
+                                                   int afterId, int limit) throws SQLException {
+        Queries.Query query = afterBookingTime != null
+            ? Queries.BOOKING_HISTORY_NEXT_PAGE : Queries.BOOKING_HISTORY_FIRST_PAGE;
+        
+        try (PreparedStatement pstmt = query.prepare(dbManager.getConnection())) {
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            if (afterBookingTime != null) {
+                Timestamp after = Timestamp.valueOf(afterBookingTime);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setInt(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.list(rs, RowMappers.BOOKING_DETAILS);
+            }
+        }
+    }
+    
+    /**
+     * Stream all of a user's bookings, newest first, without materializing them
+     * Rows come from a forward-only streaming result set on a dedicated connection;
+     * close the stream (try-with-resources) to release it.
+     */
+    public Stream<BookingDetails> streamBookingsForUser(int userId) throws SQLException {
+        Connection conn = DatabaseManager.openConnection();
+        try {
+            PreparedStatement pstmt = Queries.BOOKING_HISTORY.prepare(conn, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(DatabaseManager.getProfile().getStreamingFetchSize());
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            RowMappers.RowMapper<BookingDetails> mapper = RowMappers.BOOKING_DETAILS.bind(rs);
+            
+            Spliterator<BookingDetails> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super BookingDetails> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Reading booking history failed", e);
+                    }
+                }
+            };
+            
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Closing booking history stream failed: " + e.getMessage());
+                }
+            });
+            
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
     }
     
     /**
      * Get booking by ID
      */
     public BookingDetails getBookingById(int bookingId) throws SQLException {
-        String query = """
-            SELECT b.booking_id, b.user_id, b.seat_id, b.train_id, b.route_id,
-                   b.passenger_name, b.passenger_age, b.booking_time, b.status,
-                   t.train_name, t.train_number,
-                   r.source_station, r.destination_station, r.departure_time, r.arrival_time, r.price
-            FROM bookings b
-            JOIN trains t ON b.train_id = t.train_id
-            JOIN routes r ON b.route_id = r.route_id
-            WHERE b.booking_id = ?
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.BOOKING_BY_ID.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, bookingId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    BookingDetails booking = new BookingDetails();
-                    booking.setBookingId(rs.getInt("booking_id"));
-                    booking.setUserId(rs.getInt("user_id"));
-                    booking.setSeatId(rs.getInt("seat_id"));
-                    booking.setTrainId(rs.getInt("train_id"));
-                    booking.setRouteId(rs.getInt("route_id"));
-                    booking.setPassengerName(rs.getString("passenger_name"));
-                    booking.setPassengerAge(rs.getInt("passenger_age"));
-                    booking.setBookingTime(rs.getTimestamp("booking_time").toLocalDateTime());
-                    booking.setStatus(rs.getString("status"));
-                    booking.setTrainName(rs.getString("train_name"));
-                    booking.setTrainNumber(rs.getString("train_number"));
-                    booking.setSourceStation(rs.getString("source_station"));
-                    booking.setDestinationStation(rs.getString("destination_station"));
-                    booking.setDepartureTime(rs.getTime("departure_time").toLocalTime());
-                    booking.setArrivalTime(rs.getTime("arrival_time").toLocalTime());
-                    booking.setPrice(rs.getBigDecimal("price"));
-                    
-                    return booking;
-                }
+                return RowMappers.first(rs, RowMappers.BOOKING_DETAILS);
             }
         }
-        
-        return null;
     }
     
     /**
      * Create payment record
      */
-    private void createPayment(int bookingId, BigDecimal amount) throws SQLException {
-        String query = "INSERT INTO payments (booking_id, amount, status) VALUES (?, ?, 'Success')";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+    private int createPayment(int bookingId, BigDecimal amount) throws SQLException {
+        try (PreparedStatement pstmt = Queries.INSERT_SUCCESSFUL_PAYMENT.prepare(dbManager.getConnection(), Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setInt(1, bookingId);
             pstmt.setBigDecimal(2, amount);
             pstmt.executeUpdate();
+            
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                throw new SQLException("Failed to get payment ID");
+            }
         }
     }
     
@@ -280,9 +357,7 @@ public class BookingManager {
      * Get route price
      */
     private BigDecimal getRoutePrice(int routeId) throws SQLException {
-        String query = "SELECT price FROM routes WHERE route_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.ROUTE_PRICE.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, routeId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
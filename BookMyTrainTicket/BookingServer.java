@@ -0,0 +1,409 @@
+package BookMyTrainTicket;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless HTTP API over the booking managers
+ * Serves search, seat map, booking, cancellation, payment and queue status
+ * as JSON on the JDK HttpServer. Each request runs on its own virtual thread
+ * when the JVM has them (Java 21+), otherwise on a fixed pool of platform
+ * threads. Database work goes through a ConnectionLimiter, so only as many
+ * requests as there are pooled connections touch the database at once and
+ * overflow is answered with 503 instead of piling up. The API has no
+ * authentication, so the server only binds to the loopback interface; put an
+ * authenticating proxy in front of it to serve other hosts. Unexpected errors
+ * are logged and answered with a generic 500 that does not leak their detail.
+ *
+ * GET    /health
+ * GET    /api/trains?from=&to=
+ * GET    /api/trains/{trainId}/seats?routeId=
+ * POST   /api/bookings                  userId, seatId, trainId, routeId, passengerName, passengerAge
+ * GET    /api/bookings/{bookingId}
+ * DELETE /api/bookings/{bookingId}
+ * POST   /api/bookings/{bookingId}/payment   method (default UPI); 409 unless the booking is held
+ * GET    /api/queue?trainId=&routeId=
+ * GET    /api/waitlist/{waitlistId}
+ *
+ * Settings: -Dserver.port=8080 -Dserver.connections=16 -Dserver.threads=256
+ *           -Dserver.acquireTimeoutMillis=2000 -Dserver.maxWaiting=10000
+ */
+public class BookingServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConnectionLimiter limiter;
+    private final TrainManager trainManager;
+    private final SeatAvailabilityManager seatManager;
+    private final BookingManager bookingManager;
+    private final RACQueue racQueue;
+    private final WaitlistManager waitlistManager;
+
+    public BookingServer(int port, ConnectionLimiter limiter, ExecutorService executor) throws IOException, SQLException {
+        this.limiter = limiter;
+        this.executor = executor;
+        // These managers look up the connection per call, so the limiter's bound connection is used
+        this.trainManager = new TrainManager();
+        this.seatManager = new SeatAvailabilityManager();
+        this.bookingManager = new BookingManager();
+        this.racQueue = new RACQueue();
+        this.waitlistManager = new WaitlistManager();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16384);
+        server.createContext("/health", exchange -> send(exchange, 200, new Json()
+            .put("status", "ok").put("idleConnections", limiter.getIdle())
+            .put("waiting", limiter.getWaiting()).put("rejected", limiter.getRejected()).toString()));
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * One virtual thread per request where available, else a fixed thread pool
+     */
+    public static ExecutorService requestExecutor(int platformThreads) {
+        try {
+            // Looked up reflectively so the server still compiles and runs on Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(platformThreads, r -> {
+                Thread thread = new Thread(r, "booking-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() throws SQLException, InterruptedException {
+        server.stop(1);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        limiter.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+            Map<String, String> params = params(exchange);
+
+            String body = limiter.run(() -> route(method, path, params));
+            if (body == null) {
+                send(exchange, 404, error("No such resource"));
+            } else {
+                send(exchange, 200, body);
+            }
+        } catch (SQLTransientConnectionException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+        } catch (ConflictException e) {
+            send(exchange, 409, error(e.getMessage()));
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()
+                + " failed: " + e);
+            send(exchange, 500, error("Request failed"));
+        }
+    }
+
+    /**
+     * Dispatch to an endpoint; returns the JSON body, or null for an unknown resource
+     */
+    private String route(String method, String[] path, Map<String, String> params) throws SQLException {
+        String resource = path[0];
+
+        if (resource.equals("trains") && path.length == 1 && method.equals("GET")) {
+            return searchTrains(required(params, "from"), required(params, "to"));
+        }
+        if (resource.equals("trains") && path.length == 3 && path[2].equals("seats") && method.equals("GET")) {
+            return seatMap(number(path[1]), number(required(params, "routeId")));
+        }
+        if (resource.equals("bookings") && path.length == 1 && method.equals("POST")) {
+            return book(params);
+        }
+        if (resource.equals("bookings") && path.length == 2 && method.equals("GET")) {
+            return booking(number(path[1]));
+        }
+        if (resource.equals("bookings") && path.length == 2 && method.equals("DELETE")) {
+            return new Json().put("bookingId", number(path[1]))
+                .put("cancelled", bookingManager.cancelBooking(number(path[1]))).toString();
+        }
+        if (resource.equals("bookings") && path.length == 3 && path[2].equals("payment") && method.equals("POST")) {
+            return pay(number(path[1]), params.getOrDefault("method", "UPI"));
+        }
+        if (resource.equals("queue") && path.length == 1 && method.equals("GET")) {
+            return queue(number(required(params, "trainId")), number(required(params, "routeId")));
+        }
+        if (resource.equals("waitlist") && path.length == 2 && method.equals("GET")) {
+            int waitlistId = number(path[1]);
+            return new Json().put("waitlistId", waitlistId)
+                .put("position", waitlistManager.getWaitlistPosition(waitlistId)).toString();
+        }
+        return null;
+    }
+
+    private String searchTrains(String from, String to) throws SQLException {
+        List<String> results = new ArrayList<>();
+        for (TrainManager.TrainSearchResult result : trainManager.searchTrains(from, to)) {
+            Train train = result.getTrain();
+            Route route = result.getRoute();
+            results.add(new Json()
+                .put("trainId", train.getTrainId())
+                .put("trainName", train.getTrainName())
+                .put("trainNumber", train.getTrainNumber())
+                .put("routeId", route.getRouteId())
+                .put("source", route.getSourceStation())
+                .put("destination", route.getDestinationStation())
+                .put("departure", route.getDepartureTime())
+                .put("arrival", route.getArrivalTime())
+                .put("price", route.getPrice())
+                .put("availableSeats", result.getAvailableSeats())
+                .toString());
+        }
+        return Json.array(results);
+    }
+
+    private String seatMap(int trainId, int routeId) throws SQLException {
+        SeatMap seats = seatManager.getAvailableSeatMap(trainId, routeId);
+        List<String> results = new ArrayList<>(seats.size());
+        for (int i = 0; i < seats.size(); i++) {
+            SeatMap.Compartment compartment = seats.getCompartment(i);
+            results.add(new Json()
+                .put("seatId", seats.getSeatId(i))
+                .put("seatNumber", seats.getSeatNumber(i))
+                .put("berthType", Seat.toDbValue(seats.getBerthType(i)))
+                .put("compartment", compartment.getCompartmentName())
+                .put("classType", compartment.getClassType())
+                .toString());
+        }
+        return new Json().put("trainId", trainId).put("available", seats.size()).putRaw("seats", Json.array(results))
+            .toString();
+    }
+
+    private String book(Map<String, String> params) throws SQLException {
+        BookingManager.BookingResult result = bookingManager.holdBooking(
+            number(required(params, "userId")), number(required(params, "seatId")),
+            number(required(params, "trainId")), number(required(params, "routeId")),
+            required(params, "passengerName"), number(required(params, "passengerAge")));
+        return new Json().put("success", result.isSuccess()).put("status", result.getStatus())
+            .put("id", result.getId()).put("message", result.getMessage()).toString();
+    }
+
+    private String booking(int bookingId) throws SQLException {
+        BookingManager.BookingDetails details = bookingManager.getBookingById(bookingId);
+        if (details == null) {
+            return null;
+        }
+        return new Json()
+            .put("bookingId", details.getBookingId())
+            .put("status", details.getStatus())
+            .put("passengerName", details.getPassengerName())
+            .put("trainId", details.getTrainId())
+            .put("routeId", details.getRouteId())
+            .put("seatId", details.getSeatId())
+            .put("seatNumber", details.getSeatNumber())
+            .put("price", details.getPrice())
+            .put("paymentStatus", details.getPaymentStatus())
+            .toString();
+    }
+
+    private String pay(int bookingId, String method) throws SQLException {
+        BookingManager.BookingDetails details = bookingManager.getBookingById(bookingId);
+        if (details == null) {
+            return null;
+        }
+        // Only a held booking is awaiting payment; a repeated or late call must not charge a settled one
+        if (!"Held".equals(details.getStatus())) {
+            throw new ConflictException("Booking " + bookingId + " is " + details.getStatus() + ", not awaiting payment");
+        }
+        PaymentManager.PaymentMethod paymentMethod;
+        try {
+            paymentMethod = PaymentManager.PaymentMethod.valueOf(method.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown payment method: " + method);
+        }
+
+        // Created per request: a payment manager keeps the connection it was created with
+        PaymentManager paymentManager = new PaymentManager();
+        PaymentManager.PaymentResult result = paymentManager.processPayment(
+            new PaymentManager.PaymentRequest(bookingId, details.getPrice(), paymentMethod));
+        return new Json().put("success", result.isSuccess()).put("status", result.getStatus())
+            .put("paymentId", result.getPaymentId()).put("transactionId", result.getTransactionId())
+            .put("message", result.getMessage()).toString();
+    }
+
+    private String queue(int trainId, int routeId) throws SQLException {
+        List<String> rac = new ArrayList<>();
+        for (RACQueue.RACEntry entry : racQueue.getRACList(trainId, routeId)) {
+            rac.add(new Json().put("racId", entry.getRacId()).put("userId", entry.getUserId())
+                .put("position", entry.getPosition()).toString());
+        }
+        List<String> waitlist = new ArrayList<>();
+        for (WaitlistManager.WaitlistEntry entry : waitlistManager.getWaitlist(trainId, routeId)) {
+            waitlist.add(new Json().put("waitlistId", entry.getWaitlistId()).put("userId", entry.getUserId())
+                .put("position", entry.getPosition()).toString());
+        }
+        return new Json().put("trainId", trainId).put("routeId", routeId)
+            .putRaw("rac", Json.array(rac)).putRaw("waitlist", Json.array(waitlist)).toString();
+    }
+
+    // Request and response helpers
+
+    /**
+     * Query string and form-encoded body parameters
+     */
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static String error(String message) {
+        return new Json().put("error", message).toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Inner class for a request that conflicts with the resource's current state
+     */
+    static class ConflictException extends RuntimeException {
+        ConflictException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Inner class for building a flat JSON object
+     */
+    static class Json {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        Json put(String key, Object value) {
+            if (value == null) {
+                return putRaw(key, "null");
+            }
+            if (value instanceof Number && !(value instanceof BigDecimal) || value instanceof Boolean) {
+                return putRaw(key, value.toString());
+            }
+            if (value instanceof BigDecimal) {
+                return putRaw(key, ((BigDecimal) value).toPlainString());
+            }
+            return putRaw(key, quote(value.toString()));
+        }
+
+        Json putRaw(String key, String json) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(quote(key)).append(':').append(json);
+            return this;
+        }
+
+        static String array(List<String> items) {
+            return "[" + String.join(",", items) + "]";
+        }
+
+        static String quote(String value) {
+            StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': quoted.append("\\\""); break;
+                    case '\\': quoted.append("\\\\"); break;
+                    case '\n': quoted.append("\\n"); break;
+                    case '\r': quoted.append("\\r"); break;
+                    case '\t': quoted.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            quoted.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            quoted.append(c);
+                        }
+                }
+            }
+            return quoted.append('"').toString();
+        }
+
+        @Override
+        public String toString() {
+            return sb + "}";
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatabaseManager.getInstance();
+        ConnectionLimiter limiter = new ConnectionLimiter(Integer.getInteger("server.connections", 16),
+            Long.getLong("server.acquireTimeoutMillis", 2000), Integer.getInteger("server.maxWaiting", 10000));
+        BookingServer server = new BookingServer(Integer.getInteger("server.port", 8080), limiter,
+            requestExecutor(Integer.getInteger("server.threads", 256)));
+        server.start();
+        System.out.println("Booking API listening on port " + server.getPort() + " with "
+            + limiter.getSize() + " database connections");
+    }
+}
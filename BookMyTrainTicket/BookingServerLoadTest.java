@@ -0,0 +1,136 @@
+package BookMyTrainTicket;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency test for BookingServer
+ * Keeps a fixed number of requests in flight against a running server with
+ * the asynchronous HttpClient, so tens of thousands of requests are open at
+ * once without a client thread each. Reports throughput, latency percentiles,
+ * the peak number of requests in flight and responses by status. The run
+ * fails unless at least load.minSuccessRatio of the requests got a 2xx and the
+ * p99 latency stays within load.maxP99Millis: a 503 is the limiter shedding
+ * load, which keeps the server alive but is not a success.
+ * Each in-flight request holds a socket on both sides, so raise the open file
+ * limit (ulimit -n) above twice the concurrency first.
+ * Usage: BookingServerLoadTest
+ * Settings: -Dload.url=http://127.0.0.1:8080 -Dload.path=/api/trains?from=Delhi&to=Mumbai
+ *           -Dload.concurrency=20000 -Dload.requests=100000
+ *           -Dload.minSuccessRatio=0.95 -Dload.maxP99Millis=2000
+ */
+public class BookingServerLoadTest {
+    private final String url = System.getProperty("load.url", "http://127.0.0.1:8080")
+        + System.getProperty("load.path", "/api/trains?from=Delhi&to=Mumbai");
+    private final int concurrency = Integer.getInteger("load.concurrency", 20000);
+    private final int requests = Integer.getInteger("load.requests", 100000);
+    private final double minSuccessRatio = Double.parseDouble(System.getProperty("load.minSuccessRatio", "0.95"));
+    private final long maxP99Millis = Long.getLong("load.maxP99Millis", 2000);
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * Send all requests and return the elapsed time in nanoseconds
+     */
+    public long run() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            long sent = System.nanoTime();
+
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latency.recordNanos(System.nanoTime() - sent);
+                if (error != null) {
+                    failures.incrementAndGet();
+                } else {
+                    statuses.computeIfAbsent(response.statusCode(), code -> new AtomicLong()).incrementAndGet();
+                }
+                inFlight.decrementAndGet();
+                permits.release();
+                done.countDown();
+            });
+        }
+
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    public void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("%d requests to %s in %.1fs (%.0f/s), peak %d in flight%n",
+            requests, url, seconds, requests / seconds, peakInFlight.get());
+        System.out.printf("Latency p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n", latency.getPercentileMillis(50),
+            latency.getPercentileMillis(99), latency.getPercentileMillis(99.9), latency.getMaxMillis());
+        for (Map.Entry<Integer, AtomicLong> status : new TreeMap<>(statuses).entrySet()) {
+            System.out.printf("  HTTP %d: %d%n", status.getKey(), status.getValue().get());
+        }
+        System.out.printf("  Failed:   %d%n", failures.get());
+    }
+
+    /**
+     * Share of requests answered with a 2xx status
+     */
+    public double getSuccessRatio() {
+        long succeeded = 0;
+        for (Map.Entry<Integer, AtomicLong> status : statuses.entrySet()) {
+            if (status.getKey() >= 200 && status.getKey() < 300) {
+                succeeded += status.getValue().get();
+            }
+        }
+        return requests == 0 ? 1 : (double) succeeded / requests;
+    }
+
+    /**
+     * Descriptions of the thresholds the run missed; empty if it passed
+     */
+    public List<String> checkThresholds() {
+        List<String> violations = new ArrayList<>();
+        double successRatio = getSuccessRatio();
+        if (successRatio < minSuccessRatio) {
+            violations.add(String.format("success ratio %.3f below %.3f", successRatio, minSuccessRatio));
+        }
+        double p99 = latency.getPercentileMillis(99);
+        if (p99 > maxP99Millis) {
+            violations.add(String.format("p99 latency %.2fms above %dms", p99, maxP99Millis));
+        }
+        return violations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BookingServerLoadTest test = new BookingServerLoadTest();
+        long elapsed = test.run();
+        test.printReport(elapsed);
+
+        List<String> violations = test.checkThresholds();
+        for (String violation : violations) {
+            System.out.println("FAILED: " + violation);
+        }
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+}
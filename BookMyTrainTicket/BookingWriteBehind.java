@@ -0,0 +1,383 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Group-commit write-behind for confirmed bookings
+ * Booking requests from any number of callers are collected into batches bounded
+ * by size and delay. A batch claims its seats, inserts bookings and payments with
+ * multi-row statements and commits once; callers are acknowledged only after that
+ * commit. Requests whose seat is already gone fall back to RAC or waitlist within
+ * the same transaction. If a batch fails, its requests are retried one per
+ * transaction so only the bad one fails. BookingManager routes its bookings here
+ * when the profile sets bookingWriteBehind.
+ */
+public class BookingWriteBehind {
+    private static final long AWAIT_SECONDS = 30;
+
+    private static BookingWriteBehind instance;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Map<Integer, BigDecimal> routePrices = new HashMap<>();
+    private final Thread writer;
+    private volatile int maxBatchSize = 100;
+    private volatile long maxDelayMillis = 5;
+    private Connection connection;
+    private RACQueue racQueue;
+    private WaitlistManager waitlistManager;
+
+    private BookingWriteBehind() throws SQLException {
+        DatabaseManager.getInstance();
+        writer = new Thread(this::run, "booking-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static synchronized BookingWriteBehind getInstance() throws SQLException {
+        if (instance == null) {
+            instance = new BookingWriteBehind();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue a booking; the future completes after the batch holding it commits
+     */
+    public CompletableFuture<BookingManager.BookingResult> submit(int userId, int seatId, int trainId, int routeId,
+                                                                   String passengerName, int passengerAge) {
+        Request request = new Request(userId, seatId, trainId, routeId, passengerName, passengerAge);
+        queue.add(request);
+        return request.future;
+    }
+
+    /**
+     * Blocking equivalent of BookingManager.createBooking
+     */
+    public BookingManager.BookingResult createBooking(int userId, int seatId, int trainId, int routeId,
+                                                      String passengerName, int passengerAge) throws SQLException {
+        try {
+            return submit(userId, seatId, trainId, routeId, passengerName, passengerAge).get(AWAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // The request may still commit later; its outcome is unknown to the caller
+            throw new SQLException("Booking was not committed within " + AWAIT_SECONDS + " seconds", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for booking commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Booking write failed", e.getCause());
+        }
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setMaxDelayMillis(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+
+        while (true) {
+            try {
+                batch.clear();
+                batch.add(queue.take());
+
+                // Linger briefly so concurrent callers can join the batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Commit a batch; if it fails, retry each request in a transaction of its own
+     * Runtime failures are handled the same way, so they fail their request and
+     * never the writer thread.
+     */
+    private void writeBatch(List<Request> batch) {
+        List<BookingManager.BookingResult> results;
+
+        try {
+            Connection conn = getWriterConnection();
+            conn.setAutoCommit(false);
+            try {
+                results = applyBatch(conn, batch);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                setAutoCommitQuietly(conn);
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+            } else {
+                for (Request request : batch) {
+                    writeBatch(List.of(request));
+                }
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results.get(i));
+        }
+    }
+
+    private List<BookingManager.BookingResult> applyBatch(Connection conn, List<Request> batch) throws SQLException {
+        BookingManager.BookingResult[] results = new BookingManager.BookingResult[batch.size()];
+
+        // Lock the requested seats and keep the first request for each free one
+        Set<Integer> freeSeats = lockFreeSeats(conn, batch);
+        List<Request> winners = new ArrayList<>();
+        List<Integer> winnerPositions = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (freeSeats.remove(batch.get(i).seatId)) {
+                winners.add(batch.get(i));
+                winnerPositions.add(i);
+            }
+        }
+
+        if (!winners.isEmpty()) {
+            List<Integer> seatIds = winners.stream().map(request -> request.seatId).collect(Collectors.toList());
+            try (PreparedStatement pstmt = Queries.TAKE_LOCKED_SEATS.prepareIn(conn, seatIds.size())) {
+                for (int i = 0; i < seatIds.size(); i++) {
+                    pstmt.setInt(i + 1, seatIds.get(i));
+                }
+                pstmt.executeUpdate();
+            }
+            for (int seatId : seatIds) {
+                SeatAvailabilityBus.getInstance().seatChanged(conn, seatId, false);
+            }
+
+            int[] bookingIds = insertBookings(conn, winners);
+            BigDecimal[] amounts = new BigDecimal[winners.size()];
+            Map<Integer, BigDecimal> prices = routePrices(conn, winners);
+            for (int i = 0; i < winners.size(); i++) {
+                amounts[i] = prices.getOrDefault(winners.get(i).routeId, BigDecimal.ZERO);
+            }
+            int[] paymentIds = insertPayments(conn, bookingIds, amounts);
+
+            List<OutboxEvent> events = new ArrayList<>(winners.size());
+            for (int i = 0; i < winners.size(); i++) {
+                Request request = winners.get(i);
+                events.add(OutboxEvent.booking(OutboxEvent.BOOKING_CONFIRMED, bookingIds[i],
+                    request.userId, request.trainId, request.routeId, "Confirmed"));
+            }
+            Outbox.appendAll(conn, events);
+
+            List<PaymentLedger.Entry> entries = new ArrayList<>(paymentIds.length);
+            for (int i = 0; i < paymentIds.length; i++) {
+                entries.add(PaymentLedger.payment(paymentIds[i], bookingIds[i], amounts[i]));
+            }
+            PaymentLedger.getInstance().record(conn, entries);
+
+            for (int i = 0; i < winners.size(); i++) {
+                results[winnerPositions.get(i)] =
+                    new BookingManager.BookingResult(true, "Booking confirmed successfully", bookingIds[i], "Confirmed");
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] == null) {
+                results[i] = queueForSeat(batch.get(i));
+            }
+        }
+
+        List<BookingManager.BookingResult> list = new ArrayList<>(results.length);
+        Collections.addAll(list, results);
+        return list;
+    }
+
+    private Set<Integer> lockFreeSeats(Connection conn, List<Request> batch) throws SQLException {
+        List<Integer> seatIds = new ArrayList<>(new HashSet<>(
+            batch.stream().map(request -> request.seatId).collect(Collectors.toList())));
+        Set<Integer> freeSeats = new HashSet<>();
+
+        try (PreparedStatement pstmt = Queries.LOCK_FREE_SEATS.prepareIn(conn, seatIds.size())) {
+            for (int i = 0; i < seatIds.size(); i++) {
+                pstmt.setInt(i + 1, seatIds.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    freeSeats.add(rs.getInt("seat_id"));
+                }
+            }
+        }
+
+        return freeSeats;
+    }
+
+    private int[] insertBookings(Connection conn, List<Request> requests) throws SQLException {
+        try (PreparedStatement pstmt = Queries.INSERT_CONFIRMED_BOOKING.prepareRows(conn, requests.size(),
+                Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (Request request : requests) {
+                pstmt.setInt(index++, request.userId);
+                pstmt.setInt(index++, request.seatId);
+                pstmt.setInt(index++, request.trainId);
+                pstmt.setInt(index++, request.routeId);
+                pstmt.setString(index++, request.passengerName);
+                pstmt.setInt(index++, request.passengerAge);
+            }
+            pstmt.executeUpdate();
+            return generatedKeys(pstmt, requests.size(), "booking");
+        }
+    }
+
+    private int[] insertPayments(Connection conn, int[] bookingIds, BigDecimal[] amounts) throws SQLException {
+        try (PreparedStatement pstmt = Queries.INSERT_SUCCESSFUL_PAYMENT.prepareRows(conn, bookingIds.length,
+                Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (int i = 0; i < bookingIds.length; i++) {
+                pstmt.setInt(index++, bookingIds[i]);
+                pstmt.setBigDecimal(index++, amounts[i]);
+            }
+            pstmt.executeUpdate();
+            return generatedKeys(pstmt, bookingIds.length, "payment");
+        }
+    }
+
+    private int[] generatedKeys(PreparedStatement pstmt, int expected, String entity) throws SQLException {
+        int[] ids = new int[expected];
+        int count = 0;
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (rs.next() && count < expected) {
+                ids[count++] = rs.getInt(1);
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Failed to get " + entity + " IDs");
+        }
+        return ids;
+    }
+
+    /**
+     * Route prices change rarely; only unseen routes are queried
+     */
+    private Map<Integer, BigDecimal> routePrices(Connection conn, List<Request> requests) throws SQLException {
+        List<Integer> missing = requests.stream()
+            .map(request -> request.routeId)
+            .filter(routeId -> !routePrices.containsKey(routeId))
+            .distinct()
+            .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            try (PreparedStatement pstmt = Queries.ROUTE_PRICES.prepareIn(conn, missing.size())) {
+                for (int i = 0; i < missing.size(); i++) {
+                    pstmt.setInt(i + 1, missing.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        routePrices.put(rs.getInt("route_id"), rs.getBigDecimal("price"));
+                    }
+                }
+            }
+        }
+
+        return routePrices;
+    }
+
+    private BookingManager.BookingResult queueForSeat(Request request) throws SQLException {
+        int racCount = racQueue.getRACCount(request.trainId, request.routeId);
+        if (racCount < BookingManager.MAX_RAC_POSITIONS) {
+            int racId = racQueue.addToRAC(request.userId, request.trainId, request.routeId);
+            return new BookingManager.BookingResult(true, "Added to RAC. Position: " + (racCount + 1), racId, "RAC");
+        }
+        int waitlistId = waitlistManager.addToWaitlist(request.userId, request.trainId, request.routeId);
+        int position = waitlistManager.getWaitlistPosition(waitlistId);
+        return new BookingManager.BookingResult(true, "Added to waitlist. Position: " + position, waitlistId, "Waiting");
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            // The connection is broken; close it so the next batch opens a new one
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+                // already unusable
+            }
+        }
+    }
+
+    private void setAutoCommitQuietly(Connection conn) {
+        try {
+            if (!conn.isClosed()) {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ignored) {
+            // connection is already broken
+        }
+    }
+
+    private Connection getWriterConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DatabaseManager.openConnection();
+            racQueue = new RACQueue(connection);
+            waitlistManager = new WaitlistManager(connection);
+        }
+        return connection;
+    }
+
+    /**
+     * Inner class for a booking waiting to be written
+     */
+    private static class Request {
+        private final int userId;
+        private final int seatId;
+        private final int trainId;
+        private final int routeId;
+        private final String passengerName;
+        private final int passengerAge;
+        private final CompletableFuture<BookingManager.BookingResult> future = new CompletableFuture<>();
+
+        Request(int userId, int seatId, int trainId, int routeId, String passengerName, int passengerAge) {
+            this.userId = userId;
+            this.seatId = seatId;
+            this.trainId = trainId;
+            this.routeId = routeId;
+            this.passengerName = passengerName;
+            this.passengerAge = passengerAge;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes refunds for mass cancellations
+ * Payments are first enqueued as 'Pending' rows in the refunds ledger, then
+ * worker threads drain the ledger in batched transactions. Each row is claimed
+ * 'InFlight' in its own committed transaction before the gateway is called, and
+ * the refund ID goes to the gateway as the idempotency key, so neither a crash
+ * nor a concurrent manual refund can pay a customer twice. Failed refunds are
+ * retried with exponential backoff. Because progress lives in the ledger, a
+ * crashed run resumes by calling process() again.
+ */
+public class BulkRefundProcessor {
+    private PaymentGateway gateway;
+    private PaymentLedger ledger;
+    static final int DEFAULT_MAX_ATTEMPTS = 5;
+    static final int DEFAULT_RETRY_BASE_SECONDS = 60;
+    static final int DEFAULT_IN_FLIGHT_TIMEOUT_SECONDS = 300;
+    private static final int MAX_RETRY_DELAY_SECONDS = 3600;
+
+    private int batchSize = 200;
+    private int parallelism = 4;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private int retryBaseSeconds = DEFAULT_RETRY_BASE_SECONDS;
+    private int inFlightTimeoutSeconds = DEFAULT_IN_FLIGHT_TIMEOUT_SECONDS;
+    private ProgressListener progressListener;
+
+    public BulkRefundProcessor() throws SQLException {
+        this(new SimulatedPaymentGateway());
+    }
+
+    public BulkRefundProcessor(PaymentGateway gateway) throws SQLException {
+        DatabaseManager.getInstance();
+        this.gateway = FlightEvents.record(gateway);
+        this.ledger = PaymentLedger.getInstance();
+    }
+
+    /**
+     * Enqueue refunds for the given payment IDs
+     * Payments that were not charged or already have a refund are skipped
+     */
+    public int enqueue(Collection<Integer> paymentIds, String reason) throws SQLException {
+        List<Integer> ids = new ArrayList<>(paymentIds);
+        int enqueued = 0;
+
+        try (Connection conn = DatabaseManager.openConnection()) {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+
+                try (PreparedStatement pstmt = Queries.ENQUEUE_REFUNDS_FOR_PAYMENTS.prepareIn(conn, chunk.size())) {
+                    pstmt.setString(1, reason);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 2, chunk.get(i));
+                    }
+                    enqueued += pstmt.executeUpdate();
+                }
+            }
+        }
+
+        return enqueued;
+    }
+
+    /**
+     * Enqueue refunds for every successful payment on a cancelled train
+     */
+    public int enqueueForTrain(int trainId, String reason) throws SQLException {
+        try (Connection conn = DatabaseManager.openConnection();
+             PreparedStatement pstmt = Queries.ENQUEUE_REFUNDS_FOR_TRAIN.prepare(conn)) {
+            pstmt.setString(1, reason);
+            pstmt.setInt(2, trainId);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Drain every refund that is due, using a bounded number of workers
+     * Failed refunds whose retry is not yet due are left for a later call.
+     */
+    public RefundProgress process() throws SQLException {
+        RefundProgress progress = new RefundProgress(countDue());
+        processDue(progress);
+        return progress;
+    }
+
+    /**
+     * Drain due refunds, then wait out each retry backoff until no failed refund
+     * has an attempt left
+     */
+    public RefundProgress processUntilSettled() throws SQLException {
+        RefundProgress progress = new RefundProgress(countDue());
+        processDue(progress);
+
+        Integer wait;
+        while ((wait = secondsUntilNextRetry()) != null) {
+            try {
+                Thread.sleep(Math.max(1, wait) * 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Refund processing interrupted", e);
+            }
+            processDue(progress);
+        }
+        return progress;
+    }
+
+    private void processDue(RefundProgress progress) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        List<Future<Void>> futures = new ArrayList<>();
+
+        for (int worker = 0; worker < parallelism; worker++) {
+            final int partition = worker;
+            futures.add(executor.submit(() -> {
+                drainPartition(partition, progress);
+                return null;
+            }));
+        }
+
+        executor.shutdown();
+
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Refund processing interrupted", e);
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Refund processing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Process one partition of the ledger so workers never claim the same row
+     */
+    private void drainPartition(int partition, RefundProgress progress) throws SQLException {
+        try (Connection conn = DatabaseManager.openConnection()) {
+            int lastRefundId = 0;
+
+            while (true) {
+                List<PendingRefund> batch = new ArrayList<>();
+
+                try (PreparedStatement pstmt = Queries.DUE_REFUNDS.prepare(conn)) {
+                    pstmt.setInt(1, -inFlightTimeoutSeconds);
+                    pstmt.setInt(2, parallelism);
+                    pstmt.setInt(3, partition);
+                    pstmt.setInt(4, lastRefundId);
+                    pstmt.setInt(5, batchSize);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            batch.add(new PendingRefund(
+                                rs.getInt("refund_id"),
+                                rs.getInt("payment_id"),
+                                rs.getInt("booking_id"),
+                                rs.getBigDecimal("amount"),
+                                rs.getString("reason"),
+                                rs.getInt("attempts")
+                            ));
+                        }
+                    }
+                }
+
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                lastRefundId = batch.get(batch.size() - 1).refundId;
+
+                // Gateway calls happen outside the transaction to keep it short,
+                // and only for rows this worker claimed
+                List<PendingRefund> claimed = claim(conn, batch);
+                for (PendingRefund refund : claimed) {
+                    refund.result = gateway.refund(idempotencyKey(refund.refundId),
+                        refund.paymentId, refund.amount, refund.reason);
+                }
+
+                for (PendingRefund refund : commitBatch(conn, claimed)) {
+                    if (refund.result.isSuccess()) {
+                        progress.processed.incrementAndGet();
+                    } else {
+                        progress.failed.incrementAndGet();
+                    }
+                }
+
+                if (progressListener != null) {
+                    progressListener.onProgress(progress);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark each refund InFlight, committing one row at a time before any gateway call
+     * A row claimed elsewhere, e.g. by PaymentManager.refundPayment, is skipped.
+     * Should the process die before the result is recorded, the claim goes stale
+     * and the refund is sent again under the same idempotency key.
+     */
+    private List<PendingRefund> claim(Connection conn, List<PendingRefund> batch) throws SQLException {
+        List<PendingRefund> claimed = new ArrayList<>();
+        try (PreparedStatement pstmt = Queries.CLAIM_REFUND.prepare(conn)) {
+            for (PendingRefund refund : batch) {
+                pstmt.setInt(1, refund.refundId);
+                pstmt.setInt(2, -inFlightTimeoutSeconds);
+                if (pstmt.executeUpdate() == 1) {
+                    refund.attempts++;
+                    claimed.add(refund);
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Record one batch of gateway results in a single transaction
+     * Failures are scheduled for a retry with exponential backoff until they run
+     * out of attempts. Returns the refunds whose claim was still held; a claim
+     * taken over after going stale is recorded by its new owner.
+     */
+    private List<PendingRefund> commitBatch(Connection conn, List<PendingRefund> batch) throws SQLException {
+        List<PendingRefund> recorded = new ArrayList<>();
+        List<Integer> refundedBookings = new ArrayList<>();
+        List<String> payloads = new ArrayList<>();
+        List<PaymentLedger.Entry> entries = new ArrayList<>();
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement refundStmt = Queries.COMPLETE_REFUND.prepare(conn);
+             PreparedStatement paymentStmt = Queries.MARK_PAYMENT_REFUNDED.prepare(conn)) {
+
+            for (PendingRefund refund : batch) {
+                boolean success = refund.result.isSuccess();
+
+                refundStmt.setString(1, success ? "Processed" : "Failed");
+                refundStmt.setString(2, refund.result.getTransactionId());
+                refundStmt.setObject(3, success ? null : retryDelaySeconds(refund.attempts, maxAttempts, retryBaseSeconds),
+                    Types.INTEGER);
+                refundStmt.setInt(4, refund.refundId);
+                if (refundStmt.executeUpdate() == 0) {
+                    continue;
+                }
+                recorded.add(refund);
+
+                if (success) {
+                    paymentStmt.setInt(1, refund.paymentId);
+                    paymentStmt.addBatch();
+                    refundedBookings.add(refund.bookingId);
+                    payloads.add(OutboxEvent.paymentPayload(refund.paymentId, "Refunded"));
+                    entries.add(PaymentLedger.refund(refund.paymentId, refund.bookingId, refund.amount));
+                }
+            }
+
+            paymentStmt.executeBatch();
+            Outbox.appendForBookings(conn, OutboxEvent.PAYMENT_REFUNDED, refundedBookings, payloads);
+            ledger.record(conn, entries);
+            conn.commit();
+            return recorded;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private int countDue() throws SQLException {
+        try (Connection conn = DatabaseManager.openConnection();
+             PreparedStatement pstmt = Queries.COUNT_DUE_REFUNDS.prepare(conn)) {
+            pstmt.setInt(1, -inFlightTimeoutSeconds);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Seconds until the earliest scheduled retry, or null when none is scheduled
+     */
+    private Integer secondsUntilNextRetry() throws SQLException {
+        try (Connection conn = DatabaseManager.openConnection();
+             PreparedStatement pstmt = Queries.NEXT_REFUND_RETRY.prepare(conn);
+             ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            int seconds = rs.getInt(1);
+            return rs.wasNull() ? null : seconds;
+        }
+    }
+
+    /**
+     * Key the gateway uses to recognise a resent refund
+     */
+    static String idempotencyKey(int refundId) {
+        return "refund-" + refundId;
+    }
+
+    /**
+     * Backoff before the next attempt, doubling from baseSeconds up to an hour;
+     * null once maxAttempts have been made
+     */
+    static Integer retryDelaySeconds(int attempts, int maxAttempts, int baseSeconds) {
+        if (attempts >= maxAttempts) {
+            return null;
+        }
+        long delay = (long) baseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        return (int) Math.min(delay, MAX_RETRY_DELAY_SECONDS);
+    }
+
+    // Configuration
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    public void setRetryBaseSeconds(int retryBaseSeconds) { this.retryBaseSeconds = retryBaseSeconds; }
+    public void setInFlightTimeoutSeconds(int inFlightTimeoutSeconds) { this.inFlightTimeoutSeconds = inFlightTimeoutSeconds; }
+    public void setProgressListener(ProgressListener progressListener) { this.progressListener = progressListener; }
+
+    /**
+     * Callback invoked by workers after each committed batch
+     */
+    public interface ProgressListener {
+        void onProgress(RefundProgress progress);
+    }
+
+    /**
+     * Inner class for a ledger row being processed
+     */
+    private static class PendingRefund {
+        private final int refundId;
+        private final int paymentId;
+        private final int bookingId;
+        private final BigDecimal amount;
+        private final String reason;
+        private int attempts;
+        private PaymentManager.PaymentResult result;
+
+        PendingRefund(int refundId, int paymentId, int bookingId, BigDecimal amount, String reason, int attempts) {
+            this.refundId = refundId;
+            this.paymentId = paymentId;
+            this.bookingId = bookingId;
+            this.amount = amount;
+            this.reason = reason;
+            this.attempts = attempts;
+        }
+    }
+
+    /**
+     * Inner class for live progress and throughput of a run
+     */
+    public static class RefundProgress {
+        private final int total;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        public RefundProgress(int total) {
+            this.total = total;
+        }
+
+        public int getTotal() { return total; }
+        public int getProcessed() { return processed.get(); }
+        public int getFailed() { return failed.get(); }
+
+        public double getThroughputPerSecond() {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            return (processed.get() + failed.get()) * 1000.0 / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d refunds processed, %d failed (%.1f/s)",
+                getProcessed(), total, getFailed(), getThroughputPerSecond());
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: BulkRefundProcessor <trainId> [reason]");
+            return;
+        }
+
+        try {
+            BulkRefundProcessor processor = new BulkRefundProcessor();
+            processor.setProgressListener(progress -> System.out.println(progress));
+
+            String reason = args.length > 1 ? args[1] : "Train cancelled";
+            int enqueued = processor.enqueueForTrain(Integer.parseInt(args[0]), reason);
+            System.out.println("Enqueued " + enqueued + " refunds");
+            System.out.println("Done: " + processor.processUntilSettled());
+        } catch (SQLException e) {
+            System.err.println("Refund processing failed: " + e.getMessage());
+        }
+    }
+}
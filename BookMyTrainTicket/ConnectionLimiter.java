@@ -0,0 +1,177 @@
+package BookMyTrainTicket;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed pool of dedicated connections that bounds concurrent database work
+ * However many requests are in flight, at most one per pooled connection
+ * touches the database. The rest wait for a free connection, up to a bounded
+ * number of waiters and a timeout; beyond that the work is refused with
+ * SQLTransientConnectionException, so a rush turns into quick rejections
+ * instead of a queue that grows until every request times out. While work
+ * runs, its connection is bound to the thread, so the managers pick it up
+ * through DatabaseManager.getConnection. A connection the work left closed or
+ * mid-transaction is discarded and a new one opened in its place; if that
+ * fails, the pool runs short until a later acquire or release reopens it.
+ */
+public class ConnectionLimiter implements AutoCloseable {
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> all = new ArrayList<>();
+    // Discarded connections not yet replaced
+    private final AtomicInteger missing = new AtomicInteger();
+    private volatile boolean closed;
+    private final long acquireTimeoutMillis;
+    private final int maxWaiting;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ConnectionLimiter(int connections, long acquireTimeoutMillis, int maxWaiting) throws SQLException {
+        this.idle = new ArrayBlockingQueue<>(connections);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxWaiting = maxWaiting;
+
+        for (int i = 0; i < connections; i++) {
+            Connection conn = DatabaseManager.openConnection();
+            all.add(conn);
+            idle.add(conn);
+        }
+    }
+
+    /**
+     * Run work with a pooled connection bound to the calling thread
+     */
+    public <T> T run(DatabaseManager.TransactionWork<T> work) throws SQLException {
+        Connection conn = acquire();
+        DatabaseManager.bindThreadConnection(conn);
+        try {
+            return work.run();
+        } finally {
+            DatabaseManager.bindThreadConnection(null);
+            release(conn);
+        }
+    }
+
+    private Connection acquire() throws SQLException {
+        Connection conn = idle.poll();
+        if (conn == null && replenish()) {
+            conn = idle.poll();
+        }
+        if (conn != null) {
+            return conn;
+        }
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new SQLTransientConnectionException("Too many requests waiting for a database connection");
+        }
+
+        long start = System.nanoTime();
+        try {
+            conn = idle.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+            JdbcInstrumentation.recordConnectionWait(System.nanoTime() - start);
+        }
+
+        if (conn == null) {
+            rejected.incrementAndGet();
+            throw new SQLTransientConnectionException(
+                "No database connection free within " + acquireTimeoutMillis + " ms");
+        }
+        return conn;
+    }
+
+    /**
+     * Return a connection, replacing it if the work left it broken
+     * Only a connection known to be open and in auto-commit goes back to idle.
+     */
+    private void release(Connection conn) {
+        boolean live;
+        try {
+            live = !conn.isClosed() && conn.getAutoCommit();
+        } catch (SQLException e) {
+            live = false;
+        }
+        if (live) {
+            idle.offer(conn);
+            return;
+        }
+
+        synchronized (all) {
+            all.remove(conn);
+        }
+        missing.incrementAndGet();
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // Already broken; it is out of the pool either way
+        }
+        replenish();
+    }
+
+    /**
+     * Open connections for any the pool is short of; returns whether one was added
+     */
+    private boolean replenish() {
+        if (missing.get() == 0) {
+            return false;
+        }
+        boolean added = false;
+        synchronized (all) {
+            while (!closed && missing.get() > 0) {
+                Connection conn;
+                try {
+                    conn = DatabaseManager.openConnection();
+                } catch (SQLException e) {
+                    System.err.println("Replacing pooled connection failed: " + e.getMessage());
+                    break;
+                }
+                all.add(conn);
+                missing.decrementAndGet();
+                idle.offer(conn);
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    public int getSize() {
+        return all.size();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized (all) {
+            closed = true;
+            for (Connection conn : all) {
+                conn.close();
+            }
+            all.clear();
+        }
+    }
+}
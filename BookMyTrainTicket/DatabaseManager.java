@@ -1,34 +1,36 @@
 package BookMyTrainTicket;
 
+import java.io.IOException;
 import java.sql.*;
-import java.util.Properties;
 
 /**
  * Database connection and management class
  * Handles all database operations for the train booking system
  */
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:mysql://localhost:3306/train_booking";
-    private static final String DB_USER = "root";
-    private static final String DB_PASSWORD = "Opkv@1754"; // Set your MySQL password
-    
     private static DatabaseManager instance;
+    private static DatabaseProfile profile;
     private static Connection connection;
+    private static final ThreadLocal<Connection> threadConnection = new ThreadLocal<>();
     
     private DatabaseManager() throws SQLException {
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Properties props = new Properties();
-            props.setProperty("user", DB_USER);
-            props.setProperty("password", DB_PASSWORD);
-            props.setProperty("useSSL", "false");
-            props.setProperty("allowPublicKeyRetrieval", "true");
-            props.setProperty("serverTimezone", "UTC");
+            profile = DatabaseProfile.load();
+            Class.forName(profile.getDriver());
+            SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+            slowQueryLog.setThresholdMillis(profile.getSlowQueryMillis());
+            slowQueryLog.setPath(profile.getSlowQueryLog());
             
-            DatabaseManager.connection = DriverManager.getConnection(DB_URL, props);
+            DatabaseManager.connection = connect();
             initializeDatabase();
+            
+            if (profile.getMetricsPort() > 0) {
+                MetricsEndpoint.start(profile.getMetricsPort());
+            }
         } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found", e);
+            throw new SQLException("JDBC driver " + e.getMessage() + " not found for the " + profile.getProfile() + " profile", e);
+        } catch (IOException e) {
+            throw new SQLException("Could not read database settings or start the metrics endpoint", e);
         }
     }
     
@@ -40,142 +42,92 @@ public class DatabaseManager {
     }
     
     public static Connection getConnection() {
-        return connection;
+        Connection bound = threadConnection.get();
+        return bound != null ? bound : connection;
     }
     
-    private void initializeDatabase() throws SQLException {
-        // Create database and tables if they don't exist
-        String createDB = "CREATE DATABASE IF NOT EXISTS train_booking";
-        String useDB = "USE train_booking";
-        
-        try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(createDB);
-            stmt.executeUpdate(useDB);
-            
-            // Create all tables from the schema
-            createTables();
-            insertSampleData();
+    /**
+     * Route getConnection on the calling thread to its own connection
+     * Lets each worker of a load test act as a separate client; pass null to
+     * go back to the shared connection.
+     */
+    public static void bindThreadConnection(Connection conn) {
+        if (conn == null) {
+            threadConnection.remove();
+        } else {
+            threadConnection.set(conn);
         }
     }
     
-    private void createTables() throws SQLException {
-        String[] createTableQueries = {
-            """
-            CREATE TABLE IF NOT EXISTS users (
-                user_id INT AUTO_INCREMENT PRIMARY KEY,
-                username VARCHAR(50) NOT NULL UNIQUE,
-                password VARCHAR(100) NOT NULL,
-                email VARCHAR(100),
-                role ENUM('Admin', 'Regular', 'Senior', 'DifferentlyAbled') NOT NULL
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS trains (
-                train_id INT AUTO_INCREMENT PRIMARY KEY,
-                train_name VARCHAR(100),
-                train_number VARCHAR(20) UNIQUE
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS routes (
-                route_id INT AUTO_INCREMENT PRIMARY KEY,
-                train_id INT,
-                source_station VARCHAR(100),
-                destination_station VARCHAR(100),
-                departure_time TIME,
-                arrival_time TIME,
-                price DECIMAL(10,2),
-                FOREIGN KEY (train_id) REFERENCES trains(train_id) ON DELETE CASCADE
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS classes (
-                class_id INT AUTO_INCREMENT PRIMARY KEY,
-                train_id INT,
-                class_type VARCHAR(50),
-                FOREIGN KEY (train_id) REFERENCES trains(train_id) ON DELETE CASCADE
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS compartments (
-                compartment_id INT AUTO_INCREMENT PRIMARY KEY,
-                class_id INT,
-                compartment_name VARCHAR(50),
-                FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS seats (
-                seat_id INT AUTO_INCREMENT PRIMARY KEY,
-                compartment_id INT,
-                berth_type ENUM('Lower', 'Middle', 'Upper', 'Side Lower', 'Side Upper'),
-                seat_number VARCHAR(20),
-                is_available BOOLEAN DEFAULT TRUE,
-                FOREIGN KEY (compartment_id) REFERENCES compartments(compartment_id) ON DELETE CASCADE
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS bookings (
-                booking_id INT AUTO_INCREMENT PRIMARY KEY,
-                user_id INT,
-                seat_id INT,
-                train_id INT,
-                route_id INT,
-                passenger_name VARCHAR(100),
-                passenger_age INT,
-                booking_time DATETIME DEFAULT CURRENT_TIMESTAMP,
-                status ENUM('Confirmed', 'Cancelled', 'RAC', 'Waiting') DEFAULT 'Confirmed',
-                FOREIGN KEY (user_id) REFERENCES users(user_id),
-                FOREIGN KEY (seat_id) REFERENCES seats(seat_id),
-                FOREIGN KEY (train_id) REFERENCES trains(train_id),
-                FOREIGN KEY (route_id) REFERENCES routes(route_id)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS payments (
-                payment_id INT AUTO_INCREMENT PRIMARY KEY,
-                booking_id INT,
-                amount DECIMAL(10,2),
-                status ENUM('Success', 'Failed', 'Pending'),
-                payment_time DATETIME DEFAULT CURRENT_TIMESTAMP,
-                FOREIGN KEY (booking_id) REFERENCES bookings(booking_id)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS waitlist (
-                waitlist_id INT AUTO_INCREMENT PRIMARY KEY,
-                user_id INT,
-                train_id INT,
-                route_id INT,
-                request_time DATETIME DEFAULT CURRENT_TIMESTAMP,
-                status ENUM('Waiting', 'Promoted') DEFAULT 'Waiting',
-                position INT,
-                FOREIGN KEY (user_id) REFERENCES users(user_id),
-                FOREIGN KEY (train_id) REFERENCES trains(train_id),
-                FOREIGN KEY (route_id) REFERENCES routes(route_id)
-            )
-            """,
-            """
-            CREATE TABLE IF NOT EXISTS rac (
-                rac_id INT AUTO_INCREMENT PRIMARY KEY,
-                user_id INT,
-                train_id INT,
-                route_id INT,
-                request_time DATETIME DEFAULT CURRENT_TIMESTAMP,
-                status ENUM('RAC', 'Promoted') DEFAULT 'RAC',
-                position INT,
-                FOREIGN KEY (user_id) REFERENCES users(user_id),
-                FOREIGN KEY (train_id) REFERENCES trains(train_id),
-                FOREIGN KEY (route_id) REFERENCES routes(route_id)
-            )
-            """
-        };
+    /**
+     * Open a dedicated connection for background jobs that must not
+     * share transactions with the interactive connection
+     */
+    public static Connection openConnection() throws SQLException {
+        getInstance();
+        return connect();
+    }
+    
+    /**
+     * Open an instrumented connection, recording how long it took
+     */
+    private static Connection connect() throws SQLException {
+        long start = System.nanoTime();
+        Connection raw = DriverManager.getConnection(profile.getUrl(), profile.connectionProperties());
+        JdbcInstrumentation.recordConnectionWait(System.nanoTime() - start);
+        return JdbcInstrumentation.wrap(raw);
+    }
+    
+    /**
+     * Settings the database was opened with
+     */
+    public static DatabaseProfile getProfile() throws SQLException {
+        getInstance();
+        return profile;
+    }
+    
+    /**
+     * Run work in a transaction on the given connection
+     * If a transaction is already open the work joins it and the caller commits.
+     */
+    public static <T> T inTransaction(Connection conn, TransactionWork<T> work) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            return work.run();
+        }
         
-        try (Statement stmt = connection.createStatement()) {
-            for (String query : createTableQueries) {
-                stmt.executeUpdate(query);
+        conn.setAutoCommit(false);
+        try {
+            T result = work.run();
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+    
+    /**
+     * Unit of work for inTransaction
+     */
+    public interface TransactionWork<T> {
+        T run() throws SQLException;
+    }
+    
+    private void initializeDatabase() throws SQLException {
+        // Create the database if it doesn't exist, then migrate its schema;
+        // the embedded database is created by opening its URL
+        if (!profile.isEmbedded()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS train_booking");
+                stmt.executeUpdate("USE train_booking");
             }
         }
+        
+        // Bring the schema up to the latest version
+        new SchemaMigrations(connection).migrate();
+        insertSampleData();
     }
     
     private void insertSampleData() throws SQLException {
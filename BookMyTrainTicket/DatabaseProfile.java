@@ -0,0 +1,132 @@
+package BookMyTrainTicket;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Connection settings for the booking database
+ * Each setting is looked up as a system property (db.url), then an environment
+ * variable (TRAIN_DB_URL), then database.properties in the working directory
+ * (or the file named by -Ddb.config), then the profile default. The "mysql"
+ * profile connects to a local MySQL server; the "embedded" profile starts an
+ * in-process H2 database in MySQL compatibility mode, so the application,
+ * benchmarks and tools run on a machine without a database server.
+ * Keys: profile, url, user, password, driver, slowQueryMillis, slowQueryLog,
+ * metricsPort (0 leaves the metrics endpoint off), bookingLanes (0 books
+ * through BookingManager's own connection, otherwise the number of
+ * BookingLanes threads), bookingWriteBehind (true books through
+ * BookingWriteBehind; bookingLanes wins if both are set)
+ */
+public class DatabaseProfile {
+    public static final String MYSQL = "mysql";
+    public static final String EMBEDDED = "embedded";
+
+    private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/train_booking";
+    private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+    private static final String EMBEDDED_URL =
+        "jdbc:h2:mem:train_booking;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String EMBEDDED_DRIVER = "org.h2.Driver";
+
+    private final String profile;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String driver;
+    private final long slowQueryMillis;
+    private final String slowQueryLog;
+    private final int metricsPort;
+    private final int bookingLanes;
+    private final boolean bookingWriteBehind;
+
+    private DatabaseProfile(Properties file) {
+        this.profile = setting(file, "profile", MYSQL).toLowerCase();
+        boolean embedded = EMBEDDED.equals(profile);
+        this.url = setting(file, "url", embedded ? EMBEDDED_URL : MYSQL_URL);
+        this.user = setting(file, "user", embedded ? "sa" : "root");
+        this.password = setting(file, "password", "");
+        this.driver = setting(file, "driver", embedded ? EMBEDDED_DRIVER : MYSQL_DRIVER);
+        this.slowQueryMillis = Long.parseLong(setting(file, "slowQueryMillis", "250"));
+        this.slowQueryLog = setting(file, "slowQueryLog", "slow-queries.log");
+        this.metricsPort = Integer.parseInt(setting(file, "metricsPort", "0"));
+        this.bookingLanes = Integer.parseInt(setting(file, "bookingLanes", "0"));
+        this.bookingWriteBehind = Boolean.parseBoolean(setting(file, "bookingWriteBehind", "false"));
+    }
+
+    /**
+     * Resolve the profile from system properties, environment and database.properties
+     */
+    public static DatabaseProfile load() throws IOException {
+        Properties file = new Properties();
+        Path path = Paths.get(System.getProperty("db.config", "database.properties"));
+        if (Files.isRegularFile(path)) {
+            try (InputStream in = new FileInputStream(path.toFile())) {
+                file.load(in);
+            }
+        }
+        return new DatabaseProfile(file);
+    }
+
+    private static String setting(Properties file, String key, String defaultValue) {
+        String value = System.getProperty("db." + key);
+        if (value == null) {
+            value = System.getenv("TRAIN_DB_" + key.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase());
+        }
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    public String getProfile() { return profile; }
+    public String getUrl() { return url; }
+    public String getUser() { return user; }
+    public String getDriver() { return driver; }
+    public long getSlowQueryMillis() { return slowQueryMillis; }
+    public String getSlowQueryLog() { return slowQueryLog; }
+    public int getMetricsPort() { return metricsPort; }
+    public int getBookingLanes() { return bookingLanes; }
+    public boolean isBookingWriteBehind() { return bookingWriteBehind; }
+
+    public boolean isEmbedded() {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    /**
+     * Fetch size that streams a forward-only result set row by row
+     * Connector/J streams only with Integer.MIN_VALUE, which H2 rejects; H2
+     * pages large results by itself, so it keeps the driver default.
+     */
+    public int getStreamingFetchSize() {
+        return isEmbedded() ? 0 : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Driver properties for a new connection
+     */
+    Properties connectionProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        if (!isEmbedded()) {
+            props.setProperty("useSSL", "false");
+            props.setProperty("allowPublicKeyRetrieval", "true");
+            props.setProperty("serverTimezone", "UTC");
+            // Server-side prepared statements, cached per connection and reused on close
+            props.setProperty("useServerPrepStmts", "true");
+            props.setProperty("cachePrepStmts", "true");
+            props.setProperty("prepStmtCacheSize", "250");
+            props.setProperty("prepStmtCacheSqlLimit", "4096");
+        }
+        return props;
+    }
+
+    @Override
+    public String toString() {
+        return profile + " (" + url + ")";
+    }
+}
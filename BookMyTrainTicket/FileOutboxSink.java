@@ -0,0 +1,35 @@
+package BookMyTrainTicket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a local file as one JSON object per line
+ */
+public class FileOutboxSink implements OutboxSink {
+    private final BufferedWriter writer;
+
+    public FileOutboxSink(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        for (OutboxEvent event : events) {
+            writer.write(event.toJson());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
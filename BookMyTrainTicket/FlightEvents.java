@@ -0,0 +1,279 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for the booking domain
+ * Emitted by the managers so a recording shows bookings, seat claims,
+ * promotions, gateway calls and schema migration next to GC, lock and I/O
+ * events. Each event is created and begun unconditionally, which costs next
+ * to nothing; its fields are only filled in and written when the event is
+ * enabled and over its threshold. Enable them with bookmyticket.jfc.
+ */
+public final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    /**
+     * Wrap a gateway so that each charge and refund is recorded
+     */
+    public static PaymentGateway record(PaymentGateway gateway) {
+        if (gateway instanceof RecordedGateway) {
+            return gateway;
+        }
+        return new RecordedGateway(gateway);
+    }
+
+    /**
+     * Inner class for one attempt to book or hold a seat
+     */
+    @Name("BookMyTrainTicket.BookingAttempt")
+    @Label("Booking Attempt")
+    @Category({ "BookMyTicket", "Booking" })
+    @Description("A booking or seat hold, including fallback to RAC or waitlist")
+    @StackTrace(false)
+    public static class BookingAttempt extends Event {
+        @Label("Mode")
+        String mode;
+
+        @Label("User ID")
+        int userId;
+
+        @Label("Seat ID")
+        int seatId;
+
+        @Label("Train ID")
+        int trainId;
+
+        @Label("Route ID")
+        int routeId;
+
+        @Label("Outcome")
+        @Description("Confirmed, Held, RAC, Waiting or Error")
+        String outcome;
+
+        @Label("Result ID")
+        @Description("Booking, RAC or waitlist ID")
+        int resultId;
+
+        public static BookingAttempt start() {
+            BookingAttempt event = new BookingAttempt();
+            event.begin();
+            return event;
+        }
+
+        /**
+         * End the attempt; a null result means it failed with an exception
+         */
+        public void finish(String mode, int userId, int seatId, int trainId, int routeId,
+                           BookingManager.BookingResult result) {
+            end();
+            if (shouldCommit()) {
+                this.mode = mode;
+                this.userId = userId;
+                this.seatId = seatId;
+                this.trainId = trainId;
+                this.routeId = routeId;
+                this.outcome = result == null ? "Error" : result.getStatus();
+                this.resultId = result == null ? 0 : result.getId();
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Inner class for a conditional claim of a seat
+     */
+    @Name("BookMyTrainTicket.SeatClaim")
+    @Label("Seat Claim")
+    @Category({ "BookMyTicket", "Booking" })
+    @Description("Conditional update that takes a free seat for a hold")
+    @StackTrace(false)
+    public static class SeatClaim extends Event {
+        @Label("Seat ID")
+        int seatId;
+
+        @Label("Claimed")
+        @Description("False if another booking got the seat first")
+        boolean claimed;
+
+        public static SeatClaim start() {
+            SeatClaim event = new SeatClaim();
+            event.begin();
+            return event;
+        }
+
+        public void finish(int seatId, boolean claimed) {
+            end();
+            if (shouldCommit()) {
+                this.seatId = seatId;
+                this.claimed = claimed;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Inner class for promoting the head of the RAC queue or waitlist
+     */
+    @Name("BookMyTrainTicket.Promotion")
+    @Label("Queue Promotion")
+    @Category({ "BookMyTicket", "Booking" })
+    @StackTrace(false)
+    public static class Promotion extends Event {
+        @Label("Queue")
+        String queue;
+
+        @Label("Train ID")
+        int trainId;
+
+        @Label("Route ID")
+        int routeId;
+
+        @Label("Entry ID")
+        int entryId;
+
+        @Label("Promoted")
+        @Description("False if the queue was empty")
+        boolean promoted;
+
+        public static Promotion start() {
+            Promotion event = new Promotion();
+            event.begin();
+            return event;
+        }
+
+        public void setEntryId(int entryId) {
+            this.entryId = entryId;
+        }
+
+        public void finish(String queue, int trainId, int routeId, boolean promoted) {
+            end();
+            if (shouldCommit()) {
+                this.queue = queue;
+                this.trainId = trainId;
+                this.routeId = routeId;
+                this.promoted = promoted;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Inner class for one call to the payment gateway
+     */
+    @Name("BookMyTrainTicket.PaymentGatewayCall")
+    @Label("Payment Gateway Call")
+    @Category({ "BookMyTicket", "Payment" })
+    @StackTrace(false)
+    public static class PaymentGatewayCall extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Booking ID")
+        int bookingId;
+
+        @Label("Payment ID")
+        int paymentId;
+
+        @Label("Method")
+        String method;
+
+        @Label("Amount")
+        double amount;
+
+        @Label("Status")
+        String status;
+
+        @Label("Success")
+        boolean success;
+    }
+
+    /**
+     * Inner class for a run of the schema migrations at startup
+     */
+    @Name("BookMyTrainTicket.SchemaBootstrap")
+    @Label("Schema Bootstrap")
+    @Category({ "BookMyTicket", "Database" })
+    @StackTrace(false)
+    public static class SchemaBootstrap extends Event {
+        @Label("Database")
+        String database;
+
+        @Label("From Version")
+        int fromVersion;
+
+        @Label("To Version")
+        int toVersion;
+
+        @Label("Migrations Applied")
+        int applied;
+    }
+
+    /**
+     * Gateway decorator emitting a PaymentGatewayCall per call
+     */
+    private static class RecordedGateway implements PaymentGateway {
+        private final PaymentGateway gateway;
+
+        RecordedGateway(PaymentGateway gateway) {
+            this.gateway = gateway;
+        }
+
+        @Override
+        public PaymentManager.PaymentResult charge(PaymentManager.PaymentRequest request) {
+            PaymentGatewayCall event = new PaymentGatewayCall();
+            event.begin();
+            PaymentManager.PaymentResult result = null;
+            try {
+                result = gateway.charge(request);
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = "Charge";
+                    event.bookingId = request.getBookingId();
+                    event.method = String.valueOf(request.getMethod());
+                    event.amount = toDouble(request.getAmount());
+                    fill(event, result);
+                    event.commit();
+                }
+            }
+        }
+
+        @Override
+        public PaymentManager.PaymentResult refund(String idempotencyKey, int paymentId, BigDecimal amount, String reason) {
+            PaymentGatewayCall event = new PaymentGatewayCall();
+            event.begin();
+            PaymentManager.PaymentResult result = null;
+            try {
+                result = gateway.refund(idempotencyKey, paymentId, amount, reason);
+                return result;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = "Refund";
+                    event.paymentId = paymentId;
+                    event.amount = toDouble(amount);
+                    fill(event, result);
+                    event.commit();
+                }
+            }
+        }
+
+        private static void fill(PaymentGatewayCall event, PaymentManager.PaymentResult result) {
+            event.success = result != null && result.isSuccess();
+            event.status = result == null ? "Error" : String.valueOf(result.getStatus());
+        }
+
+        private static double toDouble(BigDecimal amount) {
+            return amount == null ? 0 : amount.doubleValue();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package BookMyTrainTicket;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Arrays;
+
+/**
+ * Timing proxies around the JDBC objects DatabaseManager hands out
+ * A wrapped Connection returns wrapped statements. Every execute call is timed
+ * into the Queries entry for its SQL, rows read through the returned ResultSet
+ * and update counts are added to the entry's row count, and executions over
+ * the slow-query threshold go to the SlowQueryLog with only the types of the
+ * bind parameters, never their values. The time to obtain a connection is
+ * recorded separately as connection wait. Commits and rollbacks are passed on
+ * to the SeatAvailabilityBus so it only publishes committed seat changes.
+ */
+public final class JdbcInstrumentation {
+    private static final LatencyHistogram CONNECTION_WAIT = new LatencyHistogram();
+    private static final Method NEXT;
+    private static final Method CLOSE;
+
+    static {
+        try {
+            NEXT = ResultSet.class.getMethod("next");
+            CLOSE = ResultSet.class.getMethod("close");
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private JdbcInstrumentation() {
+    }
+
+    public static LatencyHistogram getConnectionWait() {
+        return CONNECTION_WAIT;
+    }
+
+    static void recordConnectionWait(long nanos) {
+        CONNECTION_WAIT.recordNanos(nanos);
+    }
+
+    /**
+     * Wrap a connection so that statements created from it are instrumented
+     */
+    public static Connection wrap(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            String name = method.getName();
+
+            if (name.equals("prepareStatement") && result instanceof PreparedStatement) {
+                Queries.Query query = Queries.forSql((String) args[0]);
+                return proxy(PreparedStatement.class, new StatementHandler((Statement) result, query));
+            }
+            if (name.equals("createStatement") && result instanceof Statement) {
+                return proxy(Statement.class, new StatementHandler((Statement) result, null));
+            }
+
+            // Seat changes made in a transaction are published once it commits
+            Connection conn = (Connection) proxy;
+            if (name.equals("commit") || (name.equals("setAutoCommit") && Boolean.TRUE.equals(args[0]))) {
+                SeatAvailabilityBus.committed(conn);
+            } else if ((name.equals("rollback") && args == null) || name.equals("close")) {
+                SeatAvailabilityBus.rolledBack(conn);
+            }
+            return result;
+        };
+        return proxy(Connection.class, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcInstrumentation.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Inner class for a statement that times its executions
+     * Prepared statements know their query up front; plain statements look it
+     * up from the SQL passed to each execute or addBatch call.
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private Queries.Query query;
+        private String[] bindTypes = new String[8];
+
+        StatementHandler(Statement statement, Queries.Query query) {
+            this.statement = statement;
+            this.query = query;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                recordBindType((Integer) args[0], name.substring(3));
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(bindTypes, null);
+            } else if (name.equals("getResultSet")) {
+                return countRows((ResultSet) JdbcInstrumentation.invoke(statement, method, args), query);
+            } else if (name.equals("addBatch") && args != null && args[0] instanceof String) {
+                query = Queries.forSql((String) args[0]);
+            }
+
+            if (!name.startsWith("execute")) {
+                return JdbcInstrumentation.invoke(statement, method, args);
+            }
+
+            Queries.Query executed = args != null && args.length > 0 && args[0] instanceof String
+                ? Queries.forSql((String) args[0]) : query;
+            if (executed == null) {
+                return JdbcInstrumentation.invoke(statement, method, args);
+            }
+            query = executed;
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            Object result = null;
+            try {
+                result = JdbcInstrumentation.invoke(statement, method, args);
+                failed = false;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                executed.recordExecution(nanos, failed);
+                long updated = updateCount(result);
+                if (updated > 0) {
+                    executed.addRows(updated);
+                }
+                SlowQueryLog.getInstance().record(executed, nanos, updated, bindTypes, failed);
+            }
+
+            return result instanceof ResultSet ? countRows((ResultSet) result, executed) : result;
+        }
+
+        private void recordBindType(int index, String type) {
+            if (index >= bindTypes.length) {
+                bindTypes = Arrays.copyOf(bindTypes, Math.max(index + 1, bindTypes.length * 2));
+            }
+            bindTypes[index] = type;
+        }
+
+        private static long updateCount(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            long total = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Wrap a result set so that rows read from it are added to the query
+     */
+    private static ResultSet countRows(ResultSet resultSet, Queries.Query query) {
+        if (resultSet == null || query == null) {
+            return resultSet;
+        }
+        return proxy(ResultSet.class, new RowCounter(resultSet, query));
+    }
+
+    /**
+     * Inner class counting the rows read from one result set
+     * Rows are counted locally and added to the query once, when the result set
+     * is exhausted or closed, so next() costs no atomic update per row.
+     */
+    private static class RowCounter implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final Queries.Query query;
+        private long rows;
+
+        RowCounter(ResultSet resultSet, Queries.Query query) {
+            this.resultSet = resultSet;
+            this.query = query;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.equals(NEXT)) {
+                boolean hasRow = resultSet.next();
+                if (hasRow) {
+                    rows++;
+                } else {
+                    flush();
+                }
+                return hasRow;
+            }
+            if (method.equals(CLOSE)) {
+                flush();
+            }
+            return JdbcInstrumentation.invoke(resultSet, method, args);
+        }
+
+        private void flush() {
+            if (rows > 0) {
+                query.addRows(rows);
+                rows = 0;
+            }
+        }
+    }
+}
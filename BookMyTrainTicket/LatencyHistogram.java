@@ -0,0 +1,107 @@
+package BookMyTrainTicket;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear microsecond buckets
+ * Every power of two is split into 16 linear sub-buckets, as in HdrHistogram,
+ * so reported percentiles are within about 6% of the true value while
+ * recording stays a few atomic increments, cheap enough for hot paths.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return Math.min(BUCKETS - 1, SUB_BUCKETS + shift * SUB_BUCKETS + subBucket);
+    }
+
+    /**
+     * Largest value in micros that falls in the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : totalMicros.get() / 1000.0 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Upper bound in millis of the bucket holding the given percentile (0-100)
+     */
+    public double getPercentileMillis(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.2fms p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+            getCount(), getMeanMillis(), getPercentileMillis(50), getPercentileMillis(99),
+            getPercentileMillis(99.9), getMaxMillis());
+    }
+}
@@ -16,9 +16,7 @@ public class LoginOperations {
      * Authenticate user with username and password
      */
     public User authenticateUser(String username, String password) throws SQLException {
-        String query = "SELECT user_id, username, password, email, role FROM users WHERE username = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.USER_BY_USERNAME.prepare(dbManager.getConnection())) {
             pstmt.setString(1, username);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -27,14 +25,7 @@ public class LoginOperations {
                     
                     // In a real application, you would hash passwords
                     if (password.equals(storedPassword)) {
-                        User user = new User();
-                        user.setUserId(rs.getInt("user_id"));
-                        user.setUsername(rs.getString("username"));
-                        user.setPassword(rs.getString("password"));
-                        user.setEmail(rs.getString("email"));
-                        user.setRole(User.UserRole.valueOf(rs.getString("role")));
-                        
-                        return user;
+                        return RowMappers.USER.bind(rs).map(rs);
                     }
                 }
             }
@@ -52,9 +43,7 @@ public class LoginOperations {
             return false;
         }
         
-        String query = "INSERT INTO users (username, password, email, role) VALUES (?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.INSERT_USER.prepare(dbManager.getConnection())) {
             pstmt.setString(1, username);
             pstmt.setString(2, password); // In real app, hash the password
             pstmt.setString(3, email);
@@ -69,9 +58,7 @@ public class LoginOperations {
      * Check if username already exists
      */
     private boolean userExists(String username) throws SQLException {
-        String query = "SELECT COUNT(*) FROM users WHERE username = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.COUNT_USERNAME.prepare(dbManager.getConnection())) {
             pstmt.setString(1, username);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -88,9 +75,7 @@ public class LoginOperations {
      * Update user password
      */
     public boolean updatePassword(int userId, String newPassword) throws SQLException {
-        String query = "UPDATE users SET password = ? WHERE user_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.UPDATE_PASSWORD.prepare(dbManager.getConnection())) {
             pstmt.setString(1, newPassword); // In real app, hash the password
             pstmt.setInt(2, userId);
             
@@ -103,25 +88,12 @@ public class LoginOperations {
      * Get user by ID
      */
     public User getUserById(int userId) throws SQLException {
-        String query = "SELECT user_id, username, password, email, role FROM users WHERE user_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.USER_BY_ID.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, userId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = new User();
-                    user.setUserId(rs.getInt("user_id"));
-                    user.setUsername(rs.getString("username"));
-                    user.setPassword(rs.getString("password"));
-                    user.setEmail(rs.getString("email"));
-                    user.setRole(User.UserRole.valueOf(rs.getString("role")));
-                    
-                    return user;
-                }
+                return RowMappers.first(rs, RowMappers.USER);
             }
         }
-        
-        return null;
     }
 }
@@ -0,0 +1,110 @@
+package BookMyTrainTicket;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint exporting the JDBC metrics
+ * GET /metrics returns the per-query counters and latency percentiles, the
+ * connection wait and the slow-query count in the Prometheus text format;
+ * GET /queries returns the same as a readable table. The server only binds
+ * to the loopback interface.
+ */
+public class MetricsEndpoint {
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+    private static MetricsEndpoint instance;
+
+    private final HttpServer server;
+
+    private MetricsEndpoint(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", render()));
+        server.createContext("/queries", exchange -> respond(exchange, "text/plain", Queries.report()));
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    /**
+     * Start the endpoint once; later calls return the running instance
+     */
+    public static synchronized MetricsEndpoint start(int port) throws IOException {
+        if (instance == null) {
+            instance = new MetricsEndpoint(port);
+        }
+        return instance;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Current metrics in the Prometheus text format
+     */
+    public static String render() {
+        // Each family is one block: its TYPE line, then all of its samples
+        StringBuilder executions = new StringBuilder("# TYPE jdbc_query_executions_total counter\n");
+        StringBuilder errors = new StringBuilder("# TYPE jdbc_query_errors_total counter\n");
+        StringBuilder rows = new StringBuilder("# TYPE jdbc_query_rows_total counter\n");
+        StringBuilder latency = new StringBuilder("# TYPE jdbc_query_latency_ms summary\n");
+
+        for (Queries.Query query : Queries.all()) {
+            if (query.getExecutions() == 0) {
+                continue;
+            }
+            String label = "{query=\"" + escape(query.getName()) + "\"";
+            executions.append("jdbc_query_executions_total").append(label).append("} ").append(query.getExecutions()).append('\n');
+            errors.append("jdbc_query_errors_total").append(label).append("} ").append(query.getErrors()).append('\n');
+            rows.append("jdbc_query_rows_total").append(label).append("} ").append(query.getRows()).append('\n');
+            appendSummary(latency, "jdbc_query_latency_ms", label + ",", query.getLatency());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(executions).append(errors).append(rows).append(latency);
+        sb.append("# TYPE jdbc_connection_wait_ms summary\n");
+        appendSummary(sb, "jdbc_connection_wait_ms", "{", JdbcInstrumentation.getConnectionWait());
+        sb.append("# TYPE jdbc_slow_queries_total counter\n");
+        sb.append("jdbc_slow_queries_total ").append(SlowQueryLog.getInstance().getSlowQueryCount()).append('\n');
+        return sb.toString();
+    }
+
+    private static void appendSummary(StringBuilder sb, String metric, String labelPrefix, LatencyHistogram histogram) {
+        for (double quantile : QUANTILES) {
+            sb.append(metric).append(labelPrefix).append("quantile=\"").append(quantile).append("\"} ")
+              .append(String.format(Locale.ROOT, "%.3f", histogram.getPercentileMillis(quantile * 100))).append('\n');
+        }
+        String labels = labelPrefix.length() > 1 ? labelPrefix.substring(0, labelPrefix.length() - 1) + "}" : "";
+        sb.append(metric).append("_sum").append(labels).append(' ')
+          .append(String.format(Locale.ROOT, "%.3f", histogram.getMeanMillis() * histogram.getCount())).append('\n');
+        sb.append(metric).append("_count").append(labels).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", " ");
+    }
+}
@@ -0,0 +1,218 @@
+package BookMyTrainTicket;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Denormalized read model behind the "My Bookings" screen
+ * One row per booking in my_bookings_view, kept current from outbox events, so
+ * the screen is served by a single indexed lookup instead of the seven-table
+ * join. Rows are refreshed from the base tables, which makes replaying an event
+ * harmless, and the whole view can be rebuilt on demand. While the relay has
+ * open gaps, one of them may be the reader's own booking, so a user's rows are
+ * refreshed from the base tables before they are read.
+ */
+public class MyBookingsProjection {
+    private static final String RELAY_NAME = "my-bookings-projection";
+
+    private static MyBookingsProjection instance;
+
+    private final OutboxRelay relay;
+    private Connection connection;
+
+    private MyBookingsProjection() throws SQLException {
+        DatabaseManager.getInstance();
+        relay = new OutboxRelay(RELAY_NAME);
+        relay.addSink(this::apply);
+
+        // First start: build the view from base tables before following events
+        if (relay.getPosition() == 0) {
+            rebuild();
+        }
+        relay.start();
+    }
+
+    public static synchronized MyBookingsProjection getInstance() throws SQLException {
+        if (instance == null) {
+            instance = new MyBookingsProjection();
+        }
+        return instance;
+    }
+
+    /**
+     * Bookings for a user, newest first, from the projection
+     * Pending events are applied first so users see their own changes.
+     */
+    public List<BookingManager.BookingDetails> getBookingsForUser(int userId) throws SQLException {
+        catchUp(userId);
+
+        try (PreparedStatement pstmt = Queries.MY_BOOKINGS.prepare(DatabaseManager.getConnection())) {
+            pstmt.setInt(1, userId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.list(rs, RowMappers.BOOKING_DETAILS);
+            }
+        }
+    }
+
+    /**
+     * One page of a user's bookings, newest first, seeking on the user index
+     * Pass a null afterBookingTime for the first page, then the booking time and ID
+     * of the last booking returned.
+     */
+    public List<BookingManager.BookingDetails> getBookingsForUser(int userId, LocalDateTime afterBookingTime,
+                                                                  int afterId, int limit) throws SQLException {
+        if (afterBookingTime == null) {
+            catchUp(userId);
+        }
+
+        Queries.Query query = afterBookingTime != null ? Queries.MY_BOOKINGS_NEXT_PAGE : Queries.MY_BOOKINGS_FIRST_PAGE;
+
+        try (PreparedStatement pstmt = query.prepare(DatabaseManager.getConnection())) {
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            if (afterBookingTime != null) {
+                Timestamp after = Timestamp.valueOf(afterBookingTime);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setTimestamp(index++, after);
+                pstmt.setInt(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return RowMappers.list(rs, RowMappers.BOOKING_DETAILS);
+            }
+        }
+    }
+
+    /**
+     * Apply every event committed so far
+     */
+    public void catchUp() throws SQLException {
+        try {
+            while (relay.poll() > 0) {
+                // next page
+            }
+        } catch (IOException e) {
+            throw new SQLException("Projection update failed", e);
+        }
+    }
+
+    /**
+     * Catch up, then make sure the user sees their own writes
+     * Events behind an open gap are not applied yet; the user's rows are read
+     * again from the base tables instead of waiting for them.
+     */
+    private void catchUp(int userId) throws SQLException {
+        catchUp();
+        if (relay.hasOpenGaps()) {
+            rebuildForUser(userId);
+        }
+    }
+
+    /**
+     * Recreate the whole view from the base tables
+     * The relay is moved to an outbox position old enough that no transaction
+     * below it can still be open; events after it are replayed, which only
+     * refreshes rows again.
+     */
+    public synchronized void rebuild() throws SQLException {
+        long position = relay.getSettledEventId();
+        Connection conn = getProjectionConnection();
+        conn.setAutoCommit(false);
+
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM my_bookings_view");
+            }
+            try (PreparedStatement pstmt = Queries.REFRESH_ALL_MY_BOOKINGS.prepare(conn)) {
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        relay.seek(position);
+    }
+
+    /**
+     * Rebuild the rows of a single user
+     */
+    public synchronized void rebuildForUser(int userId) throws SQLException {
+        Connection conn = getProjectionConnection();
+        try (PreparedStatement pstmt = Queries.REFRESH_MY_BOOKINGS_FOR_USER.prepare(conn)) {
+            pstmt.setInt(1, userId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    public OutboxRelay.RelayMetrics getMetrics() {
+        return relay.getMetrics();
+    }
+
+    /**
+     * Refresh the rows an event batch touches in one transaction
+     * Failures propagate to the relay, which retries the batch.
+     */
+    private synchronized void apply(List<OutboxEvent> events) throws IOException {
+        try {
+            Connection conn = getProjectionConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement byBooking = Queries.REFRESH_MY_BOOKING.prepare(conn);
+                 PreparedStatement byJourney = Queries.REFRESH_MY_BOOKINGS_FOR_JOURNEY.prepare(conn)) {
+
+                for (OutboxEvent event : events) {
+                    switch (event.getEventType()) {
+                        case OutboxEvent.BOOKING_CONFIRMED:
+                        case OutboxEvent.BOOKING_HELD:
+                        case OutboxEvent.BOOKING_CANCELLED:
+                        case OutboxEvent.PAYMENT_RECORDED:
+                        case OutboxEvent.PAYMENT_REFUNDED:
+                        case OutboxEvent.PAYMENT_STATUS_CHANGED:
+                            byBooking.setInt(1, event.getAggregateId());
+                            byBooking.addBatch();
+                            break;
+                        case OutboxEvent.RAC_PROMOTED:
+                        case OutboxEvent.WAITLIST_PROMOTED:
+                            // A promotion can change the user's bookings on that journey
+                            byJourney.setInt(1, event.getUserId());
+                            byJourney.setInt(2, event.getTrainId());
+                            byJourney.setInt(3, event.getRouteId());
+                            byJourney.addBatch();
+                            break;
+                        default:
+                            break;
+                    }
+                }
+
+                byBooking.executeBatch();
+                byJourney.executeBatch();
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            throw new IOException("Applying booking events failed: " + e.getMessage(), e);
+        }
+    }
+
+    private Connection getProjectionConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DatabaseManager.openConnection();
+        }
+        return connection;
+    }
+}
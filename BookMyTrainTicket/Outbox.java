@@ -0,0 +1,128 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes change events to the outbox_events table
+ * Callers pass the connection that holds their open transaction, so an event
+ * becomes visible to the relay exactly when the change it describes commits.
+ * Events are written with plain multi-row inserts. INSERT ... SELECT would
+ * reserve auto-increment IDs in blocks and leave permanent gaps in event_id,
+ * each of which the relay would have to wait out.
+ */
+public final class Outbox {
+    private Outbox() {
+    }
+
+    public static void append(Connection conn, OutboxEvent event) throws SQLException {
+        try (PreparedStatement pstmt = Queries.INSERT_OUTBOX_EVENT.prepare(conn)) {
+            bind(pstmt, event);
+            pstmt.executeUpdate();
+        }
+    }
+
+    public static void appendAll(Connection conn, List<OutboxEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = Queries.INSERT_OUTBOX_EVENT.prepare(conn)) {
+            for (OutboxEvent event : events) {
+                bind(pstmt, event);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Append an event for each listed booking about to move from one status to another
+     * Call it before the status update, in the same transaction, when only booking
+     * IDs are known. Returns the number of events written.
+     */
+    public static int appendForBookings(Connection conn, String eventType, List<Integer> bookingIds,
+                                        String fromStatus, String toStatus) throws SQLException {
+        return appendWithPayload(conn, eventType, bookingIds, "{\"status\":\"" + toStatus + "\"}", fromStatus);
+    }
+
+    /**
+     * Append an event about one booking, e.g. a change to its payment
+     */
+    public static void appendForBooking(Connection conn, String eventType, int bookingId, String payload) throws SQLException {
+        appendWithPayload(conn, eventType, List.of(bookingId), payload, null);
+    }
+
+    /**
+     * Batched form of appendForBooking with one payload per booking
+     */
+    public static void appendForBookings(Connection conn, String eventType, List<Integer> bookingIds,
+                                         List<String> payloads) throws SQLException {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, int[]> bookings = lockBookings(conn, bookingIds, null);
+        List<OutboxEvent> events = new ArrayList<>(bookingIds.size());
+        for (int i = 0; i < bookingIds.size(); i++) {
+            int[] booking = bookings.get(bookingIds.get(i));
+            if (booking != null) {
+                events.add(new OutboxEvent(eventType, "Booking", bookingIds.get(i),
+                    booking[0], booking[1], booking[2], payloads.get(i)));
+            }
+        }
+        appendAll(conn, events);
+    }
+
+    private static int appendWithPayload(Connection conn, String eventType, List<Integer> bookingIds,
+                                         String payload, String fromStatus) throws SQLException {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        List<OutboxEvent> events = new ArrayList<>(bookingIds.size());
+        for (Map.Entry<Integer, int[]> booking : lockBookings(conn, bookingIds, fromStatus).entrySet()) {
+            int[] row = booking.getValue();
+            events.add(new OutboxEvent(eventType, "Booking", booking.getKey(), row[0], row[1], row[2], payload));
+        }
+        appendAll(conn, events);
+        return events.size();
+    }
+
+    /**
+     * Lock and read the listed bookings, optionally only those in fromStatus
+     * Maps each booking ID to its user, train and route.
+     */
+    private static Map<Integer, int[]> lockBookings(Connection conn, List<Integer> bookingIds,
+                                                          String fromStatus) throws SQLException {
+        Queries.Query query = fromStatus != null ? Queries.LOCK_BOOKINGS_IN_STATUS : Queries.LOCK_BOOKINGS;
+        Map<Integer, int[]> bookings = new HashMap<>();
+
+        try (PreparedStatement pstmt = query.prepareIn(conn, bookingIds.size())) {
+            int index = 1;
+            for (int bookingId : bookingIds) {
+                pstmt.setInt(index++, bookingId);
+            }
+            if (fromStatus != null) {
+                pstmt.setString(index, fromStatus);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.put(rs.getInt("booking_id"),
+                        new int[] { rs.getInt("user_id"), rs.getInt("train_id"), rs.getInt("route_id") });
+                }
+            }
+        }
+        return bookings;
+    }
+
+    private static void bind(PreparedStatement pstmt, OutboxEvent event) throws SQLException {
+        pstmt.setString(1, event.getEventType());
+        pstmt.setString(2, event.getAggregateType());
+        pstmt.setInt(3, event.getAggregateId());
+        pstmt.setInt(4, event.getUserId());
+        pstmt.setInt(5, event.getTrainId());
+        pstmt.setInt(6, event.getRouteId());
+        pstmt.setString(7, event.getPayload());
+    }
+}
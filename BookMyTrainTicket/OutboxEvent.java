@@ -0,0 +1,93 @@
+package BookMyTrainTicket;
+
+import java.sql.Timestamp;
+
+/**
+ * Change event written to the outbox in the same transaction as the change
+ */
+public class OutboxEvent {
+    public static final String BOOKING_CONFIRMED = "BookingConfirmed";
+    public static final String BOOKING_HELD = "BookingHeld";
+    public static final String BOOKING_CANCELLED = "BookingCancelled";
+    public static final String PAYMENT_RECORDED = "PaymentRecorded";
+    public static final String PAYMENT_REFUNDED = "PaymentRefunded";
+    public static final String PAYMENT_STATUS_CHANGED = "PaymentStatusChanged";
+    public static final String RAC_ADDED = "RACAdded";
+    public static final String RAC_PROMOTED = "RACPromoted";
+    public static final String RAC_REMOVED = "RACRemoved";
+    public static final String WAITLIST_ADDED = "WaitlistAdded";
+    public static final String WAITLIST_PROMOTED = "WaitlistPromoted";
+    public static final String WAITLIST_REMOVED = "WaitlistRemoved";
+
+    private long eventId;
+    private final String eventType;
+    private final String aggregateType;
+    private final int aggregateId;
+    private final int userId;
+    private final int trainId;
+    private final int routeId;
+    private final String payload;
+    private Timestamp createdTime;
+
+    public OutboxEvent(String eventType, String aggregateType, int aggregateId,
+                       int userId, int trainId, int routeId, String payload) {
+        this.eventType = eventType;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.userId = userId;
+        this.trainId = trainId;
+        this.routeId = routeId;
+        this.payload = payload;
+    }
+
+    public static OutboxEvent booking(String eventType, int bookingId, int userId, int trainId, int routeId, String status) {
+        return new OutboxEvent(eventType, "Booking", bookingId, userId, trainId, routeId,
+            "{\"status\":\"" + status + "\"}");
+    }
+
+    public static String paymentPayload(int paymentId, String status) {
+        return "{\"paymentId\":" + paymentId + ",\"status\":\"" + status + "\"}";
+    }
+
+    public static OutboxEvent rac(String eventType, int racId, int userId, int trainId, int routeId, int position) {
+        return new OutboxEvent(eventType, "RAC", racId, userId, trainId, routeId, "{\"position\":" + position + "}");
+    }
+
+    public static OutboxEvent waitlist(String eventType, int waitlistId, int userId, int trainId, int routeId, int position) {
+        return new OutboxEvent(eventType, "Waitlist", waitlistId, userId, trainId, routeId, "{\"position\":" + position + "}");
+    }
+
+    // Getters
+    public long getEventId() { return eventId; }
+    public String getEventType() { return eventType; }
+    public String getAggregateType() { return aggregateType; }
+    public int getAggregateId() { return aggregateId; }
+    public int getUserId() { return userId; }
+    public int getTrainId() { return trainId; }
+    public int getRouteId() { return routeId; }
+    public String getPayload() { return payload; }
+    public Timestamp getCreatedTime() { return createdTime; }
+
+    void setEventId(long eventId) { this.eventId = eventId; }
+    void setCreatedTime(Timestamp createdTime) { this.createdTime = createdTime; }
+
+    /**
+     * One-line JSON form used by the file and socket sinks
+     */
+    public String toJson() {
+        return "{\"eventId\":" + eventId
+            + ",\"eventType\":\"" + eventType + "\""
+            + ",\"aggregateType\":\"" + aggregateType + "\""
+            + ",\"aggregateId\":" + aggregateId
+            + ",\"userId\":" + userId
+            + ",\"trainId\":" + trainId
+            + ",\"routeId\":" + routeId
+            + ",\"createdTime\":\"" + (createdTime == null ? "" : createdTime.toInstant()) + "\""
+            + ",\"payload\":" + (payload == null ? "null" : payload) + "}";
+    }
+
+    @Override
+    public String toString() {
+        return eventType + " " + aggregateType + "#" + aggregateId;
+    }
+}
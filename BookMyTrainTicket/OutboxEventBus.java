@@ -0,0 +1,67 @@
+package BookMyTrainTicket;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory subscriber bus fed by the outbox relay
+ * Subscribers run on the relay thread and should hand off slow work.
+ */
+public class OutboxEventBus implements OutboxSink {
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Subscribe to all events, or only to the given event types
+     */
+    public Subscription subscribe(Consumer<OutboxEvent> listener, String... eventTypes) {
+        Subscription subscription = new Subscription(listener, eventTypes);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            for (Subscription subscription : subscriptions) {
+                if (subscription.accepts(event)) {
+                    try {
+                        subscription.listener.accept(event);
+                    } catch (RuntimeException e) {
+                        // One faulty subscriber must not stall the others
+                        System.err.println("Outbox subscriber failed on " + event + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Inner class for a registered listener
+     */
+    public static class Subscription {
+        private final Consumer<OutboxEvent> listener;
+        private final String[] eventTypes;
+
+        Subscription(Consumer<OutboxEvent> listener, String[] eventTypes) {
+            this.listener = listener;
+            this.eventTypes = eventTypes;
+        }
+
+        boolean accepts(OutboxEvent event) {
+            if (eventTypes.length == 0) {
+                return true;
+            }
+            for (String eventType : eventTypes) {
+                if (eventType.equals(event.getEventType())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
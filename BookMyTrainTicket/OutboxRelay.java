@@ -0,0 +1,391 @@
+package BookMyTrainTicket;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tails the outbox and publishes events to the registered sinks
+ * Events are read in event_id order with keyset polling on a dedicated
+ * connection. A gap in the IDs may be a transaction that has not committed yet,
+ * so the relay waits at a gap for a while to keep events in order. After that
+ * it moves past the gap but remembers the missing IDs and re-reads them on
+ * later polls, publishing any that commit late, until they are older than the
+ * gap retention and taken to be rolled back. The position is stored in
+ * outbox_offsets after every batch that all sinks accepted; while IDs are
+ * still missing it is stored as just below the oldest of them, so a restarted
+ * relay re-reads them and delivery stays at least once.
+ */
+public class OutboxRelay {
+    private static final int MAX_SKIPPED_IDS = 10_000;
+    private static final int SKIPPED_CHUNK_SIZE = 500;
+    private static final long SKIPPED_POLL_MILLIS = 1000;
+
+    private final String relayName;
+    private final List<OutboxSink> sinks = new CopyOnWriteArrayList<>();
+    private final RelayMetrics metrics = new RelayMetrics();
+    private ScheduledExecutorService poller;
+    private Connection connection;
+    private long lastEventId = -1;
+    private int batchSize = 500;
+    private long pollIntervalMillis = 50;
+    private long gapTimeoutMillis = 2000;
+    private long gapRetentionMillis = 600_000;
+    private long gapSeenAt;
+    // Missing IDs the relay moved past, with when they were skipped
+    private final TreeMap<Long, Long> skippedIds = new TreeMap<>();
+    private long skippedPolledAt;
+
+    public OutboxRelay(String relayName) throws SQLException {
+        DatabaseManager.getInstance();
+        this.relayName = relayName;
+    }
+
+    public OutboxRelay addSink(OutboxSink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setPollIntervalMillis(long pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public void setGapTimeoutMillis(long gapTimeoutMillis) {
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    public void setGapRetentionMillis(long gapRetentionMillis) {
+        this.gapRetentionMillis = gapRetentionMillis;
+    }
+
+    public RelayMetrics getMetrics() {
+        return metrics;
+    }
+
+    public synchronized void start() {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay-" + relayName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdown();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        poller = null;
+
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                System.err.println("Closing outbox sink failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            // Keep draining while pages come back full
+            while (poll() == batchSize) {
+                // next page
+            }
+        } catch (SQLException | IOException e) {
+            metrics.failures.incrementAndGet();
+            System.err.println("Outbox relay " + relayName + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publish one page of events; returns how many were published
+     */
+    public synchronized int poll() throws SQLException, IOException {
+        Connection conn = getRelayConnection();
+        if (lastEventId < 0) {
+            lastEventId = loadOffset(conn);
+        }
+        pollSkipped(conn);
+
+        List<OutboxEvent> events;
+        try (PreparedStatement pstmt = Queries.OUTBOX_PAGE.prepare(conn)) {
+            pstmt.setLong(1, lastEventId);
+            pstmt.setInt(2, batchSize);
+            events = readEvents(pstmt);
+        }
+
+        events = untilGap(events);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        publish(events);
+        lastEventId = events.get(events.size() - 1).getEventId();
+        saveOffset(conn, committedPosition());
+        return events.size();
+    }
+
+    private void publish(List<OutboxEvent> events) throws IOException {
+        for (OutboxSink sink : sinks) {
+            sink.publish(events);
+        }
+
+        long now = System.currentTimeMillis();
+        for (OutboxEvent event : events) {
+            if (event.getCreatedTime() != null) {
+                metrics.endToEnd.recordMicros((now - event.getCreatedTime().getTime()) * 1000);
+            }
+        }
+        metrics.published.addAndGet(events.size());
+    }
+
+    private List<OutboxEvent> readEvents(PreparedStatement pstmt) throws SQLException {
+        List<OutboxEvent> events = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                OutboxEvent event = new OutboxEvent(rs.getString("event_type"), rs.getString("aggregate_type"),
+                    rs.getInt("aggregate_id"), rs.getInt("user_id"), rs.getInt("train_id"),
+                    rs.getInt("route_id"), rs.getString("payload"));
+                event.setEventId(rs.getLong("event_id"));
+                event.setCreatedTime(rs.getTimestamp("created_time"));
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Publish skipped events that have committed since, and forget expired gaps
+     * Late events arrive out of ID order; sinks already see each event at least once.
+     */
+    private void pollSkipped(Connection conn) throws SQLException, IOException {
+        long now = System.currentTimeMillis();
+        if (skippedIds.isEmpty() || now - skippedPolledAt < SKIPPED_POLL_MILLIS) {
+            return;
+        }
+        skippedPolledAt = now;
+        long before = committedPosition();
+
+        skippedIds.values().removeIf(skippedAt -> now - skippedAt > gapRetentionMillis);
+
+        List<Long> ids = new ArrayList<>(skippedIds.keySet());
+        for (int from = 0; from < ids.size(); from += SKIPPED_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SKIPPED_CHUNK_SIZE));
+            List<OutboxEvent> late;
+            try (PreparedStatement pstmt = Queries.OUTBOX_EVENTS_BY_ID.prepareIn(conn, chunk.size())) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setLong(i + 1, chunk.get(i));
+                }
+                late = readEvents(pstmt);
+            }
+            if (!late.isEmpty()) {
+                publish(late);
+                metrics.late.addAndGet(late.size());
+                for (OutboxEvent event : late) {
+                    skippedIds.remove(event.getEventId());
+                }
+            }
+        }
+
+        if (committedPosition() != before) {
+            saveOffset(conn, committedPosition());
+        }
+    }
+
+    /**
+     * Position safe to resume from: the last published ID, or just below the oldest missing one
+     */
+    private long committedPosition() {
+        return skippedIds.isEmpty() ? lastEventId : Math.min(lastEventId, skippedIds.firstKey() - 1);
+    }
+
+    /**
+     * ID of the last event this relay has published, 0 if it never ran
+     */
+    public synchronized long getPosition() throws SQLException {
+        if (lastEventId < 0) {
+            lastEventId = loadOffset(getRelayConnection());
+        }
+        return lastEventId;
+    }
+
+    /**
+     * Move the relay to a new position, e.g. after a consumer rebuilt its state
+     */
+    public synchronized void seek(long eventId) throws SQLException {
+        saveOffset(getRelayConnection(), eventId);
+        lastEventId = eventId;
+        gapSeenAt = 0;
+        skippedIds.clear();
+    }
+
+    /**
+     * Highest event ID inserted at least the gap retention ago
+     * Every transaction holding a lower ID has long since committed or rolled
+     * back, so a consumer that rebuilt its state can seek here without missing one.
+     */
+    public long getSettledEventId() throws SQLException {
+        try (PreparedStatement pstmt = Queries.SETTLED_OUTBOX_EVENT.prepare(getRelayConnection())) {
+            pstmt.setLong(1, -gapRetentionMillis / 1000);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Whether events may be missing behind the position: the relay is waiting
+     * at a gap, or is still re-reading IDs it skipped
+     */
+    public synchronized boolean hasOpenGaps() {
+        return gapSeenAt != 0 || !skippedIds.isEmpty();
+    }
+
+    /**
+     * Cut the page at the first ID gap unless that gap has outlived the timeout
+     * Rolled-back inserts leave permanent gaps; in-flight ones fill in shortly.
+     * The IDs of a gap the relay moves past are kept for pollSkipped.
+     */
+    private List<OutboxEvent> untilGap(List<OutboxEvent> events) {
+        long expected = lastEventId + 1;
+        for (int i = 0; i < events.size(); i++) {
+            long eventId = events.get(i).getEventId();
+            if (eventId != expected) {
+                long now = System.currentTimeMillis();
+                if (gapSeenAt == 0) {
+                    gapSeenAt = now;
+                }
+                if (now - gapSeenAt < gapTimeoutMillis) {
+                    return events.subList(0, i);
+                }
+                gapSeenAt = 0;
+                skip(expected, eventId, now);
+            }
+            expected = eventId + 1;
+        }
+        gapSeenAt = 0;
+        return events;
+    }
+
+    private void skip(long fromId, long toIdExclusive, long now) {
+        // A jump in IDs wider than the map can hold keeps only its newest IDs
+        long start = Math.max(fromId, toIdExclusive - MAX_SKIPPED_IDS);
+        metrics.abandoned.addAndGet(start - fromId);
+        for (long id = start; id < toIdExclusive; id++) {
+            if (skippedIds.size() >= MAX_SKIPPED_IDS) {
+                // Drop the oldest so a huge jump in IDs cannot grow the map without bound
+                Iterator<Map.Entry<Long, Long>> oldest = skippedIds.entrySet().iterator();
+                oldest.next();
+                oldest.remove();
+                metrics.abandoned.incrementAndGet();
+            }
+            skippedIds.put(id, now);
+        }
+    }
+
+    private long loadOffset(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = Queries.OUTBOX_OFFSET.prepare(conn)) {
+            pstmt.setString(1, relayName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void saveOffset(Connection conn, long eventId) throws SQLException {
+        try (PreparedStatement pstmt = Queries.SAVE_OUTBOX_OFFSET.prepare(conn)) {
+            pstmt.setString(1, relayName);
+            pstmt.setLong(2, eventId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private synchronized Connection getRelayConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DatabaseManager.openConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * Inner class for relay throughput and end-to-end latency
+     * Latency is measured from the event's created_time to publication.
+     * created_time is set when the row is inserted, not when its transaction
+     * commits, so it includes the time the writing transaction stayed open.
+     */
+    public static class RelayMetrics {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong late = new AtomicLong();
+        private final AtomicLong abandoned = new AtomicLong();
+        private final LatencyHistogram endToEnd = new LatencyHistogram();
+
+        public long getPublished() { return published.get(); }
+        public long getFailures() { return failures.get(); }
+        // Events published from a gap after the relay had moved past it
+        public long getLate() { return late.get(); }
+        // Skipped IDs dropped before their retention ran out, to bound memory
+        public long getAbandoned() { return abandoned.get(); }
+        public LatencyHistogram getEndToEndLatency() { return endToEnd; }
+
+        public double getEventsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            return seconds > 0 ? published.get() / seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("published=%d late=%d failures=%d rate=%.1f/s latency[%s]",
+                getPublished(), getLate(), getFailures(), getEventsPerSecond(), endToEnd);
+        }
+    }
+
+    /**
+     * Run a relay that appends events to a file and optionally a socket
+     * Usage: OutboxRelay <file> [host:port]
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: OutboxRelay <file> [host:port]");
+            return;
+        }
+
+        OutboxRelay relay = new OutboxRelay("cli");
+        relay.addSink(new FileOutboxSink(Paths.get(args[0])));
+        if (args.length > 1) {
+            String[] hostPort = args[1].split(":");
+            relay.addSink(new SocketOutboxSink(hostPort[0], Integer.parseInt(hostPort[1])));
+        }
+        relay.start();
+
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(relay.getMetrics());
+        }
+    }
+}
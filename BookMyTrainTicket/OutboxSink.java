@@ -0,0 +1,16 @@
+package BookMyTrainTicket;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for events published by OutboxRelay
+ * Delivery is at least once: a batch that throws is offered again.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events) throws IOException;
+
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,22 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+
+/**
+ * Service interface for the external payment gateway
+ * PaymentManager and BulkRefundProcessor talk to the gateway only through this
+ */
+public interface PaymentGateway {
+    
+    /**
+     * Charge the customer for a booking
+     */
+    PaymentManager.PaymentResult charge(PaymentManager.PaymentRequest request);
+    
+    /**
+     * Refund a previously successful payment
+     * A call repeating an earlier idempotency key must return that call's
+     * result instead of refunding again.
+     */
+    PaymentManager.PaymentResult refund(String idempotencyKey, int paymentId, BigDecimal amount, String reason);
+}
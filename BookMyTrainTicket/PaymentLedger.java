@@ -0,0 +1,223 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only, double-entry ledger of payment events
+ * Every payment or refund appends a balanced Cash/Revenue pair to ledger_entries
+ * on the caller's connection, inside the transaction that records the money
+ * movement, so the entry commits or rolls back with it. Rows are never updated.
+ * Revenue totals are read from the snapshot rows plus the entries appended after
+ * the latest snapshot.
+ *
+ * ledger_snapshots holds one row per (train, route, day) group. A snapshot only
+ * writes the groups with new entries, each as its previous total plus the delta,
+ * and deletes the rows they supersede; every row therefore covers all entries up
+ * to the newest through_entry_id. Entries younger than SNAPSHOT_LAG_SECONDS are
+ * left for the next snapshot, so an entry whose transaction is still open when
+ * a snapshot is taken is not passed over.
+ */
+public class PaymentLedger {
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 15;
+    private static final int SNAPSHOT_LAG_SECONDS = 300;
+
+    private static PaymentLedger instance;
+
+    private final ScheduledExecutorService snapshotter;
+    private Connection connection;
+
+    private PaymentLedger() throws SQLException {
+        DatabaseManager.getInstance();
+
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "payment-ledger-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly,
+            SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    public static synchronized PaymentLedger getInstance() throws SQLException {
+        if (instance == null) {
+            instance = new PaymentLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Record a successful payment on the caller's transaction: debit Cash, credit Revenue
+     */
+    public void recordPayment(Connection conn, int paymentId, int bookingId, BigDecimal amount) throws SQLException {
+        record(conn, List.of(payment(paymentId, bookingId, amount)));
+    }
+
+    /**
+     * Record a refund on the caller's transaction: debit Revenue, credit Cash
+     */
+    public void recordRefund(Connection conn, int paymentId, int bookingId, BigDecimal amount) throws SQLException {
+        record(conn, List.of(refund(paymentId, bookingId, amount)));
+    }
+
+    /**
+     * Record several events in one batch on the caller's transaction
+     * On a connection in auto-commit mode the batch gets a transaction of its own,
+     * so the two legs of an entry are never split.
+     */
+    public void record(Connection conn, List<Entry> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        DatabaseManager.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = Queries.INSERT_LEDGER_ENTRY.prepare(conn)) {
+                int legs = 0;
+                for (Entry entry : entries) {
+                    if (entry.amount == null) {
+                        continue;
+                    }
+                    boolean payment = entry.eventType.equals("Payment");
+                    addLeg(pstmt, entry, "Cash", payment ? "Debit" : "Credit");
+                    addLeg(pstmt, entry, "Revenue", payment ? "Credit" : "Debit");
+                    legs += 2;
+                }
+                if (legs > 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            return null;
+        });
+    }
+
+    public static Entry payment(int paymentId, int bookingId, BigDecimal amount) {
+        return new Entry("Payment", paymentId, bookingId, amount);
+    }
+
+    public static Entry refund(int paymentId, int bookingId, BigDecimal amount) {
+        return new Entry("Refund", paymentId, bookingId, amount);
+    }
+
+    private void addLeg(PreparedStatement pstmt, Entry entry, String account, String direction) throws SQLException {
+        pstmt.setString(1, entry.eventType);
+        pstmt.setInt(2, entry.paymentId);
+        pstmt.setInt(3, entry.bookingId);
+        pstmt.setInt(4, entry.bookingId);
+        pstmt.setInt(5, entry.bookingId);
+        pstmt.setString(6, account);
+        pstmt.setString(7, direction);
+        pstmt.setBigDecimal(8, entry.amount);
+        pstmt.addBatch();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            takeSnapshot();
+        } catch (SQLException e) {
+            System.err.println("Payment ledger snapshot failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the snapshot up to the newest settled entry
+     * Only groups with entries since the previous snapshot are written, and their
+     * superseded rows are deleted in the same transaction. Returns the entry id
+     * the snapshot now runs through.
+     */
+    public synchronized long takeSnapshot() throws SQLException {
+        Connection conn = getLedgerConnection();
+
+        long previous;
+        try (PreparedStatement pstmt = Queries.LATEST_LEDGER_SNAPSHOT.prepare(conn);
+             ResultSet rs = pstmt.executeQuery()) {
+            previous = rs.next() ? rs.getLong(1) : 0;
+        }
+
+        long highWater;
+        try (PreparedStatement pstmt = Queries.SETTLED_LEDGER_ENTRY.prepare(conn)) {
+            pstmt.setInt(1, -SNAPSHOT_LAG_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                highWater = rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+
+        if (highWater <= previous) {
+            return previous;
+        }
+
+        final long through = highWater;
+        DatabaseManager.inTransaction(conn, () -> {
+            // New totals first: they are computed from the rows about to be superseded
+            try (PreparedStatement pstmt = Queries.INSERT_LEDGER_SNAPSHOTS.prepare(conn)) {
+                pstmt.setLong(1, through);
+                pstmt.setLong(2, previous);
+                pstmt.setLong(3, through);
+                pstmt.executeUpdate();
+            }
+            try (PreparedStatement pstmt = Queries.DELETE_SUPERSEDED_LEDGER_SNAPSHOTS.prepare(conn)) {
+                pstmt.setLong(1, through);
+                pstmt.setLong(2, previous);
+                pstmt.setLong(3, through);
+                pstmt.executeUpdate();
+            }
+            return null;
+        });
+
+        return highWater;
+    }
+
+    public BigDecimal getRevenueForTrain(int trainId) throws SQLException {
+        return getRevenue(Queries.LEDGER_REVENUE_FOR_TRAIN, trainId);
+    }
+
+    public BigDecimal getRevenueForRoute(int routeId) throws SQLException {
+        return getRevenue(Queries.LEDGER_REVENUE_FOR_ROUTE, routeId);
+    }
+
+    public BigDecimal getRevenueForDay(LocalDate day) throws SQLException {
+        return getRevenue(Queries.LEDGER_REVENUE_FOR_DAY, Date.valueOf(day));
+    }
+
+    /**
+     * Snapshot total plus the revenue delta appended after the snapshot
+     */
+    private synchronized BigDecimal getRevenue(Queries.Query query, Object value) throws SQLException {
+        try (PreparedStatement pstmt = query.prepare(getLedgerConnection())) {
+            pstmt.setObject(1, value);
+            pstmt.setObject(2, value);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getBigDecimal(1) : BigDecimal.ZERO;
+            }
+        }
+    }
+
+    private Connection getLedgerConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DatabaseManager.openConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * Inner class for one payment or refund to be entered
+     */
+    public static class Entry {
+        private final String eventType;
+        private final int paymentId;
+        private final int bookingId;
+        private final BigDecimal amount;
+
+        Entry(String eventType, int paymentId, int bookingId, BigDecimal amount) {
+            this.eventType = eventType;
+            this.paymentId = paymentId;
+            this.bookingId = bookingId;
+            this.amount = amount;
+        }
+    }
+}
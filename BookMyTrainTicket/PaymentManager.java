@@ -1,13 +1,12 @@
 package BookMyTrainTicket;
 import java.math.BigDecimal;
 import java.sql.*;
-import java.util.Random;
-import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 /**
  * PaymentManager handles payment processing, confirmation, and receipt generation
- * Includes dummy payment gateway simulation with success/failure scenarios
+ * Gateway calls go through PaymentGateway; receipts are rendered by ReceiptRenderer
  */
 public class PaymentManager {
     
@@ -38,7 +37,8 @@ public class PaymentManager {
         PENDING("Pending"),
         SUCCESS("Success"),
         FAILED("Failed"),
-        REFUNDED("Refunded");
+        REFUNDED("Refunded"),
+        REFUND_REQUIRED("RefundRequired");
         
         private final String displayName;
         
@@ -50,6 +50,18 @@ public class PaymentManager {
             return displayName;
         }
         
+        /**
+         * Status for a payments.status value
+         */
+        public static PaymentStatus fromDisplayName(String displayName) {
+            for (PaymentStatus status : values()) {
+                if (status.displayName.equalsIgnoreCase(displayName)) {
+                    return status;
+                }
+            }
+            throw new IllegalArgumentException("Unknown payment status: " + displayName);
+        }
+        
         @Override
         public String toString() {
             return displayName;
@@ -194,26 +206,26 @@ public class PaymentManager {
     }
     
     private Connection connection;
-    private Random random;
+    private PaymentGateway gateway;
+    private PaymentLedger ledger;
+    private SeatHoldManager holdManager;
     
     public PaymentManager() throws SQLException {
+        this(new SimulatedPaymentGateway());
+    }
+    
+    public PaymentManager(PaymentGateway gateway) throws SQLException {
         this.connection = DatabaseManager.getConnection();
-        this.random = new Random();
+        this.gateway = FlightEvents.record(gateway);
+        this.ledger = PaymentLedger.getInstance();
+        this.holdManager = SeatHoldManager.getInstance();
     }
     
     /**
-     * Process payment through dummy payment gateway
+     * Process payment through the payment gateway
      */
     public PaymentResult processPayment(PaymentRequest request) throws SQLException {
-        // Simulate payment gateway processing delay
-        try {
-            Thread.sleep(2000); // 2 second delay for realism
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // Dummy payment gateway simulation
-        PaymentResult gatewayResponse = simulatePaymentGateway(request);
+        PaymentResult gatewayResponse = gateway.charge(request);
         
         // Create payment record in database
         int paymentId = createPaymentRecord(request, gatewayResponse);
@@ -221,8 +233,22 @@ public class PaymentManager {
         
         // Handle success/failure scenarios
         if (gatewayResponse.isSuccess()) {
-            // Update booking status to confirmed
-            updateBookingStatus(request.getBookingId(), "Confirmed");
+            // Update booking status to confirmed and turn the seat hold into a sale
+            if (!confirmHeldBooking(request.getBookingId())) {
+                // The hold expired while the gateway was working; give the money back
+                PaymentResult refund = refundPayment(paymentId, "Seat hold expired before payment completed");
+                // A failed refund stays queued in the refunds table and is retried
+                PaymentResult expired = refund.isSuccess()
+                    ? new PaymentResult(false, gatewayResponse.getTransactionId(),
+                        "Seat hold expired before payment completed. The amount has been refunded.",
+                        PaymentStatus.REFUNDED)
+                    : new PaymentResult(false, gatewayResponse.getTransactionId(),
+                        "Seat hold expired before payment completed. A refund of the amount is pending.",
+                        PaymentStatus.PENDING);
+                expired.setPaymentId(paymentId);
+                return expired;
+            }
+            holdManager.completeHold(request.getBookingId());
         } else {
             // Handle payment failure - rollback booking if needed
             handlePaymentFailure(request.getBookingId());
@@ -232,98 +258,46 @@ public class PaymentManager {
     }
     
     /**
-     * Simulate dummy payment gateway with random success/failure
+     * Create payment record in database
      */
-    private PaymentResult simulatePaymentGateway(PaymentRequest request) {
-        // 90% success rate for simulation
-        boolean success = random.nextDouble() > 0.1;
-        
-        String transactionId = generateTransactionId();
-        PaymentStatus status;
-        String message;
-        
-        if (success) {
-            status = PaymentStatus.SUCCESS;
-            message = "Payment processed successfully";
-            
-            // Additional validation based on payment method
-            if (request.getMethod() == PaymentMethod.CREDIT_CARD || 
-                request.getMethod() == PaymentMethod.DEBIT_CARD) {
+    private int createPaymentRecord(PaymentRequest request, PaymentResult result) throws SQLException {
+        return DatabaseManager.inTransaction(connection, () -> {
+            try (PreparedStatement stmt = Queries.INSERT_PAYMENT_RECORD.prepare(connection, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, request.getBookingId());
+                stmt.setBigDecimal(2, request.getAmount());
+                stmt.setString(3, result.getStatus().toString());
+                stmt.setString(4, request.getMethod().toString());
+                stmt.setString(5, result.getTransactionId());
                 
-                if (request.getCardNumber() == null || request.getCardNumber().length() < 16) {
-                    success = false;
-                    status = PaymentStatus.FAILED;
-                    message = "Invalid card number";
-                } else if (request.getCvv() == null || request.getCvv().length() != 3) {
-                    success = false;
-                    status = PaymentStatus.FAILED;
-                    message = "Invalid CVV";
-                }
-            } else if (request.getMethod() == PaymentMethod.UPI) {
-                if (request.getUpiId() == null || !request.getUpiId().contains("@")) {
-                    success = false;
-                    status = PaymentStatus.FAILED;
-                    message = "Invalid UPI ID";
+                stmt.executeUpdate();
+                
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    int paymentId = rs.getInt(1);
+                    Outbox.appendForBooking(connection, OutboxEvent.PAYMENT_RECORDED, request.getBookingId(),
+                                            OutboxEvent.paymentPayload(paymentId, result.getStatus().toString()));
+                    if (result.isSuccess()) {
+                        ledger.recordPayment(connection, paymentId, request.getBookingId(), request.getAmount());
+                    }
+                    return paymentId;
                 }
+                throw new SQLException("Failed to create payment record");
             }
-        } else {
-            status = PaymentStatus.FAILED;
-            String[] failureReasons = {
-                "Insufficient funds",
-                "Card expired",
-                "Transaction declined by bank",
-                "Network timeout",
-                "Invalid credentials"
-            };
-            message = failureReasons[random.nextInt(failureReasons.length)];
-        }
-        
-        return new PaymentResult(success, transactionId, message, status);
-    }
-    
-    /**
-     * Generate unique transaction ID
-     */
-    private String generateTransactionId() {
-        long timestamp = System.currentTimeMillis();
-        int randomNum = 1000 + random.nextInt(9000);
-        return "TXN" + timestamp + randomNum;
+        });
     }
     
     /**
-     * Create payment record in database
+     * Confirm a booking unless its seat hold was already released
      */
-    private int createPaymentRecord(PaymentRequest request, PaymentResult result) throws SQLException {
-        String sql = "INSERT INTO payments (booking_id, amount, status, payment_method, transaction_id, payment_time) VALUES (?, ?, ?, ?, ?, NOW())";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setInt(1, request.getBookingId());
-            stmt.setBigDecimal(2, request.getAmount());
-            stmt.setString(3, result.getStatus().toString());
-            stmt.setString(4, request.getMethod().toString());
-            stmt.setString(5, result.getTransactionId());
+    private boolean confirmHeldBooking(int bookingId) throws SQLException {
+        return DatabaseManager.inTransaction(connection, () -> {
+            Outbox.appendForBookings(connection, OutboxEvent.BOOKING_CONFIRMED, List.of(bookingId), "Held", "Confirmed");
             
-            stmt.executeUpdate();
-            
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = Queries.CONFIRM_HELD_BOOKING.prepare(connection)) {
+                stmt.setInt(1, bookingId);
+                return stmt.executeUpdate() > 0;
             }
-            throw new SQLException("Failed to create payment record");
-        }
-    }
-    
-    /**
-     * Update booking status after payment
-     */
-    private void updateBookingStatus(int bookingId, String status) throws SQLException {
-        String sql = "UPDATE bookings SET status = ? WHERE booking_id = ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, status);
-            stmt.setInt(2, bookingId);
-            stmt.executeUpdate();
-        }
+        });
     }
     
     /**
@@ -335,10 +309,9 @@ public class PaymentManager {
         
         try {
             // Get booking details
-            String getBookingSql = "SELECT seat_id FROM bookings WHERE booking_id = ?";
             int seatId = -1;
             
-            try (PreparedStatement stmt = connection.prepareStatement(getBookingSql)) {
+            try (PreparedStatement stmt = Queries.BOOKING_SEAT.prepare(connection)) {
                 stmt.setInt(1, bookingId);
                 ResultSet rs = stmt.executeQuery();
                 if (rs.next()) {
@@ -346,20 +319,27 @@ public class PaymentManager {
                 }
             }
             
-            // Mark seat as available again
-            if (seatId != -1) {
-                String updateSeatSql = "UPDATE seats SET is_available = TRUE WHERE seat_id = ?";
-                try (PreparedStatement stmt = connection.prepareStatement(updateSeatSql)) {
+            // Cancel the booking only while it is still held; a paid or expired booking is left alone
+            Outbox.appendForBookings(connection, OutboxEvent.BOOKING_CANCELLED, List.of(bookingId), "Held", "Cancelled");
+            boolean cancelled;
+            try (PreparedStatement stmt = Queries.CANCEL_HELD_BOOKINGS.prepare(connection)) {
+                stmt.setInt(1, bookingId);
+                cancelled = stmt.executeUpdate() > 0;
+            }
+            
+            // Mark seat as available again unless someone else has held or bought it since
+            if (cancelled && seatId != -1) {
+                try (PreparedStatement stmt = Queries.RELEASE_EXPIRED_HOLD_SEAT.prepare(connection)) {
                     stmt.setInt(1, seatId);
-                    stmt.executeUpdate();
+                    if (stmt.executeUpdate() > 0) {
+                        SeatAvailabilityBus.getInstance().seatChanged(connection, seatId, true);
+                    }
                 }
             }
             
-            // Update booking status to cancelled
-            updateBookingStatus(bookingId, "Cancelled");
-            
             // Commit transaction
             connection.commit();
+            holdManager.forget(bookingId);
             
         } catch (SQLException e) {
             // Rollback on error
@@ -371,10 +351,9 @@ public class PaymentManager {
     }
     
     /**
-     * Generate payment receipt with full booking details
+     * Receipt columns shared by single and batch receipt lookups
      */
-    public PaymentReceipt generateReceipt(int paymentId) throws SQLException {
-        String sql = """
+    static final String RECEIPT_SELECT = """
             SELECT 
                 p.payment_id, p.booking_id, p.amount, p.payment_method, 
                 p.transaction_id, p.payment_time, p.status as payment_status,
@@ -390,121 +369,141 @@ public class PaymentManager {
             LEFT JOIN seats s ON b.seat_id = s.seat_id
             LEFT JOIN compartments comp ON s.compartment_id = comp.compartment_id
             LEFT JOIN classes cl ON comp.class_id = cl.class_id
-            WHERE p.payment_id = ?
         """;
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+    
+    /**
+     * Generate payment receipt with full booking details
+     */
+    public PaymentReceipt generateReceipt(int paymentId) throws SQLException {
+        try (PreparedStatement stmt = Queries.RECEIPT_BY_PAYMENT.prepare(connection)) {
             stmt.setInt(1, paymentId);
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                PaymentReceipt receipt = new PaymentReceipt();
-                receipt.setPaymentId(rs.getInt("payment_id"));
-                receipt.setBookingId(rs.getInt("booking_id"));
-                receipt.setPnrNumber(rs.getString("pnr_number"));
-                receipt.setPassengerName(rs.getString("passenger_name"));
-                receipt.setTrainName(rs.getString("train_name"));
-                receipt.setTrainNumber(rs.getString("train_number"));
-                receipt.setSourceStation(rs.getString("source_station"));
-                receipt.setDestinationStation(rs.getString("destination_station"));
-                receipt.setDepartureTime(rs.getString("departure_time"));
-                receipt.setArrivalTime(rs.getString("arrival_time"));
-                receipt.setSeatNumber(rs.getString("seat_number"));
-                receipt.setBerthType(rs.getString("berth_type"));
-                receipt.setClassType(rs.getString("class_type"));
-                receipt.setAmount(rs.getDouble("amount"));
-                receipt.setPaymentMethod(PaymentMethod.valueOf(rs.getString("payment_method").replace(" ", "_").toUpperCase()));
-                receipt.setTransactionId(rs.getString("transaction_id"));
-                receipt.setPaymentTime(rs.getTimestamp("payment_time"));
-                receipt.setStatus(PaymentStatus.valueOf(rs.getString("payment_status").toUpperCase()));
-                
-                return receipt;
+                return mapReceipt(rs);
             }
             
             throw new SQLException("Payment receipt not found for payment ID: " + paymentId);
         }
     }
     
+    /**
+     * Map the current row of a RECEIPT_SELECT result
+     */
+    static PaymentReceipt mapReceipt(ResultSet rs) throws SQLException {
+        PaymentReceipt receipt = new PaymentReceipt();
+        receipt.setPaymentId(rs.getInt("payment_id"));
+        receipt.setBookingId(rs.getInt("booking_id"));
+        receipt.setPnrNumber(rs.getString("pnr_number"));
+        receipt.setPassengerName(rs.getString("passenger_name"));
+        receipt.setTrainName(rs.getString("train_name"));
+        receipt.setTrainNumber(rs.getString("train_number"));
+        receipt.setSourceStation(rs.getString("source_station"));
+        receipt.setDestinationStation(rs.getString("destination_station"));
+        receipt.setDepartureTime(rs.getString("departure_time"));
+        receipt.setArrivalTime(rs.getString("arrival_time"));
+        receipt.setSeatNumber(rs.getString("seat_number"));
+        receipt.setBerthType(rs.getString("berth_type"));
+        receipt.setClassType(rs.getString("class_type"));
+        receipt.setAmount(rs.getDouble("amount"));
+        receipt.setPaymentMethod(PaymentMethod.valueOf(rs.getString("payment_method").replace(" ", "_").toUpperCase()));
+        receipt.setTransactionId(rs.getString("transaction_id"));
+        receipt.setPaymentTime(rs.getTimestamp("payment_time"));
+        receipt.setStatus(PaymentStatus.fromDisplayName(rs.getString("payment_status")));
+        
+        return receipt;
+    }
+    
     /**
      * Generate printable receipt text
      */
     public String generatePrintableReceipt(PaymentReceipt receipt) {
-        StringBuilder sb = new StringBuilder();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MMM-yyyy HH:mm:ss");
-        
-        sb.append("=".repeat(60)).append("\n");
-        sb.append("                    BOOKMYTICKET                      \n");
-        sb.append("                 PAYMENT RECEIPT                     \n");
-        sb.append("=".repeat(60)).append("\n\n");
-        
-        sb.append("Receipt No      : ").append(receipt.getPaymentId()).append("\n");
-        sb.append("PNR Number      : ").append(receipt.getPnrNumber()).append("\n");
-        sb.append("Transaction ID  : ").append(receipt.getTransactionId()).append("\n");
-        sb.append("Payment Time    : ").append(dateFormat.format(receipt.getPaymentTime())).append("\n");
-        sb.append("Payment Status  : ").append(receipt.getStatus().getDisplayName()).append("\n\n");
-        
-        sb.append("PASSENGER DETAILS\n");
-        sb.append("-".repeat(30)).append("\n");
-        sb.append("Name            : ").append(receipt.getPassengerName()).append("\n\n");
-        
-        sb.append("JOURNEY DETAILS\n");
-        sb.append("-".repeat(30)).append("\n");
-        sb.append("Train           : ").append(receipt.getTrainName()).append(" (").append(receipt.getTrainNumber()).append(")\n");
-        sb.append("From            : ").append(receipt.getSourceStation()).append("\n");
-        sb.append("To              : ").append(receipt.getDestinationStation()).append("\n");
-        sb.append("Departure       : ").append(receipt.getDepartureTime()).append("\n");
-        sb.append("Arrival         : ").append(receipt.getArrivalTime()).append("\n");
-        
-        if (receipt.getSeatNumber() != null) {
-            sb.append("Seat            : ").append(receipt.getSeatNumber());
-            if (receipt.getBerthType() != null) {
-                sb.append(" (").append(receipt.getBerthType()).append(")");
-            }
-            sb.append("\n");
-        }
-        
-        if (receipt.getClassType() != null) {
-            sb.append("Class           : ").append(receipt.getClassType()).append("\n");
-        }
-        
-        sb.append("\nPAYMENT DETAILS\n");
-        sb.append("-".repeat(30)).append("\n");
-        sb.append("Amount          : ₹").append(String.format("%.2f", receipt.getAmount())).append("\n");
-        sb.append("Payment Method  : ").append(receipt.getPaymentMethod().getDisplayName()).append("\n\n");
-        
-        sb.append("IMPORTANT INFORMATION\n");
-        sb.append("-".repeat(30)).append("\n");
-        sb.append("• Please carry a valid ID proof during journey\n");
-        sb.append("• Tickets are non-transferable\n");
-        sb.append("• Report at station 30 minutes before departure\n");
-        sb.append("• Keep this receipt for future reference\n\n");
-        
-        sb.append("Thank you for choosing BookMyTicket!\n");
-        sb.append("=".repeat(60)).append("\n");
-        
-        return sb.toString();
+        return ReceiptRenderer.getDefault().renderToString(receipt);
     }
     
     /**
      * Refund payment (for cancellations)
+     * Goes through the refunds ledger like BulkRefundProcessor: the refund row is
+     * claimed InFlight and committed before the gateway is called, and its ID is
+     * the idempotency key, so the two can never send the same refund twice. A
+     * failed refund is left scheduled for the bulk processor to retry.
      */
     public PaymentResult refundPayment(int paymentId, String reason) throws SQLException {
-        // Simulate refund processing
-        String refundTransactionId = "REF" + generateTransactionId().substring(3);
+        BigDecimal amount = null;
+        int bookingId = 0;
         
-        // Update payment status
-        String sql = "UPDATE payments SET status = 'Refunded' WHERE payment_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = Queries.SUCCESSFUL_PAYMENT.prepare(connection)) {
             stmt.setInt(1, paymentId);
-            int updated = stmt.executeUpdate();
-            
-            if (updated > 0) {
-                return new PaymentResult(true, refundTransactionId, 
-                    "Refund processed successfully. Amount will be credited within 5-7 business days.", 
-                    PaymentStatus.REFUNDED);
-            } else {
-                return new PaymentResult(false, null, "Payment not found", PaymentStatus.FAILED);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    bookingId = rs.getInt("booking_id");
+                    amount = rs.getBigDecimal("amount");
+                }
             }
         }
+        
+        if (amount == null) {
+            return new PaymentResult(false, null, "Payment not found", PaymentStatus.FAILED);
+        }
+        
+        try (PreparedStatement stmt = Queries.ENQUEUE_REFUND.prepare(connection)) {
+            stmt.setInt(1, paymentId);
+            stmt.setBigDecimal(2, amount);
+            stmt.setString(3, reason);
+            stmt.executeUpdate();
+        }
+        
+        int refundId = 0;
+        int attempts = 0;
+        try (PreparedStatement stmt = Queries.REFUND_FOR_PAYMENT.prepare(connection)) {
+            stmt.setInt(1, paymentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    refundId = rs.getInt("refund_id");
+                    attempts = rs.getInt("attempts");
+                }
+            }
+        }
+        
+        try (PreparedStatement stmt = Queries.CLAIM_REFUND.prepare(connection)) {
+            stmt.setInt(1, refundId);
+            stmt.setInt(2, -BulkRefundProcessor.DEFAULT_IN_FLIGHT_TIMEOUT_SECONDS);
+            if (stmt.executeUpdate() == 0) {
+                return new PaymentResult(false, null, "Refund already processed or in progress", PaymentStatus.FAILED);
+            }
+        }
+        
+        PaymentResult result = gateway.refund(BulkRefundProcessor.idempotencyKey(refundId), paymentId, amount, reason);
+        Integer retryDelay = result.isSuccess() ? null : BulkRefundProcessor.retryDelaySeconds(attempts + 1,
+            BulkRefundProcessor.DEFAULT_MAX_ATTEMPTS, BulkRefundProcessor.DEFAULT_RETRY_BASE_SECONDS);
+        final int claimedRefund = refundId;
+        final int refundedBooking = bookingId;
+        final BigDecimal refundedAmount = amount;
+        
+        DatabaseManager.inTransaction(connection, () -> {
+            try (PreparedStatement stmt = Queries.COMPLETE_REFUND.prepare(connection)) {
+                stmt.setString(1, result.isSuccess() ? "Processed" : "Failed");
+                stmt.setString(2, result.getTransactionId());
+                stmt.setObject(3, retryDelay, Types.INTEGER);
+                stmt.setInt(4, claimedRefund);
+                if (stmt.executeUpdate() == 0 || !result.isSuccess()) {
+                    // Taken over after going stale; the new owner records the result
+                    return false;
+                }
+            }
+            
+            // Update payment status
+            try (PreparedStatement stmt = Queries.MARK_PAYMENT_REFUNDED.prepare(connection)) {
+                stmt.setInt(1, paymentId);
+                stmt.executeUpdate();
+            }
+            Outbox.appendForBooking(connection, OutboxEvent.PAYMENT_REFUNDED, refundedBooking,
+                                    OutboxEvent.paymentPayload(paymentId, "Refunded"));
+            ledger.recordRefund(connection, paymentId, refundedBooking, refundedAmount);
+            return true;
+        });
+        
+        result.setPaymentId(paymentId);
+        return result;
     }
-}
\ No newline at end of file
+}
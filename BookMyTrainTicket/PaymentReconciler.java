@@ -0,0 +1,298 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reconciles payments against bookings in the background
+ * Streams payments in keyset pages on its own connections and applies
+ * corrections in small throttled transactions so it can run alongside live traffic.
+ * Money the customer was charged is never written off: charged payments without
+ * a live booking are flagged 'RefundRequired' for the refund processor, and every
+ * status fix writes an outbox event so the booking read model follows it.
+ */
+public class PaymentReconciler {
+
+    public enum Issue {
+        ORPHAN_PAYMENT,
+        ORPHAN_CHARGED_PAYMENT,
+        CONFIRMED_WITH_FAILED_PAYMENT,
+        STALE_PENDING_PAYMENT,
+        CANCELLED_WITH_SUCCESS_PAYMENT
+    }
+
+    private int pageSize = 1000;
+    private int batchSize = 100;
+    private long throttleMillis = 50;
+    private int pendingTimeoutMinutes = 30;
+    private boolean dryRun = false;
+
+    public PaymentReconciler() throws SQLException {
+        DatabaseManager.getInstance();
+    }
+
+    /**
+     * Run one full reconciliation pass over the payments table
+     */
+    public ReconciliationReport reconcile() throws SQLException {
+        ReconciliationReport report = new ReconciliationReport();
+        long startTime = System.currentTimeMillis();
+
+        try (Connection reader = DatabaseManager.openConnection();
+             Connection writer = DatabaseManager.openConnection()) {
+
+            List<Discrepancy> pending = new ArrayList<>();
+            int lastPaymentId = 0;
+            int pageRows;
+
+            do {
+                pageRows = 0;
+                try (PreparedStatement pstmt = Queries.RECONCILE_PAGE.prepare(reader,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pstmt.setFetchSize(DatabaseManager.getProfile().getStreamingFetchSize());
+                    pstmt.setInt(1, -pendingTimeoutMinutes);
+                    pstmt.setInt(2, lastPaymentId);
+                    pstmt.setInt(3, pageSize);
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            pageRows++;
+                            lastPaymentId = rs.getInt("payment_id");
+                            report.scanned++;
+
+                            Discrepancy discrepancy = classify(rs);
+                            if (discrepancy != null) {
+                                report.record(discrepancy.getIssue());
+                                pending.add(discrepancy);
+                            }
+                        }
+                    }
+                }
+
+                // Apply corrections only once the streaming result set is closed
+                while (pending.size() >= batchSize) {
+                    List<Discrepancy> batch = new ArrayList<>(pending.subList(0, batchSize));
+                    pending.subList(0, batchSize).clear();
+                    report.corrected += applyCorrections(writer, batch);
+                    throttle();
+                }
+            } while (pageRows == pageSize);
+
+            if (!pending.isEmpty()) {
+                report.corrected += applyCorrections(writer, pending);
+            }
+        }
+
+        report.elapsedMillis = System.currentTimeMillis() - startTime;
+        return report;
+    }
+
+    /**
+     * Classify a joined payment/booking row, returning null when consistent
+     */
+    private Discrepancy classify(ResultSet rs) throws SQLException {
+        int paymentId = rs.getInt("payment_id");
+        String paymentStatus = rs.getString("payment_status");
+        String bookingStatus = rs.getString("booking_status");
+        int seatId = rs.getInt("seat_id");
+
+        if (rs.getObject("joined_booking_id") == null) {
+            if ("Success".equals(paymentStatus)) {
+                return new Discrepancy(Issue.ORPHAN_CHARGED_PAYMENT, paymentId, 0, 0);
+            }
+            if ("Pending".equals(paymentStatus)) {
+                return new Discrepancy(Issue.ORPHAN_PAYMENT, paymentId, 0, 0);
+            }
+            return null;
+        }
+
+        int bookingId = rs.getInt("joined_booking_id");
+
+        // A failed attempt next to a successful one is just a retried checkout
+        if ("Confirmed".equals(bookingStatus) && "Failed".equals(paymentStatus) && !rs.getBoolean("booking_paid")) {
+            return new Discrepancy(Issue.CONFIRMED_WITH_FAILED_PAYMENT, paymentId, bookingId, seatId);
+        }
+        if ("Pending".equals(paymentStatus) && rs.getBoolean("pending_expired")) {
+            return new Discrepancy(Issue.STALE_PENDING_PAYMENT, paymentId, bookingId, seatId);
+        }
+        if ("Cancelled".equals(bookingStatus) && "Success".equals(paymentStatus)) {
+            return new Discrepancy(Issue.CANCELLED_WITH_SUCCESS_PAYMENT, paymentId, bookingId, seatId);
+        }
+
+        return null;
+    }
+
+    /**
+     * Apply one batch of corrections in a single transaction
+     */
+    private int applyCorrections(Connection writer, List<Discrepancy> batch) throws SQLException {
+        if (dryRun) {
+            return 0;
+        }
+
+        writer.setAutoCommit(false);
+
+        try (PreparedStatement failPayment = Queries.FAIL_PENDING_PAYMENT.prepare(writer);
+             PreparedStatement flagRefund = Queries.FLAG_PAYMENT_REFUND.prepare(writer);
+             PreparedStatement cancelBooking = Queries.CANCEL_CONFIRMED_BOOKING.prepare(writer);
+             PreparedStatement releaseSeat = Queries.RELEASE_UNBOOKED_SEAT.prepare(writer)) {
+
+            int corrected = 0;
+            List<Integer> cancelledBookings = new ArrayList<>();
+            List<Integer> cancelledSeats = new ArrayList<>();
+            List<Integer> paymentBookings = new ArrayList<>();
+            List<String> paymentPayloads = new ArrayList<>();
+
+            for (Discrepancy discrepancy : batch) {
+                switch (discrepancy.getIssue()) {
+                    case ORPHAN_PAYMENT:
+                        failPayment.setInt(1, discrepancy.getPaymentId());
+                        failPayment.addBatch();
+                        corrected++;
+                        break;
+                    case ORPHAN_CHARGED_PAYMENT:
+                    case CANCELLED_WITH_SUCCESS_PAYMENT:
+                        // The customer was charged: owe the money back rather than fail the payment
+                        flagRefund.setInt(1, discrepancy.getPaymentId());
+                        flagRefund.addBatch();
+                        if (discrepancy.getBookingId() > 0) {
+                            paymentBookings.add(discrepancy.getBookingId());
+                            paymentPayloads.add(OutboxEvent.paymentPayload(discrepancy.getPaymentId(), "RefundRequired"));
+                        }
+                        corrected++;
+                        break;
+                    case STALE_PENDING_PAYMENT:
+                    case CONFIRMED_WITH_FAILED_PAYMENT:
+                        // An abandoned payment fails, and either way the booking is voided unless another payment succeeded
+                        if (discrepancy.getIssue() == Issue.STALE_PENDING_PAYMENT) {
+                            failPayment.setInt(1, discrepancy.getPaymentId());
+                            failPayment.addBatch();
+                            paymentBookings.add(discrepancy.getBookingId());
+                            paymentPayloads.add(OutboxEvent.paymentPayload(discrepancy.getPaymentId(), "Failed"));
+                        }
+                        cancelBooking.setInt(1, discrepancy.getBookingId());
+                        cancelBooking.addBatch();
+                        cancelledBookings.add(discrepancy.getBookingId());
+                        cancelledSeats.add(discrepancy.getSeatId());
+                        corrected++;
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            failPayment.executeBatch();
+            flagRefund.executeBatch();
+            Outbox.appendForBookings(writer, OutboxEvent.PAYMENT_STATUS_CHANGED, paymentBookings, paymentPayloads);
+            // Cancellations run first so the seat release sees them
+            Outbox.appendForBookings(writer, OutboxEvent.BOOKING_CANCELLED, cancelledBookings, "Confirmed", "Cancelled");
+            int[] cancelled = cancelBooking.executeBatch();
+
+            // Free only the seats of bookings this batch actually cancelled; the rest may have been resold
+            List<Integer> releasedSeats = new ArrayList<>();
+            for (int i = 0; i < cancelled.length && i < cancelledSeats.size(); i++) {
+                if (cancelled[i] > 0 && cancelledSeats.get(i) > 0) {
+                    releaseSeat.setInt(1, cancelledSeats.get(i));
+                    releaseSeat.addBatch();
+                    releasedSeats.add(cancelledSeats.get(i));
+                }
+            }
+            int[] released = releaseSeat.executeBatch();
+            for (int i = 0; i < released.length && i < releasedSeats.size(); i++) {
+                if (released[i] > 0) {
+                    SeatAvailabilityBus.getInstance().seatChanged(writer, releasedSeats.get(i), true);
+                }
+            }
+            writer.commit();
+
+            return corrected;
+
+        } catch (SQLException e) {
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(true);
+        }
+    }
+
+    private void throttle() {
+        if (throttleMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(throttleMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Configuration
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public void setThrottleMillis(long throttleMillis) { this.throttleMillis = throttleMillis; }
+    public void setPendingTimeoutMinutes(int pendingTimeoutMinutes) { this.pendingTimeoutMinutes = pendingTimeoutMinutes; }
+    public void setDryRun(boolean dryRun) { this.dryRun = dryRun; }
+
+    /**
+     * Inner class for a detected inconsistency
+     */
+    public static class Discrepancy {
+        private Issue issue;
+        private int paymentId;
+        private int bookingId;
+        private int seatId;
+
+        public Discrepancy(Issue issue, int paymentId, int bookingId, int seatId) {
+            this.issue = issue;
+            this.paymentId = paymentId;
+            this.bookingId = bookingId;
+            this.seatId = seatId;
+        }
+
+        public Issue getIssue() { return issue; }
+        public int getPaymentId() { return paymentId; }
+        public int getBookingId() { return bookingId; }
+        public int getSeatId() { return seatId; }
+    }
+
+    /**
+     * Inner class summarising a reconciliation pass
+     */
+    public static class ReconciliationReport {
+        private int scanned;
+        private int corrected;
+        private long elapsedMillis;
+        private int[] issueCounts = new int[Issue.values().length];
+
+        private void record(Issue issue) {
+            issueCounts[issue.ordinal()]++;
+        }
+
+        public int getScanned() { return scanned; }
+        public int getCorrected() { return corrected; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public int getIssueCount(Issue issue) { return issueCounts[issue.ordinal()]; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Scanned ").append(scanned).append(" payments in ").append(elapsedMillis).append(" ms");
+            for (Issue issue : Issue.values()) {
+                sb.append(", ").append(issue).append("=").append(getIssueCount(issue));
+            }
+            sb.append(", corrected=").append(corrected);
+            return sb.toString();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            PaymentReconciler reconciler = new PaymentReconciler();
+            reconciler.setDryRun(args.length > 0 && args[0].equals("--dry-run"));
+            System.out.println(reconciler.reconcile());
+        } catch (SQLException e) {
+            System.err.println("Reconciliation failed: " + e.getMessage());
+        }
+    }
+}
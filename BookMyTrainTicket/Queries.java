@@ -0,0 +1,734 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the named SQL used by the managers
+ * Each statement is defined once here. Preparing through a Query reuses the
+ * driver's per-connection cache of server-side prepared statements (see
+ * DatabaseProfile.connectionProperties). Connections handed out by
+ * DatabaseManager are instrumented (see JdbcInstrumentation), so every
+ * execution is counted and timed under the query's name, and SQL that is not
+ * registered here is tracked under an "adhoc:" name derived from its text.
+ */
+public final class Queries {
+    private static final Map<String, Query> REGISTRY = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, Query> BY_SQL = new ConcurrentHashMap<>();
+    private static final Map<String, Query> ADHOC = new ConcurrentHashMap<>();
+    private static final int MAX_ADHOC_QUERIES = 200;
+    // Raw SQL already classified, so the shape regexes run once per distinct string
+    private static final Map<String, Query> CLASSIFIED = new ConcurrentHashMap<>();
+    private static final int MAX_CLASSIFIED_SQL = 2000;
+    private static final Query ADHOC_OTHER = new Query("adhoc:other", "");
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final String IN_LIST = "IN (?)";
+    private static final String VALUES = "VALUES ";
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+
+    // Shared fragments
+    private static final String SEAT_SELECT = """
+        SELECT s.seat_id, s.compartment_id, s.berth_type, s.seat_number, s.is_available,
+               c.compartment_name, cl.class_type
+        FROM seats s
+        JOIN compartments c ON s.compartment_id = c.compartment_id
+        JOIN classes cl ON c.class_id = cl.class_id
+        """;
+
+    // Refunds ready for the gateway: new, due for a retry, or a claim abandoned mid-call
+    private static final String DUE_REFUND_CONDITION = """
+        (f.status = 'Pending'
+         OR f.status = 'Failed' AND f.next_attempt_time <= NOW()
+         OR f.status = 'InFlight' AND f.claimed_time < TIMESTAMPADD(SECOND, ?, NOW()))
+        """;
+
+    // Snapshot totals plus the revenue entered after the latest snapshot, read in one statement
+    // so a snapshot committing alongside is either wholly in or wholly out
+    private static final String LEDGER_REVENUE = """
+        SELECT COALESCE((SELECT SUM(revenue) FROM ledger_snapshots WHERE %1$s = ?), 0)
+             + COALESCE((SELECT SUM(CASE WHEN direction = 'Credit' THEN amount ELSE -amount END)
+                         FROM ledger_entries
+                         WHERE account = 'Revenue' AND %1$s = ?
+                           AND entry_id > (SELECT COALESCE(MAX(through_entry_id), 0) FROM ledger_snapshots)), 0)
+        """;
+
+    // Outbox event columns, in the order OutboxRelay reads them
+    private static final String OUTBOX_EVENT_COLUMNS =
+        "event_id, event_type, aggregate_type, aggregate_id, user_id, train_id, route_id, payload, created_time";
+
+    private static final String MY_BOOKINGS_COLUMNS = """
+        booking_id, user_id, seat_id, train_id, route_id, passenger_name, passenger_age, booking_time, status,
+        train_name, train_number, source_station, destination_station, departure_time, arrival_time, price,
+        seat_number, berth_type, compartment_name, class_type, payment_amount, payment_status
+        """;
+
+    // Upserts the projection rows of the bookings matching the condition; latest payment per booking
+    private static final String MY_BOOKINGS_REFRESH = """
+        INSERT INTO my_bookings_view (%1$s)
+        SELECT b.booking_id, b.user_id, b.seat_id, b.train_id, b.route_id,
+               b.passenger_name, b.passenger_age, b.booking_time, b.status,
+               t.train_name, t.train_number,
+               r.source_station, r.destination_station, r.departure_time, r.arrival_time, r.price,
+               s.seat_number, s.berth_type,
+               c.compartment_name, cl.class_type,
+               p.amount, p.status
+        FROM bookings b
+        JOIN trains t ON b.train_id = t.train_id
+        JOIN routes r ON b.route_id = r.route_id
+        LEFT JOIN seats s ON b.seat_id = s.seat_id
+        LEFT JOIN compartments c ON s.compartment_id = c.compartment_id
+        LEFT JOIN classes cl ON c.class_id = cl.class_id
+        LEFT JOIN payments p ON p.payment_id = (SELECT MAX(p2.payment_id) FROM payments p2
+                                                WHERE p2.booking_id = b.booking_id)
+        WHERE %2$s
+        ON DUPLICATE KEY UPDATE seat_id = VALUES(seat_id), status = VALUES(status),
+                                seat_number = VALUES(seat_number), berth_type = VALUES(berth_type),
+                                compartment_name = VALUES(compartment_name), class_type = VALUES(class_type),
+                                payment_amount = VALUES(payment_amount), payment_status = VALUES(payment_status)
+        """;
+
+    // Booking history join; the latest payment per booking keeps one row per booking
+    private static final String HISTORY_SELECT = """
+        SELECT b.booking_id, b.user_id, b.seat_id, b.train_id, b.route_id,
+               b.passenger_name, b.passenger_age, b.booking_time, b.status,
+               t.train_name, t.train_number,
+               r.source_station, r.destination_station, r.departure_time, r.arrival_time, r.price,
+               s.seat_number, s.berth_type,
+               c.compartment_name, cl.class_type,
+               p.amount as payment_amount, p.status as payment_status
+        FROM bookings b
+        JOIN trains t ON b.train_id = t.train_id
+        JOIN routes r ON b.route_id = r.route_id
+        LEFT JOIN seats s ON b.seat_id = s.seat_id
+        LEFT JOIN compartments c ON s.compartment_id = c.compartment_id
+        LEFT JOIN classes cl ON c.class_id = cl.class_id
+        LEFT JOIN payments p ON p.payment_id = (SELECT MAX(p2.payment_id) FROM payments p2
+                                                WHERE p2.booking_id = b.booking_id)
+        """;
+
+    // Users
+    public static final Query USER_BY_USERNAME = define("user.byUsername",
+        "SELECT user_id, username, password, email, role FROM users WHERE username = ?");
+    public static final Query USER_BY_ID = define("user.byId",
+        "SELECT user_id, username, password, email, role FROM users WHERE user_id = ?");
+    public static final Query INSERT_USER = define("user.insert",
+        "INSERT INTO users (username, password, email, role) VALUES (?, ?, ?, ?)");
+    public static final Query COUNT_USERNAME = define("user.countUsername",
+        "SELECT COUNT(*) FROM users WHERE username = ?");
+    public static final Query UPDATE_PASSWORD = define("user.updatePassword",
+        "UPDATE users SET password = ? WHERE user_id = ?");
+
+    // Trains
+    public static final Query ALL_TRAINS = define("train.all",
+        "SELECT train_id, train_name, train_number FROM trains ORDER BY train_name");
+    public static final Query TRAIN_BY_ID = define("train.byId",
+        "SELECT train_id, train_name, train_number FROM trains WHERE train_id = ?");
+    public static final Query INSERT_TRAIN = define("train.insert",
+        "INSERT INTO trains (train_name, train_number) VALUES (?, ?)");
+    public static final Query UPDATE_TRAIN = define("train.update",
+        "UPDATE trains SET train_name = ?, train_number = ? WHERE train_id = ?");
+    public static final Query DELETE_TRAIN = define("train.delete",
+        "DELETE FROM trains WHERE train_id = ?");
+    public static final Query COUNT_TRAIN_NUMBER = define("train.countNumber",
+        "SELECT COUNT(*) FROM trains WHERE train_number = ?");
+    public static final Query SEARCH_TRAINS = define("train.search", """
+        SELECT DISTINCT t.train_id, t.train_name, t.train_number,
+               r.route_id, r.source_station, r.destination_station,
+               r.departure_time, r.arrival_time, r.price
+        FROM trains t
+        JOIN routes r ON t.train_id = r.train_id
+        WHERE LOWER(r.source_station) LIKE LOWER(?)
+        AND LOWER(r.destination_station) LIKE LOWER(?)
+        ORDER BY t.train_name
+        """);
+    public static final Query ROUTE_PRICE = define("route.price",
+        "SELECT price FROM routes WHERE route_id = ?");
+    public static final Query ROUTE_PRICES = define("route.prices",
+        "SELECT route_id, price FROM routes WHERE route_id IN (?)");
+    // Routes after a key with their booking counts, for the station index
+    public static final Query STATION_ROUTES = define("route.stations", """
+        SELECT r.route_id, r.source_station, r.destination_station, COUNT(b.booking_id) AS bookings
+        FROM routes r
+        LEFT JOIN bookings b ON b.route_id = r.route_id
+        WHERE r.route_id > ?
+        GROUP BY r.route_id, r.source_station, r.destination_station
+        ORDER BY r.route_id
+        """);
+
+    // Seats
+    public static final Query SEATS_FOR_TRAIN = define("seat.forTrain", SEAT_SELECT + """
+        WHERE cl.train_id = ?
+        ORDER BY cl.class_type, c.compartment_name, s.seat_number
+        """);
+    public static final Query AVAILABLE_SEATS_FOR_TRAIN = define("seat.availableForTrain", SEAT_SELECT + """
+        WHERE cl.train_id = ? AND s.is_available = TRUE
+        ORDER BY cl.class_type, c.compartment_name, s.seat_number
+        """);
+    public static final Query SEAT_BY_ID = define("seat.byId", SEAT_SELECT + "WHERE s.seat_id = ?");
+    public static final Query COUNT_AVAILABLE_SEATS = define("seat.countAvailable", """
+        SELECT COUNT(*) FROM seats s
+        JOIN compartments c ON s.compartment_id = c.compartment_id
+        JOIN classes cl ON c.class_id = cl.class_id
+        WHERE cl.train_id = ? AND s.is_available = TRUE
+        """);
+    public static final Query UPDATE_SEAT_AVAILABILITY = define("seat.updateAvailability",
+        "UPDATE seats SET is_available = ? WHERE seat_id = ?");
+    // Seat id and availability only, for the booking lanes' in-memory inventory
+    public static final Query SEAT_AVAILABILITY_FOR_TRAIN = define("seat.availabilityForTrain", """
+        SELECT s.seat_id, s.is_available
+        FROM seats s
+        JOIN compartments c ON s.compartment_id = c.compartment_id
+        JOIN classes cl ON c.class_id = cl.class_id
+        WHERE cl.train_id = ?
+        """);
+    // Conditional updates: no row changes when another writer got the seat first
+    public static final Query CLAIM_SEAT = define("seat.claim",
+        "UPDATE seats SET is_available = FALSE WHERE seat_id = ? AND is_available = TRUE");
+    public static final Query HOLD_SEAT = define("seat.hold", """
+        UPDATE seats SET is_available = FALSE, held_until = TIMESTAMPADD(SECOND, ?, NOW())
+        WHERE seat_id = ? AND is_available = TRUE
+        """);
+    public static final Query COMPLETE_SEAT_HOLD = define("seat.completeHold", """
+        UPDATE seats SET held_until = NULL
+        WHERE seat_id = (SELECT seat_id FROM bookings WHERE booking_id = ?)
+        """);
+    // Write-behind batches lock the free seats among their requests, then take them
+    public static final Query LOCK_FREE_SEATS = define("seat.lockFree",
+        "SELECT seat_id FROM seats WHERE is_available = TRUE AND seat_id IN (?) FOR UPDATE");
+    public static final Query TAKE_LOCKED_SEATS = define("seat.takeLocked",
+        "UPDATE seats SET is_available = FALSE WHERE seat_id IN (?)");
+    // Skips a seat re-held or sold since its hold was taken
+    public static final Query RELEASE_EXPIRED_HOLD_SEAT = define("seat.releaseExpiredHold", """
+        UPDATE seats SET is_available = TRUE, held_until = NULL
+        WHERE seat_id = ? AND held_until IS NOT NULL
+        AND NOT EXISTS (SELECT 1 FROM bookings b
+                        WHERE b.seat_id = seats.seat_id AND b.status IN ('Held', 'Confirmed'))
+        """);
+    public static final Query SEAT_AVAILABILITY = define("seat.availability",
+        "SELECT seat_id, is_available FROM seats WHERE seat_id IN (?)");
+    // Every compartment of a train with its seats, one compartment after another
+    public static final Query COMPARTMENT_SEATS_FOR_TRAIN = define("compartment.seatsForTrain", """
+        SELECT c.compartment_id, c.compartment_name, cl.class_type,
+               s.seat_id, s.berth_type, s.seat_number, s.is_available
+        FROM compartments c
+        JOIN classes cl ON c.class_id = cl.class_id
+        LEFT JOIN seats s ON s.compartment_id = c.compartment_id
+        WHERE cl.train_id = ?
+        ORDER BY cl.class_type, c.compartment_name, c.compartment_id, s.seat_number
+        """);
+
+    // Bookings
+    public static final Query INSERT_CONFIRMED_BOOKING = define("booking.insertConfirmed", """
+        INSERT INTO bookings (user_id, seat_id, train_id, route_id, passenger_name, passenger_age, status)
+        VALUES (?, ?, ?, ?, ?, ?, 'Confirmed')
+        """);
+    public static final Query INSERT_HELD_BOOKING = define("booking.insertHeld", """
+        INSERT INTO bookings (user_id, seat_id, train_id, route_id, passenger_name, passenger_age, status)
+        VALUES (?, ?, ?, ?, ?, ?, 'Held')
+        """);
+    public static final Query CANCEL_BOOKING = define("booking.cancel",
+        "UPDATE bookings SET status = 'Cancelled' WHERE booking_id = ?");
+    public static final Query CANCEL_HELD_BOOKINGS = define("booking.cancelHeld",
+        "UPDATE bookings SET status = 'Cancelled' WHERE status = 'Held' AND booking_id IN (?)");
+    // Held bookings with their expiries, re-armed after a restart
+    public static final Query HELD_BOOKINGS = define("booking.held", """
+        SELECT b.booking_id, b.seat_id, s.held_until
+        FROM bookings b
+        JOIN seats s ON b.seat_id = s.seat_id
+        WHERE b.status = 'Held' AND s.held_until IS NOT NULL
+        """);
+    public static final Query ACTIVE_BOOKING_ON_TRAIN = define("booking.activeOnTrain",
+        "SELECT seat_id, route_id, user_id FROM bookings WHERE booking_id = ? AND train_id = ? AND status <> 'Cancelled'");
+    public static final Query CONFIRM_HELD_BOOKING = define("booking.confirmHeld",
+        "UPDATE bookings SET status = 'Confirmed' WHERE booking_id = ? AND status IN ('Held', 'Confirmed')");
+    public static final Query BOOKING_SEAT = define("booking.seat",
+        "SELECT seat_id FROM bookings WHERE booking_id = ?");
+    public static final Query BOOKING_BY_ID = define("booking.byId", """
+        SELECT b.booking_id, b.user_id, b.seat_id, b.train_id, b.route_id,
+               b.passenger_name, b.passenger_age, b.booking_time, b.status,
+               t.train_name, t.train_number,
+               r.source_station, r.destination_station, r.departure_time, r.arrival_time, r.price
+        FROM bookings b
+        JOIN trains t ON b.train_id = t.train_id
+        JOIN routes r ON b.route_id = r.route_id
+        WHERE b.booking_id = ?
+        """);
+    public static final Query BOOKING_HISTORY = define("booking.history", HISTORY_SELECT + """
+        WHERE b.user_id = ?
+        ORDER BY b.booking_time DESC, b.booking_id DESC
+        """);
+    public static final Query BOOKING_HISTORY_FIRST_PAGE = define("booking.historyFirstPage", HISTORY_SELECT + """
+        WHERE b.user_id = ?
+        ORDER BY b.booking_time DESC, b.booking_id DESC
+        LIMIT ?
+        """);
+    public static final Query BOOKING_HISTORY_NEXT_PAGE = define("booking.historyNextPage", HISTORY_SELECT + """
+        WHERE b.user_id = ?
+          AND (b.booking_time < ? OR (b.booking_time = ? AND b.booking_id < ?))
+        ORDER BY b.booking_time DESC, b.booking_id DESC
+        LIMIT ?
+        """);
+
+    // Payments
+    public static final Query INSERT_SUCCESSFUL_PAYMENT = define("payment.insertSuccess",
+        "INSERT INTO payments (booking_id, amount, status) VALUES (?, ?, 'Success')");
+    public static final Query INSERT_PAYMENT_RECORD = define("payment.insertRecord", """
+        INSERT INTO payments (booking_id, amount, status, payment_method, transaction_id, payment_time)
+        VALUES (?, ?, ?, ?, ?, NOW())
+        """);
+    // Charged payments, including those the reconciler flagged as owed back
+    public static final Query SUCCESSFUL_PAYMENT = define("payment.successful",
+        "SELECT booking_id, amount FROM payments WHERE payment_id = ? AND status IN ('Success', 'RefundRequired')");
+    public static final Query MARK_PAYMENT_REFUNDED = define("payment.markRefunded",
+        "UPDATE payments SET status = 'Refunded' WHERE payment_id = ?");
+
+    // Reconciler: one keyset page of payments with their bookings, then the corrections
+    public static final Query RECONCILE_PAGE = define("reconcile.page", """
+        SELECT p.payment_id, p.booking_id, p.status AS payment_status,
+               p.payment_time < TIMESTAMPADD(MINUTE, ?, NOW()) AS pending_expired,
+               b.booking_id AS joined_booking_id, b.seat_id, b.status AS booking_status,
+               EXISTS (SELECT 1 FROM payments s
+                       WHERE s.booking_id = p.booking_id AND s.status = 'Success') AS booking_paid
+        FROM payments p
+        LEFT JOIN bookings b ON p.booking_id = b.booking_id
+        WHERE p.payment_id > ?
+        ORDER BY p.payment_id
+        LIMIT ?
+        """);
+    public static final Query FAIL_PENDING_PAYMENT = define("reconcile.failPayment",
+        "UPDATE payments SET status = 'Failed' WHERE payment_id = ? AND status = 'Pending'");
+    public static final Query FLAG_PAYMENT_REFUND = define("reconcile.flagRefund",
+        "UPDATE payments SET status = 'RefundRequired' WHERE payment_id = ? AND status = 'Success'");
+    // A booking with a charged payment is kept whatever its other attempts did
+    public static final Query CANCEL_CONFIRMED_BOOKING = define("reconcile.cancelBooking", """
+        UPDATE bookings SET status = 'Cancelled'
+        WHERE booking_id = ? AND status = 'Confirmed'
+        AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.booking_id = bookings.booking_id AND p.status = 'Success')
+        """);
+    // Skips a seat someone is holding at checkout or has bought since
+    public static final Query RELEASE_UNBOOKED_SEAT = define("reconcile.releaseSeat", """
+        UPDATE seats SET is_available = TRUE
+        WHERE seat_id = ? AND held_until IS NULL
+        AND NOT EXISTS (SELECT 1 FROM bookings b
+                        WHERE b.seat_id = seats.seat_id AND b.status IN ('Held', 'Confirmed'))
+        """);
+
+    // Refunds: a row is claimed InFlight and committed before the gateway is called
+    public static final Query ENQUEUE_REFUND = define("refund.enqueue",
+        "INSERT IGNORE INTO refunds (payment_id, amount, reason, status) VALUES (?, ?, ?, 'Pending')");
+    public static final Query REFUND_FOR_PAYMENT = define("refund.forPayment",
+        "SELECT refund_id, status, attempts FROM refunds WHERE payment_id = ?");
+    // Pending and failed rows, or an InFlight claim older than the given (negative) seconds
+    public static final Query CLAIM_REFUND = define("refund.claim", """
+        UPDATE refunds SET status = 'InFlight', attempts = attempts + 1, claimed_time = NOW()
+        WHERE refund_id = ?
+          AND (status IN ('Pending', 'Failed')
+               OR status = 'InFlight' AND claimed_time < TIMESTAMPADD(SECOND, ?, NOW()))
+        """);
+    // A null retry delay leaves next_attempt_time null: processed, or out of attempts
+    public static final Query COMPLETE_REFUND = define("refund.complete", """
+        UPDATE refunds SET status = ?, refund_transaction_id = ?, processed_time = NOW(),
+                           next_attempt_time = TIMESTAMPADD(SECOND, ?, NOW())
+        WHERE refund_id = ? AND status = 'InFlight'
+        """);
+    public static final Query DUE_REFUNDS = define("refund.due", """
+        SELECT f.refund_id, f.payment_id, p.booking_id, f.amount, f.reason, f.attempts
+        FROM refunds f
+        JOIN payments p ON f.payment_id = p.payment_id
+        WHERE %s
+          AND MOD(f.refund_id, ?) = ? AND f.refund_id > ?
+        ORDER BY f.refund_id
+        LIMIT ?
+        """.formatted(DUE_REFUND_CONDITION.strip()));
+    public static final Query COUNT_DUE_REFUNDS = define("refund.countDue",
+        "SELECT COUNT(*) FROM refunds f WHERE " + DUE_REFUND_CONDITION);
+    public static final Query NEXT_REFUND_RETRY = define("refund.nextRetry", """
+        SELECT TIMESTAMPDIFF(SECOND, NOW(), MIN(next_attempt_time))
+        FROM refunds
+        WHERE status = 'Failed' AND next_attempt_time IS NOT NULL
+        """);
+    public static final Query ENQUEUE_REFUNDS_FOR_PAYMENTS = define("refund.enqueueForPayments", """
+        INSERT IGNORE INTO refunds (payment_id, amount, reason, status)
+        SELECT payment_id, amount, ?, 'Pending' FROM payments
+        WHERE status IN ('Success', 'RefundRequired') AND payment_id IN (?)
+        """);
+    public static final Query ENQUEUE_REFUNDS_FOR_TRAIN = define("refund.enqueueForTrain", """
+        INSERT IGNORE INTO refunds (payment_id, amount, reason, status)
+        SELECT p.payment_id, p.amount, ?, 'Pending'
+        FROM payments p
+        JOIN bookings b ON p.booking_id = b.booking_id
+        WHERE b.train_id = ? AND p.status IN ('Success', 'RefundRequired')
+        """);
+    public static final Query RECEIPT_BY_PAYMENT = define("payment.receipt",
+        PaymentManager.RECEIPT_SELECT + " WHERE p.payment_id = ?");
+
+    // Ledger: entries are written in the payment's own transaction; an entry without a booking books to train 0
+    public static final Query INSERT_LEDGER_ENTRY = define("ledger.insertEntry", """
+        INSERT INTO ledger_entries
+            (event_type, payment_id, booking_id, train_id, route_id, account, direction, amount, entry_date)
+        VALUES (?, ?, ?,
+                COALESCE((SELECT train_id FROM bookings WHERE booking_id = ?), 0),
+                COALESCE((SELECT route_id FROM bookings WHERE booking_id = ?), 0),
+                ?, ?, ?, CURRENT_DATE)
+        """);
+    public static final Query LATEST_LEDGER_SNAPSHOT = define("ledger.latestSnapshot",
+        "SELECT COALESCE(MAX(through_entry_id), 0) FROM ledger_snapshots");
+    // Newest entry written more than the given (negative) seconds ago; walks back from the end of the key
+    public static final Query SETTLED_LEDGER_ENTRY = define("ledger.settledEntry", """
+        SELECT entry_id FROM ledger_entries
+        WHERE entry_time < TIMESTAMPADD(SECOND, ?, NOW())
+        ORDER BY entry_id DESC
+        LIMIT 1
+        """);
+    // One row per group that has entries in (previous, through], adding them to its current total
+    public static final Query INSERT_LEDGER_SNAPSHOTS = define("ledger.insertSnapshots", """
+        INSERT INTO ledger_snapshots (through_entry_id, train_id, route_id, entry_date, revenue)
+        SELECT ?, d.train_id, d.route_id, d.entry_date, d.delta + COALESCE(s.revenue, 0)
+        FROM (
+            SELECT train_id, route_id, entry_date,
+                   SUM(CASE WHEN direction = 'Credit' THEN amount ELSE -amount END) AS delta
+            FROM ledger_entries
+            WHERE account = 'Revenue' AND entry_id > ? AND entry_id <= ?
+            GROUP BY train_id, route_id, entry_date
+        ) d
+        LEFT JOIN ledger_snapshots s
+            ON s.train_id = d.train_id AND s.route_id = d.route_id AND s.entry_date = d.entry_date
+        """);
+    public static final Query DELETE_SUPERSEDED_LEDGER_SNAPSHOTS = define("ledger.deleteSuperseded", """
+        DELETE FROM ledger_snapshots
+        WHERE through_entry_id < ?
+          AND (train_id, route_id, entry_date) IN (
+              SELECT train_id, route_id, entry_date FROM ledger_entries
+              WHERE account = 'Revenue' AND entry_id > ? AND entry_id <= ?)
+        """);
+    public static final Query LEDGER_REVENUE_FOR_TRAIN = define("ledger.revenueForTrain",
+        LEDGER_REVENUE.formatted("train_id"));
+    public static final Query LEDGER_REVENUE_FOR_ROUTE = define("ledger.revenueForRoute",
+        LEDGER_REVENUE.formatted("route_id"));
+    public static final Query LEDGER_REVENUE_FOR_DAY = define("ledger.revenueForDay",
+        LEDGER_REVENUE.formatted("entry_date"));
+
+    // Outbox: events are read in event_id order by keyset
+    public static final Query INSERT_OUTBOX_EVENT = define("outbox.insert", """
+        INSERT INTO outbox_events (event_type, aggregate_type, aggregate_id, user_id, train_id, route_id, payload)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """);
+    // Locks the rows the caller is about to update, so the status check still holds at the update
+    public static final Query LOCK_BOOKINGS = define("outbox.lockBookings", """
+        SELECT booking_id, user_id, train_id, route_id
+        FROM bookings
+        WHERE booking_id IN (?)
+        FOR UPDATE
+        """);
+    public static final Query LOCK_BOOKINGS_IN_STATUS = define("outbox.lockBookingsInStatus", """
+        SELECT booking_id, user_id, train_id, route_id
+        FROM bookings
+        WHERE booking_id IN (?) AND status = ?
+        FOR UPDATE
+        """);
+    public static final Query OUTBOX_PAGE = define("outbox.page", """
+        SELECT %s
+        FROM outbox_events
+        WHERE event_id > ?
+        ORDER BY event_id
+        LIMIT ?
+        """.formatted(OUTBOX_EVENT_COLUMNS));
+    public static final Query OUTBOX_EVENTS_BY_ID = define("outbox.eventsById",
+        "SELECT " + OUTBOX_EVENT_COLUMNS + " FROM outbox_events WHERE event_id IN (?) ORDER BY event_id");
+    // Newest event inserted more than the given (negative) seconds ago; walks back from the end of the key
+    public static final Query SETTLED_OUTBOX_EVENT = define("outbox.settledEvent", """
+        SELECT event_id FROM outbox_events
+        WHERE created_time < TIMESTAMPADD(SECOND, ?, NOW())
+        ORDER BY event_id DESC
+        LIMIT 1
+        """);
+    public static final Query OUTBOX_OFFSET = define("outbox.offset",
+        "SELECT last_event_id FROM outbox_offsets WHERE relay_name = ?");
+    public static final Query SAVE_OUTBOX_OFFSET = define("outbox.saveOffset", """
+        INSERT INTO outbox_offsets (relay_name, last_event_id) VALUES (?, ?)
+        ON DUPLICATE KEY UPDATE last_event_id = VALUES(last_event_id)
+        """);
+
+    // My bookings projection
+    public static final Query REFRESH_ALL_MY_BOOKINGS = define("myBookings.refreshAll",
+        MY_BOOKINGS_REFRESH.formatted(MY_BOOKINGS_COLUMNS, "1 = 1"));
+    public static final Query REFRESH_MY_BOOKINGS_FOR_USER = define("myBookings.refreshForUser",
+        MY_BOOKINGS_REFRESH.formatted(MY_BOOKINGS_COLUMNS, "b.user_id = ?"));
+    public static final Query REFRESH_MY_BOOKING = define("myBookings.refreshBooking",
+        MY_BOOKINGS_REFRESH.formatted(MY_BOOKINGS_COLUMNS, "b.booking_id = ?"));
+    public static final Query REFRESH_MY_BOOKINGS_FOR_JOURNEY = define("myBookings.refreshForJourney",
+        MY_BOOKINGS_REFRESH.formatted(MY_BOOKINGS_COLUMNS, "b.user_id = ? AND b.train_id = ? AND b.route_id = ?"));
+    public static final Query MY_BOOKINGS = define("myBookings.forUser",
+        "SELECT " + MY_BOOKINGS_COLUMNS + " FROM my_bookings_view WHERE user_id = ? "
+            + "ORDER BY booking_time DESC, booking_id DESC");
+    public static final Query MY_BOOKINGS_FIRST_PAGE = define("myBookings.firstPage",
+        "SELECT " + MY_BOOKINGS_COLUMNS + " FROM my_bookings_view WHERE user_id = ? "
+            + "ORDER BY booking_time DESC, booking_id DESC LIMIT ?");
+    public static final Query MY_BOOKINGS_NEXT_PAGE = define("myBookings.nextPage",
+        "SELECT " + MY_BOOKINGS_COLUMNS + " FROM my_bookings_view WHERE user_id = ? "
+            + "AND (booking_time < ? OR (booking_time = ? AND booking_id < ?)) "
+            + "ORDER BY booking_time DESC, booking_id DESC LIMIT ?");
+
+    // RAC
+    public static final Query NEXT_RAC_POSITION = define("rac.nextPosition",
+        "SELECT COALESCE(MAX(position), 0) + 1 FROM rac WHERE train_id = ? AND route_id = ? AND status = 'RAC'");
+    public static final Query INSERT_RAC = define("rac.insert",
+        "INSERT INTO rac (user_id, train_id, route_id, position) VALUES (?, ?, ?, ?)");
+    public static final Query COUNT_RAC = define("rac.count",
+        "SELECT COUNT(*) FROM rac WHERE train_id = ? AND route_id = ? AND status = 'RAC'");
+    public static final Query FIRST_RAC = define("rac.first", """
+        SELECT rac_id, user_id, position FROM rac
+        WHERE train_id = ? AND route_id = ? AND status = 'RAC'
+        ORDER BY position LIMIT 1
+        """);
+    public static final Query PROMOTE_RAC = define("rac.promote",
+        "UPDATE rac SET status = 'Promoted' WHERE rac_id = ?");
+    public static final Query SHIFT_RAC_POSITIONS = define("rac.shiftPositions",
+        "UPDATE rac SET position = position - 1 WHERE train_id = ? AND route_id = ? AND status = 'RAC' AND position > 1");
+    public static final Query RAC_LIST = define("rac.list", """
+        SELECT r.rac_id, r.user_id, r.position, r.request_time, r.status,
+               u.username, u.email
+        FROM rac r
+        JOIN users u ON r.user_id = u.user_id
+        WHERE r.train_id = ? AND r.route_id = ?
+        ORDER BY r.position
+        """);
+    public static final Query RAC_BY_ID = define("rac.byId",
+        "SELECT user_id, train_id, route_id, position FROM rac WHERE rac_id = ?");
+    public static final Query DELETE_RAC = define("rac.delete",
+        "DELETE FROM rac WHERE rac_id = ?");
+
+    // Waitlist
+    public static final Query NEXT_WAITLIST_POSITION = define("waitlist.nextPosition",
+        "SELECT COALESCE(MAX(position), 0) + 1 FROM waitlist WHERE train_id = ? AND route_id = ? AND status = 'Waiting'");
+    public static final Query INSERT_WAITLIST = define("waitlist.insert",
+        "INSERT INTO waitlist (user_id, train_id, route_id, position) VALUES (?, ?, ?, ?)");
+    public static final Query WAITLIST_POSITION = define("waitlist.position",
+        "SELECT position FROM waitlist WHERE waitlist_id = ?");
+    public static final Query FIRST_WAITLIST = define("waitlist.first", """
+        SELECT waitlist_id, user_id, position FROM waitlist
+        WHERE train_id = ? AND route_id = ? AND status = 'Waiting'
+        ORDER BY position LIMIT 1
+        """);
+    public static final Query PROMOTE_WAITLIST = define("waitlist.promote",
+        "UPDATE waitlist SET status = 'Promoted' WHERE waitlist_id = ?");
+    public static final Query SHIFT_WAITLIST_POSITIONS = define("waitlist.shiftPositions",
+        "UPDATE waitlist SET position = position - 1 WHERE train_id = ? AND route_id = ? AND status = 'Waiting' AND position > 1");
+    public static final Query WAITLIST_LIST = define("waitlist.list", """
+        SELECT w.waitlist_id, w.user_id, w.position, w.request_time, w.status,
+               u.username, u.email
+        FROM waitlist w
+        JOIN users u ON w.user_id = u.user_id
+        WHERE w.train_id = ? AND w.route_id = ?
+        ORDER BY w.position
+        """);
+    public static final Query WAITLIST_BY_ID = define("waitlist.byId",
+        "SELECT user_id, train_id, route_id, position FROM waitlist WHERE waitlist_id = ?");
+    public static final Query DELETE_WAITLIST = define("waitlist.delete",
+        "DELETE FROM waitlist WHERE waitlist_id = ?");
+
+    private Queries() {
+    }
+
+    private static Query define(String name, String sql) {
+        Query query = new Query(name, sql);
+        if (REGISTRY.putIfAbsent(name, query) != null) {
+            throw new IllegalStateException("Duplicate query name: " + name);
+        }
+        BY_SQL.put(sql, query);
+        return query;
+    }
+
+    /**
+     * The registered query with this exact SQL, or the ad hoc entry for its shape
+     * Literals are masked and placeholder lists collapsed, so e.g. chunked
+     * IN (?, ?, ...) deletes of any size share one entry. The result is cached
+     * per SQL string; SQL with inlined literals can vary without bound, so past
+     * MAX_CLASSIFIED_SQL strings it is classified again on every call.
+     */
+    static Query forSql(String sql) {
+        Query query = BY_SQL.get(sql);
+        if (query == null) {
+            query = CLASSIFIED.get(sql);
+        }
+        if (query != null) {
+            return query;
+        }
+
+        query = classify(sql);
+        if (CLASSIFIED.size() < MAX_CLASSIFIED_SQL) {
+            CLASSIFIED.putIfAbsent(sql, query);
+        }
+        return query;
+    }
+
+    private static Query classify(String sql) {
+        String shape = PLACEHOLDER_LIST.matcher(LITERAL.matcher(sql.trim().replaceAll("\\s+", " "))
+            .replaceAll("?")).replaceAll("?...");
+        Query query = ADHOC.get(shape);
+        if (query == null) {
+            if (ADHOC.size() >= MAX_ADHOC_QUERIES) {
+                return ADHOC_OTHER;
+            }
+            String name = "adhoc:" + (shape.length() > 48 ? shape.substring(0, 48) + "~" + Integer.toHexString(shape.hashCode()) : shape);
+            query = ADHOC.computeIfAbsent(shape, key -> new Query(name, key));
+        }
+        return query;
+    }
+
+    /**
+     * Registered queries followed by the ad hoc ones seen so far
+     */
+    public static Collection<Query> all() {
+        List<Query> queries;
+        synchronized (REGISTRY) {
+            queries = new ArrayList<>(REGISTRY.values());
+        }
+        queries.addAll(ADHOC.values());
+        queries.add(ADHOC_OTHER);
+        return queries;
+    }
+
+    public static Query byName(String name) {
+        return REGISTRY.get(name);
+    }
+
+    public static void resetStats() {
+        for (Query query : all()) {
+            query.latency.reset();
+            query.executions.set(0);
+            query.errors.set(0);
+            query.rows.set(0);
+        }
+    }
+
+    /**
+     * Per-query statistics, most expensive in total first
+     */
+    public static String report() {
+        List<Query> queries = new ArrayList<>(all());
+        queries.removeIf(query -> query.getExecutions() == 0);
+        queries.sort(Comparator.comparingDouble(Query::getTotalMillis).reversed());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %10s %7s %10s %10s %10s %10s%n", "Query", "Count", "Errors", "Rows",
+            "Mean ms", "p99 ms", "Max ms"));
+        for (Query query : queries) {
+            sb.append(String.format("%-28s %10d %7d %10d %10.2f %10.2f %10.2f%n", query.name, query.getExecutions(),
+                query.getErrors(), query.getRows(), query.latency.getMeanMillis(), query.latency.getPercentileMillis(99),
+                query.latency.getMaxMillis()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A named statement with its execution statistics
+     */
+    public static final class Query {
+        private final String name;
+        private final String sql;
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Query(String name, String sql) {
+            this.name = name;
+            this.sql = sql;
+        }
+
+        public String getName() { return name; }
+        public String getSql() { return sql; }
+        public long getExecutions() { return executions.get(); }
+        public long getErrors() { return errors.get(); }
+        public long getRows() { return rows.get(); }
+        public LatencyHistogram getLatency() { return latency; }
+
+        public double getTotalMillis() {
+            return latency.getMeanMillis() * latency.getCount();
+        }
+
+        public PreparedStatement prepare(Connection conn) throws SQLException {
+            return conn.prepareStatement(sql);
+        }
+
+        public PreparedStatement prepare(Connection conn, int autoGeneratedKeys) throws SQLException {
+            return conn.prepareStatement(sql, autoGeneratedKeys);
+        }
+
+        public PreparedStatement prepare(Connection conn, int resultSetType, int resultSetConcurrency) throws SQLException {
+            return conn.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+
+        /**
+         * Prepare with the query's IN (?) list widened to count placeholders
+         */
+        public PreparedStatement prepareIn(Connection conn, int count) throws SQLException {
+            return conn.prepareStatement(withInList(count));
+        }
+
+        /**
+         * The SQL with its IN (?) list widened to count placeholders
+         * Each widened form is registered under this query, so its executions
+         * are counted here rather than as ad hoc SQL. Callers chunk their lists,
+         * which keeps the number of forms small.
+         */
+        String withInList(int count) {
+            if (count == 1) {
+                return sql;
+            }
+            String widened = sql.replace(IN_LIST, "IN (" + String.join(", ", Collections.nCopies(count, "?")) + ")");
+            BY_SQL.putIfAbsent(widened, this);
+            return widened;
+        }
+
+        /**
+         * Prepare a multi-row INSERT with the query's VALUES row repeated count times
+         */
+        public PreparedStatement prepareRows(Connection conn, int count, int autoGeneratedKeys) throws SQLException {
+            return conn.prepareStatement(withRows(count), autoGeneratedKeys);
+        }
+
+        /**
+         * The INSERT with its single VALUES row repeated count times
+         * Registered under this query like the widened IN lists; callers bound
+         * their batch size, which bounds the number of forms.
+         */
+        String withRows(int count) {
+            if (count == 1) {
+                return sql;
+            }
+            int values = sql.lastIndexOf(VALUES);
+            String row = sql.substring(values + VALUES.length()).trim();
+            String widened = sql.substring(0, values + VALUES.length()) + String.join(", ", Collections.nCopies(count, row));
+            BY_SQL.putIfAbsent(widened, this);
+            return widened;
+        }
+
+        void recordExecution(long nanos, boolean failed) {
+            executions.incrementAndGet();
+            if (failed) {
+                errors.incrementAndGet();
+            }
+            latency.recordNanos(nanos);
+        }
+
+        void addRows(long count) {
+            rows.addAndGet(count);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * EXPLAIN-based regression check for the registered hot queries
+ * Each query is explained with sample arguments. Any full table scan is
+ * reported as a regression unless the case allows it for that table, e.g. the
+ * leading-wildcard station search. Queries with an IN (?) list are explained
+ * with the list widened to a few placeholders. Run it against a database with
+ * realistic data: on a near-empty table the optimizer may choose a scan even
+ * where an index exists, and that is reported too.
+ * Usage: QueryPlanCheck (exits with status 1 if any query regressed)
+ */
+public class QueryPlanCheck {
+    private static final Timestamp SAMPLE_TIME = Timestamp.valueOf("2030-01-01 00:00:00");
+    private static final Date SAMPLE_DATE = Date.valueOf("2030-01-01");
+
+    private final List<PlanCase> cases = new ArrayList<>();
+
+    public QueryPlanCheck() {
+        // Users and trains
+        add(Queries.USER_BY_USERNAME, "admin");
+        add(Queries.USER_BY_ID, 1);
+        add(Queries.COUNT_USERNAME, "admin");
+        add(Queries.TRAIN_BY_ID, 1);
+        add(Queries.COUNT_TRAIN_NUMBER, "12301");
+        allowScans(Queries.ALL_TRAINS, Set.of("trains"));
+        allowScans(Queries.SEARCH_TRAINS, Set.of("r"), "%Delhi%", "%Mumbai%");
+        add(Queries.ROUTE_PRICE, 1);
+        addIn(Queries.ROUTE_PRICES, 3, 1, 2, 3);
+        allowScans(Queries.STATION_ROUTES, Set.of("r"), 0);
+
+        // Seats
+        add(Queries.SEATS_FOR_TRAIN, 1);
+        add(Queries.AVAILABLE_SEATS_FOR_TRAIN, 1);
+        add(Queries.SEAT_BY_ID, 1);
+        add(Queries.COUNT_AVAILABLE_SEATS, 1);
+        add(Queries.COMPARTMENT_SEATS_FOR_TRAIN, 1);
+        add(Queries.UPDATE_SEAT_AVAILABILITY, true, 1);
+        add(Queries.SEAT_AVAILABILITY_FOR_TRAIN, 1);
+        add(Queries.CLAIM_SEAT, 1);
+        add(Queries.HOLD_SEAT, 300, 1);
+        add(Queries.COMPLETE_SEAT_HOLD, 1);
+        addIn(Queries.LOCK_FREE_SEATS, 3, 1, 2, 3);
+        addIn(Queries.TAKE_LOCKED_SEATS, 3, 1, 2, 3);
+        add(Queries.RELEASE_EXPIRED_HOLD_SEAT, 1);
+        addIn(Queries.SEAT_AVAILABILITY, 3, 1, 2, 3);
+
+        // Bookings and payments
+        add(Queries.BOOKING_BY_ID, 1);
+        add(Queries.BOOKING_SEAT, 1);
+        add(Queries.CANCEL_BOOKING, 1);
+        addIn(Queries.CANCEL_HELD_BOOKINGS, 3, 1, 2, 3);
+        allowScans(Queries.HELD_BOOKINGS, Set.of("b"));
+        add(Queries.ACTIVE_BOOKING_ON_TRAIN, 1, 1);
+        add(Queries.BOOKING_HISTORY, 1);
+        add(Queries.BOOKING_HISTORY_FIRST_PAGE, 1, 50);
+        add(Queries.BOOKING_HISTORY_NEXT_PAGE, 1, SAMPLE_TIME, SAMPLE_TIME, 1, 50);
+        add(Queries.SUCCESSFUL_PAYMENT, 1);
+        add(Queries.RECEIPT_BY_PAYMENT, 1);
+        add(Queries.MARK_PAYMENT_REFUNDED, 1);
+
+        // Reconciler
+        add(Queries.RECONCILE_PAGE, -30, 0, 1000);
+        add(Queries.FAIL_PENDING_PAYMENT, 1);
+        add(Queries.FLAG_PAYMENT_REFUND, 1);
+        add(Queries.CANCEL_CONFIRMED_BOOKING, 1);
+        add(Queries.RELEASE_UNBOOKED_SEAT, 1);
+
+        // Refunds
+        add(Queries.REFUND_FOR_PAYMENT, 1);
+        add(Queries.CLAIM_REFUND, 1, -300);
+        add(Queries.COMPLETE_REFUND, "Processed", "REF1", null, 1);
+        add(Queries.DUE_REFUNDS, -300, 4, 0, 0, 200);
+        add(Queries.COUNT_DUE_REFUNDS, -300);
+        add(Queries.NEXT_REFUND_RETRY);
+        addIn(Queries.ENQUEUE_REFUNDS_FOR_PAYMENTS, 3, "Train cancelled", 1, 2, 3);
+        add(Queries.ENQUEUE_REFUNDS_FOR_TRAIN, "Train cancelled", 1);
+
+        // Ledger
+        add(Queries.INSERT_LEDGER_ENTRY, "Payment", 1, 1, 1, 1, "Cash", "Debit", 100);
+        add(Queries.LATEST_LEDGER_SNAPSHOT);
+        add(Queries.SETTLED_LEDGER_ENTRY, -300);
+        add(Queries.INSERT_LEDGER_SNAPSHOTS, 2000, 1000, 2000);
+        add(Queries.DELETE_SUPERSEDED_LEDGER_SNAPSHOTS, 2000, 1000, 2000);
+        add(Queries.LEDGER_REVENUE_FOR_TRAIN, 1, 1);
+        add(Queries.LEDGER_REVENUE_FOR_ROUTE, 1, 1);
+        add(Queries.LEDGER_REVENUE_FOR_DAY, SAMPLE_DATE, SAMPLE_DATE);
+
+        // Outbox and the bookings projection
+        add(Queries.INSERT_OUTBOX_EVENT, "BookingConfirmed", "Booking", 1, 1, 1, 1, null);
+        addIn(Queries.LOCK_BOOKINGS, 3, 1, 2, 3);
+        addIn(Queries.LOCK_BOOKINGS_IN_STATUS, 3, 1, 2, 3, "Confirmed");
+        add(Queries.OUTBOX_PAGE, 0, 500);
+        addIn(Queries.OUTBOX_EVENTS_BY_ID, 3, 1, 2, 3);
+        add(Queries.SETTLED_OUTBOX_EVENT, -600);
+        add(Queries.OUTBOX_OFFSET, "my-bookings-projection");
+        add(Queries.SAVE_OUTBOX_OFFSET, "my-bookings-projection", 1);
+        allowScans(Queries.REFRESH_ALL_MY_BOOKINGS, Set.of("b"));
+        add(Queries.REFRESH_MY_BOOKINGS_FOR_USER, 1);
+        add(Queries.REFRESH_MY_BOOKING, 1);
+        add(Queries.REFRESH_MY_BOOKINGS_FOR_JOURNEY, 1, 1, 1);
+        add(Queries.MY_BOOKINGS, 1);
+        add(Queries.MY_BOOKINGS_FIRST_PAGE, 1, 50);
+        add(Queries.MY_BOOKINGS_NEXT_PAGE, 1, SAMPLE_TIME, SAMPLE_TIME, 1, 50);
+
+        // RAC and waitlist
+        add(Queries.NEXT_RAC_POSITION, 1, 1);
+        add(Queries.COUNT_RAC, 1, 1);
+        add(Queries.FIRST_RAC, 1, 1);
+        add(Queries.SHIFT_RAC_POSITIONS, 1, 1);
+        add(Queries.RAC_LIST, 1, 1);
+        add(Queries.RAC_BY_ID, 1);
+        add(Queries.NEXT_WAITLIST_POSITION, 1, 1);
+        add(Queries.WAITLIST_POSITION, 1);
+        add(Queries.FIRST_WAITLIST, 1, 1);
+        add(Queries.SHIFT_WAITLIST_POSITIONS, 1, 1);
+        add(Queries.WAITLIST_LIST, 1, 1);
+        add(Queries.WAITLIST_BY_ID, 1);
+    }
+
+    private void add(Queries.Query query, Object... args) {
+        cases.add(new PlanCase(query.getName(), query.getSql(), Set.of(), args));
+    }
+
+    private void addIn(Queries.Query query, int listSize, Object... args) {
+        cases.add(new PlanCase(query.getName(), query.withInList(listSize), Set.of(), args));
+    }
+
+    // Tables are named as EXPLAIN shows them: by their alias where the query gives one
+    private void allowScans(Queries.Query query, Set<String> scannedTables, Object... args) {
+        cases.add(new PlanCase(query.getName(), query.getSql(), scannedTables, args));
+    }
+
+    /**
+     * Explain every case; returns a description of each regression found
+     */
+    public List<String> run(Connection conn, boolean verbose) throws SQLException {
+        List<String> regressions = new ArrayList<>();
+
+        for (PlanCase planCase : cases) {
+            try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + planCase.sql)) {
+                for (int i = 0; i < planCase.args.length; i++) {
+                    pstmt.setObject(i + 1, planCase.args[i]);
+                }
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String table = rs.getString("table");
+                        String type = rs.getString("type");
+                        String key = rs.getString("key");
+
+                        if (verbose) {
+                            System.out.printf("%-28s %-14s %-8s %s%n", planCase.name, table, type, key);
+                        }
+
+                        // Derived tables and subquery results are named <...>
+                        if ("ALL".equals(type) && table != null && !table.startsWith("<")
+                                && !planCase.scannedTables.contains(table)) {
+                            regressions.add(planCase.name + ": full scan of " + table);
+                        }
+                    }
+                }
+            }
+        }
+
+        return regressions;
+    }
+
+    /**
+     * Inner class for one explained query and its sample arguments
+     */
+    private static class PlanCase {
+        private final String name;
+        private final String sql;
+        private final Set<String> scannedTables;
+        private final Object[] args;
+
+        PlanCase(String name, String sql, Set<String> scannedTables, Object[] args) {
+            this.name = name;
+            this.sql = sql;
+            this.scannedTables = scannedTables;
+            this.args = args;
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (DatabaseManager.getProfile().isEmbedded()) {
+            System.out.println("Query plans are checked against MySQL; skipped for the embedded database");
+            return;
+        }
+        boolean verbose = args.length > 0 && args[0].equals("-v");
+
+        List<String> regressions = new QueryPlanCheck().run(DatabaseManager.getConnection(), verbose);
+        if (regressions.isEmpty()) {
+            System.out.println("All query plans use an index");
+            return;
+        }
+
+        System.out.println("Query plan regressions:");
+        for (String regression : regressions) {
+            System.out.println("  " + regression);
+        }
+        System.exit(1);
+    }
+}
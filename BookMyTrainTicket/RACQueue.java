@@ -9,45 +9,59 @@ import java.util.List;
  */
 public class RACQueue {
     private DatabaseManager dbManager;
+    private Connection connection;
     
     public RACQueue() throws SQLException {
         this.dbManager = DatabaseManager.getInstance();
     }
     
+    /**
+     * RAC queue bound to a dedicated connection, e.g. a booking lane's
+     */
+    public RACQueue(Connection connection) throws SQLException {
+        this();
+        this.connection = connection;
+    }
+    
+    private Connection getConnection() {
+        return connection != null ? connection : DatabaseManager.getConnection();
+    }
+    
     /**
      * Add user to RAC
      */
     public int addToRAC(int userId, int trainId, int routeId) throws SQLException {
-        // Get next position
-        int position = getNextRACPosition(trainId, routeId);
-        
-        String query = "INSERT INTO rac (user_id, train_id, route_id, position) VALUES (?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, trainId);
-            pstmt.setInt(3, routeId);
-            pstmt.setInt(4, position);
-            
-            pstmt.executeUpdate();
+        Connection conn = getConnection();
+        return DatabaseManager.inTransaction(conn, () -> {
+            // Get next position
+            int position = getNextRACPosition(trainId, routeId);
             
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
+            try (PreparedStatement pstmt = Queries.INSERT_RAC.prepare(conn, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, userId);
+                pstmt.setInt(2, trainId);
+                pstmt.setInt(3, routeId);
+                pstmt.setInt(4, position);
+                
+                pstmt.executeUpdate();
+                
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int racId = rs.getInt(1);
+                        Outbox.append(conn, OutboxEvent.rac(OutboxEvent.RAC_ADDED, racId, userId, trainId, routeId, position));
+                        return racId;
+                    }
                 }
             }
-        }
-        
-        return -1;
+            
+            return -1;
+        });
     }
     
     /**
      * Get next RAC position
      */
     private int getNextRACPosition(int trainId, int routeId) throws SQLException {
-        String query = "SELECT COALESCE(MAX(position), 0) + 1 FROM rac WHERE train_id = ? AND route_id = ? AND status = 'RAC'";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.NEXT_RAC_POSITION.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             
@@ -65,9 +79,7 @@ public class RACQueue {
      * Get RAC count for a train and route
      */
     public int getRACCount(int trainId, int routeId) throws SQLException {
-        String query = "SELECT COUNT(*) FROM rac WHERE train_id = ? AND route_id = ? AND status = 'RAC'";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.COUNT_RAC.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             
@@ -85,47 +97,47 @@ public class RACQueue {
      * Promote first person from RAC
      */
     public boolean promoteFromRAC(int trainId, int routeId) throws SQLException {
-        // Get first person in RAC
-        String selectQuery = """
-            SELECT rac_id, user_id FROM rac 
-            WHERE train_id = ? AND route_id = ? AND status = 'RAC' 
-            ORDER BY position LIMIT 1
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(selectQuery)) {
-            pstmt.setInt(1, trainId);
-            pstmt.setInt(2, routeId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int racId = rs.getInt("rac_id");
-                    int userId = rs.getInt("user_id");
-                    
-                    // Update RAC status
-                    String updateQuery = "UPDATE rac SET status = 'Promoted' WHERE rac_id = ?";
-                    try (PreparedStatement updateStmt = dbManager.getConnection().prepareStatement(updateQuery)) {
-                        updateStmt.setInt(1, racId);
-                        updateStmt.executeUpdate();
+        FlightEvents.Promotion event = FlightEvents.Promotion.start();
+        Connection conn = getConnection();
+        boolean promoted = DatabaseManager.inTransaction(conn, () -> {
+            // Get first person in RAC
+            try (PreparedStatement pstmt = Queries.FIRST_RAC.prepare(conn)) {
+                pstmt.setInt(1, trainId);
+                pstmt.setInt(2, routeId);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        int racId = rs.getInt("rac_id");
+                        int userId = rs.getInt("user_id");
+                        int position = rs.getInt("position");
+                        event.setEntryId(racId);
+                        
+                        // Update RAC status
+                        try (PreparedStatement updateStmt = Queries.PROMOTE_RAC.prepare(conn)) {
+                            updateStmt.setInt(1, racId);
+                            updateStmt.executeUpdate();
+                        }
+                        
+                        // Update positions for remaining RAC
+                        updateRACPositions(trainId, routeId);
+                        
+                        Outbox.append(conn, OutboxEvent.rac(OutboxEvent.RAC_PROMOTED, racId, userId, trainId, routeId, position));
+                        return true;
                     }
-                    
-                    // Update positions for remaining RAC
-                    updateRACPositions(trainId, routeId);
-                    
-                    return true;
                 }
             }
-        }
-        
-        return false;
+            
+            return false;
+        });
+        event.finish("RAC", trainId, routeId, promoted);
+        return promoted;
     }
     
     /**
      * Update RAC positions after promotion
      */
     private void updateRACPositions(int trainId, int routeId) throws SQLException {
-        String query = "UPDATE rac SET position = position - 1 WHERE train_id = ? AND route_id = ? AND status = 'RAC' AND position > 1";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.SHIFT_RAC_POSITIONS.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             pstmt.executeUpdate();
@@ -138,16 +150,7 @@ public class RACQueue {
     public List<RACEntry> getRACList(int trainId, int routeId) throws SQLException {
         List<RACEntry> racList = new ArrayList<>();
         
-        String query = """
-            SELECT r.rac_id, r.user_id, r.position, r.request_time, r.status,
-                   u.username, u.email
-            FROM rac r
-            JOIN users u ON r.user_id = u.user_id
-            WHERE r.train_id = ? AND r.route_id = ?
-            ORDER BY r.position
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.RAC_LIST.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             
@@ -174,14 +177,32 @@ public class RACQueue {
      * Remove from RAC
      */
     public boolean removeFromRAC(int racId) throws SQLException {
-        String query = "DELETE FROM rac WHERE rac_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
-            pstmt.setInt(1, racId);
+        Connection conn = getConnection();
+        return DatabaseManager.inTransaction(conn, () -> {
+            OutboxEvent event;
             
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        }
+            try (PreparedStatement pstmt = Queries.RAC_BY_ID.prepare(conn)) {
+                pstmt.setInt(1, racId);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    event = OutboxEvent.rac(OutboxEvent.RAC_REMOVED, racId, rs.getInt("user_id"),
+                                         rs.getInt("train_id"), rs.getInt("route_id"), rs.getInt("position"));
+                }
+            }
+            
+            try (PreparedStatement pstmt = Queries.DELETE_RAC.prepare(conn)) {
+                pstmt.setInt(1, racId);
+                
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    Outbox.append(conn, event);
+                }
+                return rowsAffected > 0;
+            }
+        });
     }
     
     /**
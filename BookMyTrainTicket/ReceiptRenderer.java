@@ -0,0 +1,253 @@
+package BookMyTrainTicket;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders payment receipts from a template compiled once at construction
+ * Placeholders are written as {field}; a line starting with '?' is only
+ * printed when its first placeholder has a value. Renderers are immutable
+ * and safe to share between threads.
+ */
+public class ReceiptRenderer {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd-MMM-yyyy HH:mm:ss");
+    private static final int BATCH_QUERY_SIZE = 500;
+
+    private static final String RULE = "=".repeat(60);
+    private static final String DIVIDER = "-".repeat(30);
+
+    private static final String DEFAULT_TEMPLATE = RULE + "\n" + """
+                            BOOKMYTICKET
+                         PAYMENT RECEIPT
+        """ + RULE + "\n\n" + """
+        Receipt No      : {paymentId}
+        PNR Number      : {pnrNumber}
+        Transaction ID  : {transactionId}
+        Payment Time    : {paymentTime}
+        Payment Status  : {status}
+
+        PASSENGER DETAILS
+        """ + DIVIDER + "\n" + """
+        Name            : {passengerName}
+
+        JOURNEY DETAILS
+        """ + DIVIDER + "\n" + """
+        Train           : {trainName} ({trainNumber})
+        From            : {sourceStation}
+        To              : {destinationStation}
+        Departure       : {departureTime}
+        Arrival         : {arrivalTime}
+        ?Seat            : {seat}
+        ?Class           : {classType}
+
+        PAYMENT DETAILS
+        """ + DIVIDER + "\n" + """
+        Amount          : ₹{amount}
+        Payment Method  : {paymentMethod}
+
+        IMPORTANT INFORMATION
+        """ + DIVIDER + "\n" + """
+        • Please carry a valid ID proof during journey
+        • Tickets are non-transferable
+        • Report at station 30 minutes before departure
+        • Keep this receipt for future reference
+
+        Thank you for choosing BookMyTicket!
+        """ + RULE + "\n";
+
+    private static final Map<String, Function<PaymentManager.PaymentReceipt, String>> FIELDS = Map.ofEntries(
+        Map.entry("paymentId", r -> String.valueOf(r.getPaymentId())),
+        Map.entry("pnrNumber", PaymentManager.PaymentReceipt::getPnrNumber),
+        Map.entry("transactionId", PaymentManager.PaymentReceipt::getTransactionId),
+        Map.entry("paymentTime", r -> r.getPaymentTime() == null ? null
+            : TIME_FORMAT.format(r.getPaymentTime().toInstant().atZone(ZoneId.systemDefault()))),
+        Map.entry("status", r -> r.getStatus() == null ? null : r.getStatus().getDisplayName()),
+        Map.entry("passengerName", PaymentManager.PaymentReceipt::getPassengerName),
+        Map.entry("trainName", PaymentManager.PaymentReceipt::getTrainName),
+        Map.entry("trainNumber", PaymentManager.PaymentReceipt::getTrainNumber),
+        Map.entry("sourceStation", PaymentManager.PaymentReceipt::getSourceStation),
+        Map.entry("destinationStation", PaymentManager.PaymentReceipt::getDestinationStation),
+        Map.entry("departureTime", PaymentManager.PaymentReceipt::getDepartureTime),
+        Map.entry("arrivalTime", PaymentManager.PaymentReceipt::getArrivalTime),
+        Map.entry("seat", r -> r.getSeatNumber() == null ? null
+            : r.getBerthType() == null ? r.getSeatNumber() : r.getSeatNumber() + " (" + r.getBerthType() + ")"),
+        Map.entry("classType", PaymentManager.PaymentReceipt::getClassType),
+        Map.entry("amount", r -> BigDecimal.valueOf(r.getAmount()).setScale(2, RoundingMode.HALF_UP).toPlainString()),
+        Map.entry("paymentMethod", r -> r.getPaymentMethod() == null ? null : r.getPaymentMethod().getDisplayName())
+    );
+
+    private static final ReceiptRenderer DEFAULT = new ReceiptRenderer(DEFAULT_TEMPLATE);
+
+    private final Line[] lines;
+
+    public ReceiptRenderer(String template) {
+        this.lines = compile(template);
+    }
+
+    public static ReceiptRenderer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Write one receipt to the given writer
+     */
+    public void render(PaymentManager.PaymentReceipt receipt, Writer out) throws IOException {
+        for (Line line : lines) {
+            line.write(receipt, out);
+        }
+    }
+
+    /**
+     * Write one receipt to an output stream as UTF-8
+     */
+    public void render(PaymentManager.PaymentReceipt receipt, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        render(receipt, writer);
+        writer.flush();
+    }
+
+    public String renderToString(PaymentManager.PaymentReceipt receipt) {
+        StringWriter writer = new StringWriter(1024);
+        try {
+            render(receipt, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter never throws
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Regenerate receipts for many payments into a single file
+     * Receipts are fetched in chunks with one query each and rendered in parallel,
+     * then written in payment ID order. Returns the number of receipts written.
+     */
+    public int renderBatch(List<Integer> paymentIds, Path outputFile) throws SQLException, IOException {
+        List<Integer> ids = new ArrayList<>(paymentIds);
+        Collections.sort(ids);
+        int written = 0;
+
+        try (Connection conn = DatabaseManager.openConnection();
+             Writer out = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+
+            for (int from = 0; from < ids.size(); from += BATCH_QUERY_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + BATCH_QUERY_SIZE, ids.size()));
+                List<PaymentManager.PaymentReceipt> receipts = fetchReceipts(conn, chunk);
+
+                List<String> rendered = receipts.parallelStream()
+                    .map(this::renderToString)
+                    .collect(Collectors.toList());
+
+                for (String receipt : rendered) {
+                    out.write(receipt);
+                    out.write('\n');
+                    written++;
+                }
+            }
+        }
+
+        return written;
+    }
+
+    private List<PaymentManager.PaymentReceipt> fetchReceipts(Connection conn, List<Integer> paymentIds) throws SQLException {
+        List<PaymentManager.PaymentReceipt> receipts = new ArrayList<>(paymentIds.size());
+        String sql = PaymentManager.RECEIPT_SELECT
+            + " WHERE p.payment_id IN (" + String.join(", ", Collections.nCopies(paymentIds.size(), "?")) + ")"
+            + " ORDER BY p.payment_id";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < paymentIds.size(); i++) {
+                stmt.setInt(i + 1, paymentIds.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    receipts.add(PaymentManager.mapReceipt(rs));
+                }
+            }
+        }
+
+        return receipts;
+    }
+
+    /**
+     * Split the template into lines of literal text and field lookups
+     */
+    private static Line[] compile(String template) {
+        List<Line> compiled = new ArrayList<>();
+
+        for (String text : template.split("\n", -1)) {
+            boolean optional = text.startsWith("?");
+            if (optional) {
+                text = text.substring(1);
+            }
+
+            List<String> literals = new ArrayList<>();
+            List<Function<PaymentManager.PaymentReceipt, String>> fields = new ArrayList<>();
+            int pos = 0;
+            int open;
+
+            while ((open = text.indexOf('{', pos)) >= 0) {
+                int close = text.indexOf('}', open);
+                if (close < 0) {
+                    break;
+                }
+                String name = text.substring(open + 1, close);
+                Function<PaymentManager.PaymentReceipt, String> field = FIELDS.get(name);
+                if (field == null) {
+                    throw new IllegalArgumentException("Unknown receipt field: " + name);
+                }
+                literals.add(text.substring(pos, open));
+                fields.add(field);
+                pos = close + 1;
+            }
+            literals.add(text.substring(pos) + "\n");
+
+            compiled.add(new Line(optional, literals.toArray(new String[0]), fields));
+        }
+
+        // split() leaves an empty trailing line after the final newline
+        compiled.remove(compiled.size() - 1);
+        return compiled.toArray(new Line[0]);
+    }
+
+    /**
+     * Inner class for one compiled template line
+     */
+    private static class Line {
+        private final boolean optional;
+        private final String[] literals;
+        private final List<Function<PaymentManager.PaymentReceipt, String>> fields;
+
+        Line(boolean optional, String[] literals, List<Function<PaymentManager.PaymentReceipt, String>> fields) {
+            this.optional = optional;
+            this.literals = literals;
+            this.fields = List.copyOf(fields);
+        }
+
+        void write(PaymentManager.PaymentReceipt receipt, Writer out) throws IOException {
+            int count = fields.size();
+            if (optional && count > 0 && fields.get(0).apply(receipt) == null) {
+                return;
+            }
+
+            for (int i = 0; i < count; i++) {
+                out.write(literals[i]);
+                out.write(String.valueOf(fields.get(i).apply(receipt)));
+            }
+            out.write(literals[count]);
+        }
+    }
+}
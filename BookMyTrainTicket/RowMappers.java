@@ -0,0 +1,200 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index-based ResultSet mappers
+ * A factory binds to a result set once, resolving its column labels to indexes,
+ * and the mapper it returns reads every row by index. Columns a query does not
+ * select are skipped, so one mapper serves narrow and wide variants of a query.
+ * Low-cardinality strings (stations, classes, statuses) are interned so that
+ * large listings share one instance per distinct value.
+ */
+public final class RowMappers {
+    private static final int MAX_INTERNED = 10_000;
+    private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    private RowMappers() {
+    }
+
+    /**
+     * Maps the current row of a result set
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Creates a mapper bound to the columns of one result set
+     */
+    public interface Factory<T> {
+        RowMapper<T> bind(ResultSet rs) throws SQLException;
+    }
+
+    public static <T> List<T> list(ResultSet rs, Factory<T> factory) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        RowMapper<T> mapper = factory.bind(rs);
+        while (rs.next()) {
+            rows.add(mapper.map(rs));
+        }
+        return rows;
+    }
+
+    public static <T> T first(ResultSet rs, Factory<T> factory) throws SQLException {
+        return rs.next() ? factory.bind(rs).map(rs) : null;
+    }
+
+    /**
+     * Shared instance of a repeated string value
+     */
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = INTERNED.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return value;
+        }
+        shared = INTERNED.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public static final Factory<SeatAvailabilityManager.SeatWithDetails> SEAT_WITH_DETAILS = rs -> {
+        Columns columns = new Columns(rs);
+        int seatId = columns.require("seat_id");
+        int compartmentId = columns.require("compartment_id");
+        int berthType = columns.require("berth_type");
+        int seatNumber = columns.require("seat_number");
+        int isAvailable = columns.require("is_available");
+        int compartmentName = columns.require("compartment_name");
+        int classType = columns.require("class_type");
+
+        return row -> {
+            SeatAvailabilityManager.SeatWithDetails seat = new SeatAvailabilityManager.SeatWithDetails();
+            seat.setSeatId(row.getInt(seatId));
+            seat.setCompartmentId(row.getInt(compartmentId));
+            seat.setBerthType(Seat.parseBerthType(row.getString(berthType)));
+            seat.setSeatNumber(row.getString(seatNumber));
+            seat.setAvailable(row.getBoolean(isAvailable));
+            seat.setCompartmentName(intern(row.getString(compartmentName)));
+            seat.setClassType(intern(row.getString(classType)));
+            return seat;
+        };
+    };
+
+    public static final Factory<User> USER = rs -> {
+        Columns columns = new Columns(rs);
+        int userId = columns.require("user_id");
+        int username = columns.require("username");
+        int password = columns.require("password");
+        int email = columns.require("email");
+        int role = columns.require("role");
+
+        return row -> {
+            User user = new User();
+            user.setUserId(row.getInt(userId));
+            user.setUsername(row.getString(username));
+            user.setPassword(row.getString(password));
+            user.setEmail(row.getString(email));
+            user.setRole(User.UserRole.fromDbValue(row.getString(role)));
+            return user;
+        };
+    };
+
+    public static final Factory<BookingManager.BookingDetails> BOOKING_DETAILS = rs -> {
+        Columns columns = new Columns(rs);
+        int bookingId = columns.require("booking_id");
+        int userId = columns.require("user_id");
+        int seatId = columns.require("seat_id");
+        int trainId = columns.require("train_id");
+        int routeId = columns.require("route_id");
+        int passengerName = columns.require("passenger_name");
+        int passengerAge = columns.require("passenger_age");
+        int bookingTime = columns.require("booking_time");
+        int status = columns.require("status");
+        int trainName = columns.optional("train_name");
+        int trainNumber = columns.optional("train_number");
+        int sourceStation = columns.optional("source_station");
+        int destinationStation = columns.optional("destination_station");
+        int departureTime = columns.optional("departure_time");
+        int arrivalTime = columns.optional("arrival_time");
+        int price = columns.optional("price");
+        int seatNumber = columns.optional("seat_number");
+        int berthType = columns.optional("berth_type");
+        int compartmentName = columns.optional("compartment_name");
+        int classType = columns.optional("class_type");
+        int paymentAmount = columns.optional("payment_amount");
+        int paymentStatus = columns.optional("payment_status");
+
+        return row -> {
+            BookingManager.BookingDetails booking = new BookingManager.BookingDetails();
+            booking.setBookingId(row.getInt(bookingId));
+            booking.setUserId(row.getInt(userId));
+            booking.setSeatId(row.getInt(seatId));
+            booking.setTrainId(row.getInt(trainId));
+            booking.setRouteId(row.getInt(routeId));
+            booking.setPassengerName(row.getString(passengerName));
+            booking.setPassengerAge(row.getInt(passengerAge));
+            Timestamp time = row.getTimestamp(bookingTime);
+            booking.setBookingTime(time != null ? time.toLocalDateTime() : null);
+            booking.setStatus(intern(row.getString(status)));
+
+            if (trainName > 0) booking.setTrainName(intern(row.getString(trainName)));
+            if (trainNumber > 0) booking.setTrainNumber(intern(row.getString(trainNumber)));
+            if (sourceStation > 0) booking.setSourceStation(intern(row.getString(sourceStation)));
+            if (destinationStation > 0) booking.setDestinationStation(intern(row.getString(destinationStation)));
+            if (departureTime > 0) {
+                Time departure = row.getTime(departureTime);
+                booking.setDepartureTime(departure != null ? departure.toLocalTime() : null);
+            }
+            if (arrivalTime > 0) {
+                Time arrival = row.getTime(arrivalTime);
+                booking.setArrivalTime(arrival != null ? arrival.toLocalTime() : null);
+            }
+            if (price > 0) booking.setPrice(row.getBigDecimal(price));
+            if (seatNumber > 0) booking.setSeatNumber(row.getString(seatNumber));
+            if (berthType > 0) booking.setBerthType(intern(row.getString(berthType)));
+            if (compartmentName > 0) booking.setCompartmentName(intern(row.getString(compartmentName)));
+            if (classType > 0) booking.setClassType(intern(row.getString(classType)));
+            if (paymentAmount > 0) booking.setPaymentAmount(row.getBigDecimal(paymentAmount));
+            if (paymentStatus > 0) booking.setPaymentStatus(intern(row.getString(paymentStatus)));
+            return booking;
+        };
+    };
+
+    /**
+     * Column label to index lookup, read from the metadata once
+     */
+    private static final class Columns {
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        Columns(ResultSet rs) throws SQLException {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = meta.getColumnCount(); i >= 1; i--) {
+                // Iterating backwards keeps the first occurrence of a duplicate label
+                indexes.put(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        int require(String label) throws SQLException {
+            int index = optional(label);
+            if (index == 0) {
+                throw new SQLException("Column not found: " + label);
+            }
+            return index;
+        }
+
+        int optional(String label) {
+            return indexes.getOrDefault(label, 0);
+        }
+    }
+}
@@ -7,9 +7,13 @@ import java.util.List;
 
 /**
  * Simple runner class to compile and execute the BookMyTicket application
- * This handles compilation of all Java files and runs the main application
+ * This handles compilation of all Java files and runs the main application.
+ * Classes are compiled into build/classes, and any main class of the package
+ * can be run with its arguments, e.g. RunApp BookingBenchmarks searchTrains
  */
 public class RunApp {
+    private static final String PACKAGE_NAME = "BookMyTrainTicket";
+    private static final String OUTPUT_DIR = "build" + File.separator + "classes";
     
     public static void main(String[] args) {
         try {
@@ -22,13 +26,19 @@ public class RunApp {
             if (compiled) {
                 System.out.println("Compilation successful!");
                 System.out.println("Starting BookMyTicket application...");
-                System.out.println("Note: Make sure MySQL is running and database credentials are correct in DatabaseManager.java");
+                System.out.println("Note: Make sure MySQL is running and database credentials are set in database.properties");
+                System.out.println("      or TRAIN_DB_* variables, or run with -Ddb.profile=embedded");
                 System.out.println("Default database: train_booking");
                 System.out.println("Default user: root, password: (empty)");
                 System.out.println("=" .repeat(50));
                 
-                // Run the main application
-                runApplication();
+                // Run the main application, or the main class given on the command line
+                String mainClass = args.length > 0 ? args[0] : "BookMyTicketApp";
+                List<String> programArgs = new ArrayList<>();
+                for (int i = 1; i < args.length; i++) {
+                    programArgs.add(args[i]);
+                }
+                runApplication(mainClass, programArgs);
             } else {
                 System.err.println("Compilation failed. Please check the errors above.");
             }
@@ -53,6 +63,10 @@ public class RunApp {
             // Build javac command
             List<String> command = new ArrayList<>();
             command.add("javac");
+            command.add("-encoding");
+            command.add("UTF-8");
+            command.add("-d");
+            command.add(OUTPUT_DIR);
             command.add("-cp");
             command.add(getClasspath());
             
@@ -77,14 +91,22 @@ public class RunApp {
         }
     }
     
-    private static void runApplication() {
+    private static void runApplication(String mainClass, List<String> programArgs) {
         try {
             // Build java command to run the main application
             List<String> command = new ArrayList<>();
             command.add("java");
             command.add("-cp");
-            command.add(getClasspath() + File.pathSeparator + ".");
-            command.add("BookMyTicketApp");
+            command.add(getClasspath() + File.pathSeparator + OUTPUT_DIR);
+            // Pass settings such as -Ddb.*, -Dserver.*, -Dbench.* and -Dload.* on to the child JVM
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("db.") || name.startsWith("server.") || name.startsWith("bench.")
+                        || name.startsWith("load.")) {
+                    command.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            command.add(PACKAGE_NAME + "." + mainClass);
+            command.addAll(programArgs);
             
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.directory(new File("."));
@@ -109,14 +131,29 @@ public class RunApp {
             System.getProperty("user.home") + "/mysql-connector-java.jar"
         };
         
+        List<String> classpath = new ArrayList<>();
         for (String path : possiblePaths) {
             File jarFile = new File(path);
             if (jarFile.exists()) {
                 System.out.println("Found MySQL connector: " + path);
-                return path;
+                classpath.add(path);
+                break;
+            }
+        }
+        
+        // The embedded profile (-Ddb.profile=embedded) needs the H2 jar instead
+        for (String dir : new String[] { ".", "lib" }) {
+            File[] h2Jars = new File(dir).listFiles((d, name) -> name.startsWith("h2") && name.endsWith(".jar"));
+            if (h2Jars != null && h2Jars.length > 0) {
+                classpath.add(h2Jars[0].getPath());
+                break;
             }
         }
         
+        if (!classpath.isEmpty()) {
+            return String.join(File.pathSeparator, classpath);
+        }
+        
         // If no MySQL JAR found, try to download or provide instructions
         System.out.println("Warning: MySQL connector JAR not found.");
         System.out.println("Please download mysql-connector-java JAR and place it in the current directory.");
@@ -0,0 +1,556 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versioned schema migrations
+ * Each migration runs once, in version order, and is recorded in
+ * schema_migrations. A named lock keeps two starting instances from migrating
+ * at the same time. MySQL commits DDL implicitly, so every step is written to
+ * be safe to re-run if a migration was interrupted before it was recorded.
+ * On the embedded H2 database ENUM columns become VARCHAR columns with a
+ * CHECK constraint listing the same values, and no lock is taken since the
+ * database lives inside this process.
+ */
+public class SchemaMigrations {
+    private static final String LOCK_NAME = "train_booking_schema_migrations";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+    private static final Pattern ENUM_COLUMN = Pattern.compile("(\\w+) ENUM\\(([^)]*)\\)");
+    
+    // Version 1 is the schema as the bootstrap created it; IF NOT EXISTS lets
+    // databases created before migrations were versioned adopt it unchanged
+    private static final String[] BASELINE_TABLES = {
+        """
+        CREATE TABLE IF NOT EXISTS users (
+            user_id INT AUTO_INCREMENT PRIMARY KEY,
+            username VARCHAR(50) NOT NULL UNIQUE,
+            password VARCHAR(100) NOT NULL,
+            email VARCHAR(100),
+            role ENUM('Admin', 'Regular', 'Senior', 'DifferentlyAbled') NOT NULL
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS trains (
+            train_id INT AUTO_INCREMENT PRIMARY KEY,
+            train_name VARCHAR(100),
+            train_number VARCHAR(20) UNIQUE
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS routes (
+            route_id INT AUTO_INCREMENT PRIMARY KEY,
+            train_id INT,
+            source_station VARCHAR(100),
+            destination_station VARCHAR(100),
+            departure_time TIME,
+            arrival_time TIME,
+            price DECIMAL(10,2),
+            FOREIGN KEY (train_id) REFERENCES trains(train_id) ON DELETE CASCADE
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS classes (
+            class_id INT AUTO_INCREMENT PRIMARY KEY,
+            train_id INT,
+            class_type VARCHAR(50),
+            FOREIGN KEY (train_id) REFERENCES trains(train_id) ON DELETE CASCADE
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS compartments (
+            compartment_id INT AUTO_INCREMENT PRIMARY KEY,
+            class_id INT,
+            compartment_name VARCHAR(50),
+            FOREIGN KEY (class_id) REFERENCES classes(class_id) ON DELETE CASCADE
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS seats (
+            seat_id INT AUTO_INCREMENT PRIMARY KEY,
+            compartment_id INT,
+            berth_type ENUM('Lower', 'Middle', 'Upper', 'Side Lower', 'Side Upper'),
+            seat_number VARCHAR(20),
+            is_available BOOLEAN DEFAULT TRUE,
+            held_until DATETIME NULL,
+            FOREIGN KEY (compartment_id) REFERENCES compartments(compartment_id) ON DELETE CASCADE
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS bookings (
+            booking_id INT AUTO_INCREMENT PRIMARY KEY,
+            user_id INT,
+            seat_id INT,
+            train_id INT,
+            route_id INT,
+            passenger_name VARCHAR(100),
+            passenger_age INT,
+            booking_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            status ENUM('Confirmed', 'Cancelled', 'RAC', 'Waiting', 'Held') DEFAULT 'Confirmed',
+            FOREIGN KEY (user_id) REFERENCES users(user_id),
+            FOREIGN KEY (seat_id) REFERENCES seats(seat_id),
+            FOREIGN KEY (train_id) REFERENCES trains(train_id),
+            FOREIGN KEY (route_id) REFERENCES routes(route_id)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS payments (
+            payment_id INT AUTO_INCREMENT PRIMARY KEY,
+            booking_id INT,
+            amount DECIMAL(10,2),
+            status ENUM('Success', 'Failed', 'Pending', 'Refunded', 'RefundRequired'),
+            payment_method VARCHAR(30),
+            transaction_id VARCHAR(50),
+            payment_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            FOREIGN KEY (booking_id) REFERENCES bookings(booking_id)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS refunds (
+            refund_id INT AUTO_INCREMENT PRIMARY KEY,
+            payment_id INT NOT NULL UNIQUE,
+            amount DECIMAL(10,2),
+            reason VARCHAR(255),
+            refund_transaction_id VARCHAR(50),
+            status ENUM('Pending', 'InFlight', 'Processed', 'Failed') DEFAULT 'Pending',
+            attempts INT NOT NULL DEFAULT 0,
+            claimed_time DATETIME NULL,
+            next_attempt_time DATETIME NULL,
+            created_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            processed_time DATETIME,
+            FOREIGN KEY (payment_id) REFERENCES payments(payment_id)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS ledger_entries (
+            entry_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+            event_type ENUM('Payment', 'Refund') NOT NULL,
+            payment_id INT NOT NULL,
+            booking_id INT,
+            train_id INT,
+            route_id INT,
+            account ENUM('Cash', 'Revenue') NOT NULL,
+            direction ENUM('Debit', 'Credit') NOT NULL,
+            amount DECIMAL(12,2) NOT NULL,
+            entry_date DATE NOT NULL,
+            entry_time DATETIME DEFAULT CURRENT_TIMESTAMP
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS ledger_snapshots (
+            through_entry_id BIGINT NOT NULL,
+            train_id INT NOT NULL,
+            route_id INT NOT NULL,
+            entry_date DATE NOT NULL,
+            revenue DECIMAL(14,2) NOT NULL,
+            created_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            PRIMARY KEY (through_entry_id, train_id, route_id, entry_date)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS waitlist (
+            waitlist_id INT AUTO_INCREMENT PRIMARY KEY,
+            user_id INT,
+            train_id INT,
+            route_id INT,
+            request_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            status ENUM('Waiting', 'Promoted') DEFAULT 'Waiting',
+            position INT,
+            FOREIGN KEY (user_id) REFERENCES users(user_id),
+            FOREIGN KEY (train_id) REFERENCES trains(train_id),
+            FOREIGN KEY (route_id) REFERENCES routes(route_id)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS rac (
+            rac_id INT AUTO_INCREMENT PRIMARY KEY,
+            user_id INT,
+            train_id INT,
+            route_id INT,
+            request_time DATETIME DEFAULT CURRENT_TIMESTAMP,
+            status ENUM('RAC', 'Promoted') DEFAULT 'RAC',
+            position INT,
+            FOREIGN KEY (user_id) REFERENCES users(user_id),
+            FOREIGN KEY (train_id) REFERENCES trains(train_id),
+            FOREIGN KEY (route_id) REFERENCES routes(route_id)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS outbox_events (
+            event_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+            event_type VARCHAR(40) NOT NULL,
+            aggregate_type VARCHAR(20) NOT NULL,
+            aggregate_id INT NOT NULL,
+            user_id INT,
+            train_id INT,
+            route_id INT,
+            payload VARCHAR(1000),
+            created_time TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3)
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS outbox_offsets (
+            relay_name VARCHAR(50) PRIMARY KEY,
+            last_event_id BIGINT NOT NULL,
+            updated_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+        )
+        """,
+        """
+        CREATE TABLE IF NOT EXISTS my_bookings_view (
+            booking_id INT PRIMARY KEY,
+            user_id INT NOT NULL,
+            seat_id INT,
+            train_id INT,
+            route_id INT,
+            passenger_name VARCHAR(100),
+            passenger_age INT,
+            booking_time DATETIME,
+            status VARCHAR(20),
+            train_name VARCHAR(100),
+            train_number VARCHAR(20),
+            source_station VARCHAR(100),
+            destination_station VARCHAR(100),
+            departure_time TIME,
+            arrival_time TIME,
+            price DECIMAL(10,2),
+            seat_number VARCHAR(20),
+            berth_type VARCHAR(20),
+            compartment_name VARCHAR(50),
+            class_type VARCHAR(50),
+            payment_amount DECIMAL(10,2),
+            payment_status VARCHAR(20),
+            INDEX idx_my_bookings_user (user_id, booking_time, booking_id)
+        )
+        """
+    };
+    
+    private final Connection connection;
+    private final boolean mysql;
+    private final List<Migration> migrations = new ArrayList<>();
+    
+    public SchemaMigrations(Connection connection) throws SQLException {
+        this.connection = connection;
+        this.mysql = connection.getMetaData().getDatabaseProductName().contains("MySQL");
+        
+        add(1, "Baseline tables", this::createBaselineTables);
+        add(2, "Columns added after the first release", this::addLateColumns);
+        add(3, "Booking history keyset index", () ->
+            ensureIndex("bookings", "idx_bookings_user_time", "user_id, booking_time, booking_id"));
+        add(4, "Indexes for the manager queries", this::addQueryIndexes);
+        add(5, "Refund-required payment status", () ->
+            ensureColumnType("payments", "status", "'RefundRequired'",
+                "ENUM('Success', 'Failed', 'Pending', 'Refunded', 'RefundRequired')"));
+        add(6, "Refund claims and retries", this::addRefundRetries);
+        add(7, "One ledger snapshot row per group", this::collapseLedgerSnapshots);
+        add(8, "Ledger snapshot indexes for revenue by route and day", () -> {
+            ensureIndex("ledger_snapshots", "idx_ledger_snapshots_route", "route_id");
+            ensureIndex("ledger_snapshots", "idx_ledger_snapshots_date", "entry_date");
+        });
+    }
+    
+    private void add(int version, String description, Step step) {
+        migrations.add(new Migration(version, description, step));
+    }
+    
+    public List<Migration> getMigrations() {
+        return Collections.unmodifiableList(migrations);
+    }
+    
+    /**
+     * Apply every migration newer than the recorded version; returns how many ran
+     */
+    public int migrate() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS schema_migrations (
+                    version INT PRIMARY KEY,
+                    description VARCHAR(200) NOT NULL,
+                    applied_time DATETIME DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        }
+        
+        FlightEvents.SchemaBootstrap event = new FlightEvents.SchemaBootstrap();
+        event.begin();
+        acquireLock();
+        try {
+            int current = getCurrentVersion();
+            int applied = 0;
+            
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                
+                try {
+                    migration.step.apply();
+                } catch (SQLException e) {
+                    throw new SQLException("Schema migration " + migration + " failed: " + e.getMessage(), e);
+                }
+                record(migration);
+                applied++;
+            }
+            
+            event.end();
+            if (event.shouldCommit()) {
+                event.database = connection.getMetaData().getDatabaseProductName();
+                event.fromVersion = current;
+                event.toVersion = getCurrentVersion();
+                event.applied = applied;
+                event.commit();
+            }
+            return applied;
+            
+        } finally {
+            releaseLock();
+        }
+    }
+    
+    /**
+     * Highest applied version, 0 for an empty database
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_migrations")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    private void record(Migration migration) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO schema_migrations (version, description) VALUES (?, ?)")) {
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.executeUpdate();
+        }
+    }
+    
+    private void acquireLock() throws SQLException {
+        if (!mysql) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+    
+    private void releaseLock() throws SQLException {
+        if (!mysql) {
+            return;
+        }
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        }
+    }
+    
+    // Migrations
+    
+    private void createBaselineTables() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String query : BASELINE_TABLES) {
+                stmt.executeUpdate(mysql ? query : withoutEnums(query));
+            }
+        }
+    }
+    
+    private void addLateColumns() throws SQLException {
+        ensureColumn("payments", "payment_method", "VARCHAR(30)");
+        ensureColumn("payments", "transaction_id", "VARCHAR(50)");
+        ensureColumn("seats", "held_until", "DATETIME NULL");
+        ensureColumnType("payments", "status", "'Refunded'",
+            "ENUM('Success', 'Failed', 'Pending', 'Refunded')");
+        ensureColumnType("bookings", "status", "'Held'",
+            "ENUM('Confirmed', 'Cancelled', 'RAC', 'Waiting', 'Held') DEFAULT 'Confirmed'");
+    }
+    
+    /**
+     * Composite indexes matching the WHERE and ORDER BY of the manager queries
+     * InnoDB secondary indexes carry the primary key, so e.g. (booking_id) on
+     * payments already serves the latest-payment lookup.
+     */
+    private void addQueryIndexes() throws SQLException {
+        // RAC and waitlist: next position, count, first in queue, position shift
+        ensureIndex("rac", "idx_rac_queue", "train_id, route_id, status, position");
+        ensureIndex("waitlist", "idx_waitlist_queue", "train_id, route_id, status, position");
+        
+        // Seat lists and availability counts per train
+        ensureIndex("classes", "idx_classes_train", "train_id, class_type");
+        ensureIndex("seats", "idx_seats_compartment_available", "compartment_id, is_available");
+        
+        // Held-seat expiry and "is this seat still booked" checks
+        ensureIndex("bookings", "idx_bookings_status", "status");
+        ensureIndex("bookings", "idx_bookings_seat_status", "seat_id, status");
+        
+        // Pending refund scans
+        ensureIndex("refunds", "idx_refunds_status", "status, refund_id");
+    }
+    
+    /**
+     * InFlight claims and retry scheduling for the refunds ledger
+     * Refunds that failed before retries existed get one scheduled now.
+     */
+    private void addRefundRetries() throws SQLException {
+        ensureColumnType("refunds", "status", "'InFlight'",
+            "ENUM('Pending', 'InFlight', 'Processed', 'Failed') DEFAULT 'Pending'");
+        ensureColumn("refunds", "attempts", "INT NOT NULL DEFAULT 0");
+        ensureColumn("refunds", "claimed_time", "DATETIME NULL");
+        ensureColumn("refunds", "next_attempt_time", "DATETIME NULL");
+        ensureIndex("refunds", "idx_refunds_retry", "status, next_attempt_time");
+        
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("""
+                UPDATE refunds SET next_attempt_time = NOW()
+                WHERE status = 'Failed' AND attempts = 0 AND next_attempt_time IS NULL
+                """);
+        }
+    }
+    
+    /**
+     * Keep only the newest ledger snapshot, which holds every group
+     * Older snapshots were full copies; from now on each group keeps a single row.
+     */
+    private void collapseLedgerSnapshots() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            long latest;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(through_entry_id), 0) FROM ledger_snapshots")) {
+                latest = rs.next() ? rs.getLong(1) : 0;
+            }
+            stmt.executeUpdate("DELETE FROM ledger_snapshots WHERE through_entry_id < " + latest);
+        }
+        ensureIndex("ledger_snapshots", "idx_ledger_snapshots_group", "train_id, route_id, entry_date");
+    }
+    
+    /**
+     * Rewrite ENUM columns as VARCHAR columns checked against the same values
+     */
+    static String withoutEnums(String ddl) {
+        Matcher matcher = ENUM_COLUMN.matcher(ddl);
+        StringBuilder sb = new StringBuilder();
+        StringBuilder checks = new StringBuilder();
+        while (matcher.find()) {
+            String column = matcher.group(1);
+            String values = matcher.group(2);
+            int width = 0;
+            for (String value : values.split(",")) {
+                width = Math.max(width, value.trim().length() - 2);
+            }
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(column + " VARCHAR(" + width + ")"));
+            // Table-level, since a column CHECK would have to precede DEFAULT
+            checks.append(",\n    CHECK (").append(column).append(" IN (").append(values).append("))");
+        }
+        matcher.appendTail(sb);
+        
+        int end = sb.lastIndexOf(")");
+        while (Character.isWhitespace(sb.charAt(end - 1))) {
+            end--;
+        }
+        return checks.length() == 0 ? ddl : sb.insert(end, checks).toString();
+    }
+    
+    // Idempotent schema helpers
+    
+    /**
+     * Create an index if the table lacks it
+     */
+    private void ensureIndex(String table, String index, String columns) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+    
+    /**
+     * Add a column to an existing table if an older schema lacks it
+     */
+    private void ensureColumn(String table, String column, String definition) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+    
+    /**
+     * Redefine a column if its current type does not mention the expected fragment,
+     * e.g. an enum value added after the first release
+     */
+    private void ensureColumnType(String table, String column, String expected, String definition) throws SQLException {
+        // Only MySQL databases predate the enum values; embedded ones start from the full baseline
+        if (!mysql) {
+            return;
+        }
+        
+        String query = """
+            SELECT COLUMN_TYPE FROM information_schema.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+            """;
+        
+        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getString(1).contains(expected)) {
+                    return;
+                }
+            }
+        }
+        
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + table + " MODIFY COLUMN " + column + " " + definition);
+        }
+    }
+    
+    /**
+     * One schema change
+     */
+    interface Step {
+        void apply() throws SQLException;
+    }
+    
+    /**
+     * Inner class for a numbered migration
+     */
+    public static class Migration {
+        private final int version;
+        private final String description;
+        private final Step step;
+        
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+        
+        public int getVersion() { return version; }
+        public String getDescription() { return description; }
+        
+        @Override
+        public String toString() {
+            return "V" + version + " (" + description + ")";
+        }
+    }
+}
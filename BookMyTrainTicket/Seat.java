@@ -1,5 +1,8 @@
 package BookMyTrainTicket;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Seat model class representing a seat in a train compartment
  */
@@ -73,26 +76,26 @@ public class Seat {
         isAvailable = available;
     }
     
-    public static BerthType parseBerthType(String dbValue) {
-        switch (dbValue) {
-            case "Lower": return BerthType.Lower;
-            case "Middle": return BerthType.Middle;
-            case "Upper": return BerthType.Upper;
-            case "Side Lower": return BerthType.Side_Lower;
-            case "Side Upper": return BerthType.Side_Upper;
-            default: return BerthType.Lower;
+    // Lookup tables between database values and berth types
+    private static final Map<String, BerthType> BERTH_TYPES = new HashMap<>();
+    private static final String[] BERTH_DB_VALUES = {"Lower", "Middle", "Upper", "Side Lower", "Side Upper"};
+    
+    static {
+        for (BerthType type : BerthType.values()) {
+            BERTH_TYPES.put(BERTH_DB_VALUES[type.ordinal()], type);
         }
     }
     
+    public static BerthType parseBerthType(String dbValue) {
+        return dbValue == null ? BerthType.Lower : BERTH_TYPES.getOrDefault(dbValue, BerthType.Lower);
+    }
+    
+    public static String toDbValue(BerthType berthType) {
+        return berthType == null ? BERTH_DB_VALUES[0] : BERTH_DB_VALUES[berthType.ordinal()];
+    }
+    
     public String getBerthTypeDbValue() {
-        switch (berthType) {
-            case Lower: return "Lower";
-            case Middle: return "Middle";
-            case Upper: return "Upper";
-            case Side_Lower: return "Side Lower";
-            case Side_Upper: return "Side Upper";
-            default: return "Lower";
-        }
+        return toDbValue(berthType);
     }
     
     @Override
@@ -0,0 +1,340 @@
+package BookMyTrainTicket;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus of seat availability changes for open seat maps
+ * Every path that flips seats.is_available reports the change here. Changes
+ * made inside a transaction are parked per thread and only published when
+ * the connection commits; a rollback drops them. A published change is routed
+ * by seat ID to the subscriptions whose seat map contains the seat, and is
+ * dropped at the cost of one map lookup when nobody watches that seat.
+ * Each subscription coalesces its changes per seat, last write wins, and a
+ * single flusher thread hands them to the listener as one diff per train at
+ * most every FLUSH_MILLIS, so a burst of thousands of updates a second costs a
+ * seat map a handful of repaints.
+ *
+ * A subscription starts capturing every change before its snapshot is read
+ * and is attached to the snapshot afterwards, so changes committed while the
+ * seat map loads are replayed rather than lost.
+ *
+ * Changes are published after commit in the order their threads get there,
+ * which for two transactions on the same seat need not be commit order. A
+ * watched seat published twice within CONFLICT_WINDOW_MILLIS is therefore
+ * re-read from the database before the next flush, and the committed value
+ * replaces whichever change happened to arrive last.
+ */
+public class SeatAvailabilityBus {
+    private static final long FLUSH_MILLIS = 50;
+    private static final long CONFLICT_WINDOW_MILLIS = 1000;
+    private static final int REREAD_CHUNK_SIZE = 500;
+    private static final SeatAvailabilityBus instance = new SeatAvailabilityBus();
+
+    // Changes made in open transactions, per thread, until commit or rollback
+    private static final ThreadLocal<List<PendingChange>> pending = ThreadLocal.withInitial(ArrayList::new);
+
+    private final Map<Integer, Subscription[]> subscriptionsBySeat = new ConcurrentHashMap<>();
+    private final List<Subscription> capturing = new CopyOnWriteArrayList<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // When each watched seat was last published, and the seats to settle from the database
+    private final Map<Integer, Long> publishedAt = new ConcurrentHashMap<>();
+    private final Set<Integer> conflicted = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService flusher;
+    // Used only on the flusher thread
+    private Connection rereadConnection;
+
+    private SeatAvailabilityBus() {
+    }
+
+    public static SeatAvailabilityBus getInstance() {
+        return instance;
+    }
+
+    /**
+     * Report a seat change made on a connection
+     * Published now under autocommit, otherwise when the connection commits.
+     */
+    public void seatChanged(Connection conn, int seatId, boolean isAvailable) throws SQLException {
+        if (conn.getAutoCommit()) {
+            publish(seatId, isAvailable);
+        } else {
+            pending.get().add(new PendingChange(conn, seatId, isAvailable));
+        }
+    }
+
+    /**
+     * Publish the changes parked for a connection that just committed
+     */
+    static void committed(Connection conn) {
+        List<PendingChange> changes = pending.get();
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (Iterator<PendingChange> it = changes.iterator(); it.hasNext(); ) {
+            PendingChange change = it.next();
+            if (change.conn == conn) {
+                instance.publish(change.seatId, change.isAvailable);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop the changes parked for a connection that rolled back or closed
+     */
+    static void rolledBack(Connection conn) {
+        List<PendingChange> changes = pending.get();
+        if (!changes.isEmpty()) {
+            changes.removeIf(change -> change.conn == conn);
+        }
+    }
+
+    private void publish(int seatId, boolean isAvailable) {
+        Subscription[] watching = subscriptionsBySeat.get(seatId);
+        if (watching == null && capturing.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Long previous = publishedAt.put(seatId, now);
+        if (previous != null && now - previous < CONFLICT_WINDOW_MILLIS) {
+            conflicted.add(seatId);
+        }
+        deliver(seatId, isAvailable, watching);
+    }
+
+    private void deliver(int seatId, boolean isAvailable, Subscription[] watching) {
+        if (watching != null) {
+            for (Subscription subscription : watching) {
+                subscription.changed.put(seatId, isAvailable);
+            }
+        }
+        for (Subscription subscription : capturing) {
+            subscription.changed.put(seatId, isAvailable);
+        }
+    }
+
+    /**
+     * Start capturing changes for a train's seat map
+     * Call before reading the snapshot, then attach it once read.
+     */
+    public Subscription subscribe(int trainId) {
+        Subscription subscription = new Subscription(trainId);
+        capturing.add(subscription);
+        subscriptions.add(subscription);
+        startFlusher();
+        return subscription;
+    }
+
+    private synchronized void startFlusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seat-availability-bus");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void route(Subscription subscription, SeatMap seatMap) {
+        for (int i = 0; i < seatMap.size(); i++) {
+            subscriptionsBySeat.merge(seatMap.getSeatId(i), new Subscription[] { subscription }, (current, added) -> {
+                Subscription[] merged = Arrays.copyOf(current, current.length + 1);
+                merged[current.length] = subscription;
+                return merged;
+            });
+        }
+    }
+
+    private synchronized void unroute(Subscription subscription, SeatMap seatMap) {
+        for (int i = 0; i < seatMap.size(); i++) {
+            subscriptionsBySeat.computeIfPresent(seatMap.getSeatId(i), (seatId, current) -> {
+                Subscription[] remaining = Arrays.stream(current)
+                    .filter(s -> s != subscription).toArray(Subscription[]::new);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+    }
+
+    private void flush() {
+        rereadConflicted();
+        long now = System.currentTimeMillis();
+        publishedAt.values().removeIf(at -> now - at >= CONFLICT_WINDOW_MILLIS);
+
+        for (Subscription subscription : subscriptions) {
+            Consumer<Diff> listener = subscription.listener;
+            if (listener == null || subscription.seatMap == null || subscription.changed.isEmpty()) {
+                continue;
+            }
+
+            Diff diff = subscription.drain();
+            if (diff.size() > 0) {
+                try {
+                    listener.accept(diff);
+                } catch (RuntimeException e) {
+                    // One faulty subscriber must not stall the others
+                    System.err.println("Seat availability listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver the committed availability of the seats whose changes may have crossed
+     * A failed read leaves them for the next flush.
+     */
+    private void rereadConflicted() {
+        if (conflicted.isEmpty()) {
+            return;
+        }
+        List<Integer> seatIds = new ArrayList<>(conflicted);
+        conflicted.removeAll(seatIds);
+
+        try {
+            if (rereadConnection == null || rereadConnection.isClosed()) {
+                rereadConnection = DatabaseManager.openConnection();
+            }
+            for (int from = 0; from < seatIds.size(); from += REREAD_CHUNK_SIZE) {
+                List<Integer> chunk = seatIds.subList(from, Math.min(seatIds.size(), from + REREAD_CHUNK_SIZE));
+                try (PreparedStatement pstmt = Queries.SEAT_AVAILABILITY.prepareIn(rereadConnection, chunk.size())) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            int seatId = rs.getInt(1);
+                            deliver(seatId, rs.getBoolean(2), subscriptionsBySeat.get(seatId));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Re-reading seat availability failed: " + e.getMessage());
+            conflicted.addAll(seatIds);
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Inner class for one open seat map's interest in a train
+     */
+    public class Subscription implements AutoCloseable {
+        private final int trainId;
+        private final Map<Integer, Boolean> changed = new ConcurrentHashMap<>();
+        private volatile SeatMap seatMap;
+        private volatile Consumer<Diff> listener;
+
+        Subscription(int trainId) {
+            this.trainId = trainId;
+        }
+
+        /**
+         * Route this train's seats here and stop capturing everything else
+         */
+        public void attach(SeatMap seatMap) {
+            route(this, seatMap);
+            capturing.remove(this);
+            changed.keySet().removeIf(seatId -> seatMap.indexOf(seatId) < 0);
+            this.seatMap = seatMap;
+        }
+
+        /**
+         * Receive diffs on the bus thread; hand them to the EDT before touching Swing
+         * Changes captured before the listener was set arrive in its first diff.
+         */
+        public void setListener(Consumer<Diff> listener) {
+            this.listener = listener;
+        }
+
+        public int getTrainId() {
+            return trainId;
+        }
+
+        private Diff drain() {
+            int[] seatIds = new int[changed.size()];
+            boolean[] available = new boolean[seatIds.length];
+            int size = 0;
+            for (Integer seatId : changed.keySet()) {
+                // A change arriving after its seat is removed lands in the next diff
+                Boolean isAvailable = changed.remove(seatId);
+                if (isAvailable != null) {
+                    if (size == seatIds.length) {
+                        seatIds = Arrays.copyOf(seatIds, size * 2 + 1);
+                        available = Arrays.copyOf(available, seatIds.length);
+                    }
+                    seatIds[size] = seatId;
+                    available[size] = isAvailable;
+                    size++;
+                }
+            }
+            return new Diff(trainId, seatIds, available, size);
+        }
+
+        @Override
+        public void close() {
+            capturing.remove(this);
+            subscriptions.remove(this);
+            listener = null;
+            SeatMap attached = seatMap;
+            if (attached != null) {
+                unroute(this, attached);
+            }
+        }
+    }
+
+    /**
+     * Inner class for the coalesced changes of one train since the last flush
+     */
+    public static class Diff {
+        private final int trainId;
+        private final int[] seatIds;
+        private final boolean[] available;
+        private final int size;
+
+        Diff(int trainId, int[] seatIds, boolean[] available, int size) {
+            this.trainId = trainId;
+            this.seatIds = seatIds;
+            this.available = available;
+            this.size = size;
+        }
+
+        public int getTrainId() { return trainId; }
+        public int size() { return size; }
+        public int getSeatId(int i) { return seatIds[i]; }
+        public boolean isAvailable(int i) { return available[i]; }
+    }
+
+    /**
+     * Inner class for a change waiting for its transaction to commit
+     */
+    private static class PendingChange {
+        private final Connection conn;
+        private final int seatId;
+        private final boolean isAvailable;
+
+        PendingChange(Connection conn, int seatId, boolean isAvailable) {
+            this.conn = conn;
+            this.seatId = seatId;
+            this.isAvailable = isAvailable;
+        }
+    }
+}
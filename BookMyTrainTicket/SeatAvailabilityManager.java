@@ -2,6 +2,7 @@ package BookMyTrainTicket;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,89 +17,67 @@ public class SeatAvailabilityManager {
      * Get all seats for a specific train
      */
     public List<SeatWithDetails> getSeatsForTrain(int trainId) throws SQLException {
-        List<SeatWithDetails> seats = new ArrayList<>();
-        
-        String query = """
-            SELECT s.seat_id, s.compartment_id, s.berth_type, s.seat_number, s.is_available,
-                   c.compartment_name, cl.class_type
-            FROM seats s
-            JOIN compartments c ON s.compartment_id = c.compartment_id
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE cl.train_id = ?
-            ORDER BY cl.class_type, c.compartment_name, s.seat_number
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.SEATS_FOR_TRAIN.prepare(DatabaseManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    SeatWithDetails seat = new SeatWithDetails();
-                    seat.setSeatId(rs.getInt("seat_id"));
-                    seat.setCompartmentId(rs.getInt("compartment_id"));
-                    seat.setBerthType(Seat.parseBerthType(rs.getString("berth_type")));
-                    seat.setSeatNumber(rs.getString("seat_number"));
-                    seat.setAvailable(rs.getBoolean("is_available"));
-                    seat.setCompartmentName(rs.getString("compartment_name"));
-                    seat.setClassType(rs.getString("class_type"));
-                    
-                    seats.add(seat);
-                }
+                return RowMappers.list(rs, RowMappers.SEAT_WITH_DETAILS);
             }
         }
-        
-        return seats;
     }
     
     /**
      * Get available seats for a specific train and route
      */
     public List<SeatWithDetails> getAvailableSeats(int trainId, int routeId) throws SQLException {
-        List<SeatWithDetails> availableSeats = new ArrayList<>();
-        
-        String query = """
-            SELECT s.seat_id, s.compartment_id, s.berth_type, s.seat_number, s.is_available,
-                   c.compartment_name, cl.class_type
-            FROM seats s
-            JOIN compartments c ON s.compartment_id = c.compartment_id
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE cl.train_id = ? AND s.is_available = TRUE
-            ORDER BY cl.class_type, c.compartment_name, s.seat_number
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.AVAILABLE_SEATS_FOR_TRAIN.prepare(DatabaseManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    SeatWithDetails seat = new SeatWithDetails();
-                    seat.setSeatId(rs.getInt("seat_id"));
-                    seat.setCompartmentId(rs.getInt("compartment_id"));
-                    seat.setBerthType(Seat.parseBerthType(rs.getString("berth_type")));
-                    seat.setSeatNumber(rs.getString("seat_number"));
-                    seat.setAvailable(rs.getBoolean("is_available"));
-                    seat.setCompartmentName(rs.getString("compartment_name"));
-                    seat.setClassType(rs.getString("class_type"));
-                    
-                    availableSeats.add(seat);
-                }
+                return RowMappers.list(rs, RowMappers.SEAT_WITH_DETAILS);
+            }
+        }
+    }
+    
+    /**
+     * Get all seats for a train as a compact seat map
+     */
+    public SeatMap getSeatMap(int trainId) throws SQLException {
+        try (PreparedStatement pstmt = Queries.SEATS_FOR_TRAIN.prepare(DatabaseManager.getConnection())) {
+            pstmt.setInt(1, trainId);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return SeatMap.read(rs);
+            }
+        }
+    }
+    
+    /**
+     * Get available seats for a train and route as a compact seat map
+     */
+    public SeatMap getAvailableSeatMap(int trainId, int routeId) throws SQLException {
+        try (PreparedStatement pstmt = Queries.AVAILABLE_SEATS_FOR_TRAIN.prepare(DatabaseManager.getConnection())) {
+            pstmt.setInt(1, trainId);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return SeatMap.read(rs);
             }
         }
-        
-        return availableSeats;
     }
     
     /**
      * Update seat availability
      */
     public boolean updateSeatAvailability(int seatId, boolean isAvailable) throws SQLException {
-        String query = "UPDATE seats SET is_available = ? WHERE seat_id = ?";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        Connection conn = DatabaseManager.getConnection();
+        try (PreparedStatement pstmt = Queries.UPDATE_SEAT_AVAILABILITY.prepare(conn)) {
             pstmt.setBoolean(1, isAvailable);
             pstmt.setInt(2, seatId);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                SeatAvailabilityBus.getInstance().seatChanged(conn, seatId, isAvailable);
+            }
             return rowsAffected > 0;
         }
     }
@@ -107,35 +86,13 @@ public class SeatAvailabilityManager {
      * Get seat by ID
      */
     public SeatWithDetails getSeatById(int seatId) throws SQLException {
-        String query = """
-            SELECT s.seat_id, s.compartment_id, s.berth_type, s.seat_number, s.is_available,
-                   c.compartment_name, cl.class_type
-            FROM seats s
-            JOIN compartments c ON s.compartment_id = c.compartment_id
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE s.seat_id = ?
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.SEAT_BY_ID.prepare(DatabaseManager.getConnection())) {
             pstmt.setInt(1, seatId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    SeatWithDetails seat = new SeatWithDetails();
-                    seat.setSeatId(rs.getInt("seat_id"));
-                    seat.setCompartmentId(rs.getInt("compartment_id"));
-                    seat.setBerthType(Seat.parseBerthType(rs.getString("berth_type")));
-                    seat.setSeatNumber(rs.getString("seat_number"));
-                    seat.setAvailable(rs.getBoolean("is_available"));
-                    seat.setCompartmentName(rs.getString("compartment_name"));
-                    seat.setClassType(rs.getString("class_type"));
-                    
-                    return seat;
-                }
+                return RowMappers.first(rs, RowMappers.SEAT_WITH_DETAILS);
             }
         }
-        
-        return null;
     }
     
     /**
@@ -159,12 +116,19 @@ public class SeatAvailabilityManager {
      * Check if seat is recommended for a specific user type
      */
     private boolean isSeatRecommendedForUser(SeatWithDetails seat, User.UserRole userRole) {
+        return isBerthRecommendedForUser(seat.getBerthType(), userRole);
+    }
+    
+    /**
+     * Check if a berth type is recommended for a specific user type
+     */
+    public static boolean isBerthRecommendedForUser(Seat.BerthType berthType, User.UserRole userRole) {
         switch (userRole) {
             case Senior:
             case DifferentlyAbled:
                 // Prefer lower berths for seniors and differently abled
-                return seat.getBerthType() == Seat.BerthType.Lower || 
-                       seat.getBerthType() == Seat.BerthType.Side_Lower;
+                return berthType == Seat.BerthType.Lower || 
+                       berthType == Seat.BerthType.Side_Lower;
             case Regular:
             case Admin:
             default:
@@ -174,76 +138,50 @@ public class SeatAvailabilityManager {
     
     /**
      * Get seats grouped by compartment for a train
+     * One ordered query, grouped while the rows stream past; compartments
+     * without seats are kept.
      */
     public List<CompartmentSeats> getSeatsGroupedByCompartment(int trainId) throws SQLException {
         List<CompartmentSeats> compartmentSeatsList = new ArrayList<>();
         
-        String compartmentQuery = """
-            SELECT DISTINCT c.compartment_id, c.compartment_name, cl.class_type
-            FROM compartments c
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE cl.train_id = ?
-            ORDER BY cl.class_type, c.compartment_name
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(compartmentQuery)) {
+        try (PreparedStatement pstmt = Queries.COMPARTMENT_SEATS_FOR_TRAIN.prepare(DatabaseManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
+                RowMappers.RowMapper<SeatWithDetails> mapper = RowMappers.SEAT_WITH_DETAILS.bind(rs);
+                int seatIdColumn = rs.findColumn("seat_id");
+                
+                int compartmentId = -1;
+                String compartmentName = null;
+                String classType = null;
+                List<SeatWithDetails> seats = null;
+                
                 while (rs.next()) {
-                    int compartmentId = rs.getInt("compartment_id");
-                    String compartmentName = rs.getString("compartment_name");
-                    String classType = rs.getString("class_type");
-                    
-                    List<SeatWithDetails> seats = getSeatsForCompartment(compartmentId);
+                    int rowCompartmentId = rs.getInt("compartment_id");
+                    if (seats == null || rowCompartmentId != compartmentId) {
+                        if (seats != null) {
+                            compartmentSeatsList.add(new CompartmentSeats(compartmentId, compartmentName, classType, seats));
+                        }
+                        compartmentId = rowCompartmentId;
+                        compartmentName = RowMappers.intern(rs.getString("compartment_name"));
+                        classType = RowMappers.intern(rs.getString("class_type"));
+                        seats = new ArrayList<>();
+                    }
                     
-                    CompartmentSeats compartmentSeats = new CompartmentSeats(
-                        compartmentId, compartmentName, classType, seats
-                    );
-                    compartmentSeatsList.add(compartmentSeats);
+                    // Compartments without seats come back as one row of nulls
+                    rs.getInt(seatIdColumn);
+                    if (!rs.wasNull()) {
+                        seats.add(mapper.map(rs));
+                    }
                 }
-            }
-        }
-        
-        return compartmentSeatsList;
-    }
-    
-    /**
-     * Get seats for a specific compartment
-     */
-    private List<SeatWithDetails> getSeatsForCompartment(int compartmentId) throws SQLException {
-        List<SeatWithDetails> seats = new ArrayList<>();
-        
-        String query = """
-            SELECT s.seat_id, s.compartment_id, s.berth_type, s.seat_number, s.is_available,
-                   c.compartment_name, cl.class_type
-            FROM seats s
-            JOIN compartments c ON s.compartment_id = c.compartment_id
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE s.compartment_id = ?
-            ORDER BY s.seat_number
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
-            pstmt.setInt(1, compartmentId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    SeatWithDetails seat = new SeatWithDetails();
-                    seat.setSeatId(rs.getInt("seat_id"));
-                    seat.setCompartmentId(rs.getInt("compartment_id"));
-                    seat.setBerthType(Seat.parseBerthType(rs.getString("berth_type")));
-                    seat.setSeatNumber(rs.getString("seat_number"));
-                    seat.setAvailable(rs.getBoolean("is_available"));
-                    seat.setCompartmentName(rs.getString("compartment_name"));
-                    seat.setClassType(rs.getString("class_type"));
-                    
-                    seats.add(seat);
+                
+                if (seats != null) {
+                    compartmentSeatsList.add(new CompartmentSeats(compartmentId, compartmentName, classType, seats));
                 }
             }
         }
         
-        return seats;
+        return compartmentSeatsList;
     }
     
     /**
@@ -275,12 +213,20 @@ public class SeatAvailabilityManager {
         private String compartmentName;
         private String classType;
         private List<SeatWithDetails> seats;
+        private int availableSeatsCount;
         
         public CompartmentSeats(int compartmentId, String compartmentName, String classType, List<SeatWithDetails> seats) {
             this.compartmentId = compartmentId;
             this.compartmentName = compartmentName;
             this.classType = classType;
-            this.seats = seats;
+            this.seats = Collections.unmodifiableList(seats);
+            
+            // Counted once when loaded rather than on every toString
+            for (SeatWithDetails seat : seats) {
+                if (seat.isAvailable()) {
+                    availableSeatsCount++;
+                }
+            }
         }
         
         public int getCompartmentId() { return compartmentId; }
@@ -289,7 +235,7 @@ public class SeatAvailabilityManager {
         public List<SeatWithDetails> getSeats() { return seats; }
         
         public int getAvailableSeatsCount() {
-            return (int) seats.stream().filter(SeatWithDetails::isAvailable).count();
+            return availableSeatsCount;
         }
         
         public int getTotalSeatsCount() {
@@ -0,0 +1,273 @@
+package BookMyTrainTicket;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages time-bounded seat holds during checkout
+ * A hold claims the seat and creates a 'Held' booking with an expiry timestamp.
+ * Expiries are tracked in an in-memory timing wheel; when holds expire they are
+ * released together in one batched transaction instead of by a table sweeper.
+ */
+public class SeatHoldManager {
+    private static final int HOLD_SECONDS = 300;
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 60;
+    private static final int RELEASE_BATCH_SIZE = 500;
+    private static final long RELEASE_RETRY_MILLIS = 5000;
+
+    private static SeatHoldManager instance;
+
+    private final TimingWheel<Hold> wheel;
+    private final Map<Integer, TimingWheel.Timer<Hold>> timersByBooking = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+    private Connection releaseConnection;
+
+    private SeatHoldManager() throws SQLException {
+        DatabaseManager.getInstance();
+        wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+        // Holds survive restarts in the database; re-arm them in the wheel
+        recoverHolds();
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "seat-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized SeatHoldManager getInstance() throws SQLException {
+        if (instance == null) {
+            instance = new SeatHoldManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Claim a seat and create a held booking
+     * Returns the booking ID, or -1 if the seat is no longer available.
+     */
+    public int holdSeat(int userId, int seatId, int trainId, int routeId,
+                        String passengerName, int passengerAge) throws SQLException {
+        Connection conn = DatabaseManager.getConnection();
+        conn.setAutoCommit(false);
+
+        try {
+            // Conditional update claims the seat atomically
+            FlightEvents.SeatClaim claim = FlightEvents.SeatClaim.start();
+            try (PreparedStatement pstmt = Queries.HOLD_SEAT.prepare(conn)) {
+                pstmt.setInt(1, HOLD_SECONDS);
+                pstmt.setInt(2, seatId);
+                boolean claimed = pstmt.executeUpdate() > 0;
+                claim.finish(seatId, claimed);
+                if (!claimed) {
+                    conn.rollback();
+                    return -1;
+                }
+            }
+            SeatAvailabilityBus.getInstance().seatChanged(conn, seatId, false);
+
+            int bookingId;
+            try (PreparedStatement pstmt = Queries.INSERT_HELD_BOOKING.prepare(conn, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, userId);
+                pstmt.setInt(2, seatId);
+                pstmt.setInt(3, trainId);
+                pstmt.setInt(4, routeId);
+                pstmt.setString(5, passengerName);
+                pstmt.setInt(6, passengerAge);
+                pstmt.executeUpdate();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Failed to get booking ID");
+                    }
+                    bookingId = rs.getInt(1);
+                }
+            }
+
+            Outbox.append(conn, OutboxEvent.booking(OutboxEvent.BOOKING_HELD, bookingId,
+                userId, trainId, routeId, "Held"));
+            conn.commit();
+
+            schedule(new Hold(bookingId, seatId), System.currentTimeMillis() + HOLD_SECONDS * 1000L);
+            return bookingId;
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Turn a hold into a sale after successful payment
+     */
+    public void completeHold(int bookingId) throws SQLException {
+        forget(bookingId);
+
+        try (PreparedStatement pstmt = Queries.COMPLETE_SEAT_HOLD.prepare(DatabaseManager.getConnection())) {
+            pstmt.setInt(1, bookingId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Release a hold immediately, e.g. when the user closes the payment dialog
+     */
+    public void releaseHold(int bookingId) throws SQLException {
+        TimingWheel.Timer<Hold> timer = timersByBooking.remove(bookingId);
+        if (timer != null) {
+            timer.cancel();
+            try {
+                releaseBatch(Collections.singletonList(timer.getItem()));
+            } catch (SQLException e) {
+                // Leave it to the expiry ticker rather than keep the seat held
+                schedule(timer.getItem(), System.currentTimeMillis() + RELEASE_RETRY_MILLIS);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stop tracking a hold that was settled elsewhere
+     */
+    public void forget(int bookingId) {
+        TimingWheel.Timer<Hold> timer = timersByBooking.remove(bookingId);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    public int getHoldSeconds() {
+        return HOLD_SECONDS;
+    }
+
+    public int getActiveHoldCount() {
+        return timersByBooking.size();
+    }
+
+    private void schedule(Hold hold, long expiryMillis) {
+        synchronized (wheel) {
+            timersByBooking.put(hold.bookingId, wheel.schedule(hold, expiryMillis));
+        }
+    }
+
+    private void tick() {
+        List<Hold> expired;
+        synchronized (wheel) {
+            expired = wheel.advance(System.currentTimeMillis());
+        }
+
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        for (int from = 0; from < expired.size(); from += RELEASE_BATCH_SIZE) {
+            List<Hold> batch = expired.subList(from, Math.min(from + RELEASE_BATCH_SIZE, expired.size()));
+            try {
+                releaseBatch(batch);
+                for (Hold hold : batch) {
+                    timersByBooking.remove(hold.bookingId);
+                }
+            } catch (SQLException e) {
+                // The rows are untouched after the rollback; try the batch again shortly
+                System.err.println("Releasing expired seat holds failed: " + e.getMessage());
+                long retryAt = System.currentTimeMillis() + RELEASE_RETRY_MILLIS;
+                for (Hold hold : batch) {
+                    schedule(hold, retryAt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancel held bookings and free their seats in one transaction
+     * Only rows still in the held state are touched, so a hold that was paid
+     * for concurrently keeps its seat.
+     */
+    private synchronized void releaseBatch(List<Hold> holds) throws SQLException {
+        if (releaseConnection == null || releaseConnection.isClosed()) {
+            releaseConnection = DatabaseManager.openConnection();
+        }
+        Connection conn = releaseConnection;
+
+        List<Integer> bookingIds = new ArrayList<>(holds.size());
+        for (Hold hold : holds) {
+            bookingIds.add(hold.bookingId);
+        }
+        conn.setAutoCommit(false);
+
+        try {
+            Outbox.appendForBookings(conn, OutboxEvent.BOOKING_CANCELLED, bookingIds, "Held", "Cancelled");
+
+            try (PreparedStatement pstmt = Queries.CANCEL_HELD_BOOKINGS.prepareIn(conn, holds.size())) {
+                for (int i = 0; i < holds.size(); i++) {
+                    pstmt.setInt(i + 1, holds.get(i).bookingId);
+                }
+                pstmt.executeUpdate();
+            }
+
+            // One row per seat, so the update counts say which seats were actually freed
+            try (PreparedStatement pstmt = Queries.RELEASE_EXPIRED_HOLD_SEAT.prepare(conn)) {
+                for (Hold hold : holds) {
+                    pstmt.setInt(1, hold.seatId);
+                    pstmt.addBatch();
+                }
+                int[] freed = pstmt.executeBatch();
+                for (int i = 0; i < freed.length && i < holds.size(); i++) {
+                    if (freed[i] > 0) {
+                        SeatAvailabilityBus.getInstance().seatChanged(conn, holds.get(i).seatId, true);
+                    }
+                }
+            }
+
+            conn.commit();
+
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void recoverHolds() throws SQLException {
+        List<Hold> holds = new ArrayList<>();
+        List<Long> expiries = new ArrayList<>();
+
+        try (PreparedStatement pstmt = Queries.HELD_BOOKINGS.prepare(DatabaseManager.getConnection());
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                holds.add(new Hold(rs.getInt("booking_id"), rs.getInt("seat_id")));
+                expiries.add(rs.getTimestamp("held_until").getTime());
+            }
+        }
+
+        for (int i = 0; i < holds.size(); i++) {
+            schedule(holds.get(i), expiries.get(i));
+        }
+    }
+
+    /**
+     * Inner class for a seat held by a booking
+     */
+    private static class Hold {
+        private final int bookingId;
+        private final int seatId;
+
+        Hold(int bookingId, int seatId) {
+            this.bookingId = bookingId;
+            this.seatId = seatId;
+        }
+    }
+}
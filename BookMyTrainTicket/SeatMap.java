@@ -0,0 +1,227 @@
+package BookMyTrainTicket;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact seat map of a train
+ * Seats are stored column-wise in parallel arrays (seat ID, berth ordinal,
+ * compartment index, availability bit) and share one Compartment record per
+ * coach, so a full train costs a handful of arrays instead of one object graph
+ * per seat. Seat objects are only created on request through getSeat.
+ * The layout never changes after build; availability can be updated from the
+ * seat availability bus as well as the EDT, so it and the compartment counts
+ * are read and written under the map's lock.
+ */
+public class SeatMap {
+    private static final Seat.BerthType[] BERTH_TYPES = Seat.BerthType.values();
+
+    private final int size;
+    private final int[] seatIds;
+    private final String[] seatNumbers;
+    private final byte[] berths;
+    private final int[] compartmentOf;
+    private final BitSet available;
+    private final List<Compartment> compartments;
+    private Map<Integer, Integer> indexBySeatId;
+
+    private SeatMap(Builder builder) {
+        this.size = builder.size;
+        this.seatIds = Arrays.copyOf(builder.seatIds, size);
+        this.seatNumbers = Arrays.copyOf(builder.seatNumbers, size);
+        this.berths = Arrays.copyOf(builder.berths, size);
+        this.compartmentOf = Arrays.copyOf(builder.compartmentOf, size);
+        this.available = builder.available;
+        this.compartments = Collections.unmodifiableList(builder.compartments);
+    }
+
+    /**
+     * Read a seat map from rows of the shared seat select
+     */
+    public static SeatMap read(ResultSet rs) throws SQLException {
+        int seatId = rs.findColumn("seat_id");
+        int compartmentId = rs.findColumn("compartment_id");
+        int berthType = rs.findColumn("berth_type");
+        int seatNumber = rs.findColumn("seat_number");
+        int isAvailable = rs.findColumn("is_available");
+        int compartmentName = rs.findColumn("compartment_name");
+        int classType = rs.findColumn("class_type");
+
+        Builder builder = new Builder();
+        while (rs.next()) {
+            builder.add(rs.getInt(seatId), rs.getString(seatNumber), Seat.parseBerthType(rs.getString(berthType)),
+                rs.getBoolean(isAvailable), rs.getInt(compartmentId), rs.getString(compartmentName),
+                rs.getString(classType));
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getSeatId(int index) {
+        return seatIds[index];
+    }
+
+    public String getSeatNumber(int index) {
+        return seatNumbers[index];
+    }
+
+    public Seat.BerthType getBerthType(int index) {
+        return BERTH_TYPES[berths[index]];
+    }
+
+    public synchronized boolean isAvailable(int index) {
+        return available.get(index);
+    }
+
+    public Compartment getCompartment(int index) {
+        return compartments.get(compartmentOf[index]);
+    }
+
+    /**
+     * Position of a seat's compartment in getCompartments
+     */
+    public int getCompartmentIndex(int index) {
+        return compartmentOf[index];
+    }
+
+    public List<Compartment> getCompartments() {
+        return compartments;
+    }
+
+    public synchronized int getAvailableCount() {
+        return available.cardinality();
+    }
+
+    /**
+     * Index of a seat in this map, -1 if it is not part of it
+     */
+    public synchronized int indexOf(int seatId) {
+        if (indexBySeatId == null) {
+            indexBySeatId = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                indexBySeatId.put(seatIds[i], i);
+            }
+        }
+        return indexBySeatId.getOrDefault(seatId, -1);
+    }
+
+    /**
+     * Mark a seat booked or free, e.g. after the user books from this map
+     */
+    public synchronized void setAvailable(int index, boolean isAvailable) {
+        Compartment compartment = getCompartment(index);
+        if (available.get(index) != isAvailable) {
+            available.set(index, isAvailable);
+            compartment.availableCount += isAvailable ? 1 : -1;
+        }
+    }
+
+    /**
+     * Standalone view of one seat, created on demand
+     */
+    public SeatAvailabilityManager.SeatWithDetails getSeat(int index) {
+        Compartment compartment = getCompartment(index);
+        SeatAvailabilityManager.SeatWithDetails seat = new SeatAvailabilityManager.SeatWithDetails();
+        seat.setSeatId(seatIds[index]);
+        seat.setCompartmentId(compartment.getCompartmentId());
+        seat.setBerthType(getBerthType(index));
+        seat.setSeatNumber(seatNumbers[index]);
+        seat.setAvailable(isAvailable(index));
+        seat.setCompartmentName(compartment.getCompartmentName());
+        seat.setClassType(compartment.getClassType());
+        return seat;
+    }
+
+    /**
+     * Inner class for the metadata shared by the seats of one compartment
+     */
+    public static class Compartment {
+        private final int compartmentId;
+        private final String compartmentName;
+        private final String classType;
+        private int seatCount;
+        // Changed under the owning SeatMap's lock; volatile so readers need not take it
+        private volatile int availableCount;
+
+        Compartment(int compartmentId, String compartmentName, String classType) {
+            this.compartmentId = compartmentId;
+            this.compartmentName = compartmentName;
+            this.classType = classType;
+        }
+
+        public int getCompartmentId() { return compartmentId; }
+        public String getCompartmentName() { return compartmentName; }
+        public String getClassType() { return classType; }
+        public int getSeatCount() { return seatCount; }
+        public int getAvailableCount() { return availableCount; }
+
+        @Override
+        public String toString() {
+            return classType + " - " + compartmentName + " (" + availableCount + "/" + seatCount + " available)";
+        }
+    }
+
+    /**
+     * Appends seats into growing arrays
+     */
+    public static class Builder {
+        private int size;
+        private int[] seatIds = new int[64];
+        private String[] seatNumbers = new String[64];
+        private byte[] berths = new byte[64];
+        private int[] compartmentOf = new int[64];
+        private final BitSet available = new BitSet();
+        private final List<Compartment> compartments = new ArrayList<>();
+        private final Map<Integer, Integer> compartmentIndex = new HashMap<>();
+
+        public Builder add(int seatId, String seatNumber, Seat.BerthType berthType, boolean isAvailable,
+                           int compartmentId, String compartmentName, String classType) {
+            if (size == seatIds.length) {
+                int capacity = size * 2;
+                seatIds = Arrays.copyOf(seatIds, capacity);
+                seatNumbers = Arrays.copyOf(seatNumbers, capacity);
+                berths = Arrays.copyOf(berths, capacity);
+                compartmentOf = Arrays.copyOf(compartmentOf, capacity);
+            }
+
+            Integer index = compartmentIndex.get(compartmentId);
+            if (index == null) {
+                index = compartments.size();
+                compartments.add(new Compartment(compartmentId, RowMappers.intern(compartmentName),
+                    RowMappers.intern(classType)));
+                compartmentIndex.put(compartmentId, index);
+            }
+            Compartment compartment = compartments.get(index);
+            compartment.seatCount++;
+            if (isAvailable) {
+                compartment.availableCount++;
+                available.set(size);
+            }
+
+            seatIds[size] = seatId;
+            seatNumbers[size] = seatNumber;
+            berths[size] = (byte) berthType.ordinal();
+            compartmentOf[size] = index;
+            size++;
+            return this;
+        }
+
+        public SeatMap build() {
+            return new SeatMap(this);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package BookMyTrainTicket;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.ToolTipManager;
+
+/**
+ * Seat map drawn as one component, one grid of seats per coach
+ * However many seats the train has, this is a single component: paint only
+ * visits the coaches and rows that intersect the clip, so scrolling a rake of
+ * thousands of seats costs the same as a screenful. Every coach is a header
+ * band followed by rows of COLUMNS seats, and the coaches' top edges are kept
+ * in a sorted array, so a point maps to its seat with a binary search and two
+ * divisions, and a seat maps back to its cell the same way. Recommended seats
+ * are a bitmap computed once from the berth types. Availability changes are
+ * applied to the seat map and repaint only the affected cell.
+ * Selecting a seat fires a "selectedSeat" property change with its index.
+ */
+public class SeatMapView extends JComponent implements Scrollable {
+    public static final String SELECTED_SEAT = "selectedSeat";
+
+    private static final int COLUMNS = 8;
+    private static final int CELL_WIDTH = 64;
+    private static final int CELL_HEIGHT = 36;
+    private static final int GAP = 4;
+    private static final int HEADER_HEIGHT = 26;
+    private static final int COACH_SPACING = 12;
+    private static final int INSET = 10;
+
+    private static final Color AVAILABLE = Color.WHITE;
+    private static final Color RECOMMENDED = new Color(144, 238, 144);
+    private static final Color BOOKED = new Color(200, 200, 200);
+    private static final Color SELECTED = new Color(30, 144, 255);
+    private static final Color HEADER = new Color(25, 25, 112);
+    private static final String[] BERTH_LABELS = { "L", "M", "U", "SL", "SU" };
+    private static final Font SEAT_FONT = new Font("Arial", Font.PLAIN, 11);
+    private static final Font HEADER_FONT = new Font("Arial", Font.BOLD, 12);
+
+    private final SeatMap seatMap;
+    private final BitSet recommended;
+
+    // Seat indexes in drawing order, grouped by coach
+    private final int[] order;
+    // Position of each seat in order
+    private final int[] positionOf;
+    // Per coach: first position in order, seat count and top edge of its block
+    private final int[] coachStart;
+    private final int[] coachSize;
+    private final int[] coachTop;
+    private final int height;
+
+    private int selected = -1;
+
+    public SeatMapView(SeatMap seatMap, User.UserRole role) {
+        this.seatMap = seatMap;
+        this.recommended = new BitSet(seatMap.size());
+        for (int i = 0; i < seatMap.size(); i++) {
+            if (SeatAvailabilityManager.isBerthRecommendedForUser(seatMap.getBerthType(i), role)) {
+                recommended.set(i);
+            }
+        }
+
+        // Counting sort of the seats by coach, keeping the query's order within a coach
+        int coaches = seatMap.getCompartments().size();
+        coachSize = new int[coaches];
+        coachStart = new int[coaches];
+        coachTop = new int[coaches];
+        for (int i = 0; i < seatMap.size(); i++) {
+            coachSize[seatMap.getCompartmentIndex(i)]++;
+        }
+        int y = INSET;
+        for (int c = 0, start = 0; c < coaches; c++) {
+            coachStart[c] = start;
+            coachTop[c] = y;
+            start += coachSize[c];
+            y += blockHeight(coachSize[c]);
+        }
+        height = y + INSET;
+
+        order = new int[seatMap.size()];
+        positionOf = new int[seatMap.size()];
+        int[] next = Arrays.copyOf(coachStart, coaches);
+        for (int i = 0; i < seatMap.size(); i++) {
+            int position = next[seatMap.getCompartmentIndex(i)]++;
+            order[position] = i;
+            positionOf[i] = position;
+        }
+
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setFocusable(true);
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                int index = seatAt(e.getX(), e.getY());
+                if (index >= 0 && seatMap.isAvailable(index)) {
+                    setSelectedSeat(index);
+                }
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_LEFT: moveSelection(-1); break;
+                    case KeyEvent.VK_RIGHT: moveSelection(1); break;
+                    case KeyEvent.VK_UP: moveSelection(-COLUMNS); break;
+                    case KeyEvent.VK_DOWN: moveSelection(COLUMNS); break;
+                    default: return;
+                }
+                e.consume();
+            }
+        });
+    }
+
+    private static int blockHeight(int seats) {
+        int rows = (seats + COLUMNS - 1) / COLUMNS;
+        return HEADER_HEIGHT + rows * CELL_HEIGHT + COACH_SPACING;
+    }
+
+    /**
+     * Index of the seat under a point, -1 if there is none
+     */
+    public int seatAt(int x, int y) {
+        int coach = coachAt(y);
+        if (coach < 0) {
+            return -1;
+        }
+        int gridY = y - coachTop[coach] - HEADER_HEIGHT;
+        int gridX = x - INSET;
+        if (gridY < 0 || gridX < 0 || gridX >= COLUMNS * CELL_WIDTH) {
+            return -1;
+        }
+        int column = gridX / CELL_WIDTH;
+        int row = gridY / CELL_HEIGHT;
+        if (gridX % CELL_WIDTH >= CELL_WIDTH - GAP || gridY % CELL_HEIGHT >= CELL_HEIGHT - GAP) {
+            return -1;
+        }
+        int offset = row * COLUMNS + column;
+        return offset < coachSize[coach] ? order[coachStart[coach] + offset] : -1;
+    }
+
+    /**
+     * Coach whose block contains y, -1 above the first one
+     */
+    private int coachAt(int y) {
+        int found = Arrays.binarySearch(coachTop, y);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    /**
+     * Bounds of a seat's cell, gap excluded
+     */
+    public Rectangle cellBounds(int index) {
+        int coach = seatMap.getCompartmentIndex(index);
+        int offset = positionOf[index] - coachStart[coach];
+        int x = INSET + (offset % COLUMNS) * CELL_WIDTH;
+        int y = coachTop[coach] + HEADER_HEIGHT + (offset / COLUMNS) * CELL_HEIGHT;
+        return new Rectangle(x, y, CELL_WIDTH - GAP, CELL_HEIGHT - GAP);
+    }
+
+    public int getSelectedSeat() {
+        return selected;
+    }
+
+    public void setSelectedSeat(int index) {
+        int old = selected;
+        if (old == index) {
+            return;
+        }
+        selected = index;
+        if (old >= 0) {
+            repaint(cellBounds(old));
+        }
+        if (index >= 0) {
+            Rectangle cell = cellBounds(index);
+            repaint(cell);
+            scrollRectToVisible(cell);
+        }
+        firePropertyChange(SELECTED_SEAT, old, index);
+    }
+
+    /**
+     * Move the selection to the nearest free seat in a direction, in drawing order
+     */
+    private void moveSelection(int step) {
+        if (order.length == 0) {
+            return;
+        }
+        int position = selected >= 0 ? positionOf[selected] + step : (step > 0 ? 0 : order.length - 1);
+        int unit = step > 0 ? 1 : -1;
+        for (; position >= 0 && position < order.length; position += unit) {
+            if (seatMap.isAvailable(order[position])) {
+                setSelectedSeat(order[position]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply a change of availability, repainting only that seat and its coach header
+     * Seats that are not on this map are ignored. A selected seat that is
+     * taken meanwhile is deselected.
+     */
+    public void setSeatAvailable(int seatId, boolean isAvailable) {
+        int index = seatMap.indexOf(seatId);
+        if (index < 0 || seatMap.isAvailable(index) == isAvailable) {
+            return;
+        }
+        seatMap.setAvailable(index, isAvailable);
+        if (!isAvailable && index == selected) {
+            setSelectedSeat(-1);
+        }
+        int coach = seatMap.getCompartmentIndex(index);
+        repaint(INSET, coachTop[coach], COLUMNS * CELL_WIDTH, HEADER_HEIGHT);
+        repaint(cellBounds(index));
+    }
+
+    /**
+     * Apply a batch of changes pushed by the SeatAvailabilityBus; EDT only
+     */
+    public void applyChanges(SeatAvailabilityBus.Diff diff) {
+        for (int i = 0; i < diff.size(); i++) {
+            setSeatAvailable(diff.getSeatId(i), diff.isAvailable(i));
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = seatAt(e.getX(), e.getY());
+        if (index < 0) {
+            return null;
+        }
+        return seatMap.getSeatNumber(index) + " - " + seatMap.getBerthType(index)
+            + " - " + (seatMap.isAvailable(index) ? "available" : "booked")
+            + (recommended.get(index) ? ", recommended" : "");
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (coachTop.length == 0) {
+            return;
+        }
+
+        int clipBottom = clip.y + clip.height;
+
+        for (int coach = Math.max(0, coachAt(clip.y)); coach < coachTop.length && coachTop[coach] < clipBottom; coach++) {
+            int top = coachTop[coach];
+            if (top + HEADER_HEIGHT > clip.y) {
+                paintHeader(g, coach, top);
+            }
+
+            // Only the rows of this coach that intersect the clip
+            int gridTop = top + HEADER_HEIGHT;
+            int rows = (coachSize[coach] + COLUMNS - 1) / COLUMNS;
+            int firstRow = Math.max(0, (clip.y - gridTop) / CELL_HEIGHT);
+            int lastRow = Math.min(rows - 1, (clipBottom - gridTop) / CELL_HEIGHT);
+            for (int row = firstRow; row <= lastRow; row++) {
+                int end = Math.min(coachSize[coach], (row + 1) * COLUMNS);
+                for (int offset = row * COLUMNS; offset < end; offset++) {
+                    paintSeat(g, order[coachStart[coach] + offset], offset, gridTop);
+                }
+            }
+        }
+    }
+
+    private void paintHeader(Graphics g, int coach, int top) {
+        g.setColor(HEADER);
+        g.setFont(HEADER_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        String label = seatMap.getCompartments().get(coach).toString();
+        g.drawString(label, INSET, top + (HEADER_HEIGHT + metrics.getAscent()) / 2 - 2);
+    }
+
+    private void paintSeat(Graphics g, int index, int offset, int gridTop) {
+        int x = INSET + (offset % COLUMNS) * CELL_WIDTH;
+        int y = gridTop + (offset / COLUMNS) * CELL_HEIGHT;
+        int w = CELL_WIDTH - GAP;
+        int h = CELL_HEIGHT - GAP;
+
+        boolean free = seatMap.isAvailable(index);
+        Color fill = index == selected ? SELECTED : !free ? BOOKED : recommended.get(index) ? RECOMMENDED : AVAILABLE;
+        g.setColor(fill);
+        g.fillRect(x, y, w, h);
+        g.setColor(free ? Color.DARK_GRAY : Color.GRAY);
+        g.drawRect(x, y, w - 1, h - 1);
+
+        g.setColor(index == selected ? Color.WHITE : free ? Color.BLACK : Color.DARK_GRAY);
+        g.setFont(SEAT_FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        String label = seatMap.getSeatNumber(index) + " " + BERTH_LABELS[seatMap.getBerthType(index).ordinal()];
+        int textX = x + Math.max(2, (w - metrics.stringWidth(label)) / 2);
+        g.drawString(label, textX, y + (h + metrics.getAscent()) / 2 - 2);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(INSET * 2 + COLUMNS * CELL_WIDTH, height);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(INSET * 2 + COLUMNS * CELL_WIDTH, Math.min(height, 12 * CELL_HEIGHT));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? CELL_HEIGHT : CELL_WIDTH;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height - CELL_HEIGHT : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dummy payment gateway with random success/failure scenarios
+ */
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private static final String[] FAILURE_REASONS = {
+        "Insufficient funds",
+        "Card expired",
+        "Transaction declined by bank",
+        "Network timeout",
+        "Invalid credentials"
+    };
+    
+    private long chargeDelayMillis;
+    // Refund results by idempotency key, so a resent refund is answered, not repeated
+    private final Map<String, PaymentManager.PaymentResult> refunds = new ConcurrentHashMap<>();
+    
+    public SimulatedPaymentGateway() {
+        this(2000); // 2 second delay for realism
+    }
+    
+    public SimulatedPaymentGateway(long chargeDelayMillis) {
+        this.chargeDelayMillis = chargeDelayMillis;
+    }
+    
+    @Override
+    public PaymentManager.PaymentResult charge(PaymentManager.PaymentRequest request) {
+        // Simulate payment gateway processing delay
+        if (chargeDelayMillis > 0) {
+            try {
+                Thread.sleep(chargeDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        
+        // 90% success rate for simulation
+        boolean success = random.nextDouble() > 0.1;
+        
+        String transactionId = generateTransactionId("TXN");
+        PaymentManager.PaymentStatus status;
+        String message;
+        
+        if (success) {
+            status = PaymentManager.PaymentStatus.SUCCESS;
+            message = "Payment processed successfully";
+            
+            // Additional validation based on payment method
+            if (request.getMethod() == PaymentManager.PaymentMethod.CREDIT_CARD || 
+                request.getMethod() == PaymentManager.PaymentMethod.DEBIT_CARD) {
+                
+                if (request.getCardNumber() == null || request.getCardNumber().length() < 16) {
+                    success = false;
+                    status = PaymentManager.PaymentStatus.FAILED;
+                    message = "Invalid card number";
+                } else if (request.getCvv() == null || request.getCvv().length() != 3) {
+                    success = false;
+                    status = PaymentManager.PaymentStatus.FAILED;
+                    message = "Invalid CVV";
+                }
+            } else if (request.getMethod() == PaymentManager.PaymentMethod.UPI) {
+                if (request.getUpiId() == null || !request.getUpiId().contains("@")) {
+                    success = false;
+                    status = PaymentManager.PaymentStatus.FAILED;
+                    message = "Invalid UPI ID";
+                }
+            }
+        } else {
+            status = PaymentManager.PaymentStatus.FAILED;
+            message = FAILURE_REASONS[random.nextInt(FAILURE_REASONS.length)];
+        }
+        
+        return new PaymentManager.PaymentResult(success, transactionId, message, status);
+    }
+    
+    @Override
+    public PaymentManager.PaymentResult refund(String idempotencyKey, int paymentId, BigDecimal amount, String reason) {
+        return refunds.computeIfAbsent(idempotencyKey, key -> new PaymentManager.PaymentResult(true,
+            generateTransactionId("REF"),
+            "Refund processed successfully. Amount will be credited within 5-7 business days.",
+            PaymentManager.PaymentStatus.REFUNDED));
+    }
+    
+    /**
+     * Generate unique transaction ID
+     */
+    private String generateTransactionId(String prefix) {
+        long timestamp = System.currentTimeMillis();
+        int randomNum = 1000 + ThreadLocalRandom.current().nextInt(9000);
+        return prefix + timestamp + randomNum;
+    }
+}
@@ -0,0 +1,88 @@
+package BookMyTrainTicket;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of statements that ran longer than a threshold
+ * Lines carry the query name, its SQL with placeholders (ad hoc SQL has its
+ * literals masked), the time taken and the types of the bound parameters.
+ * Parameter values are never written, since they include passwords, names
+ * and payment details.
+ */
+public class SlowQueryLog {
+    private static SlowQueryLog instance;
+
+    private volatile long thresholdNanos = 250_000_000L;
+    private String path = "slow-queries.log";
+    private PrintWriter writer;
+    private final AtomicLong slowQueries = new AtomicLong();
+
+    private SlowQueryLog() {
+    }
+
+    public static synchronized SlowQueryLog getInstance() {
+        if (instance == null) {
+            instance = new SlowQueryLog();
+        }
+        return instance;
+    }
+
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+    }
+
+    public synchronized void setPath(String path) {
+        this.path = path;
+        close();
+    }
+
+    public long getSlowQueryCount() {
+        return slowQueries.get();
+    }
+
+    /**
+     * Log the execution if it reached the threshold
+     */
+    void record(Queries.Query query, long nanos, long updateCount, String[] bindTypes, boolean failed) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        slowQueries.incrementAndGet();
+
+        List<String> binds = new ArrayList<>();
+        for (int i = 1; i < bindTypes.length; i++) {
+            if (bindTypes[i] != null) {
+                binds.add(bindTypes[i]);
+            }
+        }
+
+        String line = String.format("%s %s %.1fms updated=%d%s binds=%s sql=%s", LocalDateTime.now(), query.getName(),
+            nanos / 1_000_000.0, updateCount, failed ? " FAILED" : "", binds, query.getSql().trim().replaceAll("\\s+", " "));
+        write(line);
+    }
+
+    private synchronized void write(String line) {
+        try {
+            if (writer == null) {
+                writer = new PrintWriter(new FileWriter(path, true));
+            }
+            writer.println(line);
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Slow query log unavailable: " + e.getMessage());
+        }
+    }
+
+    public synchronized void close() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package BookMyTrainTicket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streams events as JSON lines to a local TCP listener
+ * The connection is opened lazily and re-opened after a write failure.
+ */
+public class SocketOutboxSink implements OutboxSink {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private BufferedWriter writer;
+
+    public SocketOutboxSink(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        try {
+            if (writer == null) {
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            }
+
+            for (OutboxEvent event : events) {
+                writer.write(event.toJson());
+                writer.write('\n');
+            }
+            writer.flush();
+
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer = null;
+        if (socket != null) {
+            Socket closing = socket;
+            socket = null;
+            closing.close();
+        }
+    }
+}
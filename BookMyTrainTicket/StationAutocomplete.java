@@ -0,0 +1,172 @@
+package BookMyTrainTicket;
+
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Station suggestions under a text field as the user types
+ * Typing restarts a short timer, and only when it fires is the index asked,
+ * so a burst of keystrokes costs one lookup. Lookups are served from the
+ * in-memory StationIndex and run on the EDT without a worker. Up and Down
+ * move through the suggestions, Enter or a click takes one, and Escape
+ * closes the list. Enter on a highlighted suggestion only takes it, so it
+ * does not also submit the form.
+ */
+public class StationAutocomplete {
+    private static final int DEBOUNCE_MILLIS = 150;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final StationIndex index;
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer debounce;
+    private boolean accepting;
+
+    private StationAutocomplete(JTextField field, StationIndex index) {
+        this.field = field;
+        this.index = index;
+        debounce = new Timer(DEBOUNCE_MILLIS, e -> showSuggestions());
+        debounce.setRepeats(false);
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = list.locationToIndex(e.getPoint());
+                if (row >= 0) {
+                    accept(model.get(row));
+                }
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(list);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { typed(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { typed(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                debounce.stop();
+                popup.setVisible(false);
+            }
+        });
+    }
+
+    /**
+     * Give a text field station suggestions from the index
+     */
+    public static StationAutocomplete attach(JTextField field, StationIndex index) {
+        return new StationAutocomplete(field, index);
+    }
+
+    private void typed() {
+        if (!accepting) {
+            debounce.restart();
+        }
+    }
+
+    private void showSuggestions() {
+        if (!field.isShowing() || !field.hasFocus()) {
+            return;
+        }
+        String text = field.getText();
+        List<String> suggestions = index.suggest(text, MAX_SUGGESTIONS);
+        // Nothing to offer once the field already holds the only match
+        if (suggestions.isEmpty() || suggestions.size() == 1 && suggestions.get(0).equalsIgnoreCase(text.trim())) {
+            popup.setVisible(false);
+            return;
+        }
+
+        model.clear();
+        for (String suggestion : suggestions) {
+            model.addElement(suggestion);
+        }
+        list.setVisibleRowCount(suggestions.size());
+        list.setFixedCellWidth(field.getWidth());
+        list.clearSelection();
+        popup.pack();
+        if (!popup.isVisible()) {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void handleKey(KeyEvent e) {
+        if (!popup.isVisible()) {
+            if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+                showSuggestions();
+                e.consume();
+            }
+            return;
+        }
+
+        int row = list.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                list.setSelectedIndex(Math.min(row + 1, model.size() - 1));
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                if (row > 0) {
+                    list.setSelectedIndex(row - 1);
+                } else {
+                    list.clearSelection();
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                if (row >= 0) {
+                    accept(model.get(row));
+                    e.consume();
+                } else {
+                    popup.setVisible(false);
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                popup.setVisible(false);
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void accept(String station) {
+        debounce.stop();
+        accepting = true;
+        try {
+            field.setText(station);
+        } finally {
+            accepting = false;
+        }
+        popup.setVisible(false);
+        field.requestFocusInWindow();
+    }
+}
@@ -0,0 +1,358 @@
+package BookMyTrainTicket;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory prefix index of station names for search-as-you-type
+ * Built from the routes table. Every station is indexed under each of its
+ * words, so "cen" finds "Mumbai Central" as well as "Central Station": the
+ * index is one sorted array of lowercased word-start suffixes, and a lookup
+ * is a binary search for the prefix followed by a scan of the matching range
+ * that keeps the most popular stations. Popularity is the number of routes
+ * serving a station plus their bookings, plus the searches made for it since
+ * startup.
+ *
+ * Lookups read an immutable snapshot and take no lock, so they are cheap
+ * enough to run on the EDT on every keystroke. refresh reads only the routes
+ * added since the last one by keyset on route_id and merges their stations
+ * into a new snapshot. Edited or deleted routes and new bookings are not seen
+ * that way, so refresh rebuilds the whole index instead once REBUILD_MILLIS
+ * have passed since the last rebuild, or right away after markStale, which
+ * TrainManager calls when deleting a train takes its routes with it.
+ */
+public class StationIndex {
+    private static final StationIndex instance = new StationIndex();
+    private static final long REBUILD_MILLIS = 15 * 60_000;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile int lastRouteId;
+    private volatile long rebuiltAt;
+    private volatile boolean stale;
+
+    // Master copy behind the snapshots, guarded by this
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private int[] popularity = new int[0];
+    private final Map<String, Integer> searches = new HashMap<>();
+
+    private StationIndex() {
+    }
+
+    public static StationIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * Index the routes added since the last refresh, or rebuild when one is due
+     * The first call loads every route. Returns the number of routes read.
+     */
+    public int refresh() throws SQLException {
+        if (stale || System.currentTimeMillis() - rebuiltAt >= REBUILD_MILLIS) {
+            return rebuild();
+        }
+        List<RouteRow> rows = readRoutes(lastRouteId);
+        if (!rows.isEmpty()) {
+            merge(rows, false);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Reload every route, keeping the searches recorded so far
+     */
+    public int rebuild() throws SQLException {
+        // Cleared first, so a markStale arriving during the read forces another rebuild
+        stale = false;
+        List<RouteRow> rows = readRoutes(0);
+        merge(rows, true);
+        rebuiltAt = System.currentTimeMillis();
+        return rows.size();
+    }
+
+    /**
+     * Have the next refresh rebuild, e.g. after routes were edited or deleted
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+    private List<RouteRow> readRoutes(int afterRouteId) throws SQLException {
+        List<RouteRow> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = Queries.STATION_ROUTES.prepare(DatabaseManager.getConnection())) {
+            pstmt.setInt(1, afterRouteId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new RouteRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private synchronized void merge(List<RouteRow> rows, boolean replace) {
+        Snapshot base = snapshot;
+        int fromRouteId = lastRouteId;
+        if (replace) {
+            base = Snapshot.EMPTY;
+            fromRouteId = 0;
+            idsByKey.clear();
+            names.clear();
+            popularity = new int[0];
+        }
+
+        int firstNew = names.size();
+        int maxRouteId = fromRouteId;
+        for (RouteRow row : rows) {
+            // A refresh racing another may read rows already merged
+            if (row.routeId <= fromRouteId) {
+                continue;
+            }
+            addWeight(row.source, 1 + row.bookings);
+            addWeight(row.destination, 1 + row.bookings);
+            maxRouteId = Math.max(maxRouteId, row.routeId);
+        }
+        if (replace) {
+            for (Map.Entry<String, Integer> search : searches.entrySet()) {
+                Integer id = idsByKey.get(search.getKey());
+                if (id != null) {
+                    popularity[id] += search.getValue();
+                }
+            }
+        }
+
+        lastRouteId = maxRouteId;
+        snapshot = base.withStations(names.toArray(new String[0]), firstNew, popularity);
+    }
+
+    private void addWeight(String station, int weight) {
+        String name = normalize(station);
+        if (name.isEmpty()) {
+            return;
+        }
+        String key = name.toLowerCase(Locale.ROOT);
+        Integer id = idsByKey.get(key);
+        if (id == null) {
+            id = names.size();
+            idsByKey.put(key, id);
+            names.add(name);
+            if (id == popularity.length) {
+                popularity = Arrays.copyOf(popularity, Math.max(16, id * 2));
+            }
+        }
+        popularity[id] += weight;
+    }
+
+    /**
+     * Count a search for a station so it ranks higher in later suggestions
+     * Ignored for names that are not a known station.
+     */
+    public synchronized void recordSearch(String station) {
+        String key = normalize(station).toLowerCase(Locale.ROOT);
+        Integer id = idsByKey.get(key);
+        if (id == null) {
+            return;
+        }
+        searches.merge(key, 1, Integer::sum);
+        popularity[id]++;
+        // The keys are shared; only the scores are laid out again
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(current.names, current.keys, current.stationOf, popularity);
+    }
+
+    /**
+     * Up to limit station names with a word starting with prefix, most popular first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix).toLowerCase(Locale.ROOT);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return snapshot.suggest(key, limit);
+    }
+
+    public int getStationCount() {
+        return snapshot.names.length;
+    }
+
+    public int getLastRouteId() {
+        return lastRouteId;
+    }
+
+    // Trimmed, with runs of whitespace collapsed to one space
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Inner class for one immutable version of the index
+     */
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new int[0], new int[0]);
+
+        final String[] names;
+        // Sorted word-start suffixes of the lowercased names, and the station of each
+        final String[] keys;
+        final int[] stationOf;
+        // Popularity of each key's station, laid out in key order so a scan stays sequential
+        final int[] keyScore;
+
+        Snapshot(String[] names, String[] keys, int[] stationOf, int[] popularity) {
+            this.names = names;
+            this.keys = keys;
+            this.stationOf = stationOf;
+            keyScore = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keyScore[i] = popularity[stationOf[i]];
+            }
+        }
+
+        /**
+         * A snapshot with the stations from firstNew on merged into the keys
+         */
+        Snapshot withStations(String[] allNames, int firstNew, int[] popularity) {
+            List<String> addedKeys = new ArrayList<>();
+            List<Integer> addedStations = new ArrayList<>();
+            for (int id = firstNew; id < allNames.length; id++) {
+                String lower = allNames[id].toLowerCase(Locale.ROOT);
+                for (int i = 0; i < lower.length(); i++) {
+                    if (i == 0 || isWordBreak(lower.charAt(i - 1)) && !isWordBreak(lower.charAt(i))) {
+                        addedKeys.add(lower.substring(i));
+                        addedStations.add(id);
+                    }
+                }
+            }
+            if (addedKeys.isEmpty()) {
+                return new Snapshot(allNames, keys, stationOf, popularity);
+            }
+
+            Integer[] order = new Integer[addedKeys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> addedKeys.get(a).compareTo(addedKeys.get(b)));
+
+            // Linear merge of the existing sorted keys with the new ones
+            String[] mergedKeys = new String[keys.length + order.length];
+            int[] mergedStations = new int[mergedKeys.length];
+            int i = 0, j = 0, k = 0;
+            while (i < keys.length || j < order.length) {
+                if (j == order.length || i < keys.length && keys[i].compareTo(addedKeys.get(order[j])) <= 0) {
+                    mergedKeys[k] = keys[i];
+                    mergedStations[k++] = stationOf[i++];
+                } else {
+                    mergedKeys[k] = addedKeys.get(order[j]);
+                    mergedStations[k++] = addedStations.get(order[j++]);
+                }
+            }
+            return new Snapshot(allNames, mergedKeys, mergedStations, popularity);
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = endOfPrefix(prefix, from);
+
+            // Top stations so far, best first; ties keep key order, so they
+            // rank alphabetically by the matching word. Only keys scoring above
+            // the current cutoff reach the insertion, which limit keeps short.
+            int[] top = new int[limit];
+            int[] topScore = new int[limit];
+            int count = 0;
+            int cutoff = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                int score = keyScore[i];
+                if (score <= cutoff) {
+                    continue;
+                }
+                int station = stationOf[i];
+                if (contains(top, count, station)) {
+                    continue;
+                }
+                int pos = count < limit ? count++ : count - 1;
+                while (pos > 0 && score > topScore[pos - 1]) {
+                    top[pos] = top[pos - 1];
+                    topScore[pos] = topScore[pos - 1];
+                    pos--;
+                }
+                top[pos] = station;
+                topScore[pos] = score;
+                if (count == limit) {
+                    cutoff = topScore[count - 1];
+                }
+            }
+
+            List<String> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(names[top[i]]);
+            }
+            return result;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0, high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First key from 'from' on that does not start with prefix; matches are contiguous
+        private int endOfPrefix(String prefix, int from) {
+            int low = from, high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].startsWith(prefix)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static boolean contains(int[] stations, int count, int station) {
+            for (int i = 0; i < count; i++) {
+                if (stations[i] == station) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isWordBreak(char c) {
+            return c == ' ' || c == '-' || c == '(' || c == '/' || c == '.';
+        }
+    }
+
+    /**
+     * Inner class for one row of the station query
+     */
+    private static class RouteRow {
+        private final int routeId;
+        private final String source;
+        private final String destination;
+        private final int bookings;
+
+        RouteRow(int routeId, String source, String destination, int bookings) {
+            this.routeId = routeId;
+            this.source = source;
+            this.destination = destination;
+            this.bookings = bookings;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package BookMyTrainTicket;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator that replays a Tatkal opening rush
+ * Users arrive open-loop at a fixed mean rate (Poisson arrivals), pick a train
+ * with Zipfian skew so most of them fight over the same few trains, search it,
+ * hold one of the first free seats and then either abandon checkout or pay.
+ * Arrivals are scheduled independently of how fast the system answers, and end
+ * to end latency is measured from the scheduled arrival time, so a backed-up
+ * system shows up as queueing delay instead of a lower request rate.
+ * Every client thread has its own connection. After the run the database is
+ * checked for double-booked seats and for lost promotions: seats left free
+ * while RAC or waitlisted passengers are still queued on the same route.
+ * Creates real bookings, so run it against a scratch database.
+ * Usage: TatkalLoadGenerator
+ * Settings: -Dload.rate=200 -Dload.seconds=30 -Dload.clients=32 -Dload.skew=1.1
+ *           -Dload.abandon=0.2 -Dload.contention=4
+ */
+public class TatkalLoadGenerator {
+    private static final String[] STAGES = { "search", "seatMap", "hold", "payment", "release", "endToEnd" };
+
+    private double arrivalsPerSecond = Double.parseDouble(System.getProperty("load.rate", "200"));
+    private int durationSeconds = Integer.getInteger("load.seconds", 30);
+    private int clients = Integer.getInteger("load.clients", 32);
+    private double zipfExponent = Double.parseDouble(System.getProperty("load.skew", "1.1"));
+    private double abandonRate = Double.parseDouble(System.getProperty("load.abandon", "0.2"));
+    private int contention = Integer.getInteger("load.contention", 4);
+
+    private final List<RouteTarget> routes = new ArrayList<>();
+    private final List<Integer> userIds = new ArrayList<>();
+    private final Set<RouteTarget> touchedRoutes = ConcurrentHashMap.newKeySet();
+    private final Map<String, LatencyHistogram> latency = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> outcomes = new LinkedHashMap<>();
+    private final ThreadLocal<Client> client = new ThreadLocal<>();
+    private double[] zipfCdf;
+
+    public TatkalLoadGenerator() throws SQLException {
+        DatabaseManager.getInstance();
+        for (String stage : STAGES) {
+            latency.put(stage, new LatencyHistogram());
+        }
+        for (String outcome : new String[] { "arrivals", "confirmed", "rac", "waitlisted", "abandoned",
+                                             "paymentFailed", "errors" }) {
+            outcomes.put(outcome, new AtomicLong());
+        }
+        loadFixture();
+    }
+
+    public void setArrivalsPerSecond(double arrivalsPerSecond) {
+        this.arrivalsPerSecond = arrivalsPerSecond;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public void setClients(int clients) {
+        this.clients = clients;
+    }
+
+    public void setZipfExponent(double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+    }
+
+    public void setAbandonRate(double abandonRate) {
+        this.abandonRate = abandonRate;
+    }
+
+    public void setContention(int contention) {
+        this.contention = contention;
+    }
+
+    private void loadFixture() throws SQLException {
+        try (Statement stmt = DatabaseManager.getConnection().createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT train_id, route_id, source_station, destination_station, price FROM routes ORDER BY route_id")) {
+                while (rs.next()) {
+                    routes.add(new RouteTarget(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                        rs.getBigDecimal(5)));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT user_id FROM users ORDER BY user_id")) {
+                while (rs.next()) {
+                    userIds.add(rs.getInt(1));
+                }
+            }
+        }
+
+        if (routes.isEmpty() || userIds.isEmpty()) {
+            throw new SQLException("Load generation needs at least one route and one user");
+        }
+    }
+
+    /**
+     * Run the rush and return the elapsed time in nanoseconds
+     */
+    public long run() throws InterruptedException {
+        zipfCdf = zipfCdf(routes.size(), zipfExponent);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(clients, clients, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(() -> runClient(r), "tatkal-client-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.prestartAllCoreThreads();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long meanGapNanos = (long) (1_000_000_000L / arrivalsPerSecond);
+        long next = start;
+
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = next;
+            executor.execute(() -> arrive(scheduled));
+
+            // Exponential gaps give Poisson arrivals at the configured mean rate
+            double u = ThreadLocalRandom.current().nextDouble();
+            next += (long) (-Math.log(1 - u) * meanGapNanos);
+        }
+
+        shutdown(executor);
+        return System.nanoTime() - start;
+    }
+
+    private static void shutdown(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Client thread body; binds a dedicated connection for its lifetime
+     */
+    private void runClient(Runnable worker) {
+        try (Connection conn = DatabaseManager.openConnection()) {
+            DatabaseManager.bindThreadConnection(conn);
+            worker.run();
+        } catch (SQLException e) {
+            System.err.println("Load client connection failed: " + e.getMessage());
+        } finally {
+            DatabaseManager.bindThreadConnection(null);
+        }
+    }
+
+    /**
+     * One user's visit, from search to payment or abandonment
+     */
+    private void arrive(long scheduledNanos) {
+        outcomes.get("arrivals").incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RouteTarget route = routes.get(sampleZipf(random.nextDouble()));
+        int userId = userIds.get(random.nextInt(userIds.size()));
+        touchedRoutes.add(route);
+
+        try {
+            Client c = client();
+
+            long t = System.nanoTime();
+            c.trainManager.searchTrains(route.source, route.destination);
+            t = record("search", t);
+
+            SeatMap seats = c.seatManager.getAvailableSeatMap(route.trainId, route.routeId);
+            t = record("seatMap", t);
+
+            // Everyone aims for the first few free seats, as in a real rush
+            int seatId = seats.isEmpty() ? -1 : seats.getSeatId(random.nextInt(Math.min(contention, seats.size())));
+            BookingManager.BookingResult result = c.bookingManager.holdBooking(userId, seatId, route.trainId,
+                route.routeId, "Tatkal Passenger", 30);
+            t = record("hold", t);
+
+            if ("RAC".equals(result.getStatus())) {
+                outcomes.get("rac").incrementAndGet();
+            } else if ("Waiting".equals(result.getStatus())) {
+                outcomes.get("waitlisted").incrementAndGet();
+            } else if (random.nextDouble() < abandonRate) {
+                c.bookingManager.releaseHold(result.getId());
+                record("release", t);
+                outcomes.get("abandoned").incrementAndGet();
+            } else {
+                PaymentManager.PaymentResult payment = c.paymentManager.processPayment(
+                    new PaymentManager.PaymentRequest(result.getId(), route.price, PaymentManager.PaymentMethod.UPI));
+                record("payment", t);
+                outcomes.get(payment.isSuccess() ? "confirmed" : "paymentFailed").incrementAndGet();
+            }
+        } catch (SQLException | RuntimeException e) {
+            outcomes.get("errors").incrementAndGet();
+        } finally {
+            latency.get("endToEnd").recordNanos(System.nanoTime() - scheduledNanos);
+        }
+    }
+
+    private Client client() throws SQLException {
+        Client c = client.get();
+        if (c == null) {
+            // Created after the thread's connection is bound, which the payment manager keeps
+            c = new Client();
+            client.set(c);
+        }
+        return c;
+    }
+
+    private long record(String stage, long startNanos) {
+        long now = System.nanoTime();
+        latency.get(stage).recordNanos(now - startNanos);
+        return now;
+    }
+
+    /**
+     * Cumulative Zipf distribution over ranks 1..n with the given exponent
+     */
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            sum += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private int sampleZipf(double u) {
+        int low = 0;
+        int high = zipfCdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (zipfCdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Seats held or sold to more than one live booking
+     */
+    public int countDoubleBookings() throws SQLException {
+        String query = """
+            SELECT COUNT(*) FROM (
+                SELECT seat_id FROM bookings
+                WHERE status IN ('Held', 'Confirmed') AND seat_id IS NOT NULL
+                GROUP BY seat_id HAVING COUNT(*) > 1
+            ) doubled
+            """;
+        try (Statement stmt = DatabaseManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Free seats on the routes the run touched that a queued passenger should have got
+     */
+    public int countLostPromotions() throws SQLException {
+        String query = """
+            SELECT (SELECT COUNT(*) FROM seats s
+                    JOIN compartments c ON s.compartment_id = c.compartment_id
+                    JOIN classes cl ON c.class_id = cl.class_id
+                    WHERE cl.train_id = ? AND s.is_available = TRUE),
+                   (SELECT COUNT(*) FROM rac WHERE train_id = ? AND route_id = ? AND status = 'RAC')
+                 + (SELECT COUNT(*) FROM waitlist WHERE train_id = ? AND route_id = ? AND status = 'Waiting')
+            """;
+
+        int lost = 0;
+        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+            for (RouteTarget route : touchedRoutes) {
+                pstmt.setInt(1, route.trainId);
+                pstmt.setInt(2, route.trainId);
+                pstmt.setInt(3, route.routeId);
+                pstmt.setInt(4, route.trainId);
+                pstmt.setInt(5, route.routeId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        lost += Math.min(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+            }
+        }
+        return lost;
+    }
+
+    public void printReport(long elapsedNanos) throws SQLException {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long arrivals = outcomes.get("arrivals").get();
+
+        System.out.printf("Arrivals: %d in %.1fs (%.1f/s offered at %.1f/s, %d clients, skew %.2f, abandon %.0f%%)%n",
+            arrivals, seconds, arrivals / seconds, arrivalsPerSecond, clients, zipfExponent, abandonRate * 100);
+        for (Map.Entry<String, AtomicLong> outcome : outcomes.entrySet()) {
+            System.out.printf("  %-14s %8d%n", outcome.getKey(), outcome.getValue().get());
+        }
+        System.out.printf("Throughput: %.1f confirmed bookings/s%n", outcomes.get("confirmed").get() / seconds);
+
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s%n", "Stage", "Count", "p50 ms", "p99 ms", "p99.9 ms", "Max ms");
+        for (Map.Entry<String, LatencyHistogram> stage : latency.entrySet()) {
+            LatencyHistogram h = stage.getValue();
+            System.out.printf("%-10s %10d %10.2f %10.2f %10.2f %10.2f%n", stage.getKey(), h.getCount(),
+                h.getPercentileMillis(50), h.getPercentileMillis(99), h.getPercentileMillis(99.9), h.getMaxMillis());
+        }
+
+        System.out.printf("%nDouble-booked seats: %d%n", countDoubleBookings());
+        System.out.printf("Lost promotions:     %d%n", countLostPromotions());
+    }
+
+    /**
+     * Inner class for the managers one client thread works with
+     */
+    private static class Client {
+        private final TrainManager trainManager;
+        private final SeatAvailabilityManager seatManager;
+        private final BookingManager bookingManager;
+        private final PaymentManager paymentManager;
+
+        Client() throws SQLException {
+            trainManager = new TrainManager();
+            seatManager = new SeatAvailabilityManager();
+            bookingManager = new BookingManager();
+            paymentManager = new PaymentManager();
+        }
+    }
+
+    /**
+     * Inner class for a bookable route and its fare
+     */
+    private static class RouteTarget {
+        private final int trainId;
+        private final int routeId;
+        private final String source;
+        private final String destination;
+        private final BigDecimal price;
+
+        RouteTarget(int trainId, int routeId, String source, String destination, BigDecimal price) {
+            this.trainId = trainId;
+            this.routeId = routeId;
+            this.source = source;
+            this.destination = destination;
+            this.price = price;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        TatkalLoadGenerator generator = new TatkalLoadGenerator();
+        long elapsed = generator.run();
+        generator.printReport(elapsed);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,114 @@
+package BookMyTrainTicket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for expiring large numbers of timers cheaply
+ * Adding and cancelling a timer is O(1); advancing the clock only touches the
+ * buckets whose time has come. Timers beyond the range of a wheel go to a coarser
+ * overflow wheel and cascade down as their time approaches. Not thread-safe;
+ * callers synchronize externally.
+ */
+public class TimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final List<Timer<T>>[] buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.buckets = (List<Timer<T>>[]) new List<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.currentTime = startMillis - (startMillis % tickMillis);
+    }
+
+    /**
+     * Schedule an item to expire at the given time
+     * The returned timer can be cancelled; cancelled timers are dropped lazily.
+     */
+    public Timer<T> schedule(T item, long expiryMillis) {
+        Timer<T> timer = new Timer<>(item, expiryMillis);
+        add(timer);
+        return timer;
+    }
+
+    private void add(Timer<T> timer) {
+        if (timer.cancelled) {
+            return;
+        }
+
+        long expiry = Math.max(timer.expiryMillis, currentTime);
+        if (expiry < currentTime + interval) {
+            buckets[(int) ((expiry / tickMillis) % wheelSize)].add(timer);
+        } else {
+            if (overflowWheel == null) {
+                overflowWheel = new TimingWheel<>(interval, wheelSize, currentTime);
+            }
+            overflowWheel.add(timer);
+        }
+    }
+
+    /**
+     * Advance the clock and return every item that has expired
+     */
+    public List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        advanceTo(nowMillis, timer -> {
+            if (!timer.cancelled) {
+                expired.add(timer.item);
+            }
+        });
+        return expired;
+    }
+
+    private void advanceTo(long target, Consumer<Timer<T>> sink) {
+        while (currentTime + tickMillis <= target) {
+            int index = (int) ((currentTime / tickMillis) % wheelSize);
+            List<Timer<T>> bucket = buckets[index];
+
+            if (!bucket.isEmpty()) {
+                buckets[index] = new ArrayList<>();
+                for (Timer<T> timer : bucket) {
+                    sink.accept(timer);
+                }
+            }
+
+            currentTime += tickMillis;
+
+            // Pull coarse buckets down once they fall inside this wheel's range
+            if (overflowWheel != null) {
+                overflowWheel.advanceTo(currentTime + interval, this::add);
+            }
+        }
+    }
+
+    /**
+     * Inner class for a scheduled timer
+     */
+    public static class Timer<T> {
+        private final T item;
+        private final long expiryMillis;
+        private volatile boolean cancelled;
+
+        Timer(T item, long expiryMillis) {
+            this.item = item;
+            this.expiryMillis = expiryMillis;
+        }
+
+        public T getItem() { return item; }
+        public long getExpiryMillis() { return expiryMillis; }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -19,9 +19,7 @@ public class TrainManager {
      */
     public List<Train> getAllTrains() throws SQLException {
         List<Train> trains = new ArrayList<>();
-        String query = "SELECT train_id, train_name, train_number FROM trains ORDER BY train_name";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query);
+        try (PreparedStatement pstmt = Queries.ALL_TRAINS.prepare(dbManager.getConnection());
              ResultSet rs = pstmt.executeQuery()) {
             
             while (rs.next()) {
@@ -41,9 +39,7 @@ public class TrainManager {
      * Add a new train
      */
     public boolean addTrain(String trainName, String trainNumber) throws SQLException {
-        String query = "INSERT INTO trains (train_name, train_number) VALUES (?, ?)";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.INSERT_TRAIN.prepare(dbManager.getConnection())) {
             pstmt.setString(1, trainName);
             pstmt.setString(2, trainNumber);
             
@@ -56,9 +52,7 @@ public class TrainManager {
      * Update train information
      */
     public boolean updateTrain(int trainId, String trainName, String trainNumber) throws SQLException {
-        String query = "UPDATE trains SET train_name = ?, train_number = ? WHERE train_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.UPDATE_TRAIN.prepare(dbManager.getConnection())) {
             pstmt.setString(1, trainName);
             pstmt.setString(2, trainNumber);
             pstmt.setInt(3, trainId);
@@ -72,12 +66,14 @@ public class TrainManager {
      * Delete a train
      */
     public boolean deleteTrain(int trainId) throws SQLException {
-        String query = "DELETE FROM trains WHERE train_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.DELETE_TRAIN.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                // Its routes went with it
+                StationIndex.getInstance().markStale();
+            }
             return rowsAffected > 0;
         }
     }
@@ -88,18 +84,7 @@ public class TrainManager {
     public List<TrainSearchResult> searchTrains(String source, String destination) throws SQLException {
         List<TrainSearchResult> results = new ArrayList<>();
         
-        String query = """
-            SELECT DISTINCT t.train_id, t.train_name, t.train_number,
-                   r.route_id, r.source_station, r.destination_station,
-                   r.departure_time, r.arrival_time, r.price
-            FROM trains t
-            JOIN routes r ON t.train_id = r.train_id
-            WHERE LOWER(r.source_station) LIKE LOWER(?) 
-            AND LOWER(r.destination_station) LIKE LOWER(?)
-            ORDER BY t.train_name
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.SEARCH_TRAINS.prepare(dbManager.getConnection())) {
             pstmt.setString(1, "%" + source + "%");
             pstmt.setString(2, "%" + destination + "%");
             
@@ -136,9 +121,7 @@ public class TrainManager {
      * Get train by ID
      */
     public Train getTrainById(int trainId) throws SQLException {
-        String query = "SELECT train_id, train_name, train_number FROM trains WHERE train_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.TRAIN_BY_ID.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -159,9 +142,7 @@ public class TrainManager {
      * Check if train number already exists
      */
     public boolean trainNumberExists(String trainNumber) throws SQLException {
-        String query = "SELECT COUNT(*) FROM trains WHERE train_number = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.COUNT_TRAIN_NUMBER.prepare(dbManager.getConnection())) {
             pstmt.setString(1, trainNumber);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -178,14 +159,7 @@ public class TrainManager {
      * Get available seats count for a train and route
      */
     private int getAvailableSeatsCount(int trainId, int routeId) throws SQLException {
-        String query = """
-            SELECT COUNT(*) FROM seats s
-            JOIN compartments c ON s.compartment_id = c.compartment_id
-            JOIN classes cl ON c.class_id = cl.class_id
-            WHERE cl.train_id = ? AND s.is_available = TRUE
-            """;
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.COUNT_AVAILABLE_SEATS.prepare(dbManager.getConnection())) {
             pstmt.setInt(1, trainId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -1,5 +1,8 @@
 package BookMyTrainTicket;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * User model class representing a user in the train booking system
  */
@@ -11,7 +14,26 @@ public class User {
     private UserRole role;
     
     public enum UserRole {
-        Admin, Regular, Senior, DifferentlyAbled
+        Admin, Regular, Senior, DifferentlyAbled;
+        
+        private static final Map<String, UserRole> BY_DB_VALUE = new HashMap<>();
+        
+        static {
+            for (UserRole role : values()) {
+                BY_DB_VALUE.put(role.name(), role);
+            }
+        }
+        
+        /**
+         * Decode a role column value from a precomputed table
+         */
+        public static UserRole fromDbValue(String dbValue) {
+            UserRole role = dbValue == null ? null : BY_DB_VALUE.get(dbValue);
+            if (role == null) {
+                throw new IllegalArgumentException("Unknown user role: " + dbValue);
+            }
+            return role;
+        }
     }
     
     // Constructors
@@ -9,45 +9,59 @@ import java.util.List;
  */
 public class WaitlistManager {
     private DatabaseManager dbManager;
+    private Connection connection;
     
     public WaitlistManager() throws SQLException {
         this.dbManager = DatabaseManager.getInstance();
     }
     
+    /**
+     * Waitlist bound to a dedicated connection, e.g. a booking lane's
+     */
+    public WaitlistManager(Connection connection) throws SQLException {
+        this();
+        this.connection = connection;
+    }
+    
+    private Connection getConnection() {
+        return connection != null ? connection : DatabaseManager.getConnection();
+    }
+    
     /**
      * Add user to waitlist
      */
     public int addToWaitlist(int userId, int trainId, int routeId) throws SQLException {
-        // Get next position
-        int position = getNextWaitlistPosition(trainId, routeId);
-        
-        String query = "INSERT INTO waitlist (user_id, train_id, route_id, position) VALUES (?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, trainId);
-            pstmt.setInt(3, routeId);
-            pstmt.setInt(4, position);
+        Connection conn = getConnection();
+        return DatabaseManager.inTransaction(conn, () -> {
+            // Get next position
+            int position = getNextWaitlistPosition(trainId, routeId);
             
-            pstmt.executeUpdate();
-            
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
+            try (PreparedStatement pstmt = Queries.INSERT_WAITLIST.prepare(conn, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, userId);
+                pstmt.setInt(2, trainId);
+                pstmt.setInt(3, routeId);
+                pstmt.setInt(4, position);
+                
+                pstmt.executeUpdate();
+                
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int waitlistId = rs.getInt(1);
+                        Outbox.append(conn, OutboxEvent.waitlist(OutboxEvent.WAITLIST_ADDED, waitlistId, userId, trainId, routeId, position));
+                        return waitlistId;
+                    }
                 }
             }
-        }
-        
-        return -1;
+            
+            return -1;
+        });
     }
     
     /**
      * Get next waitlist position
      */
     private int getNextWaitlistPosition(int trainId, int routeId) throws SQLException {
-        String query = "SELECT COALESCE(MAX(position), 0) + 1 FROM waitlist WHERE train_id = ? AND route_id = ? AND status = 'Waiting'";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.NEXT_WAITLIST_POSITION.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             
@@ -65,9 +79,7 @@ public class WaitlistManager {
      * Get waitlist position for a waitlist ID
      */
     public int getWaitlistPosition(int waitlistId) throws SQLException {
-        String query = "SELECT position FROM waitlist WHERE waitlist_id = ?";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.WAITLIST_POSITION.prepare(getConnection())) {
             pstmt.setInt(1, waitlistId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -84,47 +96,47 @@ public class WaitlistManager {
      * Promote first person from waitlist
      */
     public boolean promoteFromWaitlist(int trainId, int routeId) throws SQLException {
-        // Get first person in waitlist
-        String selectQuery = """
-            SELECT waitlist_id, user_id FROM waitlist 
-            WHERE train_id = ? AND route_id = ? AND status = 'Waiting' 
-            ORDER BY position LIMIT 1
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(selectQuery)) {
-            pstmt.setInt(1, trainId);
-            pstmt.setInt(2, routeId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    int waitlistId = rs.getInt("waitlist_id");
-                    int userId = rs.getInt("user_id");
-                    
-                    // Update waitlist status
-                    String updateQuery = "UPDATE waitlist SET status = 'Promoted' WHERE waitlist_id = ?";
-                    try (PreparedStatement updateStmt = DatabaseManager.getConnection().prepareStatement(updateQuery)) {
-                        updateStmt.setInt(1, waitlistId);
-                        updateStmt.executeUpdate();
+        FlightEvents.Promotion event = FlightEvents.Promotion.start();
+        Connection conn = getConnection();
+        boolean promoted = DatabaseManager.inTransaction(conn, () -> {
+            // Get first person in waitlist
+            try (PreparedStatement pstmt = Queries.FIRST_WAITLIST.prepare(conn)) {
+                pstmt.setInt(1, trainId);
+                pstmt.setInt(2, routeId);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        int waitlistId = rs.getInt("waitlist_id");
+                        int userId = rs.getInt("user_id");
+                        int position = rs.getInt("position");
+                        event.setEntryId(waitlistId);
+                        
+                        // Update waitlist status
+                        try (PreparedStatement updateStmt = Queries.PROMOTE_WAITLIST.prepare(conn)) {
+                            updateStmt.setInt(1, waitlistId);
+                            updateStmt.executeUpdate();
+                        }
+                        
+                        // Update positions for remaining waitlist
+                        updateWaitlistPositions(trainId, routeId);
+                        
+                        Outbox.append(conn, OutboxEvent.waitlist(OutboxEvent.WAITLIST_PROMOTED, waitlistId, userId, trainId, routeId, position));
+                        return true;
                     }
-                    
-                    // Update positions for remaining waitlist
-                    updateWaitlistPositions(trainId, routeId);
-                    
-                    return true;
                 }
             }
-        }
-        
-        return false;
+            
+            return false;
+        });
+        event.finish("Waitlist", trainId, routeId, promoted);
+        return promoted;
     }
     
     /**
      * Update waitlist positions after promotion
      */
     private void updateWaitlistPositions(int trainId, int routeId) throws SQLException {
-        String query = "UPDATE waitlist SET position = position - 1 WHERE train_id = ? AND route_id = ? AND status = 'Waiting' AND position > 1";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.SHIFT_WAITLIST_POSITIONS.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             pstmt.executeUpdate();
@@ -137,16 +149,7 @@ public class WaitlistManager {
     public List<WaitlistEntry> getWaitlist(int trainId, int routeId) throws SQLException {
         List<WaitlistEntry> waitlist = new ArrayList<>();
         
-        String query = """
-            SELECT w.waitlist_id, w.user_id, w.position, w.request_time, w.status,
-                   u.username, u.email
-            FROM waitlist w
-            JOIN users u ON w.user_id = u.user_id
-            WHERE w.train_id = ? AND w.route_id = ?
-            ORDER BY w.position
-            """;
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
+        try (PreparedStatement pstmt = Queries.WAITLIST_LIST.prepare(getConnection())) {
             pstmt.setInt(1, trainId);
             pstmt.setInt(2, routeId);
             
@@ -173,14 +176,32 @@ public class WaitlistManager {
      * Remove from waitlist
      */
     public boolean removeFromWaitlist(int waitlistId) throws SQLException {
-        String query = "DELETE FROM waitlist WHERE waitlist_id = ?";
-        
-        try (PreparedStatement pstmt = DatabaseManager.getConnection().prepareStatement(query)) {
-            pstmt.setInt(1, waitlistId);
+        Connection conn = getConnection();
+        return DatabaseManager.inTransaction(conn, () -> {
+            OutboxEvent event;
             
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        }
+            try (PreparedStatement pstmt = Queries.WAITLIST_BY_ID.prepare(conn)) {
+                pstmt.setInt(1, waitlistId);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    event = OutboxEvent.waitlist(OutboxEvent.WAITLIST_REMOVED, waitlistId, rs.getInt("user_id"),
+                                         rs.getInt("train_id"), rs.getInt("route_id"), rs.getInt("position"));
+                }
+            }
+            
+            try (PreparedStatement pstmt = Queries.DELETE_WAITLIST.prepare(conn)) {
+                pstmt.setInt(1, waitlistId);
+                
+                int rowsAffected = pstmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    Outbox.append(conn, event);
+                }
+                return rowsAffected > 0;
+            }
+        });
     }
     
     /**
@@ -0,0 +1,107 @@
+package projects.InventoryManagmentSystem;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+
+// Runs a query off the Event Dispatch Thread so the window keeps repainting
+// while the database works. Queries run one at a time on a single background
+// thread; rows passed to publish reach process on the EDT in batches, so a
+// table fills in while the query is still reading. A cancelled query never
+// calls succeeded or failed.
+public abstract class BackgroundQuery<T, V> extends SwingWorker<T, V> {
+    private static final ExecutorService QUERY_THREAD = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ims-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Latest slot;
+
+    // Runs on the background thread
+    protected abstract T query() throws SQLException;
+
+    // Runs on the EDT with the result of query
+    protected void succeeded(T result) {
+    }
+
+    // Runs on the EDT if query threw
+    protected void failed(Exception e) {
+        JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+    }
+
+    public void start() {
+        QUERY_THREAD.execute(this);
+    }
+
+    @Override
+    protected final T doInBackground() throws Exception {
+        return query();
+    }
+
+    @Override
+    protected final void done() {
+        if (slot != null) {
+            slot.finished(this);
+        }
+        if (isCancelled()) {
+            return;
+        }
+        try {
+            succeeded(get());
+        } catch (CancellationException e) {
+            // Cancelled between the check and get
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            failed(cause instanceof Exception ? (Exception) cause : e);
+        }
+    }
+
+    // Keeps only the newest query of a screen: starting one cancels the one
+    // before, so repeated clicks coalesce into the last. The indicator, if
+    // set, is shown while a query runs. Use from the EDT only.
+    public static class Latest {
+        private JComponent indicator;
+        private BackgroundQuery<?, ?> current;
+
+        public void setIndicator(JComponent indicator) {
+            this.indicator = indicator;
+            indicator.setVisible(current != null);
+        }
+
+        public void submit(BackgroundQuery<?, ?> query) {
+            cancel();
+            current = query;
+            query.slot = this;
+            setBusy(true);
+            query.start();
+        }
+
+        public void cancel() {
+            if (current != null) {
+                current.cancel(false);
+                current = null;
+                setBusy(false);
+            }
+        }
+
+        private void finished(BackgroundQuery<?, ?> query) {
+            if (query == current) {
+                current = null;
+                setBusy(false);
+            }
+        }
+
+        private void setBusy(boolean busy) {
+            if (indicator != null) {
+                indicator.setVisible(busy);
+            }
+        }
+    }
+}
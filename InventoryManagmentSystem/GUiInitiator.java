@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.List;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 
@@ -23,6 +24,7 @@ public class GUiInitiator extends JFrame {
     static Connection con;
     static JComboBox<String> productComboBox;
     static JPanel categoryPanel;
+    static final BackgroundQuery.Latest categoryLoads = new BackgroundQuery.Latest();
 
     public static void initializeGUI(Connection con) {
         setCon(con);
@@ -92,6 +94,13 @@ public class GUiInitiator extends JFrame {
         clearButton.setBounds(630, 500, 80, 25);
         frame.add(clearButton);
 
+        // Shown while the product list is loading
+        JProgressBar loadingBar = new JProgressBar();
+        loadingBar.setIndeterminate(true);
+        loadingBar.setBounds(690, 10, 120, 15);
+        frame.add(loadingBar);
+        ListAllProducts.setProgressIndicator(loadingBar);
+
         listAllButton.addActionListener((ActionEvent e) -> {
             ListAllProducts.populateTable(table);
             GUiInitiator.enableGenerateCSVButton(); // Call the method to enable "Generate CSV" button
@@ -255,32 +264,66 @@ public class GUiInitiator extends JFrame {
     
 
     private static void populateProductComboBox() {
-        try {
-            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT DISTINCT Products FROM Product")) {
-                while (rs.next()) {
-                    productComboBox.addItem(rs.getString("Products"));
+        JComboBox<String> comboBox = productComboBox;
+        new BackgroundQuery<Void, String>() {
+            @Override
+            protected Void query() throws SQLException {
+                try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT DISTINCT Products FROM Product")) {
+                    while (rs.next()) {
+                        publish(rs.getString("Products"));
+                    }
                 }
+                return null;
             }
-        } catch (SQLException ex) {
-            // Handle exception
-        }
+
+            @Override
+            protected void process(List<String> products) {
+                for (String product : products) {
+                    comboBox.addItem(product);
+                }
+            }
+
+            @Override
+            protected void failed(Exception ex) {
+                // Handle exception
+            }
+        }.start();
     }
 
+    // Switching products quickly only loads the categories of the last one
     private static void populateCategoryCheckBoxes(String selectedProduct) {
-        try {
-            categoryPanel.removeAll();
-            categoryPanel.revalidate();
-            categoryPanel.repaint();
-            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT DISTINCT Category FROM Product WHERE Products = '" + selectedProduct + "'")) {
-                while (rs.next()) {
-                    String category = rs.getString("Category");
+        JPanel panel = categoryPanel;
+        panel.removeAll();
+        panel.revalidate();
+        panel.repaint();
+        categoryLoads.submit(new BackgroundQuery<Void, String>() {
+            @Override
+            protected Void query() throws SQLException {
+                try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT DISTINCT Category FROM Product WHERE Products = '" + selectedProduct + "'")) {
+                    while (rs.next()) {
+                        publish(rs.getString("Category"));
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<String> categories) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (String category : categories) {
                     JCheckBox checkBox = new JCheckBox(category);
-                    categoryPanel.add(checkBox);
+                    panel.add(checkBox);
                 }
+                panel.revalidate();
             }
-        } catch (SQLException ex) {
-            // Handle exception
-        }
+
+            @Override
+            protected void failed(Exception ex) {
+                // Handle exception
+            }
+        });
     }
 
     private static void applyFilter(double minPrice, double maxPrice) {
@@ -314,36 +357,58 @@ public class GUiInitiator extends JFrame {
         JTable resultTable = new JTable(model);
         JScrollPane resultScrollPane = new JScrollPane(resultTable);
     
-        try {
-            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT * FROM Product WHERE Products = '" + selectedProduct + "' AND Cost BETWEEN " + minPrice + " AND " + maxPrice)) {
-                while (rs.next()) {
-                    String category = rs.getString("Category");
-                    if (selectedCategories.contains(category)) {
-                        Object[] rowData = {
-                            rs.getInt("ID"),
-                            category,
-                            rs.getString("Name"),
-                            rs.getString("Brand"),
-                            rs.getDouble("Cost")
-                        };
-                        model.addRow(rowData);
-                    }
-                }
-            }
-        } catch (SQLException ex) {
-            // Handle exception
-        }
-    
         resultFrame.add(resultScrollPane, BorderLayout.CENTER);
     
         // Create a panel for result count label
         JPanel resultCountPanel = new JPanel(new BorderLayout());
-        JLabel resultCountLabel = new JLabel("Result Count: " + model.getRowCount());
+        JLabel resultCountLabel = new JLabel("Loading products...");
         resultCountPanel.add(resultCountLabel, BorderLayout.CENTER);
     
         resultFrame.add(resultCountPanel, BorderLayout.NORTH);
     
         resultFrame.setVisible(true);
+
+        // Rows are added as they are read; the count is final once the query ends
+        new BackgroundQuery<Void, Object[]>() {
+            @Override
+            protected Void query() throws SQLException {
+                try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery("SELECT * FROM Product WHERE Products = '" + selectedProduct + "' AND Cost BETWEEN " + minPrice + " AND " + maxPrice)) {
+                    while (rs.next() && resultFrame.isDisplayable()) {
+                        String category = rs.getString("Category");
+                        if (selectedCategories.contains(category)) {
+                            Object[] rowData = {
+                                rs.getInt("ID"),
+                                category,
+                                rs.getString("Name"),
+                                rs.getString("Brand"),
+                                rs.getDouble("Cost")
+                            };
+                            publish(rowData);
+                        }
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<Object[]> rows) {
+                for (Object[] row : rows) {
+                    model.addRow(row);
+                }
+                resultCountLabel.setText("Loading products... " + model.getRowCount());
+            }
+
+            @Override
+            protected void succeeded(Void result) {
+                resultCountLabel.setText("Result Count: " + model.getRowCount());
+            }
+
+            @Override
+            protected void failed(Exception ex) {
+                // Handle exception
+                resultCountLabel.setText("Result Count: " + model.getRowCount());
+            }
+        }.start();
     }
     
     
@@ -1,18 +1,32 @@
 package projects.InventoryManagmentSystem;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
 
 public class IMS{
     static Connection con;
+    // Settings come from -Dims.db.<key>, then IMS_DB_<KEY>, then ims.properties;
+    // profile=embedded runs on an in-memory H2 database in MySQL mode
+    static final String EMBEDDED_URL = "jdbc:h2:mem:IMS;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static Properties settings;
+
     public static Connection dbConnection()
     {
         try{
-            String url = "jdbc:mysql://localhost:3306/IMS";
-            String username = "root";
-            String password = "Opkv@1754";
+            boolean embedded = "embedded".equalsIgnoreCase(setting("profile", "mysql"));
+            String url = setting("url", embedded ? EMBEDDED_URL : "jdbc:mysql://localhost:3306/IMS");
+            String username = setting("user", embedded ? "sa" : "root");
+            String password = setting("password", "");
             con = DriverManager.getConnection(url,username,password);
             if(con!=null){
+                if(embedded){
+                    createTable(con);
+                }
                 System.out.println("Succesfully connected to database");
             }
         }
@@ -21,10 +35,38 @@ public class IMS{
         }
         return con;
     }
+
+    static String setting(String key, String defaultValue){
+        if(settings == null){
+            settings = new Properties();
+            try (InputStream in = new FileInputStream("ims.properties")) {
+                settings.load(in);
+            } catch (IOException e) {
+                // No settings file; system properties, environment and defaults apply
+            }
+        }
+        String value = System.getProperty("ims.db." + key);
+        if(value == null){
+            value = System.getenv("IMS_DB_" + key.toUpperCase());
+        }
+        if(value == null){
+            value = settings.getProperty(key);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    // The embedded database starts empty, so create the product table on first use
+    static void createTable(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS Product (ID INT PRIMARY KEY, Products VARCHAR(50), Category VARCHAR(50), "
+                + "Name VARCHAR(100), Brand VARCHAR(50), Cost DECIMAL(10,2), Quantity INT)");
+        }
+    }
+
     public static void main(String[] args) {
         con = dbConnection();
         GUiInitiator.initializeGUI(con);
         //new FilterFrame(con).setVisible(true); // Create an instance of FilterFrame and make it visible
     }
-    
+
 }
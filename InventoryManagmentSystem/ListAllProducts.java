@@ -4,39 +4,70 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
-import javax.swing.JOptionPane;
+import java.util.List;
+import javax.swing.JComponent;
 import javax.swing.JTable;
 import javax.swing.table.DefaultTableModel;
 
 public class ListAllProducts {
     //static Connection con;
+    // Only the newest listing fills the table; a second click cancels the first
+    static final BackgroundQuery.Latest loads = new BackgroundQuery.Latest();
+
+    public static void setProgressIndicator(JComponent indicator){
+        loads.setIndicator(indicator);
+    }
+
+    // Reads the products on a background thread and adds rows to the table in
+    // batches as they are read, so the first rows show while the rest load
     public static void populateTable(JTable table){
-        try{
-            try (Connection con = IMS.dbConnection()) {
-                String query = "SELECT * FROM Product ORDER BY ID ASC"; // Add ORDER BY ID ASC to sort by product IDs in ascending order
-                try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(query)) {
-                    DefaultTableModel model = new DefaultTableModel();
-                    ResultSetMetaData metaData = (ResultSetMetaData) rs.getMetaData();
-                    int columnCount = metaData.getColumnCount();
-                    for(int i = 1;i<=columnCount;i++)
-                    {
-                        model.addColumn(metaData.getColumnName(i));
-                    }
-                    while(rs.next()){
-                        Object[] rowData = new Object[columnCount];
-                        for(int i = 1;i<= columnCount;i++){
-                            rowData[i-1] = rs.getObject(i);
+        DefaultTableModel model = new DefaultTableModel();
+        table.setModel(model);  //set the table model
+        loads.submit(new BackgroundQuery<Integer, Object[]>() {
+            private volatile String[] columns;
+
+            @Override
+            protected Integer query() throws SQLException {
+                int rows = 0;
+                try (Connection con = IMS.dbConnection()) {
+                    String query = "SELECT * FROM Product ORDER BY ID ASC"; // Add ORDER BY ID ASC to sort by product IDs in ascending order
+                    try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(query)) {
+                        ResultSetMetaData metaData = (ResultSetMetaData) rs.getMetaData();
+                        int columnCount = metaData.getColumnCount();
+                        String[] names = new String[columnCount];
+                        for(int i = 1;i<=columnCount;i++)
+                        {
+                            names[i-1] = metaData.getColumnName(i);
+                        }
+                        columns = names;
+                        publish(); // show the headers before the first row arrives
+                        while(rs.next() && !isCancelled()){
+                            Object[] rowData = new Object[columnCount];
+                            for(int i = 1;i<= columnCount;i++){
+                                rowData[i-1] = rs.getObject(i);
+                            }
+                            publish(rowData);
+                            rows++;
                         }
-                        model.addRow(rowData);
                     }
-                    
-                    table.setModel(model);  //set the table model
+                }
+                return rows;
+            }
+
+            @Override
+            protected void process(List<Object[]> rows) {
+                if (isCancelled()) {
+                    return;
+                }
+                if (model.getColumnCount() == 0) {
+                    for (String column : columns) {
+                        model.addColumn(column);
+                    }
+                }
+                for (Object[] row : rows) {
+                    model.addRow(row);
                 }
             }
-        }
-        catch(SQLException ex)
-        {
-            JOptionPane.showMessageDialog(null,"Error: "+ex.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
-}
\ No newline at end of file
+}
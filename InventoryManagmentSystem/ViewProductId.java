@@ -14,41 +14,53 @@ public class ViewProductId {
         viewProductButton.addActionListener((ActionEvent e) -> {
             String productId = productIdTextField.getText();
             if(!productId.isEmpty()){
-                try{
-                    String query = "select * from Product where ID = '"+ productId + "' ";
-                    try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(query)) {
-                        
-                        if (rs.next()) { // Check if the ResultSet is not empty
-                            String products = rs.getString("Products");
-                            String category = rs.getString("Category");
-                            String name = rs.getString("Name");
-                            String brand = rs.getString("Brand");
-                            int cost = rs.getInt("Cost");
-                            int quantity = rs.getInt("Quantity");
-                            
+                viewProductButton.setEnabled(false);
+                new BackgroundQuery<Object[], Void>() {
+                    @Override
+                    protected Object[] query() throws SQLException {
+                        String query = "select * from Product where ID = '"+ productId + "' ";
+                        try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(query)) {
+                            if (rs.next()) { // Check if the ResultSet is not empty
+                                return new Object[] {
+                                    rs.getString("Products"),
+                                    rs.getString("Category"),
+                                    rs.getString("Name"),
+                                    rs.getString("Brand"),
+                                    rs.getInt("Cost"),
+                                    rs.getInt("Quantity")
+                                };
+                            }
+                            return null;
+                        }
+                    }
+
+                    @Override
+                    protected void succeeded(Object[] product) {
+                        viewProductButton.setEnabled(true);
+                        if (product != null) {
                             // Display the product details in a message dialog
                             JOptionPane.showMessageDialog(frame,
                                     "Product ID: " + productId + "\n" +
-                                    "Products: " + products + "\n" +
-                                    "Category: " + category + "\n" +
-                                    "Name: " + name + "\n" +
-                                    "Brand: " + brand + "\n" +
-                                    "Cost: " + cost + "\n" +
-                                    "Quantity: " + quantity,
+                                    "Products: " + product[0] + "\n" +
+                                    "Category: " + product[1] + "\n" +
+                                    "Name: " + product[2] + "\n" +
+                                    "Brand: " + product[3] + "\n" +
+                                    "Cost: " + product[4] + "\n" +
+                                    "Quantity: " + product[5],
                                     "Product Details",
                                     JOptionPane.INFORMATION_MESSAGE);
                         }
                         else{
                             JOptionPane.showMessageDialog(frame,"No product found with ID: " + productId,"Error",JOptionPane.ERROR_MESSAGE);
                         }
-                        
                     }
-                }
-                catch(SQLException ex)
-                {
-                    //ex.printStackTrace();
-                    JOptionPane.showMessageDialog(frame,"Error: " + ex.getMessage(),"Database Error",JOptionPane.ERROR_MESSAGE);
-                }
+
+                    @Override
+                    protected void failed(Exception ex) {
+                        viewProductButton.setEnabled(true);
+                        JOptionPane.showMessageDialog(frame,"Error: " + ex.getMessage(),"Database Error",JOptionPane.ERROR_MESSAGE);
+                    }
+                }.start();
             }                
             else{
                 // If no product ID is entered, display an error message
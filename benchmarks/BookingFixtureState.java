@@ -0,0 +1,44 @@
+package benchmarks;
+
+import BookMyTrainTicket.BenchmarkFixture;
+import BookMyTrainTicket.BookingManager;
+import BookMyTrainTicket.RACQueue;
+import BookMyTrainTicket.SeatAvailabilityManager;
+import BookMyTrainTicket.TrainManager;
+import BookMyTrainTicket.WaitlistManager;
+import java.sql.SQLException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Managers and a BenchmarkFixture shared by the database benchmarks of one fork
+ * Each fork is a fresh JVM on the embedded in-memory database, so runs start
+ * from the same schema and sample data and can be compared commit to commit.
+ */
+@State(Scope.Benchmark)
+public class BookingFixtureState {
+    TrainManager trainManager;
+    SeatAvailabilityManager seatManager;
+    BookingManager bookingManager;
+    RACQueue racQueue;
+    WaitlistManager waitlistManager;
+    BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        trainManager = new TrainManager();
+        seatManager = new SeatAvailabilityManager();
+        bookingManager = new BookingManager();
+        racQueue = new RACQueue();
+        waitlistManager = new WaitlistManager();
+        fixture = BenchmarkFixture.create();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        fixture.cleanUp();
+    }
+}
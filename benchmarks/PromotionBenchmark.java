@@ -0,0 +1,38 @@
+package benchmarks;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RAC and waitlist promotion: queue the fixture's user, then promote the head
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.profile=embedded")
+public class PromotionBenchmark {
+
+    @Benchmark
+    public boolean racPromotion(BookingFixtureState state) throws SQLException {
+        int trainId = state.fixture.getTrainId();
+        int routeId = state.fixture.getRouteId();
+        state.racQueue.addToRAC(state.fixture.getUserId(), trainId, routeId);
+        return state.racQueue.promoteFromRAC(trainId, routeId);
+    }
+
+    @Benchmark
+    public boolean waitlistPromotion(BookingFixtureState state) throws SQLException {
+        int trainId = state.fixture.getTrainId();
+        int routeId = state.fixture.getRouteId();
+        state.waitlistManager.addToWaitlist(state.fixture.getUserId(), trainId, routeId);
+        return state.waitlistManager.promoteFromWaitlist(trainId, routeId);
+    }
+}
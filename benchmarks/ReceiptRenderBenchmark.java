@@ -0,0 +1,34 @@
+package benchmarks;
+
+import BookMyTrainTicket.BenchmarkFixture;
+import BookMyTrainTicket.PaymentManager;
+import BookMyTrainTicket.ReceiptRenderer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Receipt rendering; needs no database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptRenderBenchmark {
+    private final PaymentManager.PaymentReceipt receipt = BenchmarkFixture.sampleReceipt();
+    private final ReceiptRenderer renderer = ReceiptRenderer.getDefault();
+
+    @Benchmark
+    public String renderReceipt() {
+        return renderer.renderToString(receipt);
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import BookMyTrainTicket.BenchmarkFixture;
+import BookMyTrainTicket.SeatAvailabilityManager;
+import BookMyTrainTicket.TrainManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Train search and the available-seat listing on the fixture's route
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Ddb.profile=embedded")
+public class SearchBenchmark {
+
+    @Benchmark
+    public List<TrainManager.TrainSearchResult> searchTrains(BookingFixtureState state) throws SQLException {
+        return state.trainManager.searchTrains(BenchmarkFixture.SOURCE, BenchmarkFixture.DESTINATION);
+    }
+
+    @Benchmark
+    public List<SeatAvailabilityManager.SeatWithDetails> getAvailableSeats(BookingFixtureState state) throws SQLException {
+        return state.seatManager.getAvailableSeats(state.fixture.getTrainId(), state.fixture.getRouteId());
+    }
+}